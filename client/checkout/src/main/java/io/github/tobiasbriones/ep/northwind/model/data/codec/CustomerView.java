@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Defines a read-only view of a customer encoded by the {@link RecordCodec},
+ * reading its fields straight from the buffer when they are requested.
+ * <p>
+ * A view is moved from record to record with
+ * {@link #reset(ByteBuffer, int, List)}, which only locates the fields of
+ * the record, so scanning many records with a single view creates no
+ * garbage. The numbers and the dictionary strings are read without
+ * allocating, the other strings are decoded on each call. The customer is
+ * materialized with {@link #toCustomer()} when it has to outlive the view.
+ * <p>
+ * The records must be encoded without inline dictionary definitions, like
+ * the ones of a mapped file whose dictionary is stored aside. A view is not
+ * thread-safe.
+ */
+public final class CustomerView {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    // The fields in the order written by RecordCodec.writeCustomer, which
+    // are all strings so their index is their presence bit
+    private static final int COMPANY = 0;
+    private static final int LAST_NAME = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int JOB_TITLE = 4;
+    private static final int BUSINESS_PHONE = 5;
+    private static final int HOME_PHONE = 6;
+    private static final int MOBILE_PHONE = 7;
+    private static final int FAX_NUMBER = 8;
+    private static final int ADDRESS = 9;
+    private static final int CITY = 10;
+    private static final int STATE_PROVINCE = 11;
+    private static final int ZIP_POSTAL_CODE = 12;
+    private static final int COUNTRY_REGION = 13;
+    private static final int WEB_PAGE = 14;
+    private static final int NOTES = 15;
+    private static final int ATTACHMENTS = 16;
+    private static final int FIELD_COUNT = 17;
+
+    private static final int ABSENT = -1;
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final RecordInput in;
+    private final int[] offsets;
+    private int recordOffset;
+    private int id;
+
+    /**
+     * Creates a new CustomerView, it has to be given a record with
+     * {@link #reset(ByteBuffer, int, List)} before reading.
+     */
+    public CustomerView() {
+        this.in = new RecordInput();
+        this.offsets = new int[FIELD_COUNT];
+        this.recordOffset = ABSENT;
+        this.id = 0;
+    }
+
+    /**
+     * Moves this view to the customer encoded at the given offset of the
+     * buffer.
+     *
+     * @param buffer     buffer holding the record
+     * @param offset     offset of the record
+     * @param dictionary dictionary of the records of the buffer, it's not
+     *                   copied
+     *
+     * @throws RuntimeException if the record is malformed
+     */
+    public void reset(ByteBuffer buffer, int offset, List<String> dictionary) {
+        in.reset(buffer, offset);
+        in.setDictionary(dictionary);
+        id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        locateString(COMPANY, presence);
+        locateString(LAST_NAME, presence);
+        locateString(FIRST_NAME, presence);
+        locateString(EMAIL, presence);
+        locateDictionaryString(JOB_TITLE, presence);
+        locateString(BUSINESS_PHONE, presence);
+        locateString(HOME_PHONE, presence);
+        locateString(MOBILE_PHONE, presence);
+        locateString(FAX_NUMBER, presence);
+        locateString(ADDRESS, presence);
+        locateDictionaryString(CITY, presence);
+        locateDictionaryString(STATE_PROVINCE, presence);
+        locateString(ZIP_POSTAL_CODE, presence);
+        locateDictionaryString(COUNTRY_REGION, presence);
+        locateString(WEB_PAGE, presence);
+        locateString(NOTES, presence);
+        locateString(ATTACHMENTS, presence);
+        recordOffset = offset;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCompany() {
+        return readString(COMPANY);
+    }
+
+    public String getLastName() {
+        return readString(LAST_NAME);
+    }
+
+    public String getFirstName() {
+        return readString(FIRST_NAME);
+    }
+
+    public String getEmail() {
+        return readString(EMAIL);
+    }
+
+    public String getJobTitle() {
+        return readDictionaryString(JOB_TITLE);
+    }
+
+    public String getBusinessPhone() {
+        return readString(BUSINESS_PHONE);
+    }
+
+    public String getHomePhone() {
+        return readString(HOME_PHONE);
+    }
+
+    public String getMobilePhone() {
+        return readString(MOBILE_PHONE);
+    }
+
+    public String getFaxNumber() {
+        return readString(FAX_NUMBER);
+    }
+
+    public String getAddress() {
+        return readString(ADDRESS);
+    }
+
+    public String getCity() {
+        return readDictionaryString(CITY);
+    }
+
+    public String getStateProvince() {
+        return readDictionaryString(STATE_PROVINCE);
+    }
+
+    public String getZipPostalCode() {
+        return readString(ZIP_POSTAL_CODE);
+    }
+
+    public String getCountryRegion() {
+        return readDictionaryString(COUNTRY_REGION);
+    }
+
+    public String getWebPage() {
+        return readString(WEB_PAGE);
+    }
+
+    public String getNotes() {
+        return readString(NOTES);
+    }
+
+    public String getAttachments() {
+        return readString(ATTACHMENTS);
+    }
+
+    /**
+     * Decodes the customer of this view into a new record.
+     *
+     * @return the customer of this view
+     *
+     * @throws RuntimeException if this view has no record
+     */
+    public Customer toCustomer() {
+        requireRecord();
+        in.seek(recordOffset);
+        return RecordCodec.readCustomer(in);
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerView[" +
+               "id=" + id + ", " +
+               "recordOffset=" + recordOffset +
+               "]";
+    }
+
+    private void locateString(int field, long presence) {
+        if ((presence & (1L << field)) == 0L) {
+            offsets[field] = ABSENT;
+            return;
+        }
+        offsets[field] = in.getPosition();
+        in.skipString();
+    }
+
+    private void locateDictionaryString(int field, long presence) {
+        if ((presence & (1L << field)) == 0L) {
+            offsets[field] = ABSENT;
+            return;
+        }
+        offsets[field] = in.getPosition();
+        in.readDictionaryString();
+    }
+
+    private String readString(int field) {
+        if (offsets[field] == ABSENT) {
+            return null;
+        }
+        in.seek(offsets[field]);
+        return in.readString();
+    }
+
+    private String readDictionaryString(int field) {
+        if (offsets[field] == ABSENT) {
+            return null;
+        }
+        in.seek(offsets[field]);
+        return in.readDictionaryString();
+    }
+
+    private void requireRecord() {
+        if (recordOffset == ABSENT) {
+            throw new RuntimeException("The customer view has no record");
+        }
+    }
+
+}
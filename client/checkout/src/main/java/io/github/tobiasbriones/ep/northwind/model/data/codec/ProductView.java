@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Defines a read-only view of a product encoded by the {@link RecordCodec},
+ * reading its fields straight from the buffer when they are requested.
+ * <p>
+ * A view is moved from record to record with
+ * {@link #reset(ByteBuffer, int, List)}, which only locates the fields of
+ * the record, so scanning many records with a single view creates no
+ * garbage. The numbers and the dictionary strings are read without
+ * allocating, the other strings are decoded on each call. The product is
+ * materialized with {@link #toProduct()} when it has to outlive the view.
+ * <p>
+ * The records must be encoded without inline dictionary definitions, like
+ * the ones of a mapped file whose dictionary is stored aside. A view is not
+ * thread-safe.
+ */
+public final class ProductView {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    // The fields in the order written by RecordCodec.writeProduct
+    private static final int CODE = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int QUANTITY_PER_UNIT = 3;
+    private static final int CATEGORY = 4;
+    private static final int ATTACHMENTS = 5;
+    private static final int SUPPLIER_IDS = 6;
+    private static final int STANDARD_COST = 7;
+    private static final int LIST_PRICE = 8;
+    private static final int REORDER_LEVEL = 9;
+    private static final int TARGET_LEVEL = 10;
+    private static final int MINIMUM_REORDER_QUANTITY = 11;
+    private static final int DISCONTINUED = 12;
+    private static final int FIELD_COUNT = 13;
+
+    private static final int ABSENT = -1;
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final RecordInput in;
+    private final int[] offsets;
+    private int recordOffset;
+    private int id;
+
+    /**
+     * Creates a new ProductView, it has to be given a record with
+     * {@link #reset(ByteBuffer, int, List)} before reading.
+     */
+    public ProductView() {
+        this.in = new RecordInput();
+        this.offsets = new int[FIELD_COUNT];
+        this.recordOffset = ABSENT;
+        this.id = 0;
+    }
+
+    /**
+     * Moves this view to the product encoded at the given offset of the
+     * buffer.
+     *
+     * @param buffer     buffer holding the record
+     * @param offset     offset of the record
+     * @param dictionary dictionary of the records of the buffer, it's not
+     *                   copied
+     *
+     * @throws RuntimeException if the record is malformed
+     */
+    public void reset(ByteBuffer buffer, int offset, List<String> dictionary) {
+        in.reset(buffer, offset);
+        in.setDictionary(dictionary);
+        id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        locateString(CODE, presence);
+        locateString(NAME, presence);
+        locateString(DESCRIPTION, presence);
+        locateDictionaryString(QUANTITY_PER_UNIT, presence);
+        locateDictionaryString(CATEGORY, presence);
+        locateString(ATTACHMENTS, presence);
+        locateString(SUPPLIER_IDS, presence);
+        offsets[STANDARD_COST] = in.getPosition();
+        in.readDouble();
+        offsets[LIST_PRICE] = in.getPosition();
+        in.readDouble();
+        offsets[REORDER_LEVEL] = in.getPosition();
+        in.readSignedVarInt();
+        offsets[TARGET_LEVEL] = in.getPosition();
+        in.readSignedVarInt();
+        offsets[MINIMUM_REORDER_QUANTITY] = in.getPosition();
+        in.readSignedVarInt();
+        offsets[DISCONTINUED] = in.getPosition();
+        recordOffset = offset;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return readString(CODE);
+    }
+
+    public String getName() {
+        return readString(NAME);
+    }
+
+    public String getDescription() {
+        return readString(DESCRIPTION);
+    }
+
+    public double getStandardCost() {
+        in.seek(offsets[STANDARD_COST]);
+        return in.readDouble();
+    }
+
+    public double getListPrice() {
+        in.seek(offsets[LIST_PRICE]);
+        return in.readDouble();
+    }
+
+    public int getReorderLevel() {
+        in.seek(offsets[REORDER_LEVEL]);
+        return in.readSignedVarInt();
+    }
+
+    public int getTargetLevel() {
+        in.seek(offsets[TARGET_LEVEL]);
+        return in.readSignedVarInt();
+    }
+
+    public String getQuantityPerUnit() {
+        return readDictionaryString(QUANTITY_PER_UNIT);
+    }
+
+    public boolean isDiscontinued() {
+        in.seek(offsets[DISCONTINUED]);
+        return in.readBoolean();
+    }
+
+    public int getMinimumReorderQuantity() {
+        in.seek(offsets[MINIMUM_REORDER_QUANTITY]);
+        return in.readSignedVarInt();
+    }
+
+    public String getCategory() {
+        return readDictionaryString(CATEGORY);
+    }
+
+    public String getAttachments() {
+        return readString(ATTACHMENTS);
+    }
+
+    public String getSupplierIds() {
+        return readString(SUPPLIER_IDS);
+    }
+
+    /**
+     * Decodes the product of this view into a new record.
+     *
+     * @return the product of this view
+     *
+     * @throws RuntimeException if this view has no record
+     */
+    public Product toProduct() {
+        requireRecord();
+        in.seek(recordOffset);
+        return RecordCodec.readProduct(in);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductView[" +
+               "id=" + id + ", " +
+               "recordOffset=" + recordOffset +
+               "]";
+    }
+
+    private void locateString(int field, long presence) {
+        if ((presence & (1L << field)) == 0L) {
+            offsets[field] = ABSENT;
+            return;
+        }
+        offsets[field] = in.getPosition();
+        in.skipString();
+    }
+
+    private void locateDictionaryString(int field, long presence) {
+        if ((presence & (1L << field)) == 0L) {
+            offsets[field] = ABSENT;
+            return;
+        }
+        offsets[field] = in.getPosition();
+        in.readDictionaryString();
+    }
+
+    private String readString(int field) {
+        if (offsets[field] == ABSENT) {
+            return null;
+        }
+        in.seek(offsets[field]);
+        return in.readString();
+    }
+
+    private String readDictionaryString(int field) {
+        if (offsets[field] == ABSENT) {
+            return null;
+        }
+        in.seek(offsets[field]);
+        return in.readDictionaryString();
+    }
+
+    private void requireRecord() {
+        if (recordOffset == ABSENT) {
+            throw new RuntimeException("The product view has no record");
+        }
+    }
+
+}
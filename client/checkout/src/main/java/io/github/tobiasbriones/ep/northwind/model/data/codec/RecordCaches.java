@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import io.github.tobiasbriones.ep.northwind.model.model.RecordCache;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+
+/**
+ * Defines the caches that resolve the references decoded without their
+ * records, like the customer of an order written while it was not loaded.
+ * <p>
+ * A {@link RecordInput} given these caches decodes those references as lazy
+ * references of the cache of their type, so the records are loaded only when
+ * they are requested. The references of a type without a cache keep only
+ * their id. The caches are set before the RecordCaches is given to the
+ * inputs, and can be shared by many of them.
+ */
+public final class RecordCaches {
+
+    private RecordCache<Customer> customers;
+    private RecordCache<Employee> employees;
+    private RecordCache<Shipper> shippers;
+    private RecordCache<Product> products;
+
+    /**
+     * Creates a RecordCaches without caches.
+     */
+    public RecordCaches() {
+        this.customers = null;
+        this.employees = null;
+        this.shippers = null;
+        this.products = null;
+    }
+
+    public RecordCache<Customer> getCustomers() {
+        return customers;
+    }
+
+    public RecordCaches setCustomers(RecordCache<Customer> value) {
+        customers = value;
+        return this;
+    }
+
+    public RecordCache<Employee> getEmployees() {
+        return employees;
+    }
+
+    public RecordCaches setEmployees(RecordCache<Employee> value) {
+        employees = value;
+        return this;
+    }
+
+    public RecordCache<Shipper> getShippers() {
+        return shippers;
+    }
+
+    public RecordCaches setShippers(RecordCache<Shipper> value) {
+        shippers = value;
+        return this;
+    }
+
+    public RecordCache<Product> getProducts() {
+        return products;
+    }
+
+    public RecordCaches setProducts(RecordCache<Product> value) {
+        products = value;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordCaches[" +
+               "customers=" + customers + ", " +
+               "employees=" + employees + ", " +
+               "shippers=" + shippers + ", " +
+               "products=" + products +
+               "]";
+    }
+
+}
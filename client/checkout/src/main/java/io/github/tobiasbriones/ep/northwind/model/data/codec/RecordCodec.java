@@ -0,0 +1,1037 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordCache;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.CustomerBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.EmployeeBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.Order;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetail;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderTaxStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.purchase.PurchaseOrder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.purchase.PurchaseOrderBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.purchase.PurchaseOrderStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.product.ProductBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.ShipperBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.Supplier;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.SupplierBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Encodes and decodes the Northwind's records in a compact binary form.
+ * <p>
+ * A record starts with its id and a bitmap telling which of its nullable
+ * fields are present, so the null fields take no space. The referenced
+ * records, like the customer of an order, are embedded so a record can be
+ * decoded without the server. They are embedded as shared references of the
+ * {@link RecordOutput}, so a record referenced many times in a payload, like
+ * the product of many order lines or the customer of many orders, is written
+ * once and read back as a single instance.
+ * <p>
+ * The lazy references of a record, like the customer of an order, are
+ * written with the id of their record, which is embedded only if the
+ * reference is resolved already, so writing a record never loads the records
+ * it refers to. The references written without their record are read back
+ * with only their id, and resolved through the {@link RecordCaches} of the
+ * {@link RecordInput} if it has them. The low cardinality strings,
+ * like the city names or the status names, go through the dictionary of the
+ * {@link RecordOutput}. Each record type is encoded by plain code, without
+ * reflection.
+ * <p>
+ * The encoding is versioned by {@link #FORMAT_VERSION}, which the files
+ * holding records store in their headers so they can tell apart the records
+ * of a previous version.
+ */
+public final class RecordCodec {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the version of the encoding of this codec.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    // The version 1 embeds every occurrence of a record in full
+    private static final int SHARED_REFERENCES_FORMAT_VERSION = 2;
+
+    // The version 2 embeds the referenced records without their ids, and
+    // drops the lazy references that are not resolved
+    private static final int REFERENCE_IDS_FORMAT_VERSION = 3;
+
+    /**
+     * Writes the given order with its details. The order of the details is
+     * not written, they are linked to the order when read. The orders written
+     * to the same output share their customers, employees and products.
+     *
+     * @param out       output to write to
+     * @param cartOrder order to write
+     */
+    public static void writeCartOrder(RecordOutput out, CartOrder cartOrder) {
+        final var details = cartOrder.getDetails();
+
+        writeOrder(out, cartOrder.getOrder());
+        out.writeVarInt(details.size());
+        for (int i = 0; i < details.size(); i++) {
+            writeOrderDetail(out, details.get(i));
+        }
+    }
+
+    /**
+     * Reads an order with its details.
+     *
+     * @param in input to read from
+     *
+     * @return the order read
+     */
+    public static CartOrder readCartOrder(RecordInput in) {
+        final var order = readOrder(in);
+        final int size = in.readVarInt();
+        final var details = new ArrayList<OrderDetail>(size);
+
+        for (int i = 0; i < size; i++) {
+            details.add(readOrderDetail(in, order));
+        }
+        return new CartOrder(order, Collections.unmodifiableList(details));
+    }
+
+    /**
+     * Writes the given order without its details.
+     *
+     * @param out   output to write to
+     * @param order order to write
+     */
+    public static void writeOrder(RecordOutput out, Order order) {
+        final long presence = bit(0, order.getEmployeeRef()) |
+                              bit(1, order.getCustomerRef()) |
+                              bit(2, order.getShipperRef()) |
+                              bit(3, order.getOrderTaxStatus()) |
+                              bit(4, order.getOrderStatus()) |
+                              bit(5, order.getOrderDate()) |
+                              bit(6, order.getShippedDate()) |
+                              bit(7, order.getShipName()) |
+                              bit(8, order.getShipAddress()) |
+                              bit(9, order.getShipCity()) |
+                              bit(10, order.getShipProvince()) |
+                              bit(11, order.getShipZipPostalCode()) |
+                              bit(12, order.getShipCountryRegion()) |
+                              bit(13, order.getPaymentType()) |
+                              bit(14, order.getPaidDate()) |
+                              bit(15, order.getNotes());
+
+        out.writeSignedVarInt(order.getId());
+        out.writeVarLong(presence);
+        writeRef(out, order.getEmployeeRef(), RecordCodec::writeEmployee);
+        writeRef(out, order.getCustomerRef(), RecordCodec::writeCustomer);
+        writeRef(out, order.getShipperRef(), RecordCodec::writeShipper);
+        writeShared(out, order.getOrderTaxStatus(), RecordCodec::writeOrderTaxStatus);
+        writeShared(out, order.getOrderStatus(), RecordCodec::writeOrderStatus);
+        writeDateTime(out, order.getOrderDate());
+        writeDateTime(out, order.getShippedDate());
+        writeString(out, order.getShipName());
+        writeString(out, order.getShipAddress());
+        writeDictionaryString(out, order.getShipCity());
+        writeDictionaryString(out, order.getShipProvince());
+        writeString(out, order.getShipZipPostalCode());
+        writeDictionaryString(out, order.getShipCountryRegion());
+        writeDictionaryString(out, order.getPaymentType());
+        writeDateTime(out, order.getPaidDate());
+        writeString(out, order.getNotes());
+        out.writeDouble(order.getShippingFee());
+        out.writeDouble(order.getTaxes());
+        out.writeDouble(order.getTaxRate());
+    }
+
+    /**
+     * Reads an order without its details.
+     *
+     * @param in input to read from
+     *
+     * @return the order read
+     */
+    public static Order readOrder(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new OrderBuilder(id)
+            .setEmployeeRef(readRef(
+                in,
+                presence,
+                0,
+                Employee.class,
+                RecordCodec::readEmployee,
+                RecordCaches::getEmployees
+            ))
+            .setCustomerRef(readRef(
+                in,
+                presence,
+                1,
+                Customer.class,
+                RecordCodec::readCustomer,
+                RecordCaches::getCustomers
+            ))
+            .setShipperRef(readRef(
+                in,
+                presence,
+                2,
+                Shipper.class,
+                RecordCodec::readShipper,
+                RecordCaches::getShippers
+            ))
+            .setOrderTaxStatus(readShared(
+                in, presence, 3, OrderTaxStatus.class, RecordCodec::readOrderTaxStatus
+            ))
+            .setOrderStatus(readShared(
+                in, presence, 4, OrderStatus.class, RecordCodec::readOrderStatus
+            ))
+            .setOrderDate(readDateTime(in, presence, 5))
+            .setShippedDate(readDateTime(in, presence, 6))
+            .setShipName(readString(in, presence, 7))
+            .setShipAddress(readString(in, presence, 8))
+            .setShipCity(readDictionaryString(in, presence, 9))
+            .setShipProvince(readDictionaryString(in, presence, 10))
+            .setShipZipPostalCode(readString(in, presence, 11))
+            .setShipCountryRegion(readDictionaryString(in, presence, 12))
+            .setPaymentType(readDictionaryString(in, presence, 13))
+            .setPaidDate(readDateTime(in, presence, 14))
+            .setNotes(readString(in, presence, 15))
+            .setShippingFee(in.readDouble())
+            .setTaxes(in.readDouble())
+            .setTaxRate(in.readDouble())
+            .build();
+    }
+
+    /**
+     * Writes the given order detail without its order.
+     *
+     * @param out    output to write to
+     * @param detail order detail to write
+     */
+    public static void writeOrderDetail(RecordOutput out, OrderDetail detail) {
+        final long presence = bit(0, detail.getProductRef()) |
+                              bit(1, detail.getStatus()) |
+                              bit(2, detail.getDateAllocated());
+
+        out.writeSignedVarInt(detail.getId());
+        out.writeVarLong(presence);
+        writeRef(out, detail.getProductRef(), RecordCodec::writeProduct);
+        writeShared(out, detail.getStatus(), RecordCodec::writeOrderDetailStatus);
+        writeDate(out, detail.getDateAllocated());
+        out.writeDouble(detail.getQuantity());
+        out.writeDouble(detail.getUnitPrice());
+        out.writeDouble(detail.getDiscount());
+        out.writeSignedVarInt(detail.getPurchaseOrderId());
+        out.writeSignedVarInt(detail.getInventoryId());
+    }
+
+    /**
+     * Reads an order detail of the given order.
+     *
+     * @param in    input to read from
+     * @param order order of the detail
+     *
+     * @return the order detail read
+     */
+    public static OrderDetail readOrderDetail(RecordInput in, Order order) {
+        return readOrderDetail(in, RecordRef.of(order));
+    }
+
+    /**
+     * Writes the given order detail with its order as a shared reference, so
+     * the details of the same order written to an output hold the order
+     * once.
+     *
+     * @param out    output to write to
+     * @param detail order detail to write
+     */
+    public static void writeLinkedOrderDetail(RecordOutput out, OrderDetail detail) {
+        out.writeVarLong(bit(0, detail.getOrderRef()));
+        writeRef(out, detail.getOrderRef(), RecordCodec::writeOrder);
+        writeOrderDetail(out, detail);
+    }
+
+    /**
+     * Reads an order detail with its order, the counterpart of
+     * {@link #writeLinkedOrderDetail(RecordOutput, OrderDetail)}.
+     *
+     * @param in input to read from
+     *
+     * @return the order detail read
+     */
+    public static OrderDetail readLinkedOrderDetail(RecordInput in) {
+        final long presence = in.readVarLong();
+        final var order = readRef(
+            in, presence, 0, Order.class, RecordCodec::readOrder, null
+        );
+        return readOrderDetail(in, order);
+    }
+
+    /**
+     * Writes the given purchase order.
+     *
+     * @param out           output to write to
+     * @param purchaseOrder purchase order to write
+     */
+    public static void writePurchaseOrder(
+        RecordOutput out,
+        PurchaseOrder purchaseOrder
+    ) {
+        final long presence = bit(0, purchaseOrder.getSupplier()) |
+                              bit(1, purchaseOrder.getCreatedBy()) |
+                              bit(2, purchaseOrder.getStatus()) |
+                              bit(3, purchaseOrder.getSubmittedDate()) |
+                              bit(4, purchaseOrder.getCreationDate()) |
+                              bit(5, purchaseOrder.getExpectedDate()) |
+                              bit(6, purchaseOrder.getPaymentDate()) |
+                              bit(7, purchaseOrder.getPaymentMethod()) |
+                              bit(8, purchaseOrder.getNotes()) |
+                              bit(9, purchaseOrder.getApproveDate());
+
+        out.writeSignedVarInt(purchaseOrder.getId());
+        out.writeVarLong(presence);
+        writeShared(out, purchaseOrder.getSupplier(), RecordCodec::writeSupplier);
+        writeShared(out, purchaseOrder.getCreatedBy(), RecordCodec::writeEmployee);
+        writeShared(
+            out,
+            purchaseOrder.getStatus(),
+            RecordCodec::writePurchaseOrderStatus
+        );
+        writeDate(out, purchaseOrder.getSubmittedDate());
+        writeDate(out, purchaseOrder.getCreationDate());
+        writeDate(out, purchaseOrder.getExpectedDate());
+        writeDate(out, purchaseOrder.getPaymentDate());
+        writeDictionaryString(out, purchaseOrder.getPaymentMethod());
+        writeString(out, purchaseOrder.getNotes());
+        writeDate(out, purchaseOrder.getApproveDate());
+        out.writeDouble(purchaseOrder.getShippingFee());
+        out.writeDouble(purchaseOrder.getTaxes());
+        out.writeDouble(purchaseOrder.getPaymentAmount());
+        out.writeSignedVarInt(purchaseOrder.getApprovedBy());
+        out.writeSignedVarInt(purchaseOrder.getSubmittedBy());
+    }
+
+    /**
+     * Reads a purchase order.
+     *
+     * @param in input to read from
+     *
+     * @return the purchase order read
+     */
+    public static PurchaseOrder readPurchaseOrder(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new PurchaseOrderBuilder(id)
+            .setSupplier(readShared(
+                in, presence, 0, Supplier.class, RecordCodec::readSupplier
+            ))
+            .setCreatedBy(readShared(
+                in, presence, 1, Employee.class, RecordCodec::readEmployee
+            ))
+            .setStatus(readShared(
+                in,
+                presence,
+                2,
+                PurchaseOrderStatus.class,
+                RecordCodec::readPurchaseOrderStatus
+            ))
+            .setSubmittedDate(readDate(in, presence, 3))
+            .setCreationDate(readDate(in, presence, 4))
+            .setExpectedDate(readDate(in, presence, 5))
+            .setPaymentDate(readDate(in, presence, 6))
+            .setPaymentMethod(readDictionaryString(in, presence, 7))
+            .setNotes(readString(in, presence, 8))
+            .setApproveDate(readDate(in, presence, 9))
+            .setShippingFee(in.readDouble())
+            .setTaxes(in.readDouble())
+            .setPaymentAmount(in.readDouble())
+            .setApprovedBy(in.readSignedVarInt())
+            .setSubmittedBy(in.readSignedVarInt())
+            .build();
+    }
+
+    /**
+     * Writes the given product.
+     *
+     * @param out     output to write to
+     * @param product product to write
+     */
+    public static void writeProduct(RecordOutput out, Product product) {
+        final long presence = bit(0, product.getCode()) |
+                              bit(1, product.getName()) |
+                              bit(2, product.getDescription()) |
+                              bit(3, product.getQuantityPerUnit()) |
+                              bit(4, product.getCategory()) |
+                              bit(5, product.getAttachments()) |
+                              bit(6, product.getSupplierIds());
+
+        out.writeSignedVarInt(product.getId());
+        out.writeVarLong(presence);
+        writeString(out, product.getCode());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        writeDictionaryString(out, product.getQuantityPerUnit());
+        writeDictionaryString(out, product.getCategory());
+        writeString(out, product.getAttachments());
+        writeString(out, product.getSupplierIds());
+        out.writeDouble(product.getStandardCost());
+        out.writeDouble(product.getListPrice());
+        out.writeSignedVarInt(product.getReorderLevel());
+        out.writeSignedVarInt(product.getTargetLevel());
+        out.writeSignedVarInt(product.getMinimumReorderQuantity());
+        out.writeBoolean(product.isDiscontinued());
+    }
+
+    /**
+     * Reads a product.
+     *
+     * @param in input to read from
+     *
+     * @return the product read
+     */
+    public static Product readProduct(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new ProductBuilder(id)
+            .setCode(readString(in, presence, 0))
+            .setName(readString(in, presence, 1))
+            .setDescription(readString(in, presence, 2))
+            .setQuantityPerUnit(readDictionaryString(in, presence, 3))
+            .setCategory(readDictionaryString(in, presence, 4))
+            .setAttachments(readString(in, presence, 5))
+            .setSupplierIds(readString(in, presence, 6))
+            .setStandardCost(in.readDouble())
+            .setListPrice(in.readDouble())
+            .setReorderLevel(in.readSignedVarInt())
+            .setTargetLevel(in.readSignedVarInt())
+            .setMinimumReorderQuantity(in.readSignedVarInt())
+            .setDiscontinued(in.readBoolean())
+            .build();
+    }
+
+    /**
+     * Writes the given customer.
+     *
+     * @param out output to write to
+     * @param customer customer to write
+     */
+    public static void writeCustomer(RecordOutput out, Customer customer) {
+        final long presence = bit(0, customer.getCompany()) |
+                              bit(1, customer.getLastName()) |
+                              bit(2, customer.getFirstName()) |
+                              bit(3, customer.getEmail()) |
+                              bit(4, customer.getJobTitle()) |
+                              bit(5, customer.getBusinessPhone()) |
+                              bit(6, customer.getHomePhone()) |
+                              bit(7, customer.getMobilePhone()) |
+                              bit(8, customer.getFaxNumber()) |
+                              bit(9, customer.getAddress()) |
+                              bit(10, customer.getCity()) |
+                              bit(11, customer.getStateProvince()) |
+                              bit(12, customer.getZipPostalCode()) |
+                              bit(13, customer.getCountryRegion()) |
+                              bit(14, customer.getWebPage()) |
+                              bit(15, customer.getNotes()) |
+                              bit(16, customer.getAttachments());
+
+        out.writeSignedVarInt(customer.getId());
+        out.writeVarLong(presence);
+        writeString(out, customer.getCompany());
+        writeString(out, customer.getLastName());
+        writeString(out, customer.getFirstName());
+        writeString(out, customer.getEmail());
+        writeDictionaryString(out, customer.getJobTitle());
+        writeString(out, customer.getBusinessPhone());
+        writeString(out, customer.getHomePhone());
+        writeString(out, customer.getMobilePhone());
+        writeString(out, customer.getFaxNumber());
+        writeString(out, customer.getAddress());
+        writeDictionaryString(out, customer.getCity());
+        writeDictionaryString(out, customer.getStateProvince());
+        writeString(out, customer.getZipPostalCode());
+        writeDictionaryString(out, customer.getCountryRegion());
+        writeString(out, customer.getWebPage());
+        writeString(out, customer.getNotes());
+        writeString(out, customer.getAttachments());
+    }
+
+    /**
+     * Reads a customer.
+     *
+     * @param in input to read from
+     *
+     * @return the customer read
+     */
+    public static Customer readCustomer(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new CustomerBuilder(id)
+            .setCompany(readString(in, presence, 0))
+            .setLastName(readString(in, presence, 1))
+            .setFirstName(readString(in, presence, 2))
+            .setEmail(readString(in, presence, 3))
+            .setJobTitle(readDictionaryString(in, presence, 4))
+            .setBusinessPhone(readString(in, presence, 5))
+            .setHomePhone(readString(in, presence, 6))
+            .setMobilePhone(readString(in, presence, 7))
+            .setFaxNumber(readString(in, presence, 8))
+            .setAddress(readString(in, presence, 9))
+            .setCity(readDictionaryString(in, presence, 10))
+            .setStateProvince(readDictionaryString(in, presence, 11))
+            .setZipPostalCode(readString(in, presence, 12))
+            .setCountryRegion(readDictionaryString(in, presence, 13))
+            .setWebPage(readString(in, presence, 14))
+            .setNotes(readString(in, presence, 15))
+            .setAttachments(readString(in, presence, 16))
+            .build();
+    }
+
+    /**
+     * Writes the given employee.
+     *
+     * @param out output to write to
+     * @param employee employee to write
+     */
+    public static void writeEmployee(RecordOutput out, Employee employee) {
+        final long presence = bit(0, employee.getCompany()) |
+                              bit(1, employee.getLastName()) |
+                              bit(2, employee.getFirstName()) |
+                              bit(3, employee.getEmail()) |
+                              bit(4, employee.getJobTitle()) |
+                              bit(5, employee.getBusinessPhone()) |
+                              bit(6, employee.getHomePhone()) |
+                              bit(7, employee.getMobilePhone()) |
+                              bit(8, employee.getFaxNumber()) |
+                              bit(9, employee.getAddress()) |
+                              bit(10, employee.getCity()) |
+                              bit(11, employee.getStateProvince()) |
+                              bit(12, employee.getZipPostalCode()) |
+                              bit(13, employee.getCountryRegion()) |
+                              bit(14, employee.getWebPage()) |
+                              bit(15, employee.getNotes()) |
+                              bit(16, employee.getAttachments());
+
+        out.writeSignedVarInt(employee.getId());
+        out.writeVarLong(presence);
+        writeString(out, employee.getCompany());
+        writeString(out, employee.getLastName());
+        writeString(out, employee.getFirstName());
+        writeString(out, employee.getEmail());
+        writeDictionaryString(out, employee.getJobTitle());
+        writeString(out, employee.getBusinessPhone());
+        writeString(out, employee.getHomePhone());
+        writeString(out, employee.getMobilePhone());
+        writeString(out, employee.getFaxNumber());
+        writeString(out, employee.getAddress());
+        writeDictionaryString(out, employee.getCity());
+        writeDictionaryString(out, employee.getStateProvince());
+        writeString(out, employee.getZipPostalCode());
+        writeDictionaryString(out, employee.getCountryRegion());
+        writeString(out, employee.getWebPage());
+        writeString(out, employee.getNotes());
+        writeString(out, employee.getAttachments());
+    }
+
+    /**
+     * Reads a employee.
+     *
+     * @param in input to read from
+     *
+     * @return the employee read
+     */
+    public static Employee readEmployee(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new EmployeeBuilder(id)
+            .setCompany(readString(in, presence, 0))
+            .setLastName(readString(in, presence, 1))
+            .setFirstName(readString(in, presence, 2))
+            .setEmail(readString(in, presence, 3))
+            .setJobTitle(readDictionaryString(in, presence, 4))
+            .setBusinessPhone(readString(in, presence, 5))
+            .setHomePhone(readString(in, presence, 6))
+            .setMobilePhone(readString(in, presence, 7))
+            .setFaxNumber(readString(in, presence, 8))
+            .setAddress(readString(in, presence, 9))
+            .setCity(readDictionaryString(in, presence, 10))
+            .setStateProvince(readDictionaryString(in, presence, 11))
+            .setZipPostalCode(readString(in, presence, 12))
+            .setCountryRegion(readDictionaryString(in, presence, 13))
+            .setWebPage(readString(in, presence, 14))
+            .setNotes(readString(in, presence, 15))
+            .setAttachments(readString(in, presence, 16))
+            .build();
+    }
+
+    /**
+     * Writes the given shipper.
+     *
+     * @param out output to write to
+     * @param shipper shipper to write
+     */
+    public static void writeShipper(RecordOutput out, Shipper shipper) {
+        final long presence = bit(0, shipper.getCompany()) |
+                              bit(1, shipper.getLastName()) |
+                              bit(2, shipper.getFirstName()) |
+                              bit(3, shipper.getEmail()) |
+                              bit(4, shipper.getJobTitle()) |
+                              bit(5, shipper.getBusinessPhone()) |
+                              bit(6, shipper.getHomePhone()) |
+                              bit(7, shipper.getMobilePhone()) |
+                              bit(8, shipper.getFaxNumber()) |
+                              bit(9, shipper.getAddress()) |
+                              bit(10, shipper.getCity()) |
+                              bit(11, shipper.getStateProvince()) |
+                              bit(12, shipper.getZipPostalCode()) |
+                              bit(13, shipper.getCountryRegion()) |
+                              bit(14, shipper.getWebPage()) |
+                              bit(15, shipper.getNotes()) |
+                              bit(16, shipper.getAttachments());
+
+        out.writeSignedVarInt(shipper.getId());
+        out.writeVarLong(presence);
+        writeString(out, shipper.getCompany());
+        writeString(out, shipper.getLastName());
+        writeString(out, shipper.getFirstName());
+        writeString(out, shipper.getEmail());
+        writeDictionaryString(out, shipper.getJobTitle());
+        writeString(out, shipper.getBusinessPhone());
+        writeString(out, shipper.getHomePhone());
+        writeString(out, shipper.getMobilePhone());
+        writeString(out, shipper.getFaxNumber());
+        writeString(out, shipper.getAddress());
+        writeDictionaryString(out, shipper.getCity());
+        writeDictionaryString(out, shipper.getStateProvince());
+        writeString(out, shipper.getZipPostalCode());
+        writeDictionaryString(out, shipper.getCountryRegion());
+        writeString(out, shipper.getWebPage());
+        writeString(out, shipper.getNotes());
+        writeString(out, shipper.getAttachments());
+    }
+
+    /**
+     * Reads a shipper.
+     *
+     * @param in input to read from
+     *
+     * @return the shipper read
+     */
+    public static Shipper readShipper(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new ShipperBuilder(id)
+            .setCompany(readString(in, presence, 0))
+            .setLastName(readString(in, presence, 1))
+            .setFirstName(readString(in, presence, 2))
+            .setEmail(readString(in, presence, 3))
+            .setJobTitle(readDictionaryString(in, presence, 4))
+            .setBusinessPhone(readString(in, presence, 5))
+            .setHomePhone(readString(in, presence, 6))
+            .setMobilePhone(readString(in, presence, 7))
+            .setFaxNumber(readString(in, presence, 8))
+            .setAddress(readString(in, presence, 9))
+            .setCity(readDictionaryString(in, presence, 10))
+            .setStateProvince(readDictionaryString(in, presence, 11))
+            .setZipPostalCode(readString(in, presence, 12))
+            .setCountryRegion(readDictionaryString(in, presence, 13))
+            .setWebPage(readString(in, presence, 14))
+            .setNotes(readString(in, presence, 15))
+            .setAttachments(readString(in, presence, 16))
+            .build();
+    }
+
+    /**
+     * Writes the given supplier.
+     *
+     * @param out output to write to
+     * @param supplier supplier to write
+     */
+    public static void writeSupplier(RecordOutput out, Supplier supplier) {
+        final long presence = bit(0, supplier.getCompany()) |
+                              bit(1, supplier.getLastName()) |
+                              bit(2, supplier.getFirstName()) |
+                              bit(3, supplier.getEmail()) |
+                              bit(4, supplier.getJobTitle()) |
+                              bit(5, supplier.getBusinessPhone()) |
+                              bit(6, supplier.getHomePhone()) |
+                              bit(7, supplier.getMobilePhone()) |
+                              bit(8, supplier.getFaxNumber()) |
+                              bit(9, supplier.getAddress()) |
+                              bit(10, supplier.getCity()) |
+                              bit(11, supplier.getStateProvince()) |
+                              bit(12, supplier.getZipPostalCode()) |
+                              bit(13, supplier.getCountryRegion()) |
+                              bit(14, supplier.getWebPage()) |
+                              bit(15, supplier.getNotes()) |
+                              bit(16, supplier.getAttachments());
+
+        out.writeSignedVarInt(supplier.getId());
+        out.writeVarLong(presence);
+        writeString(out, supplier.getCompany());
+        writeString(out, supplier.getLastName());
+        writeString(out, supplier.getFirstName());
+        writeString(out, supplier.getEmail());
+        writeDictionaryString(out, supplier.getJobTitle());
+        writeString(out, supplier.getBusinessPhone());
+        writeString(out, supplier.getHomePhone());
+        writeString(out, supplier.getMobilePhone());
+        writeString(out, supplier.getFaxNumber());
+        writeString(out, supplier.getAddress());
+        writeDictionaryString(out, supplier.getCity());
+        writeDictionaryString(out, supplier.getStateProvince());
+        writeString(out, supplier.getZipPostalCode());
+        writeDictionaryString(out, supplier.getCountryRegion());
+        writeString(out, supplier.getWebPage());
+        writeString(out, supplier.getNotes());
+        writeString(out, supplier.getAttachments());
+    }
+
+    /**
+     * Reads a supplier.
+     *
+     * @param in input to read from
+     *
+     * @return the supplier read
+     */
+    public static Supplier readSupplier(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new SupplierBuilder(id)
+            .setCompany(readString(in, presence, 0))
+            .setLastName(readString(in, presence, 1))
+            .setFirstName(readString(in, presence, 2))
+            .setEmail(readString(in, presence, 3))
+            .setJobTitle(readDictionaryString(in, presence, 4))
+            .setBusinessPhone(readString(in, presence, 5))
+            .setHomePhone(readString(in, presence, 6))
+            .setMobilePhone(readString(in, presence, 7))
+            .setFaxNumber(readString(in, presence, 8))
+            .setAddress(readString(in, presence, 9))
+            .setCity(readDictionaryString(in, presence, 10))
+            .setStateProvince(readDictionaryString(in, presence, 11))
+            .setZipPostalCode(readString(in, presence, 12))
+            .setCountryRegion(readDictionaryString(in, presence, 13))
+            .setWebPage(readString(in, presence, 14))
+            .setNotes(readString(in, presence, 15))
+            .setAttachments(readString(in, presence, 16))
+            .build();
+    }
+
+    /**
+     * Writes the given order status.
+     *
+     * @param out    output to write to
+     * @param status status to write
+     */
+    public static void writeOrderStatus(
+        RecordOutput out,
+        OrderStatus status
+    ) {
+        out.writeSignedVarInt(status.getId());
+        out.writeVarLong(bit(0, status.getName()));
+        writeDictionaryString(out, status.getName());
+    }
+
+    /**
+     * Reads an order status.
+     *
+     * @param in input to read from
+     *
+     * @return the order status read
+     */
+    public static OrderStatus readOrderStatus(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+        return OrderStatus.of(id, readDictionaryString(in, presence, 0));
+    }
+
+    /**
+     * Writes the given order tax status.
+     *
+     * @param out    output to write to
+     * @param status status to write
+     */
+    public static void writeOrderTaxStatus(
+        RecordOutput out,
+        OrderTaxStatus status
+    ) {
+        out.writeSignedVarInt(status.getId());
+        out.writeVarLong(bit(0, status.getName()));
+        writeDictionaryString(out, status.getName());
+    }
+
+    /**
+     * Reads an order tax status.
+     *
+     * @param in input to read from
+     *
+     * @return the order tax status read
+     */
+    public static OrderTaxStatus readOrderTaxStatus(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+        return OrderTaxStatus.of(id, readDictionaryString(in, presence, 0));
+    }
+
+    /**
+     * Writes the given order detail status.
+     *
+     * @param out    output to write to
+     * @param status status to write
+     */
+    public static void writeOrderDetailStatus(
+        RecordOutput out,
+        OrderDetailStatus status
+    ) {
+        out.writeSignedVarInt(status.getId());
+        out.writeVarLong(bit(0, status.getName()));
+        writeDictionaryString(out, status.getName());
+    }
+
+    /**
+     * Reads an order detail status.
+     *
+     * @param in input to read from
+     *
+     * @return the order detail status read
+     */
+    public static OrderDetailStatus readOrderDetailStatus(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+        return OrderDetailStatus.of(id, readDictionaryString(in, presence, 0));
+    }
+
+    /**
+     * Writes the given purchase order status.
+     *
+     * @param out    output to write to
+     * @param status status to write
+     */
+    public static void writePurchaseOrderStatus(
+        RecordOutput out,
+        PurchaseOrderStatus status
+    ) {
+        out.writeSignedVarInt(status.getId());
+        out.writeVarLong(bit(0, status.getStatus()));
+        writeDictionaryString(out, status.getStatus());
+    }
+
+    /**
+     * Reads a purchase order status.
+     *
+     * @param in input to read from
+     *
+     * @return the purchase order status read
+     */
+    public static PurchaseOrderStatus readPurchaseOrderStatus(RecordInput in) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+        return PurchaseOrderStatus.of(id, readDictionaryString(in, presence, 0));
+    }
+
+    private static OrderDetail readOrderDetail(RecordInput in, RecordRef<Order> order) {
+        final int id = in.readSignedVarInt();
+        final long presence = in.readVarLong();
+
+        return new OrderDetailBuilder(id)
+            .setOrderRef(order)
+            .setProductRef(readRef(
+                in,
+                presence,
+                0,
+                Product.class,
+                RecordCodec::readProduct,
+                RecordCaches::getProducts
+            ))
+            .setStatus(readShared(
+                in,
+                presence,
+                1,
+                OrderDetailStatus.class,
+                RecordCodec::readOrderDetailStatus
+            ))
+            .setDateAllocated(readDate(in, presence, 2))
+            .setQuantity(in.readDouble())
+            .setUnitPrice(in.readDouble())
+            .setDiscount(in.readDouble())
+            .setPurchaseOrderId(in.readSignedVarInt())
+            .setInventoryId(in.readSignedVarInt())
+            .build();
+    }
+
+    private static <R> void writeShared(
+        RecordOutput out,
+        R record,
+        BiConsumer<RecordOutput, R> writer
+    ) {
+        if (record != null && out.writeReference(record)) {
+            writer.accept(out, record);
+        }
+    }
+
+    private static <R extends IdentifiableRecord> void writeRef(
+        RecordOutput out,
+        RecordRef<R> ref,
+        BiConsumer<RecordOutput, R> writer
+    ) {
+        if (ref == null) {
+            return;
+        }
+        final R record = ref.getIfResolved();
+
+        out.writeSignedVarInt(ref.getId());
+        out.writeBoolean(record != null);
+        writeShared(out, record, writer);
+    }
+
+    private static <R extends IdentifiableRecord> RecordRef<R> readRef(
+        RecordInput in,
+        long presence,
+        int index,
+        Class<R> type,
+        Function<RecordInput, R> reader,
+        Function<RecordCaches, RecordCache<R>> cacheOf
+    ) {
+        if (in.getFormatVersion() < REFERENCE_IDS_FORMAT_VERSION) {
+            return RecordRef.of(readShared(in, presence, index, type, reader));
+        }
+        if (!isPresent(presence, index)) {
+            return null;
+        }
+        final int id = in.readSignedVarInt();
+
+        if (in.readBoolean()) {
+            return RecordRef.of(readShared(in, type, reader));
+        }
+        final var caches = in.getCaches();
+        final var cache = caches == null || cacheOf == null
+                          ? null
+                          : cacheOf.apply(caches);
+        return cache == null ? RecordRef.ofId(id) : cache.ref(id);
+    }
+
+    private static <R> R readShared(
+        RecordInput in,
+        long presence,
+        int index,
+        Class<R> type,
+        Function<RecordInput, R> reader
+    ) {
+        if (!isPresent(presence, index)) {
+            return null;
+        }
+        if (in.getFormatVersion() < SHARED_REFERENCES_FORMAT_VERSION) {
+            return reader.apply(in);
+        }
+        return readShared(in, type, reader);
+    }
+
+    private static <R> R readShared(
+        RecordInput in,
+        Class<R> type,
+        Function<RecordInput, R> reader
+    ) {
+        final int referenceIndex = in.readReferenceTag();
+
+        if (referenceIndex != RecordInput.NEW_REFERENCE) {
+            return in.getReference(referenceIndex, type);
+        }
+        final int newIndex = in.reserveReference();
+        final var record = reader.apply(in);
+
+        in.setReference(newIndex, record);
+        return record;
+    }
+
+    private static long bit(int index, Object value) {
+        return value == null ? 0L : 1L << index;
+    }
+
+    private static boolean isPresent(long presence, int index) {
+        return (presence & (1L << index)) != 0L;
+    }
+
+    private static void writeString(RecordOutput out, String value) {
+        if (value != null) {
+            out.writeString(value);
+        }
+    }
+
+    private static void writeDictionaryString(RecordOutput out, String value) {
+        if (value != null) {
+            out.writeDictionaryString(value);
+        }
+    }
+
+    private static void writeDate(RecordOutput out, LocalDate value) {
+        if (value != null) {
+            out.writeDate(value);
+        }
+    }
+
+    private static void writeDateTime(RecordOutput out, LocalDateTime value) {
+        if (value != null) {
+            out.writeDateTime(value);
+        }
+    }
+
+    private static String readString(RecordInput in, long presence, int index) {
+        return isPresent(presence, index) ? in.readString() : null;
+    }
+
+    private static String readDictionaryString(RecordInput in, long presence, int index) {
+        return isPresent(presence, index) ? in.readDictionaryString() : null;
+    }
+
+    private static LocalDate readDate(RecordInput in, long presence, int index) {
+        return isPresent(presence, index) ? in.readDate() : null;
+    }
+
+    private static LocalDateTime readDateTime(RecordInput in, long presence, int index) {
+        return isPresent(presence, index) ? in.readDateTime() : null;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private RecordCodec() {}
+
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defines the input of the {@link RecordCodec} decoding, the counterpart of
+ * a {@link RecordOutput}.
+ * <p>
+ * An input reads its buffer with absolute positions, so the buffer can be
+ * shared with other inputs, like a mapped file read from many threads with
+ * an input each. An input reuses its dictionary, shared references and
+ * string buffer after {@link #reset(ByteBuffer, int)}. It's not thread-safe.
+ * <p>
+ * An input reads the current {@link RecordCodec#FORMAT_VERSION} unless
+ * another version is set with {@link #setFormatVersion(int)}, so the records
+ * stored by a previous version can still be read.
+ * <p>
+ * The references written without their records are decoded with only their
+ * id, and resolved lazily through the {@link RecordCaches} of the input if
+ * it has them, see {@link #setCaches(RecordCaches)}.
+ */
+public final class RecordInput {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the result of {@link #readReferenceTag()} when the record of
+     * the reference follows the tag.
+     */
+    public static final int NEW_REFERENCE = -1;
+
+    private static final int DEF_SCRATCH_SIZE = 256;
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static RuntimeException newMalformedException(String what, int position) {
+        final var msg = """
+                        Malformed %s at position %d
+                        """.formatted(what, position);
+        return new RuntimeException(msg);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final List<String> dictionary;
+    private final List<Object> references;
+    private List<String> baseDictionary;
+    private RecordCaches caches;
+    private int formatVersion;
+    private byte[] scratch;
+    private ByteBuffer in;
+    private int position;
+
+    /**
+     * Creates a new RecordInput without a buffer, it has to be given with
+     * {@link #reset(ByteBuffer, int)} before reading.
+     */
+    public RecordInput() {
+        this.dictionary = new ArrayList<>();
+        this.references = new ArrayList<>();
+        this.baseDictionary = List.of();
+        this.caches = null;
+        this.formatVersion = RecordCodec.FORMAT_VERSION;
+        this.scratch = new byte[DEF_SCRATCH_SIZE];
+        this.in = ByteBuffer.allocate(0);
+        this.position = 0;
+    }
+
+    /**
+     * Creates a new RecordInput reading the given buffer from its position.
+     *
+     * @param in buffer to read
+     */
+    public RecordInput(ByteBuffer in) {
+        this();
+        reset(in, in.position());
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * Sets the {@link RecordCodec} format version of the records to read.
+     *
+     * @param value format version of the records
+     *
+     * @throws RuntimeException if the version is not supported
+     */
+    public void setFormatVersion(int value) {
+        if (value < 1 || value > RecordCodec.FORMAT_VERSION) {
+            final var msg = "Unsupported record format version: " + value;
+            throw new RuntimeException(msg);
+        }
+        formatVersion = value;
+    }
+
+    public RecordCaches getCaches() {
+        return caches;
+    }
+
+    /**
+     * Sets the caches resolving the references read without their records,
+     * which otherwise keep only their id. The caches are kept after
+     * {@link #reset(ByteBuffer, int)}.
+     *
+     * @param value caches of the references, or {@code null}
+     */
+    public void setCaches(RecordCaches value) {
+        caches = value;
+    }
+
+    /**
+     * Returns {@code true} if and only if there are bytes left to read before
+     * the limit of the buffer.
+     *
+     * @return {@code true} if and only if there are bytes left to read
+     */
+    public boolean hasRemaining() {
+        return position < in.limit();
+    }
+
+    /**
+     * Sets the buffer to read from the given position and clears the
+     * dictionary and the shared references.
+     *
+     * @param in       buffer to read
+     * @param position position to read from
+     */
+    public void reset(ByteBuffer in, int position) {
+        this.in = in;
+        this.position = position;
+        dictionary.clear();
+        references.clear();
+        baseDictionary = List.of();
+    }
+
+    /**
+     * Moves the reading position of the current buffer, keeping the
+     * dictionary and the shared references.
+     *
+     * @param position position to read from
+     */
+    public void seek(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Sets the dictionary to resolve the dictionary strings written without
+     * inline definitions. The list is not copied, so it can be shared by
+     * many inputs, and it must not change afterwards.
+     *
+     * @param strings strings of the dictionary, in index order
+     */
+    public void setDictionary(List<String> strings) {
+        dictionary.clear();
+        baseDictionary = strings;
+    }
+
+    public int readByte() {
+        return in.get(position++);
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() {
+        final int start = position;
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            final int b = in.get(position++);
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw newMalformedException("var int", start);
+    }
+
+    public int readSignedVarInt() {
+        return unZigZag(readVarInt());
+    }
+
+    public long readVarLong() {
+        final int start = position;
+        long value = 0L;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int b = in.get(position++);
+
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw newMalformedException("var long", start);
+    }
+
+    public long readSignedVarLong() {
+        return unZigZag(readVarLong());
+    }
+
+    public double readDouble() {
+        final double value = in.getDouble(position);
+
+        position += Double.BYTES;
+        return value;
+    }
+
+    public String readString() {
+        final int length = readVarInt();
+
+        if (length < 0 || length > in.limit() - position) {
+            throw newMalformedException("string", position);
+        }
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        in.get(position, scratch, 0, length);
+        position += length;
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the reading position after the next string, without decoding it.
+     */
+    public void skipString() {
+        final int length = readVarInt();
+
+        if (length < 0 || length > in.limit() - position) {
+            throw newMalformedException("string", position);
+        }
+        position += length;
+    }
+
+    public String readDictionaryString() {
+        final int start = position;
+        final int tag = readVarInt();
+
+        if (tag == RecordOutput.DICTIONARY_DEFINITION_TAG) {
+            final var value = readString();
+
+            dictionary.add(value);
+            return value;
+        }
+        final int index = tag - 1;
+        final int baseSize = baseDictionary.size();
+
+        if (index < 0 || index >= baseSize + dictionary.size()) {
+            throw newMalformedException("dictionary string", start);
+        }
+        if (index < baseSize) {
+            return baseDictionary.get(index);
+        }
+        return dictionary.get(index - baseSize);
+    }
+
+    /**
+     * Reads the tag of a shared reference. If the record of the reference
+     * follows the tag, it has to be read and given to
+     * {@link #setReference(int, Object)} with the index returned by
+     * {@link #reserveReference()}, before reading the records after it.
+     *
+     * @return the index of a record read before, or {@link #NEW_REFERENCE}
+     * if the record follows the tag
+     */
+    public int readReferenceTag() {
+        final int start = position;
+        final int tag = readVarInt();
+
+        if (tag == RecordOutput.REFERENCE_DEFINITION_TAG) {
+            return NEW_REFERENCE;
+        }
+        final int index = tag - 1;
+
+        // A reserved reference is still being read, so it can't refer to it
+        if (index < 0 || index >= references.size() || references.get(index) == null) {
+            throw newMalformedException("shared reference", start);
+        }
+        return index;
+    }
+
+    /**
+     * Reserves the index of the record following a reference tag, so the
+     * records embedded in it take the next indexes, like when written.
+     *
+     * @return the index of the reference
+     */
+    public int reserveReference() {
+        references.add(null);
+        return references.size() - 1;
+    }
+
+    public void setReference(int index, Object record) {
+        references.set(index, record);
+    }
+
+    /**
+     * Returns the record of the given reference index.
+     *
+     * @param index index returned by {@link #readReferenceTag()}
+     * @param type  expected type of the record
+     * @param <R>   type of the record
+     *
+     * @return the record of the reference
+     *
+     * @throws RuntimeException if the record is not of the given type
+     */
+    public <R> R getReference(int index, Class<R> type) {
+        final var record = references.get(index);
+
+        if (!type.isInstance(record)) {
+            final var what = "shared reference to " + type.getSimpleName();
+            throw newMalformedException(what, position);
+        }
+        return type.cast(record);
+    }
+
+    public LocalDate readDate() {
+        return LocalDate.ofEpochDay(readSignedVarLong());
+    }
+
+    public LocalDateTime readDateTime() {
+        final long epochSecond = readSignedVarLong();
+        final int nanos = readVarInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordInput[" +
+               "position=" + position + ", " +
+               "dictionarySize=" + (baseDictionary.size() + dictionary.size()) + ", " +
+               "referenceCount=" + references.size() + ", " +
+               "formatVersion=" + formatVersion +
+               "]";
+    }
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines the output of the {@link RecordCodec} encoding.
+ * <p>
+ * The integers are written as variable length quantities of 7 bits per
+ * byte, and the signed ones are zig-zag encoded first, so small values of
+ * either sign take a single byte. The dates are written as epoch days or
+ * epoch seconds. The values repeated a lot, like the city names, are written
+ * as dictionary strings: the first occurrence defines the string and the
+ * next ones only refer to its index.
+ * <p>
+ * By default the dictionary definitions are written inline, so a
+ * {@link RecordInput} learns them as it reads the records in order. When
+ * the records have to be read in any order, like from a mapped file, the
+ * inline definitions can be disabled and the dictionary stored aside, see
+ * {@link #getDictionary()}.
+ * <p>
+ * The records embedded in other records, like the customer of an order, are
+ * written as shared references: the first occurrence writes the record and
+ * the next ones only refer to it, so the records of a payload form the same
+ * object graph when read. The shared references are told apart by identity
+ * and, like the inline definitions, require the records to be read in order,
+ * so they can be disabled too.
+ * <p>
+ * An output reuses its buffer, dictionary and references after {@link #reset()}, so it
+ * should be kept around instead of created per record. It's not
+ * thread-safe.
+ */
+public final class RecordOutput {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the tag of an inline dictionary definition, the other tags are
+     * the dictionary index plus one.
+     */
+    static final int DICTIONARY_DEFINITION_TAG = 0;
+
+    /**
+     * Defines the tag of a shared reference followed by its record, the other
+     * tags are the reference index plus one.
+     */
+    static final int REFERENCE_DEFINITION_TAG = 0;
+
+    private static final int DEF_INITIAL_CAPACITY = 4096;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Map<String, Integer> dictionaryIndexes;
+    private final List<String> dictionary;
+    private final Map<Object, Integer> referenceIndexes;
+    private boolean inlineDefinitions;
+    private boolean sharedReferences;
+    private ByteBuffer out;
+
+    /**
+     * Creates a new RecordOutput writing the dictionary definitions inline.
+     */
+    public RecordOutput() {
+        this(DEF_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new RecordOutput writing the dictionary definitions inline.
+     *
+     * @param initialCapacity initial capacity of the buffer in bytes
+     */
+    public RecordOutput(int initialCapacity) {
+        this.dictionaryIndexes = new HashMap<>();
+        this.dictionary = new ArrayList<>();
+        this.referenceIndexes = new IdentityHashMap<>();
+        this.inlineDefinitions = true;
+        this.sharedReferences = true;
+        this.out = ByteBuffer.allocate(Math.max(initialCapacity, 16));
+    }
+
+    public boolean isInlineDefinitions() {
+        return inlineDefinitions;
+    }
+
+    /**
+     * Sets whether the dictionary definitions are written inline. When they
+     * are not, the dictionary returned by {@link #getDictionary()} has to be
+     * given to the {@link RecordInput} before reading.
+     *
+     * @param value {@code true} to write the definitions inline
+     */
+    public void setInlineDefinitions(boolean value) {
+        inlineDefinitions = value;
+    }
+
+    public boolean isSharedReferences() {
+        return sharedReferences;
+    }
+
+    /**
+     * Sets whether the embedded records are written as shared references.
+     * When they are not, every occurrence of a record is written in full, so
+     * the records can be read in any order.
+     *
+     * @param value {@code true} to write the embedded records once
+     */
+    public void setSharedReferences(boolean value) {
+        sharedReferences = value;
+    }
+
+    /**
+     * Returns the strings of the dictionary, in index order.
+     *
+     * @return an unmodifiable view of the dictionary strings
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    /**
+     * Returns the number of bytes written since the last reset.
+     *
+     * @return the number of bytes written
+     */
+    public int size() {
+        return out.position();
+    }
+
+    /**
+     * Clears the written bytes, the dictionary and the shared references, so
+     * the output can be reused for independent records.
+     */
+    public void reset() {
+        out.clear();
+        dictionaryIndexes.clear();
+        dictionary.clear();
+        referenceIndexes.clear();
+    }
+
+    /**
+     * Clears the written bytes, keeping the dictionary and the shared
+     * references.
+     */
+    public void clearBytes() {
+        out.clear();
+    }
+
+    /**
+     * Returns a read-only view of the bytes written since the last reset. The
+     * view is valid until the next write or reset.
+     *
+     * @return a view of the written bytes
+     */
+    public ByteBuffer toByteBuffer() {
+        return out.asReadOnlyBuffer().flip();
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        out.put((byte) value);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes the given non-negative integer as a variable length quantity.
+     * Negative values are valid but take 5 bytes, use
+     * {@link #writeSignedVarInt(int)} for them.
+     *
+     * @param value value to write
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public void writeSignedVarInt(int value) {
+        writeVarInt(zigZag(value));
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0L) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong(zigZag(value));
+    }
+
+    public void writeDouble(double value) {
+        ensureCapacity(Double.BYTES);
+        out.putDouble(value);
+    }
+
+    /**
+     * Writes the given string as its UTF-8 length and bytes.
+     *
+     * @param value non-null string to write
+     */
+    public void writeString(String value) {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Writes the given string through the dictionary of this output.
+     *
+     * @param value non-null string to write
+     */
+    public void writeDictionaryString(String value) {
+        final var index = dictionaryIndexes.get(value);
+
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+        final int newIndex = dictionary.size();
+
+        dictionaryIndexes.put(value, newIndex);
+        dictionary.add(value);
+        if (inlineDefinitions) {
+            writeVarInt(DICTIONARY_DEFINITION_TAG);
+            writeString(value);
+        }
+        else {
+            writeVarInt(newIndex + 1);
+        }
+    }
+
+    /**
+     * Writes the tag of the given record as a shared reference. The record
+     * has to be written after the tag only if it's the first occurrence of
+     * the record, or the shared references are disabled.
+     *
+     * @param record non-null record to refer to
+     *
+     * @return {@code true} if and only if the record has to be written after
+     * the tag
+     */
+    public boolean writeReference(Object record) {
+        if (!sharedReferences) {
+            writeVarInt(REFERENCE_DEFINITION_TAG);
+            return true;
+        }
+        final var index = referenceIndexes.get(record);
+
+        if (index != null) {
+            writeVarInt(index + 1);
+            return false;
+        }
+        referenceIndexes.put(record, referenceIndexes.size());
+        writeVarInt(REFERENCE_DEFINITION_TAG);
+        return true;
+    }
+
+    /**
+     * Writes the given date as its epoch day.
+     *
+     * @param value non-null date to write
+     */
+    public void writeDate(LocalDate value) {
+        writeSignedVarLong(value.toEpochDay());
+    }
+
+    /**
+     * Writes the given date time as its UTC epoch second and nanoseconds.
+     *
+     * @param value non-null date time to write
+     */
+    public void writeDateTime(LocalDateTime value) {
+        writeSignedVarLong(value.toEpochSecond(ZoneOffset.UTC));
+        writeVarInt(value.getNano());
+    }
+
+    @Override
+    public String toString() {
+        return "RecordOutput[" +
+               "size=" + out.position() + ", " +
+               "dictionarySize=" + dictionary.size() + ", " +
+               "referenceCount=" + referenceIndexes.size() +
+               "]";
+    }
+
+    private void ensureCapacity(int bytes) {
+        final long required = (long) out.position() + bytes;
+
+        if (required <= out.capacity()) {
+            return;
+        }
+        if (required > MAX_CAPACITY) {
+            final var msg = "The record output is too large";
+            throw new RuntimeException(msg);
+        }
+        final long grown = Math.max(required, (long) out.capacity() * 2L);
+        final var newOut = ByteBuffer.allocate((int) Math.min(grown, MAX_CAPACITY));
+
+        out.flip();
+        newOut.put(out);
+        out = newOut;
+    }
+
+}
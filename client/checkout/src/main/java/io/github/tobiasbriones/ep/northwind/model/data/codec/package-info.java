@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+/**
+ * Provides the compact binary encoding of the Northwind's records shared by
+ * the local files of the checkout app, like the order journal and the
+ * reference data snapshot.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.codec;
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.customer;
+
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Defines an immutable index to find the {@link Customer} at the checkout by
+ * phone or by name.
+ * <p>
+ * The phones (business, home and mobile) are indexed by their digits only,
+ * and the names (last name, first name, full name and company) in lower case
+ * with the punctuation removed, so the queries can be typed in any format.
+ * The keys are stored in sorted key tables made of a few primitive arrays,
+ * instead of an object per key, so millions of customers can be held in
+ * memory. The results are deduplicated, so a customer matching by more than
+ * one key is returned once.
+ */
+public final class CustomerIndex {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines how a query is matched against the indexed keys.
+     */
+    public enum Match {
+
+        /**
+         * The key must be equal to the query.
+         */
+        EXACT,
+
+        /**
+         * The key must start with the query.
+         */
+        PREFIX
+
+    }
+
+    private static final int PHONES_PER_CUSTOMER = 3;
+    private static final int NAMES_PER_CUSTOMER = 4;
+
+    /**
+     * Builds the index of the given customers.
+     *
+     * @param customers customers to index
+     *
+     * @return the index of the given customers
+     */
+    public static CustomerIndex build(Collection<Customer> customers) {
+        final var indexed = customers.toArray(new Customer[0]);
+        final var phoneKeys = new KeyBuffer(indexed.length * PHONES_PER_CUSTOMER);
+        final var nameKeys = new KeyBuffer(indexed.length * NAMES_PER_CUSTOMER);
+
+        for (int i = 0; i < indexed.length; i++) {
+            final var customer = indexed[i];
+
+            phoneKeys.add(normalizePhone(customer.getBusinessPhone()), i);
+            phoneKeys.add(normalizePhone(customer.getHomePhone()), i);
+            phoneKeys.add(normalizePhone(customer.getMobilePhone()), i);
+            nameKeys.add(normalizeName(customer.getLastName()), i);
+            nameKeys.add(normalizeName(customer.getFirstName()), i);
+            nameKeys.add(normalizeName(fullNameOf(customer)), i);
+            nameKeys.add(normalizeName(customer.getCompany()), i);
+        }
+        return new CustomerIndex(indexed, phoneKeys.toTable(), nameKeys.toTable());
+    }
+
+    /**
+     * Returns the digits of the given phone.
+     *
+     * @param phone phone to normalize
+     *
+     * @return the digits of the given phone
+     */
+    public static String normalizePhone(CharSequence phone) {
+        if (phone == null) {
+            return "";
+        }
+        final var sb = new StringBuilder(phone.length());
+
+        for (int i = 0; i < phone.length(); i++) {
+            final char c = phone.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the given name in lower case, with the punctuation removed and
+     * the words separated by a single space.
+     *
+     * @param name name to normalize
+     *
+     * @return the normalized name
+     */
+    public static String normalizeName(CharSequence name) {
+        if (name == null) {
+            return "";
+        }
+        final var sb = new StringBuilder(name.length());
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            }
+            else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String fullNameOf(Customer customer) {
+        return Objects.toString(customer.getFirstName(), "") + " " +
+               Objects.toString(customer.getLastName(), "");
+    }
+
+    // The results are bounded by the limit, so a linear scan is enough
+    private static boolean contains(int[] array, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Customer[] customers;
+    private final SortedKeyTable phones;
+    private final SortedKeyTable names;
+
+    private CustomerIndex(
+        Customer[] customers,
+        SortedKeyTable phones,
+        SortedKeyTable names
+    ) {
+        this.customers = customers;
+        this.phones = phones;
+        this.names = names;
+    }
+
+    public int size() {
+        return customers.length;
+    }
+
+    /**
+     * Finds the customers having a phone that matches the given one, in any
+     * format.
+     *
+     * @param phone phone to find
+     * @param match how to match the phone
+     * @param limit max number of customers to return
+     *
+     * @return the customers found, in the order of their phones
+     */
+    public List<Customer> findByPhone(CharSequence phone, Match match, int limit) {
+        return find(phones, normalizePhone(phone), match, limit);
+    }
+
+    /**
+     * Finds the customers having a last name, first name, full name or
+     * company that matches the given name, ignoring the case and
+     * punctuation.
+     *
+     * @param name  name to find
+     * @param match how to match the name
+     * @param limit max number of customers to return
+     *
+     * @return the customers found, in the order of their names
+     */
+    public List<Customer> findByName(CharSequence name, Match match, int limit) {
+        return find(names, normalizeName(name), match, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerIndex[" +
+               "size=" + customers.length + ", " +
+               "phones=" + phones + ", " +
+               "names=" + names + ", " +
+               "]";
+    }
+
+    private List<Customer> find(
+        SortedKeyTable table,
+        String key,
+        Match match,
+        int limit
+    ) {
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        final int start = table.prefixStart(key);
+        final int end = table.prefixEnd(key);
+        final int[] found = new int[Math.min(limit, end - start)];
+        int count = 0;
+
+        for (int i = start; i < end && count < found.length; i++) {
+            if (match == Match.EXACT && table.keyLengthAt(i) != key.length()) {
+                continue;
+            }
+            final int slot = table.valueAt(i);
+
+            if (!contains(found, count, slot)) {
+                found[count++] = slot;
+            }
+        }
+        final var result = new ArrayList<Customer>(count);
+
+        for (int i = 0; i < count; i++) {
+            result.add(customers[found[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Defines a buffer of the keys and their customer positions to build a
+     * {@link SortedKeyTable}, the empty keys are skipped.
+     */
+    private static final class KeyBuffer {
+
+        private String[] keys;
+        private int[] values;
+        private int size;
+
+        KeyBuffer(int capacity) {
+            this.keys = new String[Math.max(capacity, 1)];
+            this.values = new int[Math.max(capacity, 1)];
+            this.size = 0;
+        }
+
+        void add(String key, int value) {
+            if (key.isEmpty()) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        SortedKeyTable toTable() {
+            return SortedKeyTable.build(keys, values, size);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.customer;
+
+/**
+ * Defines an immutable table of string keys sorted in lexicographic order,
+ * each one pointing to an int value. The chars of all the keys are stored in
+ * a single array with the start of each key in an int array, so the table
+ * holds a few arrays instead of an object per key.
+ */
+final class SortedKeyTable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Builds the table of the given keys and values, the value {@code i}
+     * belongs to the key {@code i}.
+     *
+     * @param keys   keys of the table
+     * @param values values of the keys
+     * @param size   number of keys and values to read from the arrays
+     *
+     * @return the table of the given keys and values
+     */
+    static SortedKeyTable build(String[] keys, int[] values, int size) {
+        final int[] order = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(order, keys);
+
+        int length = 0;
+
+        for (int i = 0; i < size; i++) {
+            length += keys[i].length();
+        }
+        final var chars = new char[length];
+        final var starts = new int[size + 1];
+        final var sortedValues = new int[size];
+        int pos = 0;
+
+        for (int i = 0; i < size; i++) {
+            final String key = keys[order[i]];
+
+            key.getChars(0, key.length(), chars, pos);
+            starts[i] = pos;
+            sortedValues[i] = values[order[i]];
+            pos += key.length();
+        }
+        starts[size] = pos;
+        return new SortedKeyTable(chars, starts, sortedValues);
+    }
+
+    // Stable bottom-up merge sort of the positions by their key, it avoids
+    // boxing the positions to use a comparator
+    private static void sort(int[] order, String[] keys) {
+        int[] src = order;
+        int[] dst = new int[order.length];
+
+        for (int width = 1; width < order.length; width <<= 1) {
+            for (int low = 0; low < order.length; low += width << 1) {
+                final int mid = Math.min(low + width, order.length);
+                final int high = Math.min(low + (width << 1), order.length);
+                int i = low;
+                int j = mid;
+
+                for (int k = low; k < high; k++) {
+                    final boolean takeLeft = j >= high ||
+                                             keys[src[i]].compareTo(keys[src[j]]) <= 0;
+
+                    if (i < mid && takeLeft) {
+                        dst[k] = src[i++];
+                    }
+                    else {
+                        dst[k] = src[j++];
+                    }
+                }
+            }
+            final int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != order) {
+            System.arraycopy(src, 0, order, 0, order.length);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final char[] chars;
+    private final int[] starts;
+    private final int[] values;
+
+    private SortedKeyTable(char[] chars, int[] starts, int[] values) {
+        this.chars = chars;
+        this.starts = starts;
+        this.values = values;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    int valueAt(int position) {
+        return values[position];
+    }
+
+    int keyLengthAt(int position) {
+        return starts[position + 1] - starts[position];
+    }
+
+    /**
+     * Returns the position of the first key that starts with the given
+     * prefix, or that would follow it.
+     */
+    int prefixStart(CharSequence prefix) {
+        int low = 0;
+        int high = values.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (comparePrefix(mid, prefix) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position after the last key that starts with the given
+     * prefix.
+     */
+    int prefixEnd(CharSequence prefix) {
+        int low = 0;
+        int high = values.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (comparePrefix(mid, prefix) <= 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return "SortedKeyTable[" +
+               "size=" + values.length + ", " +
+               "chars=" + chars.length + ", " +
+               "]";
+    }
+
+    // Compares the key truncated to the length of the prefix with the prefix
+    private int comparePrefix(int position, CharSequence prefix) {
+        final int start = starts[position];
+        final int keyLength = starts[position + 1] - start;
+        final int length = Math.min(keyLength, prefix.length());
+
+        for (int i = 0; i < length; i++) {
+            final int diff = chars[start + i] - prefix.charAt(i);
+
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return keyLength < prefix.length() ? -1 : 0;
+    }
+
+}
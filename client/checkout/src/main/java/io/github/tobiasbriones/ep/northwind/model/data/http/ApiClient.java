@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Defines the shared non-blocking client for the Northwind API.
+ * <p>
+ * A single instance is meant to be shared by all the repositories of the app,
+ * so the underlying {@link HttpClient} keeps its connections alive and
+ * reuses them (HTTP/2 when the server supports it) instead of opening a new
+ * connection per request. The number of requests in flight is limited to
+ * {@link ApiConfig#getMaxConcurrentRequests()}, the rest are queued without
+ * blocking the caller.
+ */
+public final class ApiClient implements AutoCloseable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final String ACCEPT_HEADER_NAME = "Accept";
+    private static final String CONTENT_TYPE_HEADER_NAME = "Content-Type";
+    private static final String JSON_MEDIA_TYPE = "application/json";
+
+    private static ExecutorService newExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final var thread = new Thread(runnable, "northwind-api-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ApiConfig config;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Queue<Runnable> pending;
+    private final AtomicInteger inFlight;
+
+    /**
+     * Creates a new ApiClient. The same instance should be shared across the
+     * app.
+     *
+     * @param config configuration of the client
+     */
+    public ApiClient(ApiConfig config) {
+        this.config = config;
+        this.executor = newExecutor(config.getMaxConcurrentRequests());
+        this.client = HttpClient.newBuilder()
+                                .version(HttpClient.Version.HTTP_2)
+                                .connectTimeout(config.getConnectTimeout())
+                                .followRedirects(HttpClient.Redirect.NORMAL)
+                                .build();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.inFlight = new AtomicInteger(0);
+    }
+
+    public ApiConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the executor to run the blocking work of decoding the response
+     * bodies. It's separated from the executor of the underlying
+     * {@link HttpClient} so that blocked decoders never starve the delivery of
+     * the response bytes.
+     *
+     * @return the executor of this client
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns a new GET request builder for the given path relative to the
+     * base URI, with the configured request timeout and accepting JSON.
+     *
+     * @param path path of the resource relative to the API base URI, like
+     *             {@code "/products"}
+     *
+     * @return a new GET request builder for the given path
+     */
+    public HttpRequest.Builder newGetRequest(String path) {
+        return HttpRequest.newBuilder(resolve(path))
+                          .timeout(config.getRequestTimeout())
+                          .header(ACCEPT_HEADER_NAME, JSON_MEDIA_TYPE)
+                          .GET();
+    }
+
+    /**
+     * Returns a new POST request builder for the given path relative to the
+     * base URI, with the configured request timeout and the given JSON body.
+     *
+     * @param path path of the resource relative to the API base URI, like
+     *             {@code "/orders/batch"}
+     * @param body UTF-8 JSON body of the request
+     *
+     * @return a new POST request builder for the given path
+     */
+    public HttpRequest.Builder newPostRequest(String path, byte[] body) {
+        return HttpRequest.newBuilder(resolve(path))
+                          .timeout(config.getRequestTimeout())
+                          .header(ACCEPT_HEADER_NAME, JSON_MEDIA_TYPE)
+                          .header(CONTENT_TYPE_HEADER_NAME, JSON_MEDIA_TYPE)
+                          .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    /**
+     * Sends the given request asynchronously. If the maximum number of
+     * concurrent requests has been reached, the request is queued and sent
+     * as soon as a previous exchange completes.
+     *
+     * @param request     request to send
+     * @param bodyHandler handler for the response body
+     * @param <T>         type of the response body
+     *
+     * @return a future completing with the response
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> bodyHandler
+    ) {
+        final var result = new CompletableFuture<HttpResponse<T>>();
+        pending.add(() -> dispatch(request, bodyHandler, result));
+        drain();
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "ApiClient[" +
+               "config=" + config + ", " +
+               "inFlight=" + inFlight.get() + ", " +
+               "]";
+    }
+
+    private URI resolve(String path) {
+        return URI.create(config.getBaseUri().toString() + path);
+    }
+
+    private <T> void dispatch(
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> bodyHandler,
+        CompletableFuture<HttpResponse<T>> result
+    ) {
+        try {
+            client.sendAsync(request, bodyHandler)
+                  .whenComplete((response, error) -> {
+                      release();
+                      if (error != null) {
+                          result.completeExceptionally(error);
+                      }
+                      else {
+                          result.complete(response);
+                      }
+                  });
+        }
+        catch (RuntimeException e) {
+            release();
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void drain() {
+        final int max = config.getMaxConcurrentRequests();
+
+        while (!pending.isEmpty()) {
+            final int current = inFlight.get();
+
+            if (current >= max) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            final Runnable task = pending.poll();
+
+            if (task == null) {
+                inFlight.decrementAndGet();
+            }
+            else {
+                task.run();
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.http;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Defines the configuration for the shared {@link ApiClient}.
+ */
+public final class ApiConfig {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the default base URI of the Northwind API v1.
+     */
+    public static final String DEF_BASE_URI = "http://localhost:8080/api/v1";
+
+    /**
+     * Defines the default timeout for establishing a new connection.
+     */
+    public static final Duration DEF_CONNECT_TIMEOUT = Duration.ofSeconds(5L);
+
+    /**
+     * Defines the default timeout for receiving the response of a request.
+     */
+    public static final Duration DEF_REQUEST_TIMEOUT = Duration.ofSeconds(15L);
+
+    /**
+     * Defines the default maximum number of requests in flight at the same
+     * time.
+     */
+    public static final int DEF_MAX_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * Returns a new configuration with the default values.
+     *
+     * @return a new configuration with the default values
+     */
+    public static ApiConfig newDefault() {
+        return new ApiConfig(
+            URI.create(DEF_BASE_URI),
+            DEF_CONNECT_TIMEOUT,
+            DEF_REQUEST_TIMEOUT,
+            DEF_MAX_CONCURRENT_REQUESTS
+        );
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final URI baseUri;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final int maxConcurrentRequests;
+
+    /**
+     * Creates a new configuration.
+     *
+     * @param baseUri               base URI of the API, like
+     *                              {@link ApiConfig#DEF_BASE_URI}
+     * @param connectTimeout        timeout for establishing a new connection
+     * @param requestTimeout        timeout for receiving the response of a
+     *                              request
+     * @param maxConcurrentRequests maximum number of requests in flight at the
+     *                              same time, it must be positive
+     *
+     * @throws RuntimeException if the max concurrent requests is not positive
+     */
+    public ApiConfig(
+        URI baseUri,
+        Duration connectTimeout,
+        Duration requestTimeout,
+        int maxConcurrentRequests
+    ) {
+        if (maxConcurrentRequests <= 0) {
+            final var msg = """
+                            Invalid max concurrent requests: %d
+                            """.formatted(maxConcurrentRequests);
+            throw new RuntimeException(msg);
+        }
+        this.baseUri = baseUri;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "ApiConfig[" +
+               "baseUri=" + baseUri + ", " +
+               "connectTimeout=" + connectTimeout + ", " +
+               "requestTimeout=" + requestTimeout + ", " +
+               "maxConcurrentRequests=" + maxConcurrentRequests + ", " +
+               "]";
+    }
+
+}
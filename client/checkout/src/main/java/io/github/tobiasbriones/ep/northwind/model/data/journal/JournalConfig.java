@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
+
+import java.time.Duration;
+
+/**
+ * Defines the configuration of an {@link OrderJournal}.
+ */
+public final class JournalConfig {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the default size of a journal segment file, 16 MiB.
+     */
+    public static final int DEF_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Defines the minimum size of a journal segment file, 64 KiB.
+     */
+    public static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    /**
+     * Defines the default policy for flushing the records to the disk.
+     */
+    public static final JournalSyncPolicy DEF_SYNC_POLICY =
+        JournalSyncPolicy.GROUP_COMMIT;
+
+    /**
+     * Defines the default interval of the group commits.
+     */
+    public static final Duration DEF_GROUP_COMMIT_INTERVAL = Duration.ofMillis(10L);
+
+    /**
+     * Returns a new configuration with the default values.
+     *
+     * @return a new configuration with the default values
+     */
+    public static JournalConfig newDefault() {
+        return new JournalConfig(
+            DEF_SEGMENT_SIZE,
+            DEF_SYNC_POLICY,
+            DEF_GROUP_COMMIT_INTERVAL
+        );
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int segmentSize;
+    private final JournalSyncPolicy syncPolicy;
+    private final Duration groupCommitInterval;
+
+    /**
+     * Creates a new configuration.
+     *
+     * @param segmentSize         size of a journal segment file, at least
+     *                            {@link #MIN_SEGMENT_SIZE}. A record must fit
+     *                            in a segment
+     * @param syncPolicy          policy for flushing the records to the disk
+     * @param groupCommitInterval interval of the group commits, used by the
+     *                            {@link JournalSyncPolicy#GROUP_COMMIT} policy
+     *
+     * @throws RuntimeException if the segment size is too small or the
+     *                          interval is not positive
+     */
+    public JournalConfig(
+        int segmentSize,
+        JournalSyncPolicy syncPolicy,
+        Duration groupCommitInterval
+    ) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            final var msg = """
+                            Invalid segment size: %d
+                            """.formatted(segmentSize);
+            throw new RuntimeException(msg);
+        }
+        if (groupCommitInterval.isNegative() || groupCommitInterval.isZero()) {
+            final var msg = """
+                            Invalid group commit interval: %s
+                            """.formatted(groupCommitInterval);
+            throw new RuntimeException(msg);
+        }
+        this.segmentSize = segmentSize;
+        this.syncPolicy = syncPolicy;
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public JournalSyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public Duration getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalConfig[" +
+               "segmentSize=" + segmentSize + ", " +
+               "syncPolicy=" + syncPolicy + ", " +
+               "groupCommitInterval=" + groupCommitInterval + ", " +
+               "]";
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
+
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+
+/**
+ * Defines a consumer of the records replayed from an {@link OrderJournal}.
+ */
+@FunctionalInterface
+public interface JournalRecordConsumer {
+
+    /**
+     * Called for each replayed record, in sequence order.
+     *
+     * @param sequence sequence number of the record
+     * @param order    order of the record
+     */
+    void accept(long sequence, CartOrder order);
+
+}
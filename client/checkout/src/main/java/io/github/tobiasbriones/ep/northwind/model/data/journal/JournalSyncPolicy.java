@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
+
+/**
+ * Defines when the {@link OrderJournal} flushes the appended records to the
+ * disk.
+ */
+public enum JournalSyncPolicy {
+
+    /**
+     * Each append flushes its record before returning. No confirmed record is
+     * lost on a power loss, but each append waits for the disk.
+     */
+    EVERY_APPEND,
+
+    /**
+     * A background thread flushes all the records appended since the last
+     * flush at a fixed interval, so many appends share one disk flush. A
+     * power loss may lose the records of the last interval, unless they were
+     * flushed with {@link OrderJournal#sync()}.
+     */
+    GROUP_COMMIT,
+
+    /**
+     * The journal leaves the flushing to the operating system, except when
+     * it's closed or {@link OrderJournal#sync()} is called. A process crash
+     * doesn't lose records, but a power loss may.
+     */
+    OS_MANAGED
+
+}
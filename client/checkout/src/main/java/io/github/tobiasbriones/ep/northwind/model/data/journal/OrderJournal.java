@@ -0,0 +1,764 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
+
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCaches;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCodec;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordInput;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordOutput;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+/**
+ * Defines a crash-safe append-only journal of the orders completed by the
+ * checkout app, so they are not lost while the API is unreachable.
+ * <p>
+ * The journal is a directory of fixed-size segment files that are memory
+ * mapped, so appending a record is a copy into memory and a process crash
+ * doesn't lose it. The records are flushed to the disk according to the
+ * {@link JournalSyncPolicy} of the {@link JournalConfig}.
+ * <p>
+ * Each record has a sequence number and a CRC-32C checksum. When the journal
+ * is opened again after a crash or power loss, the records are read up to
+ * the first torn or corrupt one, which is where the journal continues
+ * appending. The bytes after it are cleared so they are never taken for
+ * records later.
+ * <p>
+ * The records are encoded with the {@link RecordCodec}, each on its own so
+ * any record can be replayed first. The segments written by the previous
+ * format version are still replayed, and the journal continues on a new
+ * segment of the current format. The references of the replayed orders
+ * written without their records, like a customer that was not loaded, are
+ * resolved through the {@link RecordCaches} of the journal, if it has them.
+ * <p>
+ * The journal is thread-safe.
+ */
+public final class OrderJournal implements Closeable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the sequence number before the first record.
+     */
+    public static final long NO_SEQUENCE = 0L;
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    // "NWOJ"
+    private static final int MAGIC = 0x4E574F4A;
+    private static final int FORMAT_VERSION = 4;
+
+    // Records encoded by the OrderJournalCodec
+    private static final int LEGACY_FORMAT_VERSION = 1;
+
+    // Records encoded by the version 1 of the RecordCodec
+    private static final int RECORD_CODEC_V1_FORMAT_VERSION = 2;
+
+    // Records encoded by the version 2 of the RecordCodec
+    private static final int RECORD_CODEC_V2_FORMAT_VERSION = 3;
+
+    // Magic, format version and first sequence number
+    private static final int SEGMENT_HEADER_SIZE = 16;
+
+    // Record length, checksum and sequence number
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+
+    /**
+     * Opens the journal of the given directory, creating it if it doesn't
+     * exist, and recovers it after a crash if needed.
+     *
+     * @param directory directory of the journal
+     * @param config    configuration of the journal
+     *
+     * @return the journal of the given directory
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public static OrderJournal open(Path directory, JournalConfig config) {
+        try {
+            Files.createDirectories(directory);
+            final var journal = new OrderJournal(directory, config);
+
+            journal.recover();
+            journal.startFlusher();
+            return journal;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path segmentPath(Path directory, long firstSequence) {
+        final var name = "%s%020d%s".formatted(
+            SEGMENT_PREFIX,
+            firstSequence,
+            SEGMENT_SUFFIX
+        );
+        return directory.resolve(name);
+    }
+
+    private static List<Segment> listSegments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files
+                .filter(OrderJournal::isSegment)
+                .map(Segment::new)
+                .sorted(Comparator.comparingLong(segment -> segment.firstSequence))
+                .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        final var name = path.getFileName().toString();
+        final int digits = name.length() -
+                           SEGMENT_PREFIX.length() -
+                           SEGMENT_SUFFIX.length();
+
+        return name.startsWith(SEGMENT_PREFIX) &&
+               name.endsWith(SEGMENT_SUFFIX) &&
+               digits == 20 &&
+               name.chars()
+                   .skip(SEGMENT_PREFIX.length())
+                   .limit(digits)
+                   .allMatch(Character::isDigit);
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        final var options = new StandardOpenOption[] {
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE
+        };
+
+        // The mapping stays valid after closing the channel
+        try (var channel = FileChannel.open(path, options)) {
+            final long fileSize = channel.size();
+            final long mapSize = size > 0 ? size : Math.min(fileSize, Integer.MAX_VALUE);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0L, mapSize);
+        }
+    }
+
+    /**
+     * Reads the given segment file into a heap buffer. The segments other
+     * than the current one are read through their channel instead of being
+     * mapped, since a mapping is only released when it's garbage collected.
+     */
+    private static ByteBuffer read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = Math.min(channel.size(), Integer.MAX_VALUE);
+            final var buffer = ByteBuffer.allocate((int) fileSize);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            return buffer.clear();
+        }
+    }
+
+    private static boolean hasValidHeader(ByteBuffer buffer, long firstSequence) {
+        if (buffer.capacity() < SEGMENT_HEADER_SIZE) {
+            return false;
+        }
+        final int formatVersion = formatVersionOf(buffer);
+        final boolean isKnownFormat = formatVersion == FORMAT_VERSION ||
+                                      formatVersion == RECORD_CODEC_V2_FORMAT_VERSION ||
+                                      formatVersion == RECORD_CODEC_V1_FORMAT_VERSION ||
+                                      formatVersion == LEGACY_FORMAT_VERSION;
+        return buffer.getInt(0) == MAGIC &&
+               isKnownFormat &&
+               buffer.getLong(8) == firstSequence;
+    }
+
+    private static int formatVersionOf(ByteBuffer buffer) {
+        return buffer.getInt(4);
+    }
+
+    private static int recordFormatVersionOf(int formatVersion) {
+        return switch (formatVersion) {
+            case RECORD_CODEC_V1_FORMAT_VERSION -> 1;
+            case RECORD_CODEC_V2_FORMAT_VERSION -> 2;
+            default -> RecordCodec.FORMAT_VERSION;
+        };
+    }
+
+    private static void writeHeader(ByteBuffer buffer, long firstSequence) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(8, firstSequence);
+    }
+
+    /**
+     * Reads the valid records of the given segment buffer up to the given
+     * limit, advancing the cursor, and passes the records at or after the
+     * given sequence to the consumer if any, resolving their references
+     * through the given caches.
+     */
+    private static void scan(
+        ByteBuffer buffer,
+        int limit,
+        Cursor cursor,
+        long fromSequence,
+        RecordCaches caches,
+        JournalRecordConsumer consumer
+    ) {
+        final var checksum = new CRC32C();
+        final var input = new RecordInput();
+        final int formatVersion = formatVersionOf(buffer);
+        final boolean isLegacy = formatVersion == LEGACY_FORMAT_VERSION;
+
+        input.setFormatVersion(recordFormatVersionOf(formatVersion));
+        input.setCaches(caches);
+
+        while (cursor.position + RECORD_HEADER_SIZE <= limit && cursor.remaining > 0) {
+            final int start = cursor.position;
+            final int length = buffer.getInt(start);
+
+            if (length < RECORD_HEADER_SIZE || start + length > limit) {
+                return;
+            }
+            if (buffer.getLong(start + SEQUENCE_OFFSET) != cursor.nextSequence) {
+                return;
+            }
+            checksum.reset();
+            checksum.update(
+                buffer.duplicate()
+                      .position(start + SEQUENCE_OFFSET)
+                      .limit(start + length)
+            );
+            if ((int) checksum.getValue() != buffer.getInt(start + CHECKSUM_OFFSET)) {
+                return;
+            }
+            if (consumer != null && cursor.nextSequence >= fromSequence) {
+                final var payload = buffer.duplicate()
+                                          .position(start + RECORD_HEADER_SIZE)
+                                          .limit(start + length);
+                final CartOrder order;
+
+                if (isLegacy) {
+                    order = OrderJournalCodec.decode(payload);
+                }
+                else {
+                    input.reset(payload, payload.position());
+                    order = RecordCodec.readCartOrder(input);
+                }
+                consumer.accept(cursor.nextSequence, order);
+                cursor.remaining--;
+            }
+            cursor.position += length;
+            cursor.nextSequence++;
+        }
+    }
+
+    /**
+     * Clears the bytes of the given buffer after the given position, so a
+     * torn record or the leftovers after it are never read as records.
+     */
+    private static void clearTail(MappedByteBuffer buffer, int from) {
+        int end = from;
+
+        // Reading the holes of a sparse file doesn't allocate disk blocks
+        for (int i = from; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                end = i + 1;
+            }
+        }
+        if (end == from) {
+            return;
+        }
+        for (int i = from; i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force(from, end - from);
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes the new file entry durable, it's not supported on every platform
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Defines a segment file of the journal.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final long firstSequence;
+
+        Segment(Path path) {
+            final var name = path.getFileName().toString();
+            final var digits = name.substring(
+                SEGMENT_PREFIX.length(),
+                name.length() - SEGMENT_SUFFIX.length()
+            );
+
+            this.path = path;
+            this.firstSequence = Long.parseLong(digits);
+        }
+    }
+
+    /**
+     * Defines the reading position of a segment scan, along with the number
+     * of records left to pass to the consumer.
+     */
+    private static final class Cursor {
+        private int position;
+        private long nextSequence;
+        private int remaining;
+
+        Cursor(int position, long nextSequence) {
+            this.position = position;
+            this.nextSequence = nextSequence;
+            this.remaining = Integer.MAX_VALUE;
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Path directory;
+    private final JournalConfig config;
+    private final RecordOutput recordOutput;
+    private final CRC32C checksum;
+    private final ByteBuffer sequenceBytes;
+    private final Object syncLock;
+    private List<Segment> segments;
+    private ScheduledExecutorService flusher;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int dirtyStart;
+    private int flushedEnd;
+    private long nextSequence;
+    private volatile long durableSequence;
+    private volatile RecordCaches recordCaches;
+    private boolean closed;
+
+    private OrderJournal(Path directory, JournalConfig config) {
+        this.directory = directory;
+        this.config = config;
+        this.recordOutput = new RecordOutput();
+        this.checksum = new CRC32C();
+        this.sequenceBytes = ByteBuffer.allocate(Long.BYTES);
+        this.syncLock = new Object();
+        this.segments = new ArrayList<>();
+        this.flusher = null;
+        this.buffer = null;
+        this.position = 0;
+        this.dirtyStart = 0;
+        this.flushedEnd = 0;
+        this.nextSequence = NO_SEQUENCE + 1L;
+        this.durableSequence = NO_SEQUENCE;
+        this.recordCaches = null;
+        this.closed = false;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public JournalConfig getConfig() {
+        return config;
+    }
+
+    public RecordCaches getRecordCaches() {
+        return recordCaches;
+    }
+
+    /**
+     * Sets the caches resolving the references of the replayed orders that
+     * were written without their records, which otherwise keep only their
+     * id.
+     *
+     * @param value caches of the references, or {@code null}
+     */
+    public void setRecordCaches(RecordCaches value) {
+        recordCaches = value;
+    }
+
+    /**
+     * Returns the sequence number of the last appended record, or
+     * {@link #NO_SEQUENCE} if the journal is empty.
+     *
+     * @return the sequence number of the last appended record
+     */
+    public synchronized long getLastSequence() {
+        return nextSequence - 1L;
+    }
+
+    /**
+     * Returns the sequence number up to which the records are known to be
+     * flushed to the disk.
+     *
+     * @return the sequence number up to which the records are flushed
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Appends the given order to this journal. The record is flushed
+     * according to the sync policy of this journal.
+     *
+     * @param cartOrder order to append
+     *
+     * @return the sequence number of the record
+     *
+     * @throws RuntimeException     if the journal is closed or the record
+     *                              doesn't fit in a segment
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public long append(CartOrder cartOrder) {
+        final long sequence;
+
+        synchronized (this) {
+            requireOpen();
+            recordOutput.reset();
+            RecordCodec.writeCartOrder(recordOutput, cartOrder);
+            final var payload = recordOutput.toByteBuffer();
+            final int length = RECORD_HEADER_SIZE + payload.remaining();
+
+            if (length > config.getSegmentSize() - SEGMENT_HEADER_SIZE) {
+                final var msg = "The record doesn't fit in a segment: " + length;
+                throw new RuntimeException(msg);
+            }
+            if (position + length > buffer.capacity()) {
+                roll();
+            }
+            sequence = nextSequence;
+            checksum.reset();
+            checksum.update(sequenceBytes.clear().putLong(sequence).array());
+            checksum.update(payload.duplicate());
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.put(payload);
+            buffer.putLong(position + SEQUENCE_OFFSET, sequence);
+            buffer.putInt(position + CHECKSUM_OFFSET, (int) checksum.getValue());
+            buffer.putInt(position, length);
+            position += length;
+            nextSequence++;
+        }
+        if (config.getSyncPolicy() == JournalSyncPolicy.EVERY_APPEND) {
+            sync();
+        }
+        return sequence;
+    }
+
+    /**
+     * Flushes the records appended so far to the disk, and waits for it.
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public void sync() {
+        // Serializes the flushes so the durable sequence never gets ahead
+        synchronized (syncLock) {
+            final MappedByteBuffer target;
+            final int from;
+            final int to;
+            final long sequence;
+
+            synchronized (this) {
+                target = buffer;
+                from = dirtyStart;
+                to = position;
+                sequence = nextSequence - 1L;
+                dirtyStart = position;
+            }
+            if (to > from) {
+                try {
+                    target.force(from, to - from);
+                }
+                catch (UncheckedIOException e) {
+                    restoreDirtyStart(target, from);
+                    throw e;
+                }
+                markFlushed(target, to);
+            }
+            markDurable(sequence);
+        }
+    }
+
+    /**
+     * Replays the records of this journal with a sequence number at or after
+     * the given one, in sequence order.
+     *
+     * @param fromSequence first sequence number to replay
+     * @param consumer     consumer of the records
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public void replay(long fromSequence, JournalRecordConsumer consumer) {
+        replay(fromSequence, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Replays at most the given number of records of this journal with a
+     * sequence number at or after the given one, in sequence order.
+     *
+     * @param fromSequence first sequence number to replay
+     * @param maxRecords   max number of records to replay
+     * @param consumer     consumer of the records
+     *
+     * @return the number of replayed records
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public int replay(long fromSequence, int maxRecords, JournalRecordConsumer consumer) {
+        final RecordCaches caches = recordCaches;
+        final List<Segment> snapshot;
+        final ByteBuffer current;
+        final int currentEnd;
+
+        synchronized (this) {
+            requireOpen();
+            snapshot = List.copyOf(segments);
+            current = buffer.duplicate();
+            currentEnd = position;
+        }
+        int replayed = 0;
+
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                final var segment = snapshot.get(i);
+                final boolean isCurrent = i == snapshot.size() - 1;
+
+                if (!isCurrent && snapshot.get(i + 1).firstSequence <= fromSequence) {
+                    continue;
+                }
+                // The current segment is read through the mapping of the writer
+                final var segmentBuffer = isCurrent ? current : read(segment.path);
+
+                if (!hasValidHeader(segmentBuffer, segment.firstSequence)) {
+                    continue;
+                }
+                final int limit = isCurrent ? currentEnd : segmentBuffer.capacity();
+                final var cursor = new Cursor(SEGMENT_HEADER_SIZE, segment.firstSequence);
+
+                cursor.remaining = maxRecords - replayed;
+                scan(segmentBuffer, limit, cursor, fromSequence, caches, consumer);
+                replayed = maxRecords - cursor.remaining;
+                if (replayed == maxRecords) {
+                    break;
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return replayed;
+    }
+
+    /**
+     * Deletes the segment files whose records all have a sequence number
+     * before the given one, like after they were uploaded. The current
+     * segment is never deleted.
+     *
+     * @param sequence first sequence number to keep
+     *
+     * @return the number of deleted segment files
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public synchronized int truncateBefore(long sequence) {
+        int deleted = 0;
+
+        try {
+            while (segments.size() > 1 && segments.get(1).firstSequence <= sequence) {
+                Files.deleteIfExists(segments.get(0).path);
+                segments.remove(0);
+                deleted++;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Flushes the pending records and closes this journal.
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        sync();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderJournal[" +
+               "directory=" + directory + ", " +
+               "lastSequence=" + getLastSequence() + ", " +
+               "durableSequence=" + durableSequence +
+               "]";
+    }
+
+    private void recover() throws IOException {
+        segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            createSegment(nextSequence);
+            return;
+        }
+        final var last = segments.get(segments.size() - 1);
+
+        buffer = map(last.path, 0);
+        if (hasValidHeader(buffer, last.firstSequence)) {
+            final var cursor = new Cursor(SEGMENT_HEADER_SIZE, last.firstSequence);
+
+            scan(buffer, buffer.capacity(), cursor, 0L, null, null);
+            position = cursor.position;
+            nextSequence = cursor.nextSequence;
+        }
+        else {
+            // Torn while the segment was being created
+            writeHeader(buffer, last.firstSequence);
+            buffer.force(0, SEGMENT_HEADER_SIZE);
+            position = SEGMENT_HEADER_SIZE;
+            nextSequence = last.firstSequence;
+        }
+        clearTail(buffer, position);
+        dirtyStart = position;
+        flushedEnd = position;
+        durableSequence = nextSequence - 1L;
+        if (formatVersionOf(buffer) != FORMAT_VERSION) {
+            // An empty legacy segment has the name of the new one
+            if (nextSequence == last.firstSequence) {
+                segments.remove(segments.size() - 1);
+            }
+            createSegment(nextSequence);
+        }
+    }
+
+    private void startFlusher() {
+        if (config.getSyncPolicy() != JournalSyncPolicy.GROUP_COMMIT) {
+            return;
+        }
+        final long interval = config.getGroupCommitInterval().toNanos();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "northwind-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(
+            this::syncQuietly,
+            interval,
+            interval,
+            TimeUnit.NANOSECONDS
+        );
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        }
+        catch (UncheckedIOException ignore) {
+            // The range stays dirty so the next group commit retries it
+        }
+    }
+
+    private void roll() {
+        final boolean flushes = config.getSyncPolicy() != JournalSyncPolicy.OS_MANAGED;
+
+        // Forces from the end of the last completed flush instead of the dirty
+        // start, since a sync may still be flushing the range before it
+        if (flushes && position > flushedEnd) {
+            buffer.force(flushedEnd, position - flushedEnd);
+            markDurable(nextSequence - 1L);
+        }
+        try {
+            createSegment(nextSequence);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void createSegment(long firstSequence) throws IOException {
+        final var path = segmentPath(directory, firstSequence);
+
+        Files.deleteIfExists(path);
+        buffer = map(path, config.getSegmentSize());
+        writeHeader(buffer, firstSequence);
+        buffer.force(0, SEGMENT_HEADER_SIZE);
+        syncDirectory(directory);
+        segments.add(new Segment(path));
+        position = SEGMENT_HEADER_SIZE;
+        dirtyStart = SEGMENT_HEADER_SIZE;
+        flushedEnd = SEGMENT_HEADER_SIZE;
+    }
+
+    private synchronized void markDurable(long sequence) {
+        if (sequence > durableSequence) {
+            durableSequence = sequence;
+        }
+    }
+
+    private synchronized void markFlushed(MappedByteBuffer target, int to) {
+        if (buffer == target) {
+            flushedEnd = Math.max(flushedEnd, to);
+        }
+    }
+
+    private synchronized void restoreDirtyStart(MappedByteBuffer target, int from) {
+        if (buffer == target) {
+            dirtyStart = Math.min(dirtyStart, from);
+        }
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            final var msg = "The journal is closed";
+            throw new RuntimeException(msg);
+        }
+    }
+
+}
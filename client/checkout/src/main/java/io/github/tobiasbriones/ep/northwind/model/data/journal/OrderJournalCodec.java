@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
+
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.CustomerBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.EmployeeBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.Order;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetail;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderTaxStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.product.ProductBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.ShipperBuilder;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Decodes the {@link CartOrder} records of the {@link OrderJournal} segments
+ * of format version 1, written before the journal moved to the
+ * {@link io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCodec}.
+ * It's kept so the orders journaled before an update are still uploaded.
+ * <p>
+ * A record embeds the full referenced records, like the customer or the
+ * products. The strings are stored as their UTF-16 code units in UTF-8
+ * form.
+ */
+final class OrderJournalCodec {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_EPOCH_DAY = Long.MIN_VALUE;
+
+    /**
+     * Decodes the order of the given record payload.
+     *
+     * @param in payload of the record
+     *
+     * @return the decoded order
+     */
+    static CartOrder decode(ByteBuffer in) {
+        final var order = readOrder(in);
+        final int size = in.getInt();
+        final var details = new ArrayList<OrderDetail>(size);
+
+        for (int i = 0; i < size; i++) {
+            details.add(readDetail(in, order));
+        }
+        return new CartOrder(order, Collections.unmodifiableList(details));
+    }
+
+    private static Order readOrder(ByteBuffer in) {
+        final var id = in.getInt();
+
+        return new OrderBuilder(id)
+            .setEmployee(readEmployee(in))
+            .setCustomer(readCustomer(in))
+            .setShipper(readShipper(in))
+            .setOrderTaxStatus(readOrderTaxStatus(in))
+            .setOrderStatus(readOrderStatus(in))
+            .setOrderDate(readDateTime(in))
+            .setShippedDate(readDateTime(in))
+            .setShipName(readString(in))
+            .setShipAddress(readString(in))
+            .setShipCity(readString(in))
+            .setShipProvince(readString(in))
+            .setShipZipPostalCode(readString(in))
+            .setShipCountryRegion(readString(in))
+            .setShippingFee(in.getDouble())
+            .setTaxes(in.getDouble())
+            .setPaymentType(readString(in))
+            .setPaidDate(readDateTime(in))
+            .setNotes(readString(in))
+            .setTaxRate(in.getDouble())
+            .build();
+    }
+
+    private static OrderDetail readDetail(ByteBuffer in, Order order) {
+        final var id = in.getInt();
+
+        return new OrderDetailBuilder(id)
+            .setOrder(order)
+            .setProduct(readProduct(in))
+            .setStatus(readOrderDetailStatus(in))
+            .setQuantity(in.getDouble())
+            .setUnitPrice(in.getDouble())
+            .setDiscount(in.getDouble())
+            .setDateAllocated(readDate(in))
+            .setPurchaseOrderId(in.getInt())
+            .setInventoryId(in.getInt())
+            .build();
+    }
+
+    private static Product readProduct(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return new ProductBuilder(in.getInt())
+            .setCode(readString(in))
+            .setName(readString(in))
+            .setDescription(readString(in))
+            .setStandardCost(in.getDouble())
+            .setListPrice(in.getDouble())
+            .setReorderLevel(in.getInt())
+            .setTargetLevel(in.getInt())
+            .setQuantityPerUnit(readString(in))
+            .setDiscontinued(readBoolean(in))
+            .setMinimumReorderQuantity(in.getInt())
+            .setCategory(readString(in))
+            .setAttachments(readString(in))
+            .setSupplierIds(readString(in))
+            .build();
+    }
+
+    private static Employee readEmployee(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return new EmployeeBuilder(in.getInt())
+            .setCompany(readString(in))
+            .setLastName(readString(in))
+            .setFirstName(readString(in))
+            .setEmail(readString(in))
+            .setJobTitle(readString(in))
+            .setBusinessPhone(readString(in))
+            .setHomePhone(readString(in))
+            .setMobilePhone(readString(in))
+            .setFaxNumber(readString(in))
+            .setAddress(readString(in))
+            .setCity(readString(in))
+            .setStateProvince(readString(in))
+            .setZipPostalCode(readString(in))
+            .setCountryRegion(readString(in))
+            .setWebPage(readString(in))
+            .setNotes(readString(in))
+            .setAttachments(readString(in))
+            .build();
+    }
+
+    private static Customer readCustomer(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return new CustomerBuilder(in.getInt())
+            .setCompany(readString(in))
+            .setLastName(readString(in))
+            .setFirstName(readString(in))
+            .setEmail(readString(in))
+            .setJobTitle(readString(in))
+            .setBusinessPhone(readString(in))
+            .setHomePhone(readString(in))
+            .setMobilePhone(readString(in))
+            .setFaxNumber(readString(in))
+            .setAddress(readString(in))
+            .setCity(readString(in))
+            .setStateProvince(readString(in))
+            .setZipPostalCode(readString(in))
+            .setCountryRegion(readString(in))
+            .setWebPage(readString(in))
+            .setNotes(readString(in))
+            .setAttachments(readString(in))
+            .build();
+    }
+
+    private static Shipper readShipper(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return new ShipperBuilder(in.getInt())
+            .setCompany(readString(in))
+            .setLastName(readString(in))
+            .setFirstName(readString(in))
+            .setEmail(readString(in))
+            .setJobTitle(readString(in))
+            .setBusinessPhone(readString(in))
+            .setHomePhone(readString(in))
+            .setMobilePhone(readString(in))
+            .setFaxNumber(readString(in))
+            .setAddress(readString(in))
+            .setCity(readString(in))
+            .setStateProvince(readString(in))
+            .setZipPostalCode(readString(in))
+            .setCountryRegion(readString(in))
+            .setWebPage(readString(in))
+            .setNotes(readString(in))
+            .setAttachments(readString(in))
+            .build();
+    }
+
+    private static OrderTaxStatus readOrderTaxStatus(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return OrderTaxStatus.of(in.getInt(), readString(in));
+    }
+
+    private static OrderStatus readOrderStatus(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return OrderStatus.of(in.getInt(), readString(in));
+    }
+
+    private static OrderDetailStatus readOrderDetailStatus(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        return OrderDetailStatus.of(in.getInt(), readString(in));
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        if (!readBoolean(in)) {
+            return null;
+        }
+        final long epochSecond = in.getLong();
+        final int nanos = in.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        final long epochDay = in.getLong();
+        return epochDay == NULL_EPOCH_DAY ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final var chars = new char[length];
+        final int end = in.position() + length;
+        int count = 0;
+
+        while (in.position() < end) {
+            final int b = in.get() & 0xFF;
+
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            }
+            else if (b < 0xE0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (in.get() & 0x3F));
+            }
+            else {
+                final int b2 = in.get() & 0x3F;
+                final int b3 = in.get() & 0x3F;
+                chars[count++] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private OrderJournalCodec() {}
+
+}
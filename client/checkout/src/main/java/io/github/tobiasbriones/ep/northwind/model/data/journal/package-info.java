@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+/**
+ * Provides the local journal of the orders completed by the checkout app,
+ * so the terminal keeps selling while the API is unreachable.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.journal;
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Defines a set of known attribute names that a {@link JsonReader} can match
+ * against the raw bytes of the input, so reading a known attribute name
+ * doesn't allocate a {@link String}.
+ */
+public final class JsonNames {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the index returned for the names that are not in the set.
+     */
+    public static final int UNKNOWN_NAME_INDEX = -1;
+
+    /**
+     * Returns a new set of the given names. The index of each name is its
+     * position in the arguments.
+     *
+     * @param names names of the set
+     *
+     * @return a new set of the given names
+     */
+    public static JsonNames of(String... names) {
+        final var bytes = new byte[names.length][];
+
+        for (int i = 0; i < names.length; i++) {
+            bytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return new JsonNames(bytes);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final byte[][] names;
+
+    private JsonNames(byte[][] names) {
+        this.names = names;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonNames[" +
+               "size=" + names.length + ", " +
+               "]";
+    }
+
+    int indexOf(byte[] bytes, int length) {
+        for (int i = 0; i < names.length; i++) {
+            final byte[] name = names[i];
+
+            if (name.length == length &&
+                Arrays.equals(name, 0, length, bytes, 0, length)) {
+                return i;
+            }
+        }
+        return UNKNOWN_NAME_INDEX;
+    }
+
+}
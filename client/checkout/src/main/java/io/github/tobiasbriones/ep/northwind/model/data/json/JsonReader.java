@@ -0,0 +1,721 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Defines a pull reader that reads UTF-8 JSON token by token from an
+ * {@link InputStream} or a {@link ByteBuffer}. The input is read in small
+ * chunks into a reused buffer, so the memory used doesn't depend on the size
+ * of the document.
+ * <p>
+ * The reader is not thread-safe. I/O errors are thrown as
+ * {@link UncheckedIOException} and malformed input as
+ * {@link RuntimeException}.
+ */
+public final class JsonReader implements Closeable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int SCRATCH_INITIAL_SIZE = 128;
+    private static final int STACK_INITIAL_SIZE = 16;
+    private static final int EOF = -1;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    // Max number of decimal digits held in the long mantissa without overflow
+    private static final int FAST_PATH_MAX_DIGITS = 18;
+    private static final long FAST_PATH_MAX_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static boolean isNumberByte(int b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' ||
+               b == 'e' || b == 'E';
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int hexValue(int b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return EOF;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private byte[] scratch;
+    private int scratchLength;
+    private int[] stack;
+    private int stackSize;
+    private JsonToken peeked;
+
+    /**
+     * Creates a new JsonReader reading from the given stream. The stream is
+     * closed when this reader is closed.
+     *
+     * @param in stream to read the UTF-8 JSON from
+     */
+    public JsonReader(InputStream in) {
+        this(in, null);
+    }
+
+    /**
+     * Creates a new JsonReader reading the remaining bytes of the given
+     * buffer.
+     *
+     * @param source buffer to read the UTF-8 JSON from
+     */
+    public JsonReader(ByteBuffer source) {
+        this(null, source);
+    }
+
+    private JsonReader(InputStream in, ByteBuffer source) {
+        this.in = in;
+        this.source = source;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.pos = 0;
+        this.limit = 0;
+        this.scratch = new byte[SCRATCH_INITIAL_SIZE];
+        this.scratchLength = 0;
+        this.stack = new int[STACK_INITIAL_SIZE];
+        this.stackSize = 1;
+        this.stack[0] = EMPTY_DOCUMENT;
+        this.peeked = null;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     *
+     * @return the type of the next token
+     */
+    public JsonToken peek() {
+        if (peeked == null) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    /**
+     * Returns {@code true} if and only if the current array or object has
+     * another element.
+     *
+     * @return {@code true} if and only if the current array or object has
+     * another element
+     */
+    public boolean hasNext() {
+        final var token = peek();
+        return token != JsonToken.END_ARRAY &&
+               token != JsonToken.END_OBJECT &&
+               token != JsonToken.END_DOCUMENT;
+    }
+
+    public void beginArray() {
+        consume(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        consume(JsonToken.END_ARRAY);
+        stackSize--;
+    }
+
+    public void beginObject() {
+        consume(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        consume(JsonToken.END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the next attribute name and returns it.
+     *
+     * @return the next attribute name
+     */
+    public String nextName() {
+        consume(JsonToken.NAME);
+        readStringIntoScratch();
+        return scratchToString();
+    }
+
+    /**
+     * Consumes the next attribute name and returns its index in the given
+     * set of names without allocating it.
+     *
+     * @param names set of known names
+     *
+     * @return the index of the next attribute name in the given set, or
+     * {@link JsonNames#UNKNOWN_NAME_INDEX} if it's not in the set
+     */
+    public int selectName(JsonNames names) {
+        consume(JsonToken.NAME);
+        readStringIntoScratch();
+        return names.indexOf(scratch, scratchLength);
+    }
+
+    /**
+     * Consumes the next string or number value and returns it as a string.
+     *
+     * @return the next value as a string
+     */
+    public String nextString() {
+        final var token = peek();
+
+        if (token == JsonToken.STRING) {
+            peeked = null;
+            readStringIntoScratch();
+        }
+        else if (token == JsonToken.NUMBER) {
+            peeked = null;
+            readNumberIntoScratch();
+        }
+        else {
+            throw newUnexpectedTokenException("a string", token);
+        }
+        return scratchToString();
+    }
+
+    /**
+     * Consumes the next number value. A string value holding a number is
+     * also accepted since some serializers encode decimals as strings.
+     *
+     * @return the next number value
+     */
+    public double nextDouble() {
+        final var token = peek();
+
+        if (token == JsonToken.NUMBER) {
+            peeked = null;
+            readNumberIntoScratch();
+        }
+        else if (token == JsonToken.STRING) {
+            peeked = null;
+            readStringIntoScratch();
+        }
+        else {
+            throw newUnexpectedTokenException("a number", token);
+        }
+        return parseScratchNumber();
+    }
+
+    /**
+     * Consumes the next number value, that must be an integer.
+     *
+     * @return the next number value
+     *
+     * @see #nextDouble()
+     */
+    public int nextInt() {
+        final double value = nextDouble();
+        final int intValue = (int) value;
+
+        if (intValue != value) {
+            final var msg = """
+                            Expected an int but was %s at position %d
+                            """.formatted(value, pos);
+            throw new RuntimeException(msg);
+        }
+        return intValue;
+    }
+
+    /**
+     * Consumes the next number value, that must be an integer exactly
+     * representable as a double.
+     *
+     * @return the next number value
+     *
+     * @see #nextDouble()
+     */
+    public long nextLong() {
+        final double value = nextDouble();
+        final long longValue = (long) value;
+
+        if (longValue != value) {
+            final var msg = """
+                            Expected a long but was %s at position %d
+                            """.formatted(value, pos);
+            throw new RuntimeException(msg);
+        }
+        return longValue;
+    }
+
+    public boolean nextBoolean() {
+        final var token = peek();
+
+        if (token != JsonToken.BOOLEAN) {
+            throw newUnexpectedTokenException("a boolean", token);
+        }
+        peeked = null;
+        if (read() == 't') {
+            expectLiteral("rue");
+            return true;
+        }
+        expectLiteral("alse");
+        return false;
+    }
+
+    public void nextNull() {
+        consume(JsonToken.NULL);
+        read();
+        expectLiteral("ull");
+    }
+
+    /**
+     * Consumes the next value, including all the nested values if it's an
+     * array or an object.
+     */
+    public void skipValue() {
+        int depth = 0;
+
+        do {
+            final var token = peek();
+
+            switch (token) {
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    depth++;
+                }
+                case BEGIN_OBJECT -> {
+                    beginObject();
+                    depth++;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    depth--;
+                }
+                case END_OBJECT -> {
+                    endObject();
+                    depth--;
+                }
+                case NAME -> nextName();
+                case STRING, NUMBER -> nextString();
+                case BOOLEAN -> nextBoolean();
+                case NULL -> nextNull();
+                default -> throw newUnexpectedTokenException("a value", token);
+            }
+        }
+        while (depth > 0);
+    }
+
+    @Override
+    public void close() {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JsonReader[" +
+               "peeked=" + peeked + ", " +
+               "depth=" + stackSize + ", " +
+               "]";
+    }
+
+    private JsonToken doPeek() {
+        final int top = stack[stackSize - 1];
+
+        switch (top) {
+            case EMPTY_ARRAY -> {
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                if (readNonWhitespace() == ']') {
+                    return JsonToken.END_ARRAY;
+                }
+                pos--;
+            }
+            case NONEMPTY_ARRAY -> {
+                final int b = readNonWhitespace();
+
+                if (b == ']') {
+                    return JsonToken.END_ARRAY;
+                }
+                if (b != ',') {
+                    throw newSyntaxException("',' or ']'");
+                }
+            }
+            case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                return peekName(top);
+            }
+            case DANGLING_NAME -> {
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if (readNonWhitespace() != ':') {
+                    throw newSyntaxException("':'");
+                }
+            }
+            case EMPTY_DOCUMENT -> stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+            default -> {
+                if (skipWhitespace() == EOF) {
+                    return JsonToken.END_DOCUMENT;
+                }
+                throw newSyntaxException("end of document");
+            }
+        }
+        return peekValue();
+    }
+
+    private JsonToken peekName(int top) {
+        int b = readNonWhitespace();
+
+        if (b == '}') {
+            return JsonToken.END_OBJECT;
+        }
+        if (top == NONEMPTY_OBJECT) {
+            if (b != ',') {
+                throw newSyntaxException("',' or '}'");
+            }
+            b = readNonWhitespace();
+        }
+        if (b != '"') {
+            throw newSyntaxException("an attribute name");
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        return JsonToken.NAME;
+    }
+
+    private JsonToken peekValue() {
+        final int b = readNonWhitespace();
+
+        switch (b) {
+            case '{':
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                return JsonToken.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return JsonToken.BOOLEAN;
+            case 'n':
+                pos--;
+                return JsonToken.NULL;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    pos--;
+                    return JsonToken.NUMBER;
+                }
+                throw newSyntaxException("a value");
+        }
+    }
+
+    private void consume(JsonToken expected) {
+        final var token = peek();
+
+        if (token != expected) {
+            throw newUnexpectedTokenException(expected.name(), token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private void readStringIntoScratch() {
+        scratchLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw newSyntaxException("'\"'");
+            }
+            // Copy the plain run of bytes at once
+            final int start = pos;
+
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                pos++;
+            }
+            appendScratch(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            if (buffer[pos++] == '"') {
+                return;
+            }
+            readEscape();
+        }
+    }
+
+    private void readEscape() {
+        final int b = read();
+
+        switch (b) {
+            case '"', '\\', '/' -> appendScratch((byte) b);
+            case 'b' -> appendScratch((byte) '\b');
+            case 'f' -> appendScratch((byte) '\f');
+            case 'n' -> appendScratch((byte) '\n');
+            case 'r' -> appendScratch((byte) '\r');
+            case 't' -> appendScratch((byte) '\t');
+            case 'u' -> readUnicodeEscape();
+            default -> throw newSyntaxException("an escape sequence");
+        }
+    }
+
+    private void readUnicodeEscape() {
+        int codePoint = readHexQuad();
+
+        if (Character.isHighSurrogate((char) codePoint)) {
+            if (read() != '\\' || read() != 'u') {
+                throw newSyntaxException("a low surrogate escape");
+            }
+            final int low = readHexQuad();
+            codePoint = Character.toCodePoint((char) codePoint, (char) low);
+        }
+        appendCodePoint(codePoint);
+    }
+
+    private int readHexQuad() {
+        int value = 0;
+
+        for (int i = 0; i < 4; i++) {
+            final int digit = hexValue(read());
+
+            if (digit == EOF) {
+                throw newSyntaxException("a hex digit");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendScratch((byte) codePoint);
+        }
+        else if (codePoint < 0x800) {
+            appendScratch((byte) (0xC0 | (codePoint >> 6)));
+            appendScratch((byte) (0x80 | (codePoint & 0x3F)));
+        }
+        else if (codePoint < 0x10000) {
+            appendScratch((byte) (0xE0 | (codePoint >> 12)));
+            appendScratch((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            appendScratch((byte) (0x80 | (codePoint & 0x3F)));
+        }
+        else {
+            appendScratch((byte) (0xF0 | (codePoint >> 18)));
+            appendScratch((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            appendScratch((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            appendScratch((byte) (0x80 | (codePoint & 0x3F)));
+        }
+    }
+
+    private void readNumberIntoScratch() {
+        scratchLength = 0;
+        while ((pos < limit || fill()) && isNumberByte(buffer[pos])) {
+            appendScratch(buffer[pos++]);
+        }
+    }
+
+    private double parseScratchNumber() {
+        final double value = parseScratchNumberFast();
+
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+        final var number = new String(
+            scratch,
+            0,
+            scratchLength,
+            StandardCharsets.ISO_8859_1
+        );
+        try {
+            return Double.parseDouble(number);
+        }
+        catch (NumberFormatException e) {
+            final var msg = """
+                            Malformed JSON number: %s
+                            """.formatted(number);
+            throw new RuntimeException(msg, e);
+        }
+    }
+
+    // Parses the plain decimals exactly since the mantissa and the power of
+    // ten are both exact doubles, returns NaN to fall back to parseDouble
+    private double parseScratchNumberFast() {
+        int i = 0;
+        boolean negative = false;
+        long mantissa = 0L;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+
+        if (scratchLength > 0 && scratch[0] == '-') {
+            negative = true;
+            i++;
+        }
+        for (; i < scratchLength; i++) {
+            final byte b = scratch[i];
+
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (b < '0' || b > '9' || digits == FAST_PATH_MAX_DIGITS) {
+                return Double.NaN;
+            }
+            mantissa = mantissa * 10L + (b - '0');
+            digits++;
+            if (fraction) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0 ||
+            mantissa > FAST_PATH_MAX_MANTISSA ||
+            fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private void expectLiteral(String rest) {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw newSyntaxException("a literal value");
+            }
+        }
+    }
+
+    private int read() {
+        if (pos == limit && !fill()) {
+            throw newSyntaxException("more input");
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private int readNonWhitespace() {
+        if (skipWhitespace() == EOF) {
+            throw newSyntaxException("more input");
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private int skipWhitespace() {
+        while (pos < limit || fill()) {
+            final byte b = buffer[pos];
+
+            if (!isWhitespace(b)) {
+                return b & 0xFF;
+            }
+            pos++;
+        }
+        return EOF;
+    }
+
+    private boolean fill() {
+        pos = 0;
+        limit = 0;
+        if (source != null) {
+            final int n = Math.min(buffer.length, source.remaining());
+
+            source.get(buffer, 0, n);
+            limit = n;
+            return n > 0;
+        }
+        try {
+            final int n = in.read(buffer, 0, buffer.length);
+
+            limit = Math.max(n, 0);
+            return n > 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendScratch(byte b) {
+        if (scratchLength == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratchLength * 2);
+        }
+        scratch[scratchLength++] = b;
+    }
+
+    private void appendScratch(byte[] bytes, int offset, int length) {
+        if (scratchLength + length > scratch.length) {
+            final int size = Math.max(scratch.length * 2, scratchLength + length);
+            scratch = Arrays.copyOf(scratch, size);
+        }
+        System.arraycopy(bytes, offset, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private String scratchToString() {
+        return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+    }
+
+    private RuntimeException newUnexpectedTokenException(
+        String expected,
+        JsonToken actual
+    ) {
+        final var msg = """
+                        Expected %s but was %s
+                        """.formatted(expected, actual);
+        return new RuntimeException(msg);
+    }
+
+    private RuntimeException newSyntaxException(String expected) {
+        final var msg = """
+                        Malformed JSON, expected %s
+                        """.formatted(expected);
+        return new RuntimeException(msg);
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Defines a streaming writer that writes UTF-8 JSON token by token to an
+ * {@link OutputStream}, through a reused buffer. It's the counterpart of the
+ * {@link JsonReader}.
+ * <p>
+ * The writer is not thread-safe. I/O errors are thrown as
+ * {@link UncheckedIOException} and misplaced tokens or non-finite numbers as
+ * {@link RuntimeException}.
+ */
+public final class JsonWriter implements Closeable, Flushable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int STACK_INITIAL_SIZE = 16;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+    private static final byte[] NULL_LITERAL = "null".getBytes();
+    private static final byte[] TRUE_LITERAL = "true".getBytes();
+    private static final byte[] FALSE_LITERAL = "false".getBytes();
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int pos;
+    private int[] stack;
+    private int stackSize;
+
+    /**
+     * Creates a new JsonWriter writing to the given stream. The stream is
+     * closed when this writer is closed.
+     *
+     * @param out stream to write the UTF-8 JSON to
+     */
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.pos = 0;
+        this.stack = new int[STACK_INITIAL_SIZE];
+        this.stackSize = 1;
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        write('[');
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        write('{');
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name name of the member
+     *
+     * @return this writer
+     */
+    public JsonWriter name(String name) {
+        final int top = stack[stackSize - 1];
+
+        if (top == NONEMPTY_OBJECT) {
+            write(',');
+        }
+        else if (top != EMPTY_OBJECT) {
+            throw new RuntimeException("Misplaced JSON name: " + name);
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        writeString(name);
+        write(':');
+        return this;
+    }
+
+    /**
+     * Writes the given string value, or {@code null}.
+     *
+     * @param value value to write
+     *
+     * @return this writer
+     */
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        writeBytes(value ? TRUE_LITERAL : FALSE_LITERAL);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes the given number value.
+     *
+     * @param value value to write
+     *
+     * @return this writer
+     *
+     * @throws RuntimeException if the value is not finite
+     */
+    public JsonWriter value(double value) {
+        if (!Double.isFinite(value)) {
+            throw new RuntimeException("Non-finite JSON number: " + value);
+        }
+        beforeValue();
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            writeAscii(Long.toString((long) value));
+        }
+        else {
+            writeAscii(Double.toString(value));
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        writeBytes(NULL_LITERAL);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.write(buffer, 0, pos);
+            pos = 0;
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            out.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JsonWriter[" +
+               "depth=" + (stackSize - 1) +
+               "]";
+    }
+
+    private void beforeValue() {
+        final int top = stack[stackSize - 1];
+
+        switch (top) {
+            case EMPTY_DOCUMENT -> stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+            case EMPTY_ARRAY -> stack[stackSize - 1] = NONEMPTY_ARRAY;
+            case NONEMPTY_ARRAY -> write(',');
+            case DANGLING_NAME -> stack[stackSize - 1] = NONEMPTY_OBJECT;
+            default -> throw new RuntimeException("Misplaced JSON value");
+        }
+    }
+
+    private JsonWriter close(int empty, int nonempty, char bracket) {
+        final int top = stack[stackSize - 1];
+
+        if (top != empty && top != nonempty) {
+            throw new RuntimeException("Misplaced JSON " + bracket);
+        }
+        stackSize--;
+        write(bracket);
+        return this;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private void writeString(String value) {
+        write('"');
+        final int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            }
+            else if (c < 0x20) {
+                writeControlEscape(c);
+            }
+            else if (c < 0x80) {
+                write(c);
+            }
+            else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) &&
+                     i + 1 < length &&
+                     Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            }
+            else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+        write('"');
+    }
+
+    private void writeControlEscape(char c) {
+        write('\\');
+        switch (c) {
+            case '\n' -> write('n');
+            case '\r' -> write('r');
+            case '\t' -> write('t');
+            case '\b' -> write('b');
+            case '\f' -> write('f');
+            default -> {
+                write('u');
+                write('0');
+                write('0');
+                write(HEX_DIGITS[c >> 4]);
+                write(HEX_DIGITS[c & 0xF]);
+            }
+        }
+    }
+
+    private void writeAscii(String value) {
+        final int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            write(value.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        for (final byte b : bytes) {
+            write(b);
+        }
+    }
+
+    private void write(int b) {
+        if (pos == buffer.length) {
+            try {
+                out.write(buffer, 0, pos);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pos = 0;
+        }
+        buffer[pos++] = (byte) b;
+    }
+
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
+import io.github.tobiasbriones.ep.northwind.model.model.StatusRegistry;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Defines a field of a {@link RecordSchema}, given by its JSON attribute
+ * name, the getter of the record and the setter of the builder.
+ * <p>
+ * The fields are created with the factory methods of their type. Each type
+ * is a final class calling its getter and setter with the primitive types,
+ * so the numbers are not boxed. The references to other records are written
+ * by id, without resolving them, and the dates in the MySQL formats.
+ *
+ * @param <R> type of the record
+ * @param <B> type of the builder of the record
+ */
+public abstract class RecordField<R, B> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    // MySQL DATETIME and DATE formats
+    private static final DateTimeFormatter DATE_TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMATTER =
+        DateTimeFormatter.ISO_LOCAL_DATE;
+
+    /**
+     * Returns a new string field. A null value is written as a JSON null.
+     *
+     * @param name   JSON attribute name of the field
+     * @param getter getter of the record
+     * @param setter setter of the builder
+     * @param <R>    type of the record
+     * @param <B>    type of the builder of the record
+     *
+     * @return a new string field
+     */
+    public static <R, B> RecordField<R, B> ofString(
+        String name,
+        Function<? super R, String> getter,
+        BiConsumer<? super B, String> setter
+    ) {
+        return new StringField<>(name, getter, setter);
+    }
+
+    public static <R, B> RecordField<R, B> ofInt(
+        String name,
+        ToIntFunction<? super R> getter,
+        ObjIntConsumer<? super B> setter
+    ) {
+        return new IntField<>(name, getter, setter);
+    }
+
+    public static <R, B> RecordField<R, B> ofDouble(
+        String name,
+        ToDoubleFunction<? super R> getter,
+        ObjDoubleConsumer<? super B> setter
+    ) {
+        return new DoubleField<>(name, getter, setter);
+    }
+
+    /**
+     * Returns a new boolean field. Its JSON value may also be a number,
+     * since MySQL booleans are tinyint, where any non-zero value is
+     * {@code true}.
+     *
+     * @param name   JSON attribute name of the field
+     * @param getter getter of the record
+     * @param setter setter of the builder
+     * @param <R>    type of the record
+     * @param <B>    type of the builder of the record
+     *
+     * @return a new boolean field
+     */
+    public static <R, B> RecordField<R, B> ofBoolean(
+        String name,
+        Predicate<? super R> getter,
+        BiConsumer<? super B, Boolean> setter
+    ) {
+        return new BooleanField<>(name, getter, setter);
+    }
+
+    /**
+     * Returns a new field of a reference to another record, written as the id
+     * of the record without resolving the reference. A missing reference or
+     * one to a new record without a temporary id is written as a JSON null.
+     * A read id gives a reference that keeps only the id, see
+     * {@link RecordRef#ofId(int)}.
+     *
+     * @param name   JSON attribute name of the field
+     * @param getter getter of the reference of the record
+     * @param setter setter of the reference of the builder
+     * @param <R>    type of the record
+     * @param <B>    type of the builder of the record
+     * @param <T>    type of the referenced record
+     *
+     * @return a new reference field
+     */
+    public static <R, B, T extends IdentifiableRecord> RecordField<R, B> ofRef(
+        String name,
+        Function<? super R, RecordRef<T>> getter,
+        BiConsumer<? super B, RecordRef<T>> setter
+    ) {
+        return new RefField<>(name, getter, setter);
+    }
+
+    /**
+     * Returns a new field of a status lookup record, written as the id of the
+     * status. A read id gives the canonical status of the given registry.
+     *
+     * @param name     JSON attribute name of the field
+     * @param getter   getter of the status of the record
+     * @param registry registry of the statuses
+     * @param setter   setter of the status of the builder
+     * @param <R>      type of the record
+     * @param <B>      type of the builder of the record
+     * @param <S>      type of the status
+     *
+     * @return a new status field
+     */
+    public static <R, B, S extends IdentifiableRecord> RecordField<R, B> ofStatus(
+        String name,
+        Function<? super R, S> getter,
+        StatusRegistry<S> registry,
+        BiConsumer<? super B, S> setter
+    ) {
+        return new StatusField<>(name, getter, registry, setter);
+    }
+
+    public static <R, B> RecordField<R, B> ofDateTime(
+        String name,
+        Function<? super R, LocalDateTime> getter,
+        BiConsumer<? super B, LocalDateTime> setter
+    ) {
+        return new DateTimeField<>(name, getter, setter);
+    }
+
+    public static <R, B> RecordField<R, B> ofDate(
+        String name,
+        Function<? super R, LocalDate> getter,
+        BiConsumer<? super B, LocalDate> setter
+    ) {
+        return new DateField<>(name, getter, setter);
+    }
+
+    private static void writeId(JsonWriter writer, int id) {
+        if (id == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            writer.nullValue();
+        }
+        else {
+            writer.value(id);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final String name;
+
+    RecordField(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the JSON attribute name of this field.
+     *
+     * @return the JSON attribute name of this field
+     */
+    public final String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" +
+               "name=" + name +
+               "]";
+    }
+
+    abstract void writeJson(JsonWriter writer, R record);
+
+    /**
+     * Reads the non-null JSON value of this field into the given slot of the
+     * values, since the builder can't be created until the id is read.
+     */
+    abstract void readJson(JsonReader reader, RecordValues values, int slot);
+
+    abstract void apply(RecordValues values, int slot, B builder);
+
+    private static final class StringField<R, B> extends RecordField<R, B> {
+
+        private final Function<? super R, String> getter;
+        private final BiConsumer<? super B, String> setter;
+
+        StringField(
+            String name,
+            Function<? super R, String> getter,
+            BiConsumer<? super B, String> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            writer.value(getter.apply(record));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setObject(slot, reader.nextString());
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, (String) values.getObject(slot));
+        }
+
+    }
+
+    private static final class IntField<R, B> extends RecordField<R, B> {
+
+        private final ToIntFunction<? super R> getter;
+        private final ObjIntConsumer<? super B> setter;
+
+        IntField(
+            String name,
+            ToIntFunction<? super R> getter,
+            ObjIntConsumer<? super B> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            writer.value(getter.applyAsInt(record));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setLong(slot, reader.nextInt());
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, (int) values.getLong(slot));
+        }
+
+    }
+
+    private static final class DoubleField<R, B> extends RecordField<R, B> {
+
+        private final ToDoubleFunction<? super R> getter;
+        private final ObjDoubleConsumer<? super B> setter;
+
+        DoubleField(
+            String name,
+            ToDoubleFunction<? super R> getter,
+            ObjDoubleConsumer<? super B> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            writer.value(getter.applyAsDouble(record));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setLong(slot, Double.doubleToRawLongBits(reader.nextDouble()));
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, Double.longBitsToDouble(values.getLong(slot)));
+        }
+
+    }
+
+    private static final class BooleanField<R, B> extends RecordField<R, B> {
+
+        private final Predicate<? super R> getter;
+        private final BiConsumer<? super B, Boolean> setter;
+
+        BooleanField(
+            String name,
+            Predicate<? super R> getter,
+            BiConsumer<? super B, Boolean> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            writer.value(getter.test(record));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            final boolean value = reader.peek() == JsonToken.BOOLEAN
+                                  ? reader.nextBoolean()
+                                  : reader.nextDouble() != 0.0d;
+
+            values.setLong(slot, value ? 1L : 0L);
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, values.getLong(slot) != 0L);
+        }
+
+    }
+
+    private static final class RefField<R, B, T extends IdentifiableRecord>
+        extends RecordField<R, B> {
+
+        private final Function<? super R, RecordRef<T>> getter;
+        private final BiConsumer<? super B, RecordRef<T>> setter;
+
+        RefField(
+            String name,
+            Function<? super R, RecordRef<T>> getter,
+            BiConsumer<? super B, RecordRef<T>> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            final var ref = getter.apply(record);
+
+            if (ref == null) {
+                writer.nullValue();
+            }
+            else {
+                writeId(writer, ref.getId());
+            }
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setLong(slot, reader.nextInt());
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, RecordRef.ofId((int) values.getLong(slot)));
+        }
+
+    }
+
+    private static final class StatusField<R, B, S extends IdentifiableRecord>
+        extends RecordField<R, B> {
+
+        private final Function<? super R, S> getter;
+        private final StatusRegistry<S> registry;
+        private final BiConsumer<? super B, S> setter;
+
+        StatusField(
+            String name,
+            Function<? super R, S> getter,
+            StatusRegistry<S> registry,
+            BiConsumer<? super B, S> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.registry = registry;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            final var status = getter.apply(record);
+
+            if (status == null) {
+                writer.nullValue();
+            }
+            else {
+                writeId(writer, status.getId());
+            }
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setLong(slot, reader.nextInt());
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, registry.get((int) values.getLong(slot)));
+        }
+
+    }
+
+    private static final class DateTimeField<R, B> extends RecordField<R, B> {
+
+        private final Function<? super R, LocalDateTime> getter;
+        private final BiConsumer<? super B, LocalDateTime> setter;
+
+        DateTimeField(
+            String name,
+            Function<? super R, LocalDateTime> getter,
+            BiConsumer<? super B, LocalDateTime> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            final var value = getter.apply(record);
+            writer.value(value == null ? null : DATE_TIME_FORMATTER.format(value));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setObject(
+                slot,
+                LocalDateTime.parse(reader.nextString(), DATE_TIME_FORMATTER)
+            );
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, (LocalDateTime) values.getObject(slot));
+        }
+
+    }
+
+    private static final class DateField<R, B> extends RecordField<R, B> {
+
+        private final Function<? super R, LocalDate> getter;
+        private final BiConsumer<? super B, LocalDate> setter;
+
+        DateField(
+            String name,
+            Function<? super R, LocalDate> getter,
+            BiConsumer<? super B, LocalDate> setter
+        ) {
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void writeJson(JsonWriter writer, R record) {
+            final var value = getter.apply(record);
+            writer.value(value == null ? null : DATE_FORMATTER.format(value));
+        }
+
+        @Override
+        void readJson(JsonReader reader, RecordValues values, int slot) {
+            values.setObject(slot, LocalDate.parse(reader.nextString(), DATE_FORMATTER));
+        }
+
+        @Override
+        void apply(RecordValues values, int slot, B builder) {
+            setter.accept(builder, (LocalDate) values.getObject(slot));
+        }
+
+    }
+
+}
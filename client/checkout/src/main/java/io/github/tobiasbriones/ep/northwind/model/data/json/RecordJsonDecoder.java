@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the JSON representation of a {@link RecordSchema} token by token
+ * into records, without parsing the document into an intermediate tree.
+ * <p>
+ * The decoder reuses its attribute values across the records it decodes,
+ * so a single instance must not be shared between threads.
+ *
+ * @param <R> type of the record
+ */
+public final class RecordJsonDecoder<R extends IdentifiableRecord> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final RecordSchema<R, ?> schema;
+    private final RecordValues values;
+
+    RecordJsonDecoder(RecordSchema<R, ?> schema) {
+        this.schema = schema;
+        this.values = schema.newValues();
+    }
+
+    public RecordSchema<R, ?> getSchema() {
+        return schema;
+    }
+
+    /**
+     * Decodes a JSON array of records from the given stream, passing each
+     * record to the consumer as soon as it's read. The stream is closed
+     * afterwards.
+     *
+     * @param in       stream to read the UTF-8 JSON array from
+     * @param consumer consumer of the records read
+     *
+     * @return the number of records read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(InputStream in, Consumer<? super R> consumer) {
+        try (var reader = new JsonReader(in)) {
+            return decodeAll(reader, consumer);
+        }
+    }
+
+    /**
+     * Decodes a JSON array of records from the remaining bytes of the given
+     * buffer, passing each record to the consumer as soon as it's read.
+     *
+     * @param buffer   buffer to read the UTF-8 JSON array from
+     * @param consumer consumer of the records read
+     *
+     * @return the number of records read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(ByteBuffer buffer, Consumer<? super R> consumer) {
+        return decodeAll(new JsonReader(buffer), consumer);
+    }
+
+    /**
+     * Decodes a JSON array of records from the given reader, passing each
+     * record to the consumer as soon as it's read.
+     *
+     * @param reader   reader positioned at the JSON array
+     * @param consumer consumer of the records read
+     *
+     * @return the number of records read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(JsonReader reader, Consumer<? super R> consumer) {
+        int count = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            consumer.accept(decode(reader));
+            count++;
+        }
+        reader.endArray();
+        return count;
+    }
+
+    /**
+     * Decodes a JSON object representing a record from the given stream. The
+     * stream is closed afterwards.
+     *
+     * @param in stream to read the UTF-8 JSON object from
+     *
+     * @return the record read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public R decodeOne(InputStream in) {
+        try (var reader = new JsonReader(in)) {
+            return decode(reader);
+        }
+    }
+
+    /**
+     * Decodes the next JSON object of the given reader as a record.
+     *
+     * @param reader reader positioned at the JSON object
+     *
+     * @return the record read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public R decode(JsonReader reader) {
+        return schema.readJson(reader, values);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordJsonDecoder[" +
+               "recordName=" + schema.getRecordName() +
+               "]";
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Defines the fields of a record type once, so its JSON writer and reader
+ * are derived from the same list and stay in sync when a field is added.
+ * The fields are accessed through the getters of the record and the setters
+ * of its builder, without reflection.
+ * <p>
+ * The JSON representation is an object with the id and the fields as
+ * attributes. When read, the unknown attributes are skipped and the null
+ * ones keep the defaults of the builder.
+ *
+ * @param <R> type of the record
+ * @param <B> type of the builder of the record
+ */
+public final class RecordSchema<
+    R extends IdentifiableRecord,
+    B extends AbstractBuilder<R>
+> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the JSON attribute name of the record id.
+     */
+    public static final String ID_ATTR_NAME = "id";
+
+    // The index of the id in the JSON names, the fields follow it
+    private static final int ID_NAME_INDEX = 0;
+
+    /**
+     * Returns a new schema of the given fields.
+     *
+     * @param recordName name of the record type
+     * @param newBuilder creates the builder of a record with the given id
+     * @param fields     fields of the record, in attribute order
+     * @param <R>        type of the record
+     * @param <B>        type of the builder of the record
+     *
+     * @return a new schema of the given fields
+     *
+     * @throws RuntimeException if a field name is repeated
+     */
+    @SafeVarargs
+    public static <R extends IdentifiableRecord, B extends AbstractBuilder<R>>
+    RecordSchema<R, B> of(
+        String recordName,
+        IntFunction<? extends B> newBuilder,
+        RecordField<R, B>... fields
+    ) {
+        final var list = new ArrayList<RecordField<R, B>>(fields.length);
+
+        // Copies the fields instead of passing the generic array on to
+        // another varargs method
+        for (final var field : fields) {
+            list.add(field);
+        }
+        return new RecordSchema<>(recordName, newBuilder, List.copyOf(list));
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final String recordName;
+    private final IntFunction<? extends B> newBuilder;
+    private final List<RecordField<R, B>> fields;
+    private final JsonNames jsonNames;
+
+    private RecordSchema(
+        String recordName,
+        IntFunction<? extends B> newBuilder,
+        List<RecordField<R, B>> fields
+    ) {
+        final var names = new String[fields.size() + 1];
+        final var uniqueNames = new HashSet<String>();
+
+        names[ID_NAME_INDEX] = ID_ATTR_NAME;
+        uniqueNames.add(ID_ATTR_NAME);
+        for (int i = 0; i < fields.size(); i++) {
+            final var field = fields.get(i);
+
+            if (!uniqueNames.add(field.getName())) {
+                final var msg = """
+                                Repeated field %s of the %s schema
+                                """.formatted(field.getName(), recordName);
+                throw new RuntimeException(msg);
+            }
+            names[i + 1] = field.getName();
+        }
+        this.recordName = recordName;
+        this.newBuilder = newBuilder;
+        this.fields = fields;
+        this.jsonNames = JsonNames.of(names);
+    }
+
+    public String getRecordName() {
+        return recordName;
+    }
+
+    /**
+     * Returns the fields of this schema, in attribute order.
+     *
+     * @return an unmodifiable list of the fields of this schema
+     */
+    public List<RecordField<R, B>> getFields() {
+        return fields;
+    }
+
+    /**
+     * Writes the given record as a JSON object. The id of a new record is
+     * written as null.
+     *
+     * @param writer writer to write to
+     * @param record record to write
+     */
+    public void writeJson(JsonWriter writer, R record) {
+        writer.beginObject();
+        writeAttributes(writer, record);
+        writer.endObject();
+    }
+
+    /**
+     * Writes the id and the fields of the given record as attributes of the
+     * JSON object being written, so the caller can add its own attributes,
+     * like the records embedded in it.
+     *
+     * @param writer writer to write to, inside an object
+     * @param record record to write
+     */
+    public void writeAttributes(JsonWriter writer, R record) {
+        writer.name(ID_ATTR_NAME);
+        if (record.getId() == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            writer.nullValue();
+        }
+        else {
+            writer.value(record.getId());
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            final var field = fields.get(i);
+
+            writer.name(field.getName());
+            field.writeJson(writer, record);
+        }
+    }
+
+    /**
+     * Returns a new decoder of the JSON representation of this schema.
+     *
+     * @return a new JSON decoder of this schema
+     */
+    public RecordJsonDecoder<R> newJsonDecoder() {
+        return new RecordJsonDecoder<>(this);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordSchema[" +
+               "recordName=" + recordName + ", " +
+               "fields=" + fields +
+               "]";
+    }
+
+    RecordValues newValues() {
+        return new RecordValues(fields.size());
+    }
+
+    /**
+     * Reads the next JSON object of the given reader as a record, holding
+     * its attributes in the given values until the id is known.
+     */
+    R readJson(JsonReader reader, RecordValues values) {
+        int id = IdentifiableRecord.NEW_RECORD_DEF_ID;
+
+        values.clear();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final int index = reader.selectName(jsonNames);
+
+            if (index == JsonNames.UNKNOWN_NAME_INDEX) {
+                reader.skipValue();
+            }
+            else if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            }
+            else if (index == ID_NAME_INDEX) {
+                id = reader.nextInt();
+            }
+            else {
+                fields.get(index - 1).readJson(reader, values, index - 1);
+            }
+        }
+        reader.endObject();
+        final var builder = newBuilder.apply(id);
+
+        for (int i = 0; i < fields.size(); i++) {
+            if (values.isSet(i)) {
+                fields.get(i).apply(values, i, builder);
+            }
+        }
+        return builder.build();
+    }
+
+}
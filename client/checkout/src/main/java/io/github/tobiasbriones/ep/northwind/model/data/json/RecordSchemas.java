@@ -0,0 +1,708 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.CustomerBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.EmployeeBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.Order;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetail;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderTaxStatus;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.product.ProductBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.ShipperBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.Supplier;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.SupplierBuilder;
+
+/**
+ * Defines the {@link RecordSchema} of the records sent to or received from
+ * the Northwind API, which are the product, the contacts, and the orders
+ * with their details.
+ * <p>
+ * The JSON attribute names are the columns of the database tables. The
+ * orders refer to their customer, employee, shipper and products by id, so
+ * the referenced records are neither embedded nor resolved. The order
+ * schema has no details, they are written along with the order by its
+ * encoder, see {@code OrderJsonEncoder}.
+ * <p>
+ * The product names are the ones defined by the server's
+ * {@code ProductAttributeNames}. The server doesn't send the product
+ * attachments, so the products read from it keep the default ones. The
+ * catalog synchronization writes the products with {@link #PRODUCT} but
+ * reads them with the {@code ProductJsonDecoder}, which decodes the same
+ * JSON without going through the generic fields.
+ */
+public final class RecordSchemas {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    public static final String COMPANY_ATTR_NAME = "company";
+    public static final String LAST_NAME_ATTR_NAME = "last_name";
+    public static final String FIRST_NAME_ATTR_NAME = "first_name";
+    public static final String EMAIL_ATTR_NAME = "email_address";
+    public static final String JOB_TITLE_ATTR_NAME = "job_title";
+    public static final String BUSINESS_PHONE_ATTR_NAME = "business_phone";
+    public static final String HOME_PHONE_ATTR_NAME = "home_phone";
+    public static final String MOBILE_PHONE_ATTR_NAME = "mobile_phone";
+    public static final String FAX_NUMBER_ATTR_NAME = "fax_number";
+    public static final String ADDRESS_ATTR_NAME = "address";
+    public static final String CITY_ATTR_NAME = "city";
+    public static final String STATE_PROVINCE_ATTR_NAME = "state_province";
+    public static final String ZIP_POSTAL_CODE_ATTR_NAME = "zip_postal_code";
+    public static final String COUNTRY_REGION_ATTR_NAME = "country_region";
+    public static final String WEB_PAGE_ATTR_NAME = "web_page";
+    public static final String NOTES_ATTR_NAME = "notes";
+    public static final String ATTACHMENTS_ATTR_NAME = "attachments";
+    public static final String PRODUCT_CODE_ATTR_NAME = "product_code";
+    public static final String PRODUCT_NAME_ATTR_NAME = "product_name";
+    public static final String DESCRIPTION_ATTR_NAME = "description";
+    public static final String QUANTITY_PER_UNIT_ATTR_NAME = "quantity_per_unit";
+    public static final String CATEGORY_ATTR_NAME = "category";
+    public static final String SUPPLIER_IDS_ATTR_NAME = "supplier_ids";
+    public static final String STANDARD_COST_ATTR_NAME = "standard_cost";
+    public static final String LIST_PRICE_ATTR_NAME = "list_price";
+    public static final String REORDER_LEVEL_ATTR_NAME = "reorder_level";
+    public static final String TARGET_LEVEL_ATTR_NAME = "target_level";
+    public static final String MINIMUM_REORDER_QUANTITY_ATTR_NAME =
+        "minimum_reorder_quantity";
+    public static final String DISCONTINUED_ATTR_NAME = "discontinued";
+    public static final String EMPLOYEE_ID_ATTR_NAME = "employee_id";
+    public static final String CUSTOMER_ID_ATTR_NAME = "customer_id";
+    public static final String ORDER_DATE_ATTR_NAME = "order_date";
+    public static final String SHIPPED_DATE_ATTR_NAME = "shipped_date";
+    public static final String SHIPPER_ID_ATTR_NAME = "shipper_id";
+    public static final String SHIP_NAME_ATTR_NAME = "ship_name";
+    public static final String SHIP_ADDRESS_ATTR_NAME = "ship_address";
+    public static final String SHIP_CITY_ATTR_NAME = "ship_city";
+    public static final String SHIP_STATE_PROVINCE_ATTR_NAME = "ship_state_province";
+    public static final String SHIP_ZIP_POSTAL_CODE_ATTR_NAME = "ship_zip_postal_code";
+    public static final String SHIP_COUNTRY_REGION_ATTR_NAME = "ship_country_region";
+    public static final String SHIPPING_FEE_ATTR_NAME = "shipping_fee";
+    public static final String TAXES_ATTR_NAME = "taxes";
+    public static final String PAYMENT_TYPE_ATTR_NAME = "payment_type";
+    public static final String PAID_DATE_ATTR_NAME = "paid_date";
+    public static final String TAX_RATE_ATTR_NAME = "tax_rate";
+    public static final String TAX_STATUS_ID_ATTR_NAME = "tax_status_id";
+    public static final String STATUS_ID_ATTR_NAME = "status_id";
+    public static final String PRODUCT_ID_ATTR_NAME = "product_id";
+    public static final String QUANTITY_ATTR_NAME = "quantity";
+    public static final String UNIT_PRICE_ATTR_NAME = "unit_price";
+    public static final String DISCOUNT_ATTR_NAME = "discount";
+    public static final String DATE_ALLOCATED_ATTR_NAME = "date_allocated";
+    public static final String PURCHASE_ORDER_ID_ATTR_NAME = "purchase_order_id";
+    public static final String INVENTORY_ID_ATTR_NAME = "inventory_id";
+
+    public static final RecordSchema<Product, ProductBuilder> PRODUCT =
+        RecordSchema.of(
+            "product",
+            ProductBuilder::new,
+            RecordField.ofString(
+                PRODUCT_CODE_ATTR_NAME,
+                Product::getCode,
+                ProductBuilder::setCode
+            ),
+            RecordField.ofString(
+                PRODUCT_NAME_ATTR_NAME,
+                Product::getName,
+                ProductBuilder::setName
+            ),
+            RecordField.ofString(
+                DESCRIPTION_ATTR_NAME,
+                Product::getDescription,
+                ProductBuilder::setDescription
+            ),
+            RecordField.ofString(
+                QUANTITY_PER_UNIT_ATTR_NAME,
+                Product::getQuantityPerUnit,
+                ProductBuilder::setQuantityPerUnit
+            ),
+            RecordField.ofString(
+                CATEGORY_ATTR_NAME,
+                Product::getCategory,
+                ProductBuilder::setCategory
+            ),
+            RecordField.ofString(
+                ATTACHMENTS_ATTR_NAME,
+                Product::getAttachments,
+                ProductBuilder::setAttachments
+            ),
+            RecordField.ofString(
+                SUPPLIER_IDS_ATTR_NAME,
+                Product::getSupplierIds,
+                ProductBuilder::setSupplierIds
+            ),
+            RecordField.ofDouble(
+                STANDARD_COST_ATTR_NAME,
+                Product::getStandardCost,
+                ProductBuilder::setStandardCost
+            ),
+            RecordField.ofDouble(
+                LIST_PRICE_ATTR_NAME,
+                Product::getListPrice,
+                ProductBuilder::setListPrice
+            ),
+            RecordField.ofInt(
+                REORDER_LEVEL_ATTR_NAME,
+                Product::getReorderLevel,
+                ProductBuilder::setReorderLevel
+            ),
+            RecordField.ofInt(
+                TARGET_LEVEL_ATTR_NAME,
+                Product::getTargetLevel,
+                ProductBuilder::setTargetLevel
+            ),
+            RecordField.ofInt(
+                MINIMUM_REORDER_QUANTITY_ATTR_NAME,
+                Product::getMinimumReorderQuantity,
+                ProductBuilder::setMinimumReorderQuantity
+            ),
+            RecordField.ofBoolean(
+                DISCONTINUED_ATTR_NAME,
+                Product::isDiscontinued,
+                ProductBuilder::setDiscontinued
+            )
+        );
+
+    public static final RecordSchema<Customer, CustomerBuilder> CUSTOMER =
+        RecordSchema.of(
+            "customer",
+            CustomerBuilder::new,
+            RecordField.ofString(
+                COMPANY_ATTR_NAME,
+                Customer::getCompany,
+                CustomerBuilder::setCompany
+            ),
+            RecordField.ofString(
+                LAST_NAME_ATTR_NAME,
+                Customer::getLastName,
+                CustomerBuilder::setLastName
+            ),
+            RecordField.ofString(
+                FIRST_NAME_ATTR_NAME,
+                Customer::getFirstName,
+                CustomerBuilder::setFirstName
+            ),
+            RecordField.ofString(
+                EMAIL_ATTR_NAME,
+                Customer::getEmail,
+                CustomerBuilder::setEmail
+            ),
+            RecordField.ofString(
+                JOB_TITLE_ATTR_NAME,
+                Customer::getJobTitle,
+                CustomerBuilder::setJobTitle
+            ),
+            RecordField.ofString(
+                BUSINESS_PHONE_ATTR_NAME,
+                Customer::getBusinessPhone,
+                CustomerBuilder::setBusinessPhone
+            ),
+            RecordField.ofString(
+                HOME_PHONE_ATTR_NAME,
+                Customer::getHomePhone,
+                CustomerBuilder::setHomePhone
+            ),
+            RecordField.ofString(
+                MOBILE_PHONE_ATTR_NAME,
+                Customer::getMobilePhone,
+                CustomerBuilder::setMobilePhone
+            ),
+            RecordField.ofString(
+                FAX_NUMBER_ATTR_NAME,
+                Customer::getFaxNumber,
+                CustomerBuilder::setFaxNumber
+            ),
+            RecordField.ofString(
+                ADDRESS_ATTR_NAME,
+                Customer::getAddress,
+                CustomerBuilder::setAddress
+            ),
+            RecordField.ofString(
+                CITY_ATTR_NAME,
+                Customer::getCity,
+                CustomerBuilder::setCity
+            ),
+            RecordField.ofString(
+                STATE_PROVINCE_ATTR_NAME,
+                Customer::getStateProvince,
+                CustomerBuilder::setStateProvince
+            ),
+            RecordField.ofString(
+                ZIP_POSTAL_CODE_ATTR_NAME,
+                Customer::getZipPostalCode,
+                CustomerBuilder::setZipPostalCode
+            ),
+            RecordField.ofString(
+                COUNTRY_REGION_ATTR_NAME,
+                Customer::getCountryRegion,
+                CustomerBuilder::setCountryRegion
+            ),
+            RecordField.ofString(
+                WEB_PAGE_ATTR_NAME,
+                Customer::getWebPage,
+                CustomerBuilder::setWebPage
+            ),
+            RecordField.ofString(
+                NOTES_ATTR_NAME,
+                Customer::getNotes,
+                CustomerBuilder::setNotes
+            ),
+            RecordField.ofString(
+                ATTACHMENTS_ATTR_NAME,
+                Customer::getAttachments,
+                CustomerBuilder::setAttachments
+            )
+        );
+
+    public static final RecordSchema<Employee, EmployeeBuilder> EMPLOYEE =
+        RecordSchema.of(
+            "employee",
+            EmployeeBuilder::new,
+            RecordField.ofString(
+                COMPANY_ATTR_NAME,
+                Employee::getCompany,
+                EmployeeBuilder::setCompany
+            ),
+            RecordField.ofString(
+                LAST_NAME_ATTR_NAME,
+                Employee::getLastName,
+                EmployeeBuilder::setLastName
+            ),
+            RecordField.ofString(
+                FIRST_NAME_ATTR_NAME,
+                Employee::getFirstName,
+                EmployeeBuilder::setFirstName
+            ),
+            RecordField.ofString(
+                EMAIL_ATTR_NAME,
+                Employee::getEmail,
+                EmployeeBuilder::setEmail
+            ),
+            RecordField.ofString(
+                JOB_TITLE_ATTR_NAME,
+                Employee::getJobTitle,
+                EmployeeBuilder::setJobTitle
+            ),
+            RecordField.ofString(
+                BUSINESS_PHONE_ATTR_NAME,
+                Employee::getBusinessPhone,
+                EmployeeBuilder::setBusinessPhone
+            ),
+            RecordField.ofString(
+                HOME_PHONE_ATTR_NAME,
+                Employee::getHomePhone,
+                EmployeeBuilder::setHomePhone
+            ),
+            RecordField.ofString(
+                MOBILE_PHONE_ATTR_NAME,
+                Employee::getMobilePhone,
+                EmployeeBuilder::setMobilePhone
+            ),
+            RecordField.ofString(
+                FAX_NUMBER_ATTR_NAME,
+                Employee::getFaxNumber,
+                EmployeeBuilder::setFaxNumber
+            ),
+            RecordField.ofString(
+                ADDRESS_ATTR_NAME,
+                Employee::getAddress,
+                EmployeeBuilder::setAddress
+            ),
+            RecordField.ofString(
+                CITY_ATTR_NAME,
+                Employee::getCity,
+                EmployeeBuilder::setCity
+            ),
+            RecordField.ofString(
+                STATE_PROVINCE_ATTR_NAME,
+                Employee::getStateProvince,
+                EmployeeBuilder::setStateProvince
+            ),
+            RecordField.ofString(
+                ZIP_POSTAL_CODE_ATTR_NAME,
+                Employee::getZipPostalCode,
+                EmployeeBuilder::setZipPostalCode
+            ),
+            RecordField.ofString(
+                COUNTRY_REGION_ATTR_NAME,
+                Employee::getCountryRegion,
+                EmployeeBuilder::setCountryRegion
+            ),
+            RecordField.ofString(
+                WEB_PAGE_ATTR_NAME,
+                Employee::getWebPage,
+                EmployeeBuilder::setWebPage
+            ),
+            RecordField.ofString(
+                NOTES_ATTR_NAME,
+                Employee::getNotes,
+                EmployeeBuilder::setNotes
+            ),
+            RecordField.ofString(
+                ATTACHMENTS_ATTR_NAME,
+                Employee::getAttachments,
+                EmployeeBuilder::setAttachments
+            )
+        );
+
+    public static final RecordSchema<Shipper, ShipperBuilder> SHIPPER =
+        RecordSchema.of(
+            "shipper",
+            ShipperBuilder::new,
+            RecordField.ofString(
+                COMPANY_ATTR_NAME,
+                Shipper::getCompany,
+                ShipperBuilder::setCompany
+            ),
+            RecordField.ofString(
+                LAST_NAME_ATTR_NAME,
+                Shipper::getLastName,
+                ShipperBuilder::setLastName
+            ),
+            RecordField.ofString(
+                FIRST_NAME_ATTR_NAME,
+                Shipper::getFirstName,
+                ShipperBuilder::setFirstName
+            ),
+            RecordField.ofString(
+                EMAIL_ATTR_NAME,
+                Shipper::getEmail,
+                ShipperBuilder::setEmail
+            ),
+            RecordField.ofString(
+                JOB_TITLE_ATTR_NAME,
+                Shipper::getJobTitle,
+                ShipperBuilder::setJobTitle
+            ),
+            RecordField.ofString(
+                BUSINESS_PHONE_ATTR_NAME,
+                Shipper::getBusinessPhone,
+                ShipperBuilder::setBusinessPhone
+            ),
+            RecordField.ofString(
+                HOME_PHONE_ATTR_NAME,
+                Shipper::getHomePhone,
+                ShipperBuilder::setHomePhone
+            ),
+            RecordField.ofString(
+                MOBILE_PHONE_ATTR_NAME,
+                Shipper::getMobilePhone,
+                ShipperBuilder::setMobilePhone
+            ),
+            RecordField.ofString(
+                FAX_NUMBER_ATTR_NAME,
+                Shipper::getFaxNumber,
+                ShipperBuilder::setFaxNumber
+            ),
+            RecordField.ofString(
+                ADDRESS_ATTR_NAME,
+                Shipper::getAddress,
+                ShipperBuilder::setAddress
+            ),
+            RecordField.ofString(
+                CITY_ATTR_NAME,
+                Shipper::getCity,
+                ShipperBuilder::setCity
+            ),
+            RecordField.ofString(
+                STATE_PROVINCE_ATTR_NAME,
+                Shipper::getStateProvince,
+                ShipperBuilder::setStateProvince
+            ),
+            RecordField.ofString(
+                ZIP_POSTAL_CODE_ATTR_NAME,
+                Shipper::getZipPostalCode,
+                ShipperBuilder::setZipPostalCode
+            ),
+            RecordField.ofString(
+                COUNTRY_REGION_ATTR_NAME,
+                Shipper::getCountryRegion,
+                ShipperBuilder::setCountryRegion
+            ),
+            RecordField.ofString(
+                WEB_PAGE_ATTR_NAME,
+                Shipper::getWebPage,
+                ShipperBuilder::setWebPage
+            ),
+            RecordField.ofString(
+                NOTES_ATTR_NAME,
+                Shipper::getNotes,
+                ShipperBuilder::setNotes
+            ),
+            RecordField.ofString(
+                ATTACHMENTS_ATTR_NAME,
+                Shipper::getAttachments,
+                ShipperBuilder::setAttachments
+            )
+        );
+
+    public static final RecordSchema<Supplier, SupplierBuilder> SUPPLIER =
+        RecordSchema.of(
+            "supplier",
+            SupplierBuilder::new,
+            RecordField.ofString(
+                COMPANY_ATTR_NAME,
+                Supplier::getCompany,
+                SupplierBuilder::setCompany
+            ),
+            RecordField.ofString(
+                LAST_NAME_ATTR_NAME,
+                Supplier::getLastName,
+                SupplierBuilder::setLastName
+            ),
+            RecordField.ofString(
+                FIRST_NAME_ATTR_NAME,
+                Supplier::getFirstName,
+                SupplierBuilder::setFirstName
+            ),
+            RecordField.ofString(
+                EMAIL_ATTR_NAME,
+                Supplier::getEmail,
+                SupplierBuilder::setEmail
+            ),
+            RecordField.ofString(
+                JOB_TITLE_ATTR_NAME,
+                Supplier::getJobTitle,
+                SupplierBuilder::setJobTitle
+            ),
+            RecordField.ofString(
+                BUSINESS_PHONE_ATTR_NAME,
+                Supplier::getBusinessPhone,
+                SupplierBuilder::setBusinessPhone
+            ),
+            RecordField.ofString(
+                HOME_PHONE_ATTR_NAME,
+                Supplier::getHomePhone,
+                SupplierBuilder::setHomePhone
+            ),
+            RecordField.ofString(
+                MOBILE_PHONE_ATTR_NAME,
+                Supplier::getMobilePhone,
+                SupplierBuilder::setMobilePhone
+            ),
+            RecordField.ofString(
+                FAX_NUMBER_ATTR_NAME,
+                Supplier::getFaxNumber,
+                SupplierBuilder::setFaxNumber
+            ),
+            RecordField.ofString(
+                ADDRESS_ATTR_NAME,
+                Supplier::getAddress,
+                SupplierBuilder::setAddress
+            ),
+            RecordField.ofString(
+                CITY_ATTR_NAME,
+                Supplier::getCity,
+                SupplierBuilder::setCity
+            ),
+            RecordField.ofString(
+                STATE_PROVINCE_ATTR_NAME,
+                Supplier::getStateProvince,
+                SupplierBuilder::setStateProvince
+            ),
+            RecordField.ofString(
+                ZIP_POSTAL_CODE_ATTR_NAME,
+                Supplier::getZipPostalCode,
+                SupplierBuilder::setZipPostalCode
+            ),
+            RecordField.ofString(
+                COUNTRY_REGION_ATTR_NAME,
+                Supplier::getCountryRegion,
+                SupplierBuilder::setCountryRegion
+            ),
+            RecordField.ofString(
+                WEB_PAGE_ATTR_NAME,
+                Supplier::getWebPage,
+                SupplierBuilder::setWebPage
+            ),
+            RecordField.ofString(
+                NOTES_ATTR_NAME,
+                Supplier::getNotes,
+                SupplierBuilder::setNotes
+            ),
+            RecordField.ofString(
+                ATTACHMENTS_ATTR_NAME,
+                Supplier::getAttachments,
+                SupplierBuilder::setAttachments
+            )
+        );
+
+    public static final RecordSchema<Order, OrderBuilder> ORDER =
+        RecordSchema.of(
+            "order",
+            OrderBuilder::new,
+            RecordField.ofRef(
+                EMPLOYEE_ID_ATTR_NAME,
+                Order::getEmployeeRef,
+                OrderBuilder::setEmployeeRef
+            ),
+            RecordField.ofRef(
+                CUSTOMER_ID_ATTR_NAME,
+                Order::getCustomerRef,
+                OrderBuilder::setCustomerRef
+            ),
+            RecordField.ofDateTime(
+                ORDER_DATE_ATTR_NAME,
+                Order::getOrderDate,
+                OrderBuilder::setOrderDate
+            ),
+            RecordField.ofDateTime(
+                SHIPPED_DATE_ATTR_NAME,
+                Order::getShippedDate,
+                OrderBuilder::setShippedDate
+            ),
+            RecordField.ofRef(
+                SHIPPER_ID_ATTR_NAME,
+                Order::getShipperRef,
+                OrderBuilder::setShipperRef
+            ),
+            RecordField.ofString(
+                SHIP_NAME_ATTR_NAME,
+                Order::getShipName,
+                OrderBuilder::setShipName
+            ),
+            RecordField.ofString(
+                SHIP_ADDRESS_ATTR_NAME,
+                Order::getShipAddress,
+                OrderBuilder::setShipAddress
+            ),
+            RecordField.ofString(
+                SHIP_CITY_ATTR_NAME,
+                Order::getShipCity,
+                OrderBuilder::setShipCity
+            ),
+            RecordField.ofString(
+                SHIP_STATE_PROVINCE_ATTR_NAME,
+                Order::getShipProvince,
+                OrderBuilder::setShipProvince
+            ),
+            RecordField.ofString(
+                SHIP_ZIP_POSTAL_CODE_ATTR_NAME,
+                Order::getShipZipPostalCode,
+                OrderBuilder::setShipZipPostalCode
+            ),
+            RecordField.ofString(
+                SHIP_COUNTRY_REGION_ATTR_NAME,
+                Order::getShipCountryRegion,
+                OrderBuilder::setShipCountryRegion
+            ),
+            RecordField.ofDouble(
+                SHIPPING_FEE_ATTR_NAME,
+                Order::getShippingFee,
+                OrderBuilder::setShippingFee
+            ),
+            RecordField.ofDouble(
+                TAXES_ATTR_NAME,
+                Order::getTaxes,
+                OrderBuilder::setTaxes
+            ),
+            RecordField.ofString(
+                PAYMENT_TYPE_ATTR_NAME,
+                Order::getPaymentType,
+                OrderBuilder::setPaymentType
+            ),
+            RecordField.ofDateTime(
+                PAID_DATE_ATTR_NAME,
+                Order::getPaidDate,
+                OrderBuilder::setPaidDate
+            ),
+            RecordField.ofString(
+                NOTES_ATTR_NAME,
+                Order::getNotes,
+                OrderBuilder::setNotes
+            ),
+            RecordField.ofDouble(
+                TAX_RATE_ATTR_NAME,
+                Order::getTaxRate,
+                OrderBuilder::setTaxRate
+            ),
+            RecordField.ofStatus(
+                TAX_STATUS_ID_ATTR_NAME,
+                Order::getOrderTaxStatus,
+                OrderTaxStatus.REGISTRY,
+                OrderBuilder::setOrderTaxStatus
+            ),
+            RecordField.ofStatus(
+                STATUS_ID_ATTR_NAME,
+                Order::getOrderStatus,
+                OrderStatus.REGISTRY,
+                OrderBuilder::setOrderStatus
+            )
+        );
+
+    public static final RecordSchema<OrderDetail, OrderDetailBuilder> ORDER_DETAIL =
+        RecordSchema.of(
+            "order detail",
+            OrderDetailBuilder::new,
+            RecordField.ofRef(
+                PRODUCT_ID_ATTR_NAME,
+                OrderDetail::getProductRef,
+                OrderDetailBuilder::setProductRef
+            ),
+            RecordField.ofDouble(
+                QUANTITY_ATTR_NAME,
+                OrderDetail::getQuantity,
+                OrderDetailBuilder::setQuantity
+            ),
+            RecordField.ofDouble(
+                UNIT_PRICE_ATTR_NAME,
+                OrderDetail::getUnitPrice,
+                OrderDetailBuilder::setUnitPrice
+            ),
+            RecordField.ofDouble(
+                DISCOUNT_ATTR_NAME,
+                OrderDetail::getDiscount,
+                OrderDetailBuilder::setDiscount
+            ),
+            RecordField.ofStatus(
+                STATUS_ID_ATTR_NAME,
+                OrderDetail::getStatus,
+                OrderDetailStatus.REGISTRY,
+                OrderDetailBuilder::setStatus
+            ),
+            RecordField.ofDate(
+                DATE_ALLOCATED_ATTR_NAME,
+                OrderDetail::getDateAllocated,
+                OrderDetailBuilder::setDateAllocated
+            ),
+            RecordField.ofInt(
+                PURCHASE_ORDER_ID_ATTR_NAME,
+                OrderDetail::getPurchaseOrderId,
+                OrderDetailBuilder::setPurchaseOrderId
+            ),
+            RecordField.ofInt(
+                INVENTORY_ID_ATTR_NAME,
+                OrderDetail::getInventoryId,
+                OrderDetailBuilder::setInventoryId
+            )
+        );
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private RecordSchemas() {}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
+
+import java.util.Arrays;
+
+/**
+ * Holds the field values of a record read from JSON until its builder can
+ * be created, one slot per field. The primitive values are held as longs so
+ * they are not boxed. The values are reused across the records read, so
+ * they are owned by a single {@link RecordJsonDecoder}.
+ */
+final class RecordValues {
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final long[] longs;
+    private final Object[] objects;
+    private final boolean[] isSet;
+
+    RecordValues(int size) {
+        this.longs = new long[size];
+        this.objects = new Object[size];
+        this.isSet = new boolean[size];
+    }
+
+    boolean isSet(int slot) {
+        return isSet[slot];
+    }
+
+    long getLong(int slot) {
+        return longs[slot];
+    }
+
+    void setLong(int slot, long value) {
+        longs[slot] = value;
+        isSet[slot] = true;
+    }
+
+    Object getObject(int slot) {
+        return objects[slot];
+    }
+
+    void setObject(int slot, Object value) {
+        objects[slot] = value;
+        isSet[slot] = true;
+    }
+
+    void clear() {
+        Arrays.fill(objects, null);
+        Arrays.fill(isSet, false);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordValues[" +
+               "size=" + isSet.length +
+               "]";
+    }
+
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+/**
+ * Provides a streaming JSON reader to decode the Northwind API responses
+ * straight into the model builders without an intermediate tree, and the
+ * record schemas mapping the flat records to JSON.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.json;
@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.data.product.ProductCatalogListener;
+import io.github.tobiasbriones.ep.northwind.model.model.IdRecordTable;
+import io.github.tobiasbriones.ep.northwind.model.model.IdRemapping;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.IntKeyTable;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetail;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetailBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderTotals;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Defines the book of the open or parked orders of the checkout app, indexed
+ * by the products of their lines.
+ * <p>
+ * When the list price of products changes, {@link #reprice(Collection)}
+ * finds the affected orders through the product index instead of scanning
+ * every order, and rebuilds them in parallel in a {@link ForkJoinPool}. A
+ * line is re-priced only if its unit price is the list price of the product
+ * it was priced with, so the manually priced lines are kept. The products
+ * of the lines are not loaded to re-price them, so a line whose product
+ * reference is not resolved keeps its price. The order taxes are recomputed
+ * with {@link OrderTotals}.
+ * <p>
+ * The book can be registered as a {@link ProductCatalogListener} to re-price
+ * the orders as the catalog is updated, and as an {@link OrderOutboxListener}
+ * to remap the temporary ids of the orders as the new records are uploaded.
+ * The orders must have a valid id. The book is thread-safe.
+ */
+public final class OpenOrderBook implements ProductCatalogListener, OrderOutboxListener {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    // Orders re-priced sequentially by a fork/join leaf task
+    private static final int REPRICE_THRESHOLD = 32;
+
+    /**
+     * Returns the given order re-priced with the given products, or
+     * {@code null} if none of its lines changed.
+     */
+    private static CartOrder reprice(
+        CartOrder cartOrder,
+        IdRecordTable<Product> products,
+        OrderTotals totals
+    ) {
+        final var details = cartOrder.getDetails();
+        final int size = details.size();
+        final var newProducts = new Product[size];
+        final var newPrices = new double[size];
+        boolean changed = false;
+
+        totals.reset();
+        for (int i = 0; i < size; i++) {
+            final var detail = details.get(i);
+            final var ref = detail.getProductRef();
+            final var newProduct = ref == null ? null : products.get(ref.getId());
+
+            // A null product keeps the reference of the line as it is
+            newProducts[i] = newProduct;
+            newPrices[i] = detail.getUnitPrice();
+            if (newProduct != null &&
+                isListPriced(detail) &&
+                newProduct.getListPrice() != newPrices[i]) {
+                newPrices[i] = newProduct.getListPrice();
+                changed = true;
+            }
+            totals.addLine(detail.getQuantity(), newPrices[i], detail.getDiscount());
+        }
+        if (!changed) {
+            return null;
+        }
+        totals.applyOrder(cartOrder.getOrder());
+        final var order = OrderBuilder.copyOf(cartOrder.getOrder())
+                                      .setTaxes(OrderTotals.toAmount(totals.getTax()))
+                                      .build();
+        final var newDetails = new ArrayList<OrderDetail>(size);
+
+        for (int i = 0; i < size; i++) {
+            final var builder = OrderDetailBuilder.copyOf(details.get(i))
+                                                  .setOrder(order)
+                                                  .setUnitPrice(newPrices[i]);
+
+            if (newProducts[i] != null) {
+                builder.setProduct(newProducts[i]);
+            }
+            newDetails.add(builder.build());
+        }
+        return new CartOrder(order, Collections.unmodifiableList(newDetails));
+    }
+
+    private static void validateId(int orderId) {
+        if (orderId == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            final var msg = """
+                            Orders without id can't be added to the book: %d
+                            """.formatted(orderId);
+            throw new RuntimeException(msg);
+        }
+    }
+
+    // The product a line was priced with is known only if its reference is
+    // resolved, a lazy line keeps its price instead of loading the product
+    private static boolean isListPriced(OrderDetail detail) {
+        final var product = detail.getProductRef().getIfResolved();
+        return product != null && detail.getUnitPrice() == product.getListPrice();
+    }
+
+    private static int[] productIdsOf(CartOrder cartOrder) {
+        final var details = cartOrder.getDetails();
+        final int[] ids = new int[details.size()];
+        int count = 0;
+
+        for (final var detail : details) {
+            if (detail.getProductRef() != null) {
+                ids[count++] = detail.getProductRef().getId();
+            }
+        }
+        Arrays.sort(ids, 0, count);
+
+        // Keeps each id once
+        int distinct = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    /**
+     * Defines an order of the book along with the distinct ids of its
+     * products.
+     */
+    private static final class Entry {
+        private final int orderId;
+        private final CartOrder cartOrder;
+        private final int[] productIds;
+
+        Entry(CartOrder cartOrder) {
+            this.orderId = cartOrder.getOrder().getId();
+            this.cartOrder = cartOrder;
+            this.productIds = productIdsOf(cartOrder);
+        }
+    }
+
+    /**
+     * Defines the ids of the open orders containing a product.
+     */
+    private static final class ProductOrders {
+        private int[] orderIds;
+        private int size;
+
+        ProductOrders() {
+            this.orderIds = new int[4];
+            this.size = 0;
+        }
+
+        void add(int orderId) {
+            if (size == orderIds.length) {
+                orderIds = Arrays.copyOf(orderIds, size * 2);
+            }
+            orderIds[size++] = orderId;
+        }
+
+        void remove(int orderId) {
+            for (int i = 0; i < size; i++) {
+                if (orderIds[i] == orderId) {
+                    orderIds[i] = orderIds[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-prices a range of the affected orders, splitting it while it's
+     * larger than the threshold.
+     */
+    private static final class RepriceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Entry[] entries;
+        private final CartOrder[] results;
+        private final IdRecordTable<Product> products;
+        private final int start;
+        private final int end;
+
+        RepriceTask(
+            Entry[] entries,
+            CartOrder[] results,
+            IdRecordTable<Product> products,
+            int start,
+            int end
+        ) {
+            this.entries = entries;
+            this.results = results;
+            this.products = products;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= REPRICE_THRESHOLD) {
+                final var totals = new OrderTotals();
+
+                for (int i = start; i < end; i++) {
+                    results[i] = reprice(entries[i].cartOrder, products, totals);
+                }
+                return;
+            }
+            final int middle = (start + end) >>> 1;
+
+            invokeAll(
+                new RepriceTask(entries, results, products, start, middle),
+                new RepriceTask(entries, results, products, middle, end)
+            );
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ForkJoinPool pool;
+    private final IntKeyTable<Entry> orders;
+    private final IntKeyTable<ProductOrders> productOrders;
+    private final List<OpenOrderListener> listeners;
+
+    /**
+     * Creates an OpenOrderBook that re-prices the orders in the common
+     * {@link ForkJoinPool}.
+     */
+    public OpenOrderBook() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an OpenOrderBook that re-prices the orders in the given pool.
+     *
+     * @param pool pool to re-price the orders in
+     */
+    public OpenOrderBook(ForkJoinPool pool) {
+        this.pool = pool;
+        this.orders = new IntKeyTable<>();
+        this.productOrders = new IntKeyTable<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public synchronized int size() {
+        return orders.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return orders.isEmpty();
+    }
+
+    /**
+     * Returns the order with the given id, or {@code null} if it's not in
+     * this book.
+     *
+     * @param orderId id of the order
+     *
+     * @return the order with the given id, or {@code null} if it's not in
+     * this book
+     */
+    public synchronized CartOrder get(int orderId) {
+        final var entry = orders.get(orderId);
+        return entry == null ? null : entry.cartOrder;
+    }
+
+    /**
+     * Returns the ids of the orders of this book containing the given
+     * product.
+     *
+     * @param productId id of the product
+     *
+     * @return the ids of the orders containing the given product
+     */
+    public synchronized int[] getOrderIdsOf(int productId) {
+        final var list = productOrders.get(productId);
+        return list == null ? new int[0] : Arrays.copyOf(list.orderIds, list.size);
+    }
+
+    /**
+     * Adds the given order to this book, replacing the order with the same
+     * id if any.
+     *
+     * @param cartOrder order to add
+     *
+     * @throws RuntimeException if the order doesn't have a valid id
+     */
+    public synchronized void put(CartOrder cartOrder) {
+        final var entry = new Entry(cartOrder);
+
+        validateId(entry.orderId);
+        final var previous = orders.put(entry.orderId, entry);
+
+        if (previous != null) {
+            unindex(previous);
+        }
+        for (final int productId : entry.productIds) {
+            var list = productOrders.get(productId);
+
+            if (list == null) {
+                list = new ProductOrders();
+                productOrders.put(productId, list);
+            }
+            list.add(entry.orderId);
+        }
+    }
+
+    /**
+     * Removes the order with the given id from this book, like when it's
+     * placed or cancelled.
+     *
+     * @param orderId id of the order
+     *
+     * @return the removed order, or {@code null} if it wasn't in this book
+     */
+    public synchronized CartOrder remove(int orderId) {
+        final var entry = orders.remove(orderId);
+
+        if (entry == null) {
+            return null;
+        }
+        unindex(entry);
+        return entry.cartOrder;
+    }
+
+    public void addListener(OpenOrderListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OpenOrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Re-prices the open orders containing the given products with their
+     * list prices, and notifies the listeners of the orders that changed.
+     * <p>
+     * The orders are rebuilt outside the lock of this book. An order that
+     * was replaced or removed meanwhile is not overwritten.
+     *
+     * @param products products whose list price may have changed
+     *
+     * @return the re-priced orders
+     */
+    public List<CartOrder> reprice(Collection<Product> products) {
+        final var changed = new IdRecordTable<Product>();
+        final Entry[] affected;
+
+        synchronized (this) {
+            final var affectedTable = new IntKeyTable<Entry>();
+
+            for (final var product : products) {
+                final var list = productOrders.get(product.getId());
+
+                if (list == null) {
+                    continue;
+                }
+                changed.put(product);
+                for (int i = 0; i < list.size; i++) {
+                    final int orderId = list.orderIds[i];
+
+                    affectedTable.put(orderId, orders.get(orderId));
+                }
+            }
+            final var array = new Entry[affectedTable.size()];
+            final int[] count = { 0 };
+
+            affectedTable.forEach(entry -> array[count[0]++] = entry);
+            affected = array;
+        }
+        if (affected.length == 0) {
+            return List.of();
+        }
+        final var results = new CartOrder[affected.length];
+
+        pool.invoke(new RepriceTask(affected, results, changed, 0, affected.length));
+        final var repriced = apply(affected, results);
+
+        if (!repriced.isEmpty()) {
+            for (final var listener : listeners) {
+                listener.onOrdersRepriced(repriced);
+            }
+        }
+        return repriced;
+    }
+
+    /**
+     * Replaces the temporary ids of the orders of this book with the ids of
+     * the given remapping, like the id of a new customer that was uploaded
+     * with a placed order.
+     *
+     * @param remapping ids given by the system to the temporary ids
+     *
+     * @return the remapped orders
+     */
+    public synchronized List<CartOrder> remapIds(IdRemapping remapping) {
+        if (remapping.isEmpty()) {
+            return List.of();
+        }
+        final var previous = new ArrayList<Entry>();
+        final var remapped = new ArrayList<CartOrder>();
+
+        orders.forEach(entry -> {
+            final var result = entry.cartOrder.remapIds(remapping);
+
+            if (result != entry.cartOrder) {
+                previous.add(entry);
+                remapped.add(result);
+            }
+        });
+
+        // The order ids may be remapped too, so the entries are replaced
+        for (int i = 0; i < remapped.size(); i++) {
+            remove(previous.get(i).orderId);
+            put(remapped.get(i));
+        }
+        return Collections.unmodifiableList(remapped);
+    }
+
+    @Override
+    public void onCatalogReplaced(Collection<Product> products) {
+        reprice(products);
+    }
+
+    @Override
+    public void onCatalogPatched(Collection<Product> upserts, int[] deletedIds) {
+        reprice(upserts);
+    }
+
+    @Override
+    public void onIdsRemapped(IdRemapping remapping) {
+        remapIds(remapping);
+    }
+
+    @Override
+    public String toString() {
+        return "OpenOrderBook[" +
+               "size=" + size() +
+               "]";
+    }
+
+    private synchronized List<CartOrder> apply(Entry[] affected, CartOrder[] results) {
+        final var repriced = new ArrayList<CartOrder>();
+
+        for (int i = 0; i < affected.length; i++) {
+            final var result = results[i];
+
+            if (result != null && orders.get(affected[i].orderId) == affected[i]) {
+                // Same products, so the product index stays valid
+                orders.put(affected[i].orderId, new Entry(result));
+                repriced.add(result);
+            }
+        }
+        return Collections.unmodifiableList(repriced);
+    }
+
+    private void unindex(Entry entry) {
+        for (final int productId : entry.productIds) {
+            final var list = productOrders.get(productId);
+
+            list.remove(entry.orderId);
+            if (list.size == 0) {
+                productOrders.remove(productId);
+            }
+        }
+    }
+
+}
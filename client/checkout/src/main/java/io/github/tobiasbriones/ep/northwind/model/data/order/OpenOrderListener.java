@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+
+import java.util.List;
+
+/**
+ * Defines a listener of the changes of an {@link OpenOrderBook}.
+ */
+public interface OpenOrderListener {
+
+    /**
+     * Called when open orders were re-priced because the list price of their
+     * products changed.
+     *
+     * @param orders re-priced orders, as they are now in the book
+     */
+    void onOrdersRepriced(List<CartOrder> orders);
+
+}
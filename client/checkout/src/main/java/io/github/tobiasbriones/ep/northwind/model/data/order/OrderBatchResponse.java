@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonNames;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonReader;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonToken;
+import io.github.tobiasbriones.ep.northwind.model.model.IdRemapping;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Defines the answer of the {@code /orders/batch} endpoint to an upload, with
+ * the ids given by the server to the temporary ids of the new records:
+ * <pre>{@code
+ * { "ids": [ { "temporary_id": -2, "id": 10250 }, ... ] }
+ * }</pre>
+ */
+final class OrderBatchResponse {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String IDS_ATTR_NAME = "ids";
+    static final String TEMPORARY_ID_ATTR_NAME = "temporary_id";
+    static final String ID_ATTR_NAME = "id";
+
+    private static final int IDS = 0;
+    private static final int TEMPORARY_ID = 0;
+    private static final int ID = 1;
+
+    private static final JsonNames NAMES = JsonNames.of(IDS_ATTR_NAME);
+
+    private static final JsonNames ID_NAMES = JsonNames.of(
+        TEMPORARY_ID_ATTR_NAME,
+        ID_ATTR_NAME
+    );
+
+    /**
+     * Decodes the JSON representation of a response from the given body. An
+     * empty body has no ids to remap.
+     *
+     * @param body UTF-8 JSON object of the response
+     *
+     * @return the response read
+     *
+     * @throws RuntimeException if the JSON is malformed or an id mapping is
+     *                          invalid
+     */
+    static OrderBatchResponse decode(byte[] body) {
+        final var remapping = new IdRemapping();
+
+        if (body.length == 0) {
+            return new OrderBatchResponse(remapping);
+        }
+        try (var reader = new JsonReader(ByteBuffer.wrap(body))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(NAMES) == IDS && reader.peek() != JsonToken.NULL) {
+                    readIds(reader, remapping);
+                }
+                else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return new OrderBatchResponse(remapping);
+    }
+
+    private static void readIds(JsonReader reader, IdRemapping remapping) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int temporaryId = 0;
+            int id = -1;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(ID_NAMES)) {
+                    case TEMPORARY_ID -> temporaryId = reader.nextInt();
+                    case ID -> id = reader.nextInt();
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            remapping.put(temporaryId, id);
+        }
+        reader.endArray();
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final IdRemapping remapping;
+
+    OrderBatchResponse(IdRemapping remapping) {
+        this.remapping = remapping;
+    }
+
+    /**
+     * Returns the ids given by the server to the temporary ids of the
+     * uploaded records.
+     *
+     * @return the ids given to the temporary ids
+     */
+    IdRemapping getRemapping() {
+        return remapping;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBatchResponse[" +
+               "remapping=" + remapping +
+               "]";
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonWriter;
+import io.github.tobiasbriones.ep.northwind.model.data.json.RecordSchemas;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+
+/**
+ * Encodes the orders placed by the checkout app into the JSON representation
+ * expected by the Northwind API. The order and its details are written by
+ * their {@link RecordSchemas}, so the attribute names are the columns of the
+ * database tables and the referenced records are sent by id.
+ * <p>
+ * Orders that are new, without a server id yet, carry an idempotency key so
+ * the server can tell a retried upload from a new order. Temporary ids are
+ * sent as they are, so the server can resolve the references among the new
+ * records of a batch and answer with the ids to remap.
+ */
+public final class OrderJsonEncoder {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String IDEMPOTENCY_KEY_ATTR_NAME = "idempotency_key";
+    static final String DETAILS_ATTR_NAME = "details";
+
+    /**
+     * Writes the given order with its details as a JSON object.
+     *
+     * @param cartOrder      order to write
+     * @param idempotencyKey key identifying the upload of a new order, it's
+     *                       only written if the order doesn't have an id yet
+     * @param writer         writer to write the order to
+     */
+    public static void encode(
+        CartOrder cartOrder,
+        String idempotencyKey,
+        JsonWriter writer
+    ) {
+        final var order = cartOrder.getOrder();
+
+        writer.beginObject();
+        RecordSchemas.ORDER.writeAttributes(writer, order);
+        if (IdentifiableRecord.isNewRecordId(order.getId())) {
+            writer.name(IDEMPOTENCY_KEY_ATTR_NAME).value(idempotencyKey);
+        }
+        writer.name(DETAILS_ATTR_NAME).beginArray();
+        for (final var detail : cartOrder.getDetails()) {
+            RecordSchemas.ORDER_DETAIL.writeJson(writer, detail);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private OrderJsonEncoder() {}
+
+}
@@ -0,0 +1,679 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.data.http.ApiClient;
+import io.github.tobiasbriones.ep.northwind.model.data.journal.OrderJournal;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonWriter;
+import io.github.tobiasbriones.ep.northwind.model.model.IdRemapping;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.TemporaryIdAllocator;
+import io.github.tobiasbriones.ep.northwind.model.model.order.CartOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines the background drainer that uploads the orders of an
+ * {@link OrderJournal} to the Northwind API, like after an outage.
+ * <p>
+ * The drainer uploads one batch of orders at a time, in journal order, from
+ * a single daemon thread. A failed batch is retried with an exponential
+ * backoff with jitter, so many terminals coming back online don't retry in
+ * lockstep. The new orders carry an idempotency key derived from the
+ * terminal id and the journal sequence number, which stays the same across
+ * retries and restarts, so the server can discard the duplicates of a batch
+ * whose response was lost.
+ * <p>
+ * A batch rejected by the server as invalid, with a bad request, conflict
+ * or unprocessable entity status, is uploaded again one order at a time, so
+ * only the rejected orders are left out. The other errors, like an expired
+ * credential or a moved endpoint, are not about the orders, so they are
+ * retried with the backoff and the orders stay queued. A rejected order is
+ * appended to the dead-letter file next to the journal, one JSON object per
+ * line along with the response of the server, and the drainer acknowledges
+ * past it so the next orders are not held back.
+ * The rejection is reported by {@link #getLastRejection()}.
+ * <p>
+ * The server answers an upload with the ids it gave to the temporary ids of
+ * the new records, see {@link TemporaryIdAllocator}. The drainer remaps the
+ * next orders it uploads with them, like an order referring to a new
+ * customer uploaded before, and passes them to its listeners, like the
+ * {@link OpenOrderBook}. The remapped ids and the next sequence number of
+ * the allocator are stored along with the last acknowledged sequence number,
+ * and the allocator skips the temporary ids of the orders journaled after
+ * it when the drainer is created, so a temporary id is never reused before
+ * it's remapped. The remapped ids are dropped once all the orders are
+ * uploaded, since no order left can refer to them.
+ * <p>
+ * The last acknowledged sequence number is stored next to the journal, and
+ * the journal segments that were fully uploaded are deleted. The drainer
+ * pauses while the cashier is active, see {@link #onCashierActivity()}.
+ */
+public final class OrderOutboxDrainer implements AutoCloseable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String ORDERS_BATCH_PATH = "/orders/batch";
+    static final String IDEMPOTENCY_KEY_HEADER_NAME = "Idempotency-Key";
+    static final String TERMINAL_ID_ATTR_NAME = "terminal_id";
+    static final String ORDERS_ATTR_NAME = "orders";
+    static final String STATE_FILE_NAME = "outbox.properties";
+    static final String DEAD_LETTER_FILE_NAME = "outbox-rejected.jsonl";
+    static final String SEQUENCE_ATTR_NAME = "sequence";
+    static final String STATUS_ATTR_NAME = "status";
+    static final String RESPONSE_ATTR_NAME = "response";
+    static final String ORDER_ATTR_NAME = "order";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final String ACKED_SEQUENCE_KEY = "acked-sequence";
+    private static final String ID_SEQUENCE_KEY = "temporary-id-sequence";
+    private static final String REMAPPED_ID_KEY_PREFIX = "remapped-id.";
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_CONFLICT = 409;
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
+    // Caps the exponent so the backoff computation can't overflow
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    /**
+     * Returns the idempotency key of the order with the given journal
+     * sequence number.
+     *
+     * @param terminalId id of the terminal that journaled the order
+     * @param sequence   journal sequence number of the order
+     *
+     * @return the idempotency key of the order
+     */
+    public static String idempotencyKeyOf(String terminalId, long sequence) {
+        return terminalId + "-" + sequence;
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    // The server found the orders invalid, so they would fail again the same
+    // way, unlike an auth, routing or server error
+    private static boolean isRejection(int status) {
+        return status == HTTP_BAD_REQUEST ||
+               status == HTTP_CONFLICT ||
+               status == HTTP_UNPROCESSABLE_ENTITY;
+    }
+
+    private static Properties readState(Path stateFile) {
+        final var state = new Properties();
+
+        if (!Files.isRegularFile(stateFile)) {
+            return state;
+        }
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+            return state;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long readAckedSequence(Properties state) {
+        final var value = state.getProperty(ACKED_SEQUENCE_KEY);
+        return value == null ? OrderJournal.NO_SEQUENCE : Long.parseLong(value);
+    }
+
+    private static void readRemapping(Properties state, IdRemapping remapping) {
+        for (final var key : state.stringPropertyNames()) {
+            if (key.startsWith(REMAPPED_ID_KEY_PREFIX)) {
+                final var temporaryId = key.substring(REMAPPED_ID_KEY_PREFIX.length());
+                final var systemId = state.getProperty(key);
+
+                remapping.put(Integer.parseInt(temporaryId), Integer.parseInt(systemId));
+            }
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes the renamed file entry durable, it's not supported on every platform
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException ignore) {
+        }
+    }
+
+    private static void advancePast(TemporaryIdAllocator allocator, CartOrder cartOrder) {
+        final var order = cartOrder.getOrder();
+        final var customer = order.getCustomerRef();
+
+        advancePast(allocator, order.getId());
+        if (customer != null) {
+            advancePast(allocator, customer.getId());
+        }
+        for (final var detail : cartOrder.getDetails()) {
+            advancePast(allocator, detail.getId());
+            advancePast(allocator, detail.getPurchaseOrderId());
+        }
+    }
+
+    private static void advancePast(TemporaryIdAllocator allocator, int id) {
+        if (IdentifiableRecord.isTemporaryId(id)) {
+            allocator.advancePast(id);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ApiClient client;
+    private final OrderJournal journal;
+    private final String terminalId;
+    private final TemporaryIdAllocator idAllocator;
+    private final OutboxConfig config;
+    private final Path stateFile;
+    private final Path deadLetterFile;
+    private final ScheduledExecutorService scheduler;
+    private final List<OrderOutboxListener> listeners;
+
+    // Confined to the scheduler thread once created
+    private final IdRemapping remapping;
+    private volatile long ackedSequence;
+    private volatile long isolatedSequence;
+    private volatile long lastActivityNanos;
+    private volatile Throwable lastFailure;
+    private volatile Throwable lastRejection;
+
+    // Guarded by this
+    private ScheduledFuture<?> next;
+    private boolean inFlight;
+    private int attempt;
+    private boolean closed;
+
+    /**
+     * Creates a new OrderOutboxDrainer. It starts draining when
+     * {@link #start()} is called.
+     *
+     * @param client     client of the API
+     * @param journal    journal of the orders to upload
+     * @param terminalId  id of this terminal, unique among the terminals of
+     *                    the store
+     * @param idAllocator allocator of the temporary ids of this terminal, it's
+     *                    moved past the ids of the orders not uploaded yet
+     * @param config      configuration of the drainer
+     *
+     * @throws UncheckedIOException if the stored state or the journal can't
+     *                              be read
+     */
+    public OrderOutboxDrainer(
+        ApiClient client,
+        OrderJournal journal,
+        String terminalId,
+        TemporaryIdAllocator idAllocator,
+        OutboxConfig config
+    ) {
+        final var state = readState(journal.getDirectory().resolve(STATE_FILE_NAME));
+
+        this.client = client;
+        this.journal = journal;
+        this.terminalId = terminalId;
+        this.idAllocator = idAllocator;
+        this.config = config;
+        this.stateFile = journal.getDirectory().resolve(STATE_FILE_NAME);
+        this.deadLetterFile = journal.getDirectory().resolve(DEAD_LETTER_FILE_NAME);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "northwind-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.remapping = new IdRemapping();
+        this.ackedSequence = Math.min(
+            readAckedSequence(state),
+            journal.getLastSequence()
+        );
+        this.isolatedSequence = OrderJournal.NO_SEQUENCE;
+        this.lastActivityNanos = System.nanoTime() - config.getQuietPeriod().toNanos();
+        this.lastFailure = null;
+        this.lastRejection = null;
+        this.next = null;
+        this.inFlight = false;
+        this.attempt = 0;
+        this.closed = false;
+        restoreIds(state);
+    }
+
+    public String getTerminalId() {
+        return terminalId;
+    }
+
+    /**
+     * Returns the sequence number of the last journaled order acknowledged
+     * by the server.
+     *
+     * @return the sequence number of the last uploaded order
+     */
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    /**
+     * Returns the number of journaled orders not uploaded yet.
+     *
+     * @return the number of journaled orders not uploaded yet
+     */
+    public long getPendingCount() {
+        return Math.max(0L, journal.getLastSequence() - ackedSequence);
+    }
+
+    /**
+     * Returns the error of the last failed upload, or {@code null} if the
+     * last upload succeeded.
+     *
+     * @return the error of the last failed upload
+     */
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Returns the error of the last order rejected by the server and moved to
+     * the dead-letter file, or {@code null} if no order has been rejected
+     * since this drainer was created.
+     *
+     * @return the error of the last rejected order
+     */
+    public Throwable getLastRejection() {
+        return lastRejection;
+    }
+
+    public Path getDeadLetterFile() {
+        return deadLetterFile;
+    }
+
+    public void addListener(OrderOutboxListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OrderOutboxListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts draining the journal.
+     */
+    public void start() {
+        schedule(0L);
+    }
+
+    /**
+     * Wakes the drainer up to upload right away, like after an order was
+     * journaled. It has no effect while a failed upload is backing off.
+     */
+    public synchronized void wake() {
+        if (!inFlight && attempt == 0) {
+            schedule(0L);
+        }
+    }
+
+    /**
+     * Notifies that the cashier is active, like scanning products, so the
+     * drainer stays out of the way for the quiet period of its configuration.
+     */
+    public void onCashierActivity() {
+        lastActivityNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+        scheduler.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderOutboxDrainer[" +
+               "terminalId=" + terminalId + ", " +
+               "ackedSequence=" + ackedSequence + ", " +
+               "pendingCount=" + getPendingCount() +
+               "]";
+    }
+
+    private void restoreIds(Properties state) {
+        final var idSequence = state.getProperty(ID_SEQUENCE_KEY);
+
+        if (idSequence != null) {
+            idAllocator.advanceTo(Integer.parseInt(idSequence));
+        }
+        journal.replay(
+            ackedSequence + 1L,
+            (sequence, order) -> advancePast(idAllocator, order)
+        );
+
+        // No order is left to refer to the remapped ids otherwise
+        if (getPendingCount() > 0L) {
+            readRemapping(state, remapping);
+        }
+    }
+
+    private synchronized void schedule(long delayNanos) {
+        if (closed) {
+            return;
+        }
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (closed || inFlight) {
+                return;
+            }
+        }
+        final long idleNanos = System.nanoTime() - lastActivityNanos;
+        final long quietNanos = config.getQuietPeriod().toNanos();
+
+        if (idleNanos < quietNanos) {
+            schedule(quietNanos - idleNanos);
+            return;
+        }
+        // The orders of a rejected batch are uploaded one by one
+        final int batchSize = ackedSequence < isolatedSequence
+                              ? 1
+                              : config.getBatchSize();
+        final var sequences = new long[batchSize];
+        final var orders = new ArrayList<CartOrder>(batchSize);
+
+        try {
+            journal.replay(ackedSequence + 1L, batchSize, (sequence, order) -> {
+                sequences[orders.size()] = sequence;
+                orders.add(order.remapIds(remapping));
+            });
+        }
+        catch (RuntimeException e) {
+            onFailure(e, config.getMaxBackoff().toNanos());
+            return;
+        }
+        if (orders.isEmpty()) {
+            schedule(config.getPollInterval().toNanos());
+            return;
+        }
+        upload(sequences, orders);
+    }
+
+    private void upload(long[] sequences, List<CartOrder> orders) {
+        final long first = sequences[0];
+        final long last = sequences[orders.size() - 1];
+        final var batchKey = idempotencyKeyOf(terminalId, first) + "-" + last;
+        final var request = client
+            .newPostRequest(ORDERS_BATCH_PATH, encodeBatch(sequences, orders))
+            .header(IDEMPOTENCY_KEY_HEADER_NAME, batchKey)
+            .build();
+
+        synchronized (this) {
+            inFlight = true;
+        }
+        client.send(request, HttpResponse.BodyHandlers.ofByteArray())
+              .whenCompleteAsync(
+                  (res, error) -> onResponse(sequences, orders, res, error),
+                  scheduler
+              );
+    }
+
+    private byte[] encodeBatch(long[] sequences, List<CartOrder> orders) {
+        final var out = new ByteArrayOutputStream();
+
+        try (var writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name(TERMINAL_ID_ATTR_NAME).value(terminalId);
+            writer.name(ORDERS_ATTR_NAME).beginArray();
+            for (int i = 0; i < orders.size(); i++) {
+                final var key = idempotencyKeyOf(terminalId, sequences[i]);
+                OrderJsonEncoder.encode(orders.get(i), key, writer);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return out.toByteArray();
+    }
+
+    private void onResponse(
+        long[] sequences,
+        List<CartOrder> orders,
+        HttpResponse<byte[]> res,
+        Throwable error
+    ) {
+        synchronized (this) {
+            inFlight = false;
+        }
+        if (error != null) {
+            onFailure(error, nextBackoffNanos());
+            return;
+        }
+        final int status = res.statusCode();
+
+        if (isRejection(status)) {
+            onRejected(sequences, orders, res);
+            return;
+        }
+        if (!isSuccess(status)) {
+            final var msg = """
+                            Unexpected response status %d for %s
+                            """.formatted(status, res.uri());
+            onFailure(new RuntimeException(msg), nextBackoffNanos());
+            return;
+        }
+        final IdRemapping batchIds;
+
+        try {
+            batchIds = OrderBatchResponse.decode(res.body()).getRemapping();
+        }
+        catch (RuntimeException e) {
+            onFailure(e, nextBackoffNanos());
+            return;
+        }
+        remapping.putAll(batchIds);
+        try {
+            acknowledge(sequences[orders.size() - 1]);
+        }
+        catch (UncheckedIOException e) {
+            onFailure(e, config.getMaxBackoff().toNanos());
+            return;
+        }
+        if (!batchIds.isEmpty()) {
+            for (final var listener : listeners) {
+                listener.onIdsRemapped(batchIds);
+            }
+        }
+        dropRemappingIfDrained();
+        synchronized (this) {
+            attempt = 0;
+        }
+        lastFailure = null;
+        schedule(0L);
+    }
+
+    private void onRejected(
+        long[] sequences,
+        List<CartOrder> orders,
+        HttpResponse<byte[]> res
+    ) {
+        final var msg = """
+                        Upload rejected with status %d for %s
+                        """.formatted(res.statusCode(), res.uri());
+        final var rejection = new RuntimeException(msg);
+
+        if (orders.size() > 1) {
+            isolatedSequence = sequences[orders.size() - 1];
+            schedule(0L);
+            return;
+        }
+        try {
+            deadLetter(sequences[0], orders.get(0), res);
+            acknowledge(sequences[0]);
+        }
+        catch (UncheckedIOException e) {
+            onFailure(e, config.getMaxBackoff().toNanos());
+            return;
+        }
+        synchronized (this) {
+            attempt = 0;
+        }
+        lastRejection = rejection;
+        dropRemappingIfDrained();
+        schedule(0L);
+    }
+
+    /**
+     * Clears the remapped ids once all the journaled orders are uploaded, as
+     * when the drainer is created, so they don't pile up in the state of a
+     * terminal that runs for long. The listeners have remapped the open
+     * orders already.
+     */
+    private void dropRemappingIfDrained() {
+        if (getPendingCount() == 0L) {
+            remapping.clear();
+        }
+    }
+
+    private void onFailure(Throwable error, long delayNanos) {
+        lastFailure = error;
+        schedule(delayNanos);
+    }
+
+    /**
+     * Returns a random delay between the min backoff and the exponential
+     * backoff of the current attempt.
+     */
+    private synchronized long nextBackoffNanos() {
+        final long min = config.getMinBackoff().toNanos();
+        final long max = config.getMaxBackoff().toNanos();
+        final int exponent = Math.min(attempt, MAX_BACKOFF_EXPONENT);
+        final long ceiling = Math.min(max, min << exponent);
+
+        attempt++;
+        return ThreadLocalRandom.current().nextLong(min, ceiling + 1L);
+    }
+
+    /**
+     * Appends the given rejected order to the dead-letter file, and waits for
+     * it to be flushed to the disk before the order is acknowledged.
+     */
+    private void deadLetter(long sequence, CartOrder order, HttpResponse<byte[]> res) {
+        final var out = new ByteArrayOutputStream();
+        final var key = idempotencyKeyOf(terminalId, sequence);
+
+        try (var writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name(SEQUENCE_ATTR_NAME).value(sequence);
+            writer.name(STATUS_ATTR_NAME).value(res.statusCode());
+            writer.name(RESPONSE_ATTR_NAME)
+                  .value(new String(res.body(), StandardCharsets.UTF_8));
+            writer.name(ORDER_ATTR_NAME);
+            OrderJsonEncoder.encode(order, key, writer);
+            writer.endObject();
+        }
+        out.write('\n');
+        final var line = ByteBuffer.wrap(out.toByteArray());
+
+        try (var channel = FileChannel.open(
+            deadLetterFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        )) {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            channel.force(true);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void acknowledge(long sequence) {
+        final var state = new Properties();
+        final var tmpFileName = STATE_FILE_NAME + TMP_FILE_SUFFIX;
+        final var tmpStateFile = stateFile.resolveSibling(tmpFileName);
+
+        state.setProperty(ACKED_SEQUENCE_KEY, String.valueOf(sequence));
+        state.setProperty(ID_SEQUENCE_KEY, String.valueOf(idAllocator.getNextSequence()));
+        remapping.forEach((temporaryId, systemId) -> state.setProperty(
+            REMAPPED_ID_KEY_PREFIX + temporaryId,
+            String.valueOf(systemId)
+        ));
+        final var out = new ByteArrayOutputStream();
+
+        try {
+            state.store(out, null);
+            final var content = ByteBuffer.wrap(out.toByteArray());
+
+            // The state has to be on the disk before the segments are deleted
+            try (var channel = FileChannel.open(
+                tmpStateFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(
+                tmpStateFile,
+                stateFile,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            syncDirectory(stateFile.getParent());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ackedSequence = sequence;
+        journal.truncateBefore(sequence + 1L);
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdRemapping;
+
+/**
+ * Defines a listener of the uploads of an {@link OrderOutboxDrainer}.
+ */
+public interface OrderOutboxListener {
+
+    /**
+     * Called when the server gave ids to the new records of an upload, so the
+     * records still holding their temporary ids can be remapped, like the
+     * open orders referring to a new customer.
+     *
+     * @param remapping ids given by the server to the temporary ids
+     */
+    void onIdsRemapped(IdRemapping remapping);
+
+}
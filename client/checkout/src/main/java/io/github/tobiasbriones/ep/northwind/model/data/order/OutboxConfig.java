@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.order;
+
+import java.time.Duration;
+
+/**
+ * Defines the configuration of an {@link OrderOutboxDrainer}.
+ */
+public final class OutboxConfig {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the default maximum number of orders uploaded per request.
+     */
+    public static final int DEF_BATCH_SIZE = 50;
+
+    /**
+     * Defines the default delay before retrying a failed upload for the first
+     * time.
+     */
+    public static final Duration DEF_MIN_BACKOFF = Duration.ofMillis(500L);
+
+    /**
+     * Defines the default maximum delay between the retries of a failed
+     * upload.
+     */
+    public static final Duration DEF_MAX_BACKOFF = Duration.ofMinutes(1L);
+
+    /**
+     * Defines the default interval for checking the journal for new orders
+     * when the drainer is not woken up.
+     */
+    public static final Duration DEF_POLL_INTERVAL = Duration.ofSeconds(5L);
+
+    /**
+     * Defines the default time the cashier has to be idle before the drainer
+     * uploads again.
+     */
+    public static final Duration DEF_QUIET_PERIOD = Duration.ofSeconds(1L);
+
+    /**
+     * Returns a new configuration with the default values.
+     *
+     * @return a new configuration with the default values
+     */
+    public static OutboxConfig newDefault() {
+        return new OutboxConfig(
+            DEF_BATCH_SIZE,
+            DEF_MIN_BACKOFF,
+            DEF_MAX_BACKOFF,
+            DEF_POLL_INTERVAL,
+            DEF_QUIET_PERIOD
+        );
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int batchSize;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final Duration pollInterval;
+    private final Duration quietPeriod;
+
+    /**
+     * Creates a new configuration.
+     *
+     * @param batchSize    maximum number of orders uploaded per request, it
+     *                     must be positive
+     * @param minBackoff   delay before retrying a failed upload for the first
+     *                     time, it must be positive
+     * @param maxBackoff   maximum delay between the retries of a failed
+     *                     upload, at least the min backoff
+     * @param pollInterval interval for checking the journal for new orders
+     * @param quietPeriod  time the cashier has to be idle before the drainer
+     *                     uploads again
+     *
+     * @throws RuntimeException if a value is out of range
+     */
+    public OutboxConfig(
+        int batchSize,
+        Duration minBackoff,
+        Duration maxBackoff,
+        Duration pollInterval,
+        Duration quietPeriod
+    ) {
+        if (batchSize <= 0) {
+            final var msg = """
+                            Invalid batch size: %d
+                            """.formatted(batchSize);
+            throw new RuntimeException(msg);
+        }
+        final boolean isMinPositive = !minBackoff.isNegative() && !minBackoff.isZero();
+
+        if (!isMinPositive || maxBackoff.compareTo(minBackoff) < 0) {
+            final var msg = """
+                            Invalid backoff range: %s to %s
+                            """.formatted(minBackoff, maxBackoff);
+            throw new RuntimeException(msg);
+        }
+        this.batchSize = batchSize;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.pollInterval = pollInterval;
+        this.quietPeriod = quietPeriod;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Duration getMinBackoff() {
+        return minBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public Duration getQuietPeriod() {
+        return quietPeriod;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxConfig[" +
+               "batchSize=" + batchSize + ", " +
+               "minBackoff=" + minBackoff + ", " +
+               "maxBackoff=" + maxBackoff + ", " +
+               "pollInterval=" + pollInterval + ", " +
+               "quietPeriod=" + quietPeriod + ", " +
+               "]";
+    }
+
+}
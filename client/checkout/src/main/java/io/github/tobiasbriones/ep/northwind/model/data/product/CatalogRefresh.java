@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+/**
+ * Defines the outcomes of a {@link ProductCatalog} refresh.
+ */
+public enum CatalogRefresh {
+
+    /**
+     * The server confirmed that the catalog didn't change.
+     */
+    NOT_MODIFIED,
+
+    /**
+     * The full catalog was downloaded again.
+     */
+    UPDATED,
+
+    /**
+     * The catalog was patched in place with the changes since its version.
+     */
+    PATCHED
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.data.http.ApiClient;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Defines the {@link ProductRepository} implementation backed by the
+ * Northwind API endpoint {@code /products}. The response bodies are decoded
+ * as they are streamed with a {@link ProductJsonDecoder}.
+ */
+public final class HttpProductRepository implements ProductRepository {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String PRODUCTS_PATH = "/products";
+    static final int HTTP_OK = 200;
+    static final int HTTP_NOT_FOUND = 404;
+
+    static RuntimeException newUnexpectedStatusException(HttpResponse<?> res) {
+        final var msg = """
+                        Unexpected response status %d for %s
+                        """.formatted(res.statusCode(), res.uri());
+        return new RuntimeException(msg);
+    }
+
+    static void discard(HttpResponse<InputStream> res) {
+        try {
+            res.body().close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String pagePath(int page, int limit) {
+        return PRODUCTS_PATH + "?page=" + page + "&limit=" + limit;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ApiClient client;
+
+    /**
+     * Creates a new HttpProductRepository.
+     *
+     * @param client shared API client
+     */
+    public HttpProductRepository(ApiClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<Optional<Product>> get(int id) {
+        final var request = client.newGetRequest(PRODUCTS_PATH + "/" + id)
+                                  .build();
+        return send(request).thenApplyAsync(
+            this::readProduct,
+            client.getExecutor()
+        );
+    }
+
+    @Override
+    public CompletableFuture<List<Product>> getAll(int page, int limit) {
+        final var products = new ArrayList<Product>();
+        return getAll(page, limit, products::add).thenApply(count -> products);
+    }
+
+    /**
+     * Loads the given page of products passing each product to the consumer
+     * as soon as it's decoded, so the whole response is never held in memory.
+     *
+     * @param page     page number starting at {@code 0}
+     * @param limit    max number of products per page
+     * @param consumer consumer of the products, it's called from the decoding
+     *                 thread
+     *
+     * @return a future completing with the number of products read
+     */
+    public CompletableFuture<Integer> getAll(
+        int page,
+        int limit,
+        Consumer<? super Product> consumer
+    ) {
+        final var request = client.newGetRequest(pagePath(page, limit)).build();
+        return send(request).thenApplyAsync(
+            res -> readProducts(res, consumer),
+            client.getExecutor()
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "HttpProductRepository[" +
+               "client=" + client + ", " +
+               "]";
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request) {
+        return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private Optional<Product> readProduct(HttpResponse<InputStream> res) {
+        final int status = res.statusCode();
+
+        if (status == HTTP_OK) {
+            return Optional.of(new ProductJsonDecoder().decodeOne(res.body()));
+        }
+        discard(res);
+        if (status == HTTP_NOT_FOUND) {
+            return Optional.empty();
+        }
+        throw newUnexpectedStatusException(res);
+    }
+
+    private int readProducts(
+        HttpResponse<InputStream> res,
+        Consumer<? super Product> consumer
+    ) {
+        final int status = res.statusCode();
+
+        if (status == HTTP_OK) {
+            return new ProductJsonDecoder().decodeAll(res.body(), consumer);
+        }
+        discard(res);
+        if (status == HTTP_NOT_FOUND) {
+            return 0;
+        }
+        throw newUnexpectedStatusException(res);
+    }
+
+}
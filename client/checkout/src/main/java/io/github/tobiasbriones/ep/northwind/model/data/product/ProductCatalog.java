@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdRecordTable;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Defines the in-memory catalog of {@link Product} records of the checkout
+ * app, along with the HTTP validators of the response it was loaded from.
+ * <p>
+ * The catalog can be read from any thread while it's being refreshed in the
+ * background. The products are held in an {@link IdRecordTable} that is
+ * replaced as a whole on each update (copy-on-write), so the readers never
+ * block nor see a partially applied update.
+ */
+public final class ProductCatalog {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the version of a catalog that has never been loaded or whose
+     * version is unknown.
+     */
+    public static final long NO_VERSION = -1L;
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private volatile IdRecordTable<Product> products;
+    private volatile String eTag;
+    private volatile String lastModified;
+    private volatile long version;
+    private final List<ProductCatalogListener> listeners;
+
+    public ProductCatalog() {
+        this.products = new IdRecordTable<>();
+        this.eTag = "";
+        this.lastModified = "";
+        this.version = NO_VERSION;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Returns the product with the given id, or {@code null} if it's not in
+     * this catalog.
+     *
+     * @param id id of the product
+     *
+     * @return the product with the given id, or {@code null} if it's not in
+     * this catalog
+     */
+    public Product get(int id) {
+        return products.get(id);
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public boolean isEmpty() {
+        return products.isEmpty();
+    }
+
+    public void forEach(Consumer<? super Product> action) {
+        products.forEach(action);
+    }
+
+    /**
+     * Returns a new list with the products of this catalog.
+     *
+     * @return a new list with the products of this catalog
+     */
+    public List<Product> getProducts() {
+        final var table = products;
+        final var list = new ArrayList<Product>(table.size());
+
+        table.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Returns the {@code ETag} of the response this catalog was loaded from,
+     * or an empty string if the server didn't send one.
+     *
+     * @return the {@code ETag} of the response this catalog was loaded from
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} date of the response this catalog was
+     * loaded from, or an empty string if the server didn't send one.
+     *
+     * @return the {@code Last-Modified} date of the response this catalog was
+     * loaded from
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the server's catalog version this catalog is synchronized with,
+     * or {@link #NO_VERSION} if it's unknown.
+     *
+     * @return the server's catalog version this catalog is synchronized with
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Adds a listener to be notified of the changes of this catalog. The
+     * listener is called right away with the current products, so it starts
+     * in sync with this catalog.
+     *
+     * @param listener listener to add
+     */
+    public synchronized void addListener(ProductCatalogListener listener) {
+        listener.onCatalogReplaced(getProducts());
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProductCatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalog[" +
+               "size=" + products.size() + ", " +
+               "eTag=" + eTag + ", " +
+               "lastModified=" + lastModified + ", " +
+               "version=" + version + ", " +
+               "]";
+    }
+
+    /**
+     * Replaces the content of this catalog.
+     *
+     * @param newProducts     new products of the catalog
+     * @param newETag         {@code ETag} of the response the products were
+     *                        loaded from
+     * @param newLastModified {@code Last-Modified} of the response the
+     *                        products were loaded from
+     * @param newVersion      server's catalog version of the products
+     */
+    synchronized void replaceAll(
+        Collection<Product> newProducts,
+        String newETag,
+        String newLastModified,
+        long newVersion
+    ) {
+        final var table = new IdRecordTable<Product>(newProducts.size());
+
+        table.putAll(newProducts);
+        products = table;
+        eTag = newETag;
+        lastModified = newLastModified;
+        version = newVersion;
+        for (final var listener : listeners) {
+            listener.onCatalogReplaced(newProducts);
+        }
+    }
+
+    /**
+     * Patches this catalog in place with the given changes.
+     *
+     * @param upserts    products to add or replace
+     * @param deletedIds ids of the products to remove
+     * @param newVersion server's catalog version after the changes
+     */
+    synchronized void patch(
+        Collection<Product> upserts,
+        int[] deletedIds,
+        long newVersion
+    ) {
+        final var table = products.copy();
+
+        table.putAll(upserts);
+        for (final int id : deletedIds) {
+            table.remove(id);
+        }
+        products = table;
+        version = newVersion;
+        for (final var listener : listeners) {
+            listener.onCatalogPatched(upserts, deletedIds);
+        }
+    }
+
+}
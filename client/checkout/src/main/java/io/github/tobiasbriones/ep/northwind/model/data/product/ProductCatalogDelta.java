@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonNames;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonReader;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonWriter;
+import io.github.tobiasbriones.ep.northwind.model.data.json.RecordSchemas;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Defines the changes of the product catalog since a given version, as sent
+ * by the {@code /products/changes} endpoint:
+ * <pre>{@code
+ * { "version": 43, "upserts": [ { product }, ... ], "deletes": [ 7, ... ] }
+ * }</pre>
+ */
+final class ProductCatalogDelta {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String VERSION_ATTR_NAME = "version";
+    static final String UPSERTS_ATTR_NAME = "upserts";
+    static final String DELETES_ATTR_NAME = "deletes";
+
+    private static final int VERSION = 0;
+    private static final int UPSERTS = 1;
+    private static final int DELETES = 2;
+
+    private static final JsonNames NAMES = JsonNames.of(
+        VERSION_ATTR_NAME,
+        UPSERTS_ATTR_NAME,
+        DELETES_ATTR_NAME
+    );
+
+    /**
+     * Decodes the JSON representation of a delta from the given stream. The
+     * stream is closed afterwards.
+     *
+     * @param in stream to read the UTF-8 JSON object from
+     *
+     * @return the delta read
+     *
+     * @throws RuntimeException if the JSON is malformed or has no version
+     */
+    static ProductCatalogDelta decode(InputStream in) {
+        try (var reader = new JsonReader(in)) {
+            return decode(reader);
+        }
+    }
+
+    /**
+     * Decodes the JSON representation of a delta from the given buffer, like
+     * a line of the changes file of the {@link ProductCatalogStore}.
+     *
+     * @param in buffer to read the UTF-8 JSON object from
+     *
+     * @return the delta read
+     *
+     * @throws RuntimeException if the JSON is malformed or has no version
+     */
+    static ProductCatalogDelta decode(ByteBuffer in) {
+        try (var reader = new JsonReader(in)) {
+            return decode(reader);
+        }
+    }
+
+    private static ProductCatalogDelta decode(JsonReader reader) {
+        final var decoder = new ProductJsonDecoder();
+        final var upserts = new ArrayList<Product>();
+        int[] deletedIds = new int[0];
+        long version = ProductCatalog.NO_VERSION;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(NAMES)) {
+                case VERSION -> version = reader.nextLong();
+                case UPSERTS -> decoder.decodeAll(reader, upserts::add);
+                case DELETES -> deletedIds = readIds(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (version == ProductCatalog.NO_VERSION) {
+            throw new RuntimeException("The catalog delta has no version");
+        }
+        return new ProductCatalogDelta(upserts, deletedIds, version);
+    }
+
+    private static int[] readIds(JsonReader reader) {
+        int[] ids = new int[16];
+        int size = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = reader.nextInt();
+        }
+        reader.endArray();
+        return Arrays.copyOf(ids, size);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final List<Product> upserts;
+    private final int[] deletedIds;
+    private final long version;
+
+    ProductCatalogDelta(List<Product> upserts, int[] deletedIds, long version) {
+        this.upserts = upserts;
+        this.deletedIds = deletedIds;
+        this.version = version;
+    }
+
+    List<Product> getUpserts() {
+        return upserts;
+    }
+
+    int[] getDeletedIds() {
+        return deletedIds;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return upserts.size() + deletedIds.length;
+    }
+
+    /**
+     * Writes the JSON representation of this delta, the same the
+     * {@code /products/changes} endpoint sends.
+     *
+     * @param writer writer to write the JSON object to
+     */
+    void writeJson(JsonWriter writer) {
+        writer.beginObject();
+        writer.name(VERSION_ATTR_NAME).value(version);
+        writer.name(UPSERTS_ATTR_NAME).beginArray();
+        for (final var product : upserts) {
+            RecordSchemas.PRODUCT.writeJson(writer, product);
+        }
+        writer.endArray();
+        writer.name(DELETES_ATTR_NAME).beginArray();
+        for (final int id : deletedIds) {
+            writer.value(id);
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalogDelta[" +
+               "upserts=" + upserts.size() + ", " +
+               "deletes=" + deletedIds.length + ", " +
+               "version=" + version + ", " +
+               "]";
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.Collection;
+
+/**
+ * Defines a listener of the changes of a {@link ProductCatalog}. The
+ * listeners are called from the thread that updated the catalog, in the same
+ * order as the updates, after the catalog already exposes the changes.
+ */
+public interface ProductCatalogListener {
+
+    /**
+     * Called when the whole content of the catalog was replaced.
+     *
+     * @param products new products of the catalog
+     */
+    void onCatalogReplaced(Collection<Product> products);
+
+    /**
+     * Called when the catalog was patched in place.
+     *
+     * @param upserts    products added or replaced
+     * @param deletedIds ids of the products removed
+     */
+    void onCatalogPatched(Collection<Product> upserts, int[] deletedIds);
+
+}
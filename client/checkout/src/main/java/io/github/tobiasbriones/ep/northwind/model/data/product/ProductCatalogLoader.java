@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.data.http.ApiClient;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Loads the {@link ProductCatalog} from the Northwind API with conditional
+ * requests. The validators of the last response ({@code ETag} and
+ * {@code Last-Modified}) are sent back to the server, so refreshing a catalog
+ * that didn't change costs a {@code 304 Not Modified} response without body.
+ * The last full response is kept in a {@link ProductCatalogStore} to survive
+ * restarts.
+ * <p>
+ * Once the catalog has a version, it can be synchronized incrementally with
+ * {@link #sync()}, that requests only the products upserted or deleted since
+ * that version from {@code /products/changes} and patches the catalog in
+ * place. The delta is logged by the store, so a restart doesn't have to
+ * synchronize it again, and the whole patched catalog is stored again only
+ * once the logged changes would exceed the max changes of a delta. When the
+ * server answers {@code 410 Gone} because the version gap is too large for a
+ * delta, the full catalog is loaded instead.
+ */
+public final class ProductCatalogLoader {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the default max number of products requested for the catalog.
+     */
+    public static final int DEF_CATALOG_LIMIT = 100_000;
+
+    /**
+     * Defines the default max number of changes accepted in a delta before
+     * falling back to loading the full catalog.
+     */
+    public static final int DEF_MAX_DELTA_CHANGES = 5_000;
+
+    static final String CHANGES_PATH = HttpProductRepository.PRODUCTS_PATH + "/changes";
+    static final int HTTP_NOT_MODIFIED = 304;
+    static final int HTTP_GONE = 410;
+    static final String CATALOG_VERSION_HEADER_NAME = "X-Catalog-Version";
+    static final String ETAG_HEADER_NAME = "ETag";
+    static final String LAST_MODIFIED_HEADER_NAME = "Last-Modified";
+    static final String IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+    static final String IF_MODIFIED_SINCE_HEADER_NAME = "If-Modified-Since";
+
+    private static String header(HttpResponse<?> res, String name) {
+        return res.headers().firstValue(name).orElse("");
+    }
+
+    private static long versionHeader(HttpResponse<?> res) {
+        return res.headers()
+                  .firstValueAsLong(CATALOG_VERSION_HEADER_NAME)
+                  .orElse(ProductCatalog.NO_VERSION);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ApiClient client;
+    private final ProductCatalog catalog;
+    private final ProductCatalogStore store;
+    private final int limit;
+    private final int maxDeltaChanges;
+    private final AtomicReference<CompletableFuture<CatalogRefresh>> refreshing;
+
+    /**
+     * Creates a new ProductCatalogLoader.
+     *
+     * @param client  shared API client
+     * @param catalog catalog to load the products into
+     * @param store   local store of the last catalog received
+     * @param limit   max number of products requested for the catalog
+     */
+    public ProductCatalogLoader(
+        ApiClient client,
+        ProductCatalog catalog,
+        ProductCatalogStore store,
+        int limit
+    ) {
+        this(client, catalog, store, limit, DEF_MAX_DELTA_CHANGES);
+    }
+
+    /**
+     * Creates a new ProductCatalogLoader.
+     *
+     * @param client          shared API client
+     * @param catalog         catalog to load the products into
+     * @param store           local store of the last catalog received
+     * @param limit           max number of products requested for the catalog
+     * @param maxDeltaChanges max number of changes accepted in a delta before
+     *                        falling back to loading the full catalog
+     */
+    public ProductCatalogLoader(
+        ApiClient client,
+        ProductCatalog catalog,
+        ProductCatalogStore store,
+        int limit,
+        int maxDeltaChanges
+    ) {
+        this.client = client;
+        this.catalog = catalog;
+        this.store = store;
+        this.limit = limit;
+        this.maxDeltaChanges = maxDeltaChanges;
+        this.refreshing = new AtomicReference<>(null);
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Loads the locally stored catalog, if any, without accessing the
+     * network.
+     *
+     * @return a future completing with {@code true} if and only if the local
+     * catalog was loaded
+     */
+    public CompletableFuture<Boolean> loadLocal() {
+        return CompletableFuture.supplyAsync(
+            () -> store.load(catalog),
+            client.getExecutor()
+        );
+    }
+
+    /**
+     * Refreshes the catalog with a conditional request. If a refresh is
+     * already running, its result is returned instead of starting another
+     * request.
+     *
+     * @return a future completing with the outcome of the refresh
+     */
+    public CompletableFuture<CatalogRefresh> refresh() {
+        return runExclusive(this::startRefresh);
+    }
+
+    /**
+     * Synchronizes the catalog with the changes since its version. If the
+     * catalog has no version yet or the server can't send a delta, the full
+     * catalog is refreshed instead. If a refresh or synchronization is
+     * already running, its result is returned instead of starting another
+     * request.
+     *
+     * @return a future completing with the outcome of the synchronization
+     */
+    public CompletableFuture<CatalogRefresh> sync() {
+        if (catalog.getVersion() == ProductCatalog.NO_VERSION) {
+            return refresh();
+        }
+        return runExclusive(this::startSync);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalogLoader[" +
+               "catalog=" + catalog + ", " +
+               "store=" + store + ", " +
+               "limit=" + limit + ", " +
+               "maxDeltaChanges=" + maxDeltaChanges + ", " +
+               "]";
+    }
+
+    private CompletableFuture<CatalogRefresh> runExclusive(
+        Supplier<CompletableFuture<CatalogRefresh>> task
+    ) {
+        final var result = new CompletableFuture<CatalogRefresh>();
+
+        if (!refreshing.compareAndSet(null, result)) {
+            final var current = refreshing.get();
+
+            if (current != null) {
+                return current;
+            }
+            return runExclusive(task);
+        }
+        final CompletableFuture<CatalogRefresh> running;
+
+        try {
+            running = task.get();
+        }
+        catch (RuntimeException e) {
+            // Lets the next call start another request
+            refreshing.set(null);
+            result.completeExceptionally(e);
+            return result;
+        }
+        running.whenComplete((refresh, error) -> {
+            refreshing.set(null);
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+            else {
+                result.complete(refresh);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<CatalogRefresh> startRefresh() {
+        final var path = HttpProductRepository.PRODUCTS_PATH +
+                         "?page=0&limit=" + limit;
+        final var request = client.newGetRequest(path);
+        final var eTag = catalog.getETag();
+        final var lastModified = catalog.getLastModified();
+
+        if (!eTag.isEmpty()) {
+            request.header(IF_NONE_MATCH_HEADER_NAME, eTag);
+        }
+        if (!lastModified.isEmpty()) {
+            request.header(IF_MODIFIED_SINCE_HEADER_NAME, lastModified);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                     .thenApplyAsync(this::onResponse, client.getExecutor());
+    }
+
+    private CompletableFuture<CatalogRefresh> startSync() {
+        final var path = CHANGES_PATH +
+                         "?since=" + catalog.getVersion() +
+                         "&limit=" + maxDeltaChanges;
+        final var request = client.newGetRequest(path).build();
+
+        return client.send(request, HttpResponse.BodyHandlers.ofInputStream())
+                     .thenComposeAsync(this::onDeltaResponse, client.getExecutor());
+    }
+
+    private CompletableFuture<CatalogRefresh> onDeltaResponse(
+        HttpResponse<InputStream> res
+    ) {
+        final int status = res.statusCode();
+
+        if (status == HttpProductRepository.HTTP_OK) {
+            final var delta = ProductCatalogDelta.decode(res.body());
+
+            if (delta.size() > maxDeltaChanges) {
+                return startRefresh();
+            }
+            catalog.patch(delta.getUpserts(), delta.getDeletedIds(), delta.getVersion());
+            if (store.getLoggedChanges() + delta.size() > maxDeltaChanges) {
+                store.save(
+                    catalog.getProducts(),
+                    catalog.getETag(),
+                    catalog.getLastModified(),
+                    catalog.getVersion()
+                );
+            }
+            else {
+                store.append(delta);
+            }
+            return CompletableFuture.completedFuture(CatalogRefresh.PATCHED);
+        }
+        HttpProductRepository.discard(res);
+        if (status == HTTP_NOT_MODIFIED) {
+            return CompletableFuture.completedFuture(CatalogRefresh.NOT_MODIFIED);
+        }
+        if (status == HTTP_GONE) {
+            return startRefresh();
+        }
+        throw HttpProductRepository.newUnexpectedStatusException(res);
+    }
+
+    private CatalogRefresh onResponse(HttpResponse<InputStream> res) {
+        final int status = res.statusCode();
+
+        if (status == HttpProductRepository.HTTP_OK) {
+            readCatalog(res);
+            return CatalogRefresh.UPDATED;
+        }
+        HttpProductRepository.discard(res);
+        if (status == HTTP_NOT_MODIFIED) {
+            return CatalogRefresh.NOT_MODIFIED;
+        }
+        throw HttpProductRepository.newUnexpectedStatusException(res);
+    }
+
+    private void readCatalog(HttpResponse<InputStream> res) {
+        final var products = new ArrayList<Product>();
+
+        try (var in = new TeeInputStream(res.body(), store.newSnapshotOutput())) {
+            new ProductJsonDecoder().decodeAll(in, products::add);
+        }
+        catch (IOException e) {
+            store.discard();
+            throw new UncheckedIOException(e);
+        }
+        catch (RuntimeException e) {
+            store.discard();
+            throw e;
+        }
+        final var eTag = header(res, ETAG_HEADER_NAME);
+        final var lastModified = header(res, LAST_MODIFIED_HEADER_NAME);
+        final long version = versionHeader(res);
+
+        store.commit(eTag, lastModified, version);
+        catalog.replaceAll(products, eTag, lastModified, version);
+    }
+
+}
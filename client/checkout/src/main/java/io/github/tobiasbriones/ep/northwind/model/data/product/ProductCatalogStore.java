@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonWriter;
+import io.github.tobiasbriones.ep.northwind.model.data.json.RecordSchemas;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Defines the local store of the last product catalog received from the
+ * Northwind API. The response body is stored as it was received together
+ * with its HTTP validators, so the catalog is available after a restart and
+ * the next refresh can be a conditional request.
+ * <p>
+ * The deltas a catalog is patched with by a synchronization are appended to
+ * a changes file, one JSON object per line, instead of storing the whole
+ * catalog again, and they are applied on top of the snapshot when it's
+ * loaded, so a restart resumes from the patched version. Once enough changes
+ * are logged, the patched catalog is stored as a new snapshot with
+ * {@link #save(Collection, String, String, long)}, which clears the changes.
+ */
+public final class ProductCatalogStore {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String SNAPSHOT_FILE_NAME = "products.json";
+    static final String METADATA_FILE_NAME = "products.properties";
+    static final String CHANGES_FILE_NAME = "products-changes.jsonl";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+    private static final String VERSION_KEY = "version";
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        Files.move(
+            source,
+            target,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+    private static int lineEndOf(byte[] bytes, int from) {
+        int end = from;
+
+        while (end < bytes.length && bytes[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static long readVersion(Properties metadata) {
+        final var version = metadata.getProperty(VERSION_KEY);
+        return version == null ? ProductCatalog.NO_VERSION : Long.parseLong(version);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Path snapshotFile;
+    private final Path metadataFile;
+    private final Path tmpSnapshotFile;
+    private final Path changesFile;
+    private volatile int loggedChanges;
+
+    /**
+     * Creates a new ProductCatalogStore.
+     *
+     * @param dir directory where the snapshot files are stored, it's created
+     *            if it doesn't exist
+     */
+    public ProductCatalogStore(Path dir) {
+        this.snapshotFile = dir.resolve(SNAPSHOT_FILE_NAME);
+        this.metadataFile = dir.resolve(METADATA_FILE_NAME);
+        this.tmpSnapshotFile = dir.resolve(SNAPSHOT_FILE_NAME + TMP_FILE_SUFFIX);
+        this.changesFile = dir.resolve(CHANGES_FILE_NAME);
+        this.loggedChanges = 0;
+    }
+
+    /**
+     * Returns the number of product changes logged since the snapshot was
+     * stored.
+     *
+     * @return the number of logged changes
+     */
+    public int getLoggedChanges() {
+        return loggedChanges;
+    }
+
+    /**
+     * Loads the stored snapshot into the given catalog, patched with the
+     * logged changes. If there's no snapshot or it can't be read, the catalog
+     * is not modified.
+     *
+     * @param catalog catalog to load the snapshot into
+     *
+     * @return {@code true} if and only if the snapshot was loaded
+     */
+    public boolean load(ProductCatalog catalog) {
+        if (!Files.isRegularFile(snapshotFile) || !Files.isRegularFile(metadataFile)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(snapshotFile)) {
+            final var metadata = readMetadata();
+            final var products = new ArrayList<Product>();
+
+            new ProductJsonDecoder().decodeAll(in, products::add);
+            catalog.replaceAll(
+                products,
+                metadata.getProperty(ETAG_KEY, ""),
+                metadata.getProperty(LAST_MODIFIED_KEY, ""),
+                readVersion(metadata)
+            );
+            loggedChanges = applyChanges(catalog);
+            return true;
+        }
+        catch (IOException | RuntimeException e) {
+            // A damaged snapshot is just a cache miss, the next refresh
+            // downloads the full catalog again
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the stored snapshot with the given products, like after
+     * patching the catalog with a delta.
+     *
+     * @param products     products of the catalog
+     * @param eTag         {@code ETag} of the catalog
+     * @param lastModified {@code Last-Modified} of the catalog
+     * @param version      server's catalog version of the products
+     */
+    public void save(
+        Collection<Product> products,
+        String eTag,
+        String lastModified,
+        long version
+    ) {
+        try (var writer = new JsonWriter(newSnapshotOutput())) {
+            writer.beginArray();
+            for (final var product : products) {
+                RecordSchemas.PRODUCT.writeJson(writer, product);
+            }
+            writer.endArray();
+        }
+        catch (RuntimeException e) {
+            discard();
+            throw e;
+        }
+        commit(eTag, lastModified, version);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCatalogStore[" +
+               "snapshotFile=" + snapshotFile + ", " +
+               "]";
+    }
+
+    /**
+     * Logs the given delta the catalog was patched with, and waits for it to
+     * be flushed to the disk.
+     *
+     * @param delta delta applied to the catalog
+     */
+    void append(ProductCatalogDelta delta) {
+        final var out = new ByteArrayOutputStream();
+
+        try (var writer = new JsonWriter(out)) {
+            delta.writeJson(writer);
+        }
+        out.write('\n');
+        final var line = ByteBuffer.wrap(out.toByteArray());
+
+        try (var channel = FileChannel.open(
+            changesFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        )) {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            channel.force(true);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        loggedChanges += delta.size();
+    }
+
+    /**
+     * Returns a stream to write the body of a new catalog response to. The
+     * written snapshot replaces the stored one only after
+     * {@link #commit(String, String, long)} is called.
+     *
+     * @return a stream to write the new snapshot to
+     */
+    OutputStream newSnapshotOutput() {
+        try {
+            Files.createDirectories(tmpSnapshotFile.getParent());
+            return Files.newOutputStream(tmpSnapshotFile);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the stored snapshot with the one written to the last
+     * {@link #newSnapshotOutput()} stream.
+     *
+     * @param eTag         {@code ETag} of the new snapshot
+     * @param lastModified {@code Last-Modified} of the new snapshot
+     * @param version      server's catalog version of the new snapshot
+     */
+    void commit(String eTag, String lastModified, long version) {
+        final var metadata = new Properties();
+        final var tmpMetadataFile = metadataFile.resolveSibling(
+            METADATA_FILE_NAME + TMP_FILE_SUFFIX
+        );
+
+        metadata.setProperty(ETAG_KEY, eTag);
+        metadata.setProperty(LAST_MODIFIED_KEY, lastModified);
+        metadata.setProperty(VERSION_KEY, String.valueOf(version));
+        try {
+            try (OutputStream out = Files.newOutputStream(tmpMetadataFile)) {
+                metadata.store(out, null);
+            }
+            // The data goes first, old validators with new data only cost a
+            // full download on the next refresh
+            moveAtomically(tmpSnapshotFile, snapshotFile);
+            moveAtomically(tmpMetadataFile, metadataFile);
+
+            // The changes left by a crash before this are skipped by version
+            Files.deleteIfExists(changesFile);
+            loggedChanges = 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the snapshot written to the last {@link #newSnapshotOutput()}
+     * stream without committing it.
+     */
+    void discard() {
+        try {
+            Files.deleteIfExists(tmpSnapshotFile);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Patches the given catalog with the logged deltas newer than its version
+     * and returns the number of changes logged. A torn last line, like after
+     * a crash while appending, is truncated.
+     */
+    private int applyChanges(ProductCatalog catalog) throws IOException {
+        if (!Files.isRegularFile(changesFile)) {
+            return 0;
+        }
+        final byte[] bytes = Files.readAllBytes(changesFile);
+        int changes = 0;
+        int start = 0;
+
+        while (start < bytes.length) {
+            final int end = lineEndOf(bytes, start);
+
+            // A line without its end was torn while it was appended
+            if (end == bytes.length) {
+                break;
+            }
+            final var line = ByteBuffer.wrap(bytes, start, end - start).slice();
+            final ProductCatalogDelta delta;
+
+            try {
+                delta = ProductCatalogDelta.decode(line);
+            }
+            catch (RuntimeException e) {
+                break;
+            }
+            if (delta.getVersion() > catalog.getVersion()) {
+                catalog.patch(
+                    delta.getUpserts(),
+                    delta.getDeletedIds(),
+                    delta.getVersion()
+                );
+            }
+            changes += delta.size();
+            start = end + 1;
+        }
+        if (start < bytes.length) {
+            try (var channel = FileChannel.open(changesFile, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+                channel.force(true);
+            }
+        }
+        return changes;
+    }
+
+    private Properties readMetadata() throws IOException {
+        final var metadata = new Properties();
+
+        try (InputStream in = Files.newInputStream(metadataFile)) {
+            metadata.load(in);
+        }
+        return metadata;
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdRecordTable;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Defines an immutable index of products by their code, as scanned from the
+ * barcodes. It supports exact lookups through a hash table and partial code
+ * lookups through the prefix ranges of the codes sorted in lexicographic
+ * order. None of the queries allocate.
+ * <p>
+ * An index is never modified, {@link #patch(Collection, int[])} returns a
+ * new index instead, so it can be read from any thread while the next one is
+ * being built.
+ */
+public final class ProductCodeIndex {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the position returned when there's no matching code.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final ProductCodeIndex EMPTY = new ProductCodeIndex(
+        new Product[0]
+    );
+
+    private static final Comparator<Product> CODE_ORDER = Comparator.comparing(
+        Product::getCode
+    );
+
+    public static ProductCodeIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the index of the given products. The products without a code
+     * are not indexed.
+     *
+     * @param products products to index
+     *
+     * @return the index of the given products
+     */
+    public static ProductCodeIndex build(Collection<Product> products) {
+        final Product[] sorted = products.stream()
+                                         .filter(ProductCodeIndex::hasCode)
+                                         .toArray(Product[]::new);
+
+        Arrays.sort(sorted, CODE_ORDER);
+        return new ProductCodeIndex(sorted);
+    }
+
+    private static boolean hasCode(Product product) {
+        return product.getCode() != null && !product.getCode().isEmpty();
+    }
+
+    // Same as String#hashCode, so the cached hash of a String can be used
+    private static int hash(CharSequence code) {
+        if (code instanceof String) {
+            return code.hashCode();
+        }
+        int h = 0;
+
+        for (int i = 0; i < code.length(); i++) {
+            h = 31 * h + code.charAt(i);
+        }
+        return h;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Compares the code truncated to the length of the prefix with the
+     * prefix. The result is monotonic over the sorted codes, so the codes
+     * starting with the prefix are the ones that compare to {@code 0}.
+     */
+    private static int comparePrefix(String code, CharSequence prefix) {
+        final int length = Math.min(code.length(), prefix.length());
+
+        for (int i = 0; i < length; i++) {
+            final int diff = code.charAt(i) - prefix.charAt(i);
+
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return code.length() < prefix.length() ? -1 : 0;
+    }
+
+    private static int tableCapacityFor(int size) {
+        return Math.max(Integer.highestOneBit(Math.max(size, 1)) << 2, 4);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final String[] codes;
+    private final Product[] products;
+
+    // Positions plus one of the first product of each code, 0 is empty
+    private final int[] table;
+    private final int mask;
+
+    private ProductCodeIndex(Product[] sortedProducts) {
+        this.products = sortedProducts;
+        this.codes = new String[sortedProducts.length];
+        this.table = new int[tableCapacityFor(sortedProducts.length)];
+        this.mask = table.length - 1;
+
+        for (int i = 0; i < sortedProducts.length; i++) {
+            codes[i] = sortedProducts[i].getCode();
+            if (i == 0 || !codes[i].equals(codes[i - 1])) {
+                insert(i);
+            }
+        }
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    /**
+     * Returns the product with the given code, or {@code null} if there's
+     * none. If more than one product has the given code, the first one in the
+     * index is returned.
+     *
+     * @param code code of the product
+     *
+     * @return the product with the given code, or {@code null} if there's
+     * none
+     */
+    public Product get(CharSequence code) {
+        final int position = positionOf(code);
+        return position == NOT_FOUND ? null : products[position];
+    }
+
+    /**
+     * Returns the position in this index of the first product with the given
+     * code, or {@link #NOT_FOUND} if there's none.
+     *
+     * @param code code of the product
+     *
+     * @return the position of the first product with the given code
+     */
+    public int positionOf(CharSequence code) {
+        int index = spread(hash(code)) & mask;
+        int entry;
+
+        while ((entry = table[index]) != 0) {
+            if (codes[entry - 1].contentEquals(code)) {
+                return entry - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns the position of the first product whose code starts with the
+     * given prefix. The products starting with the prefix are the ones from
+     * this position inclusive to {@link #prefixEnd(CharSequence)} exclusive.
+     *
+     * @param prefix prefix of the codes
+     *
+     * @return the position of the first product whose code starts with the
+     * given prefix
+     */
+    public int prefixStart(CharSequence prefix) {
+        int low = 0;
+        int high = codes.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (comparePrefix(codes[mid], prefix) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position after the last product whose code starts with the
+     * given prefix.
+     *
+     * @param prefix prefix of the codes
+     *
+     * @return the position after the last product whose code starts with the
+     * given prefix
+     *
+     * @see #prefixStart(CharSequence)
+     */
+    public int prefixEnd(CharSequence prefix) {
+        int low = 0;
+        int high = codes.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (comparePrefix(codes[mid], prefix) <= 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public String codeAt(int position) {
+        return codes[position];
+    }
+
+    public Product productAt(int position) {
+        return products[position];
+    }
+
+    /**
+     * Returns a new index with the given changes applied. It runs in linear
+     * time on the size of this index, plus sorting the upserts.
+     *
+     * @param upserts    products added or replaced
+     * @param deletedIds ids of the products removed
+     *
+     * @return a new index with the given changes applied
+     */
+    public ProductCodeIndex patch(Collection<Product> upserts, int[] deletedIds) {
+        final var replaced = new IdRecordTable<Product>(upserts.size());
+        final int[] deleted = deletedIds.clone();
+
+        Arrays.sort(deleted);
+
+        // The deletes are applied after the upserts, like in the catalog
+        final Product[] added = upserts
+            .stream()
+            .filter(ProductCodeIndex::hasCode)
+            .filter(product -> Arrays.binarySearch(deleted, product.getId()) < 0)
+            .toArray(Product[]::new);
+
+        replaced.putAll(upserts);
+        Arrays.sort(added, CODE_ORDER);
+
+        final var merged = new Product[products.length + added.length];
+        int size = 0;
+        int j = 0;
+
+        for (final Product product : products) {
+            final int id = product.getId();
+
+            if (replaced.contains(id) || Arrays.binarySearch(deleted, id) >= 0) {
+                continue;
+            }
+            while (j < added.length && CODE_ORDER.compare(added[j], product) < 0) {
+                merged[size++] = added[j++];
+            }
+            merged[size++] = product;
+        }
+        while (j < added.length) {
+            merged[size++] = added[j++];
+        }
+        return new ProductCodeIndex(Arrays.copyOf(merged, size));
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCodeIndex[" +
+               "size=" + products.length + ", " +
+               "]";
+    }
+
+    private void insert(int position) {
+        int index = spread(codes[position].hashCode()) & mask;
+
+        while (table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        table[index] = position + 1;
+    }
+
+}
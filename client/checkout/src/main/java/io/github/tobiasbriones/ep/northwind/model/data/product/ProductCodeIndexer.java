@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.Collection;
+
+/**
+ * Keeps a {@link ProductCodeIndex} in sync with a {@link ProductCatalog}.
+ * <p>
+ * The index is rebuilt or patched on the thread that updates the catalog and
+ * then published as a whole, so the scan handler only reads the current
+ * index with {@link #getIndex()} and never waits for an update.
+ */
+public final class ProductCodeIndexer implements ProductCatalogListener {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Creates a new indexer for the given catalog and registers it as a
+     * listener of the catalog.
+     *
+     * @param catalog catalog to index
+     *
+     * @return a new indexer of the given catalog
+     */
+    public static ProductCodeIndexer of(ProductCatalog catalog) {
+        final var indexer = new ProductCodeIndexer();
+
+        catalog.addListener(indexer);
+        return indexer;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private volatile ProductCodeIndex index;
+
+    private ProductCodeIndexer() {
+        this.index = ProductCodeIndex.empty();
+    }
+
+    /**
+     * Returns the current index. The returned index is immutable, so it can
+     * be used for a whole lookup even if the catalog is updated meanwhile.
+     *
+     * @return the current index
+     */
+    public ProductCodeIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public void onCatalogReplaced(Collection<Product> products) {
+        index = ProductCodeIndex.build(products);
+    }
+
+    @Override
+    public void onCatalogPatched(Collection<Product> upserts, int[] deletedIds) {
+        index = index.patch(upserts, deletedIds);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCodeIndexer[" +
+               "index=" + index + ", " +
+               "]";
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonNames;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonReader;
+import io.github.tobiasbriones.ep.northwind.model.data.json.JsonToken;
+import io.github.tobiasbriones.ep.northwind.model.data.json.RecordSchemas;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.product.ProductBuilder;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the JSON representation of the products sent by the Northwind API
+ * token by token into {@link Product} records, without parsing the document
+ * into an intermediate tree. The attribute names are the ones defined by the
+ * server's {@code ProductAttributeNames}, and unknown attributes are skipped.
+ * The attachments are not sent by the server, but they're read as well since
+ * the catalog store writes them with {@link RecordSchemas#PRODUCT}.
+ * <p>
+ * This is the decoder of the catalog synchronization, which reads every
+ * product of the catalog, so it selects the attributes by index instead of
+ * going through the generic fields of the schema.
+ * <p>
+ * The decoder reuses its attribute values across the products it decodes,
+ * so a single instance must not be shared between threads.
+ */
+public final class ProductJsonDecoder {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    static final String ID_ATTR_NAME = "id";
+    static final String CODE_ATTR_NAME = "product_code";
+    static final String SUPPLIER_IDS_ATTR_NAME = "supplier_ids";
+    static final String NAME_ATTR_NAME = "product_name";
+    static final String DESCRIPTION_ATTR_NAME = "description";
+    static final String STANDARD_COST_ATTR_NAME = "standard_cost";
+    static final String LIST_PRICE_ATTR_NAME = "list_price";
+    static final String REORDER_LEVEL_ATTR_NAME = "reorder_level";
+    static final String TARGET_LEVEL_ATTR_NAME = "target_level";
+    static final String QUANTITY_PER_UNIT_ATTR_NAME = "quantity_per_unit";
+    static final String DISCONTINUED_ATTR_NAME = "discontinued";
+    static final String MINIMUM_REORDER_QUANTITY_ATTR_NAME =
+        "minimum_reorder_quantity";
+    static final String CATEGORY_ATTR_NAME = "category";
+    static final String ATTACHMENTS_ATTR_NAME = "attachments";
+
+    // The indices of the attributes in NAMES
+    private static final int ID = 0;
+    private static final int CODE = 1;
+    private static final int SUPPLIER_IDS = 2;
+    private static final int NAME = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int STANDARD_COST = 5;
+    private static final int LIST_PRICE = 6;
+    private static final int REORDER_LEVEL = 7;
+    private static final int TARGET_LEVEL = 8;
+    private static final int QUANTITY_PER_UNIT = 9;
+    private static final int DISCONTINUED = 10;
+    private static final int MINIMUM_REORDER_QUANTITY = 11;
+    private static final int CATEGORY = 12;
+    private static final int ATTACHMENTS = 13;
+
+    private static final JsonNames NAMES = JsonNames.of(
+        ID_ATTR_NAME,
+        CODE_ATTR_NAME,
+        SUPPLIER_IDS_ATTR_NAME,
+        NAME_ATTR_NAME,
+        DESCRIPTION_ATTR_NAME,
+        STANDARD_COST_ATTR_NAME,
+        LIST_PRICE_ATTR_NAME,
+        REORDER_LEVEL_ATTR_NAME,
+        TARGET_LEVEL_ATTR_NAME,
+        QUANTITY_PER_UNIT_ATTR_NAME,
+        DISCONTINUED_ATTR_NAME,
+        MINIMUM_REORDER_QUANTITY_ATTR_NAME,
+        CATEGORY_ATTR_NAME,
+        ATTACHMENTS_ATTR_NAME
+    );
+
+    // MySQL booleans are tinyint so they may be sent as numbers
+    private static boolean readBoolean(JsonReader reader) {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        return reader.nextDouble() != 0.0d;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    // The id is needed to create the builder but the attribute order is not
+    // guaranteed, so the values are held here until the object is read
+    private int id;
+    private String code;
+    private String name;
+    private String description;
+    private double standardCost;
+    private double listPrice;
+    private int reorderLevel;
+    private int targetLevel;
+    private String quantityPerUnit;
+    private boolean discontinued;
+    private int minimumReorderQuantity;
+    private String category;
+    private String supplierIds;
+    private String attachments;
+
+    public ProductJsonDecoder() {
+        reset();
+    }
+
+    /**
+     * Decodes a JSON array of products from the given stream, passing each
+     * product to the consumer as soon as it's read. The stream is closed
+     * afterwards.
+     *
+     * @param in       stream to read the UTF-8 JSON array from
+     * @param consumer consumer of the products read
+     *
+     * @return the number of products read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(InputStream in, Consumer<? super Product> consumer) {
+        try (var reader = new JsonReader(in)) {
+            return decodeAll(reader, consumer);
+        }
+    }
+
+    /**
+     * Decodes a JSON array of products from the remaining bytes of the given
+     * buffer, passing each product to the consumer as soon as it's read.
+     *
+     * @param buffer   buffer to read the UTF-8 JSON array from
+     * @param consumer consumer of the products read
+     *
+     * @return the number of products read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(ByteBuffer buffer, Consumer<? super Product> consumer) {
+        return decodeAll(new JsonReader(buffer), consumer);
+    }
+
+    /**
+     * Decodes a JSON array of products from the given reader, passing each
+     * product to the consumer as soon as it's read.
+     *
+     * @param reader   reader positioned at the JSON array
+     * @param consumer consumer of the products read
+     *
+     * @return the number of products read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public int decodeAll(JsonReader reader, Consumer<? super Product> consumer) {
+        int count = 0;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            consumer.accept(decode(reader));
+            count++;
+        }
+        reader.endArray();
+        return count;
+    }
+
+    /**
+     * Decodes a JSON object representing a product from the given stream.
+     * The stream is closed afterwards.
+     *
+     * @param in stream to read the UTF-8 JSON object from
+     *
+     * @return the product read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public Product decodeOne(InputStream in) {
+        try (var reader = new JsonReader(in)) {
+            return decode(reader);
+        }
+    }
+
+    /**
+     * Decodes the next JSON object of the given reader as a product.
+     *
+     * @param reader reader positioned at the JSON object
+     *
+     * @return the product read
+     *
+     * @throws RuntimeException if the JSON is malformed
+     */
+    public Product decode(JsonReader reader) {
+        reset();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            readAttribute(reader, reader.selectName(NAMES));
+        }
+        reader.endObject();
+        return newBuilder().build();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductJsonDecoder[" +
+               "]";
+    }
+
+    private void readAttribute(JsonReader reader, int index) {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        switch (index) {
+            case ID -> id = reader.nextInt();
+            case CODE -> code = reader.nextString();
+            case SUPPLIER_IDS -> supplierIds = reader.nextString();
+            case NAME -> name = reader.nextString();
+            case DESCRIPTION -> description = reader.nextString();
+            case STANDARD_COST -> standardCost = reader.nextDouble();
+            case LIST_PRICE -> listPrice = reader.nextDouble();
+            case REORDER_LEVEL -> reorderLevel = reader.nextInt();
+            case TARGET_LEVEL -> targetLevel = reader.nextInt();
+            case QUANTITY_PER_UNIT -> quantityPerUnit = reader.nextString();
+            case DISCONTINUED -> discontinued = readBoolean(reader);
+            case MINIMUM_REORDER_QUANTITY -> minimumReorderQuantity = reader.nextInt();
+            case CATEGORY -> category = reader.nextString();
+            case ATTACHMENTS -> attachments = reader.nextString();
+            default -> reader.skipValue();
+        }
+    }
+
+    private void reset() {
+        id = IdentifiableRecord.NEW_RECORD_DEF_ID;
+        code = "";
+        name = "";
+        description = "";
+        standardCost = 0.0d;
+        listPrice = 0.0d;
+        reorderLevel = 0;
+        targetLevel = 0;
+        quantityPerUnit = "";
+        discontinued = false;
+        minimumReorderQuantity = 0;
+        category = "";
+        supplierIds = "";
+        attachments = "";
+    }
+
+    private ProductBuilder newBuilder() {
+        return new ProductBuilder(id)
+            .setCode(code)
+            .setName(name)
+            .setDescription(description)
+            .setStandardCost(standardCost)
+            .setListPrice(listPrice)
+            .setReorderLevel(reorderLevel)
+            .setTargetLevel(targetLevel)
+            .setQuantityPerUnit(quantityPerUnit)
+            .setDiscontinued(discontinued)
+            .setMinimumReorderQuantity(minimumReorderQuantity)
+            .setCategory(category)
+            .setSupplierIds(supplierIds)
+            .setAttachments(attachments);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Defines the repository to load the {@link Product} records from. All the
+ * operations are non-blocking so they can overlap with other work, like the
+ * UI startup.
+ */
+public interface ProductRepository {
+
+    /**
+     * Loads the product with the given id.
+     *
+     * @param id id of the product to load
+     *
+     * @return a future completing with the product or empty if it doesn't
+     * exist
+     */
+    CompletableFuture<Optional<Product>> get(int id);
+
+    /**
+     * Loads the given page of products.
+     *
+     * @param page  page number starting at {@code 0}
+     * @param limit max number of products per page
+     *
+     * @return a future completing with the products of the given page, it's
+     * empty if the page has no products
+     */
+    CompletableFuture<List<Product>> getAll(int page, int limit);
+
+}
@@ -0,0 +1,574 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IntKeyTable;
+import io.github.tobiasbriones.ep.northwind.model.model.LongKeyTable;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Defines a typeahead search index of products over their name, category and
+ * description.
+ * <p>
+ * Each word of those fields is indexed by its trigrams, anchored at the start
+ * of the word, so the trigrams of a partially typed word are a subset of the
+ * ones of the full word. A query ranks the products by the number of its
+ * trigrams they contain, weighted by the field they were found in (name
+ * first, then category, then description), and tolerates a few missing
+ * trigrams to absorb typos.
+ * <p>
+ * The index supports adding and removing products incrementally, so it can
+ * follow the catalog deltas as a {@link ProductCatalogListener}. The queries
+ * can run concurrently with each other and wait only for an update in
+ * progress. The postings are kept in a {@link LongKeyTable}, and each thread
+ * reuses its score arrays across its queries, clearing only the slots a
+ * query touched, so a query allocates only its result.
+ */
+public final class ProductSearchIndex implements ProductCatalogListener {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final char WORD_START = '\u0001';
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int NAME_FIELD = 1;
+    private static final int CATEGORY_FIELD = 1 << 1;
+    private static final int DESCRIPTION_FIELD = 1 << 2;
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // Max ratio of the query grams that can be missing from a result
+    private static final int MISSING_GRAMS_DIVISOR = 3;
+
+    /**
+     * Creates a new index for the given catalog and registers it as a
+     * listener of the catalog.
+     *
+     * @param catalog catalog to index
+     *
+     * @return a new index of the given catalog
+     */
+    public static ProductSearchIndex of(ProductCatalog catalog) {
+        final var index = new ProductSearchIndex();
+
+        catalog.addListener(index);
+        return index;
+    }
+
+    private static int weightOf(int fields) {
+        return ((fields & NAME_FIELD) != 0 ? NAME_WEIGHT : 0) +
+               ((fields & CATEGORY_FIELD) != 0 ? CATEGORY_WEIGHT : 0) +
+               ((fields & DESCRIPTION_FIELD) != 0 ? DESCRIPTION_WEIGHT : 0);
+    }
+
+    private static long gramKey(char c0, char c1, char c2) {
+        return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private static char normalize(char c) {
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ';
+    }
+
+    /**
+     * Appends the grams of the given text to the buffer, each one as its key
+     * shifted left by {@link #FIELD_BITS} with the given field.
+     */
+    private static GramBuffer collectGrams(
+        String text,
+        int field,
+        GramBuffer grams
+    ) {
+        if (text == null) {
+            return grams;
+        }
+        char c0 = ' ';
+        char c1 = ' ';
+        int wordLength = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? normalize(text.charAt(i)) : ' ';
+
+            if (c == ' ') {
+                wordLength = 0;
+                continue;
+            }
+            if (wordLength == 0) {
+                // The first char of a word is also a gram, for one char queries
+                c0 = WORD_START;
+                c1 = c;
+                grams.add((gramKey(WORD_START, c, '\u0000') << FIELD_BITS) | field);
+            }
+            else {
+                grams.add((gramKey(c0, c1, c) << FIELD_BITS) | field);
+                c0 = c1;
+                c1 = c;
+            }
+            wordLength++;
+        }
+        return grams;
+    }
+
+    private static long[] queryGrams(String query) {
+        final long[] grams = collectGrams(query, NAME_FIELD, new GramBuffer())
+            .toDistinctGrams();
+        final boolean hasTrigram = Arrays.stream(grams)
+                                         .anyMatch(ProductSearchIndex::isTrigram);
+
+        // The single char grams are only needed when no word is longer
+        return Arrays.stream(grams)
+                     .filter(gram -> !hasTrigram || isTrigram(gram))
+                     .map(gram -> gram >>> FIELD_BITS)
+                     .toArray();
+    }
+
+    private static boolean isTrigram(long gram) {
+        return ((gram >>> FIELD_BITS) & 0xFFFF) != 0;
+    }
+
+    private static boolean isBefore(int a, int b, int[] scores) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+    }
+
+    private static void siftUp(int[] heap, int index, int[] scores) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+
+            if (!isBefore(heap[index], heap[parent], scores)) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, int[] scores) {
+        int index = 0;
+
+        while (true) {
+            final int left = 2 * index + 1;
+            final int right = left + 1;
+            int smallest = index;
+
+            if (left < size && isBefore(heap[left], heap[smallest], scores)) {
+                smallest = left;
+            }
+            if (right < size && isBefore(heap[right], heap[smallest], scores)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        final int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ReadWriteLock lock;
+    private final IntKeyTable<Document> documents;
+    private final LongKeyTable<Posting> postings;
+    private final ThreadLocal<ScoreBuffer> scoreBuffers;
+    private Document[] slots;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+
+    public ProductSearchIndex() {
+        this.lock = new ReentrantReadWriteLock();
+        this.documents = new IntKeyTable<>();
+        this.postings = new LongKeyTable<>();
+        this.scoreBuffers = ThreadLocal.withInitial(ScoreBuffer::new);
+        this.slots = new Document[16];
+        this.freeSlots = new int[16];
+        this.freeSlotCount = 0;
+        this.slotCount = 0;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products that best match the given query, ranked from the
+     * best match.
+     *
+     * @param query text typed by the user
+     * @param limit max number of products to return
+     *
+     * @return the products that best match the given query
+     */
+    public List<Product> search(String query, int limit) {
+        final long[] grams = queryGrams(query);
+
+        if (grams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        final int minMatches = grams.length - grams.length / MISSING_GRAMS_DIVISOR;
+
+        lock.readLock().lock();
+        try {
+            return rank(grams, minMatches, limit);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the given product to the index or replaces the product with the
+     * same id.
+     *
+     * @param product product to add
+     */
+    public void add(Product product) {
+        lock.writeLock().lock();
+        try {
+            doRemove(product.getId());
+            doAdd(product);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the product with the given id from the index, if it's there.
+     *
+     * @param id id of the product to remove
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            doRemove(id);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogReplaced(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            Arrays.fill(slots, null);
+            freeSlotCount = 0;
+            slotCount = 0;
+            documents.ensureCapacity(products.size());
+            for (final var product : products) {
+                doAdd(product);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogPatched(Collection<Product> upserts, int[] deletedIds) {
+        lock.writeLock().lock();
+        try {
+            for (final int id : deletedIds) {
+                doRemove(id);
+            }
+            for (final var product : upserts) {
+                doRemove(product.getId());
+                doAdd(product);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSearchIndex[" +
+               "size=" + documents.size() + ", " +
+               "grams=" + postings.size() + ", " +
+               "]";
+    }
+
+    private List<Product> rank(long[] grams, int minMatches, int limit) {
+        final var buffer = scoreBuffers.get();
+
+        buffer.ensureCapacity(slotCount);
+        try {
+            for (final long gram : grams) {
+                final var posting = postings.get(gram);
+
+                if (posting == null) {
+                    continue;
+                }
+                for (int i = 0; i < posting.size; i++) {
+                    final int entry = posting.entries[i];
+
+                    buffer.add(entry >>> FIELD_BITS, weightOf(entry & FIELD_MASK));
+                }
+            }
+            return topScores(buffer, minMatches, limit);
+        }
+        finally {
+            buffer.clear();
+        }
+    }
+
+    // Selects the best scores with a bounded min-heap, ordered by score and
+    // then by slot so the ranking is deterministic
+    private List<Product> topScores(ScoreBuffer buffer, int minMatches, int limit) {
+        final int[] scores = buffer.scores;
+        final int[] heap = new int[Math.min(limit, buffer.touchedCount)];
+        int heapSize = 0;
+
+        for (int i = 0; i < buffer.touchedCount; i++) {
+            final int slot = buffer.touched[i];
+
+            if (buffer.matches[slot] < minMatches) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++, scores);
+            }
+            else if (isBefore(heap[0], slot, scores)) {
+                heap[0] = slot;
+                siftDown(heap, heapSize, scores);
+            }
+        }
+        final var result = new ArrayList<Product>(heapSize);
+
+        while (heapSize > 0) {
+            result.add(slots[heap[0]].product);
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scores);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void doAdd(Product product) {
+        final var buffer = new GramBuffer();
+
+        collectGrams(product.getName(), NAME_FIELD, buffer);
+        collectGrams(product.getCategory(), CATEGORY_FIELD, buffer);
+        collectGrams(product.getDescription(), DESCRIPTION_FIELD, buffer);
+
+        final long[] grams = buffer.toDistinctGrams();
+        final int slot = allocateSlot();
+        final var keys = new long[grams.length];
+
+        for (int i = 0; i < grams.length; i++) {
+            final long key = grams[i] >>> FIELD_BITS;
+            final int fields = (int) (grams[i] & FIELD_MASK);
+
+            keys[i] = key;
+            var posting = postings.get(key);
+
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(key, posting);
+            }
+            posting.add((slot << FIELD_BITS) | fields);
+        }
+        final var document = new Document(product, slot, keys);
+
+        slots[slot] = document;
+        documents.put(product.getId(), document);
+    }
+
+    private void doRemove(int id) {
+        final var document = documents.remove(id);
+
+        if (document == null) {
+            return;
+        }
+        for (final long key : document.grams) {
+            final var posting = postings.get(key);
+
+            posting.removeSlot(document.slot);
+            if (posting.size == 0) {
+                postings.remove(key);
+            }
+        }
+        slots[document.slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = document.slot;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Defines an indexed product with its slot and the grams it's indexed by,
+     * to remove it from the postings.
+     */
+    private static final class Document {
+
+        private final Product product;
+        private final int slot;
+        private final long[] grams;
+
+        Document(Product product, int slot, long[] grams) {
+            this.product = product;
+            this.slot = slot;
+            this.grams = grams;
+        }
+
+    }
+
+    /**
+     * Defines a growable buffer of grams with their fields.
+     */
+    private static final class GramBuffer {
+
+        private long[] grams = new long[64];
+        private int size = 0;
+
+        void add(long gram) {
+            if (size == grams.length) {
+                grams = Arrays.copyOf(grams, size * 2);
+            }
+            grams[size++] = gram;
+        }
+
+        /**
+         * Returns the distinct grams, merging the fields of the same gram.
+         */
+        long[] toDistinctGrams() {
+            Arrays.sort(grams, 0, size);
+            int distinct = 0;
+
+            for (int i = 0; i < size; i++) {
+                final long key = grams[i] >>> FIELD_BITS;
+
+                if (distinct > 0 && grams[distinct - 1] >>> FIELD_BITS == key) {
+                    grams[distinct - 1] |= grams[i] & FIELD_MASK;
+                }
+                else {
+                    grams[distinct++] = grams[i];
+                }
+            }
+            return Arrays.copyOf(grams, distinct);
+        }
+
+    }
+
+    /**
+     * Defines the scores of the slots matched by a query, along with the
+     * slots it touched, so only those are read and cleared afterwards.
+     */
+    private static final class ScoreBuffer {
+
+        private int[] scores = new int[0];
+        private int[] matches = new int[0];
+        private int[] touched = new int[0];
+        private int touchedCount = 0;
+
+        void ensureCapacity(int slotCount) {
+            if (scores.length < slotCount) {
+                scores = new int[slotCount];
+                matches = new int[slotCount];
+                touched = new int[slotCount];
+            }
+        }
+
+        void add(int slot, int weight) {
+            if (matches[slot] == 0) {
+                touched[touchedCount++] = slot;
+            }
+            scores[slot] += weight;
+            matches[slot]++;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+                matches[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+
+    }
+
+    /**
+     * Defines the list of entries of a gram, each entry is the slot of a
+     * document shifted left by {@link #FIELD_BITS} and the fields of the
+     * document containing the gram.
+     */
+    private static final class Posting {
+
+        private int[] entries = new int[4];
+        private int size = 0;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        void removeSlot(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] >>> FIELD_BITS == slot) {
+                    entries[i] = entries[--size];
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.Supplier;
+
+import java.util.List;
+
+/**
+ * Defines the reference records the checkout app needs before the cashier
+ * can work, as fetched from the Northwind API.
+ */
+public final class ReferenceData {
+
+    private final long version;
+    private final List<Product> products;
+    private final List<Customer> customers;
+    private final List<Employee> employees;
+    private final List<Shipper> shippers;
+    private final List<Supplier> suppliers;
+
+    /**
+     * Creates a new ReferenceData. The records must have a non-negative id
+     * unique among the records of the same type.
+     *
+     * @param version   server's version of the data, or
+     *                  {@link ReferenceSnapshot#NO_VERSION} if it's unknown
+     * @param products  products
+     * @param customers customers
+     * @param employees employees
+     * @param shippers  shippers
+     * @param suppliers suppliers
+     */
+    public ReferenceData(
+        long version,
+        List<Product> products,
+        List<Customer> customers,
+        List<Employee> employees,
+        List<Shipper> shippers,
+        List<Supplier> suppliers
+    ) {
+        this.version = version;
+        this.products = products;
+        this.customers = customers;
+        this.employees = employees;
+        this.shippers = shippers;
+        this.suppliers = suppliers;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public List<Shipper> getShippers() {
+        return shippers;
+    }
+
+    public List<Supplier> getSuppliers() {
+        return suppliers;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceData[" +
+               "version=" + version + ", " +
+               "products=" + products.size() + ", " +
+               "customers=" + customers.size() + ", " +
+               "employees=" + employees.size() + ", " +
+               "shippers=" + shippers.size() + ", " +
+               "suppliers=" + suppliers.size() +
+               "]";
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Defines the source of the reference data, like the Northwind API, used to
+ * refresh a {@link ReferenceSnapshot} in the background.
+ */
+@FunctionalInterface
+public interface ReferenceDataSource {
+
+    /**
+     * Fetches the current reference data.
+     *
+     * @param version version of the data held locally, or
+     *                {@link ReferenceSnapshot#NO_VERSION} if there's none
+     *
+     * @return a future completing with the current data, or with
+     * {@code null} if the data of the given version is up to date
+     */
+    CompletableFuture<ReferenceData> fetch(long version);
+
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import io.github.tobiasbriones.ep.northwind.model.data.codec.CustomerView;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.ProductView;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCaches;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCodec;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordInput;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordCache;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.Supplier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Defines a read-only view of a reference data snapshot file.
+ * <p>
+ * The file is memory-mapped and its records are decoded only when they are
+ * requested, so opening a snapshot costs checking its header and reading the
+ * string dictionary, instead of decoding every record. The checksum of the
+ * whole file is checked by {@link #verify()} once, when the snapshot is
+ * saved, since it reads every page of the file. A record is found by a binary
+ * search over the sorted ids of its section. The snapshot is immutable and
+ * can be read from any thread.
+ * <p>
+ * The products and customers can also be read through a {@link ProductView}
+ * or a {@link CustomerView}, which reads the fields straight from the mapped
+ * file, so a scan over the records with a reused view creates no garbage.
+ *
+ * @see ReferenceSnapshotStore
+ */
+public final class ReferenceSnapshot {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the version of data whose server version is unknown.
+     */
+    public static final long NO_VERSION = -1L;
+
+    /**
+     * Opens the snapshot of the given file. Only the header, the section
+     * table and the length of the file are checked, see {@link #verify()}.
+     *
+     * @param file snapshot file
+     *
+     * @return the snapshot of the given file
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws RuntimeException     if the file is not a valid snapshot, like
+     *                              if it's damaged or of another format
+     *                              version
+     */
+    public static ReferenceSnapshot open(Path file) {
+        // The mapping stays valid after closing the channel
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            if (size < ReferenceSnapshotCodec.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw newInvalidSnapshotException(file);
+            }
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            return new ReferenceSnapshot(file, validate(file, buffer));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer validate(Path file, ByteBuffer buffer) {
+        final int size = buffer.capacity();
+        final int sectionCount = SnapshotSection.values().length;
+        final int tableEnd = ReferenceSnapshotCodec.HEADER_SIZE +
+                             sectionCount * ReferenceSnapshotCodec.SECTION_ENTRY_SIZE;
+        final boolean isValid =
+            buffer.getInt(0) == ReferenceSnapshotCodec.MAGIC &&
+            buffer.getInt(4) == ReferenceSnapshotCodec.FORMAT_VERSION &&
+            buffer.getLong(ReferenceSnapshotCodec.FILE_LENGTH_OFFSET) == size &&
+            buffer.getInt(ReferenceSnapshotCodec.SECTION_COUNT_OFFSET) == sectionCount &&
+            size >= tableEnd &&
+            buffer.getInt(ReferenceSnapshotCodec.DICTIONARY_OFFSET_OFFSET) >= tableEnd &&
+            buffer.getInt(ReferenceSnapshotCodec.DICTIONARY_OFFSET_OFFSET) < size;
+
+        if (!isValid) {
+            throw newInvalidSnapshotException(file);
+        }
+        final int dictionaryOffset =
+            buffer.getInt(ReferenceSnapshotCodec.DICTIONARY_OFFSET_OFFSET);
+
+        for (int i = 0; i < sectionCount; i++) {
+            if (!isValidSection(buffer, i, tableEnd, dictionaryOffset)) {
+                throw newInvalidSnapshotException(file);
+            }
+        }
+        return buffer;
+    }
+
+    // The ids and offsets of a section must be between the section table and
+    // the dictionary, a torn file would have them out of the mapping
+    private static boolean isValidSection(
+        ByteBuffer buffer,
+        int ordinal,
+        int tableEnd,
+        int dictionaryOffset
+    ) {
+        final int entry = ReferenceSnapshotCodec.HEADER_SIZE +
+                          ordinal * ReferenceSnapshotCodec.SECTION_ENTRY_SIZE;
+        final int count = buffer.getInt(entry + 4);
+        final int offset = buffer.getInt(entry + 8);
+        final long end = offset + 2L * count * Integer.BYTES;
+
+        return buffer.getInt(entry) == ordinal &&
+               count >= 0 &&
+               offset >= tableEnd &&
+               end <= dictionaryOffset;
+    }
+
+    private static RuntimeException newInvalidSnapshotException(Path file) {
+        final var msg = """
+                        Invalid reference snapshot: %s
+                        """.formatted(file);
+        return new RuntimeException(msg);
+    }
+
+    @FunctionalInterface
+    private interface RecordReader<R> {
+
+        R read(RecordInput in);
+
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final long version;
+    private final long createdAt;
+    private final int[] counts;
+    private final int[] sectionOffsets;
+    private final List<String> dictionary;
+
+    private ReferenceSnapshot(Path file, ByteBuffer buffer) {
+        final var sections = SnapshotSection.values();
+
+        this.file = file;
+        this.buffer = buffer;
+        this.version = buffer.getLong(ReferenceSnapshotCodec.DATA_VERSION_OFFSET);
+        this.createdAt = buffer.getLong(ReferenceSnapshotCodec.CREATED_AT_OFFSET);
+        this.counts = new int[sections.length];
+        this.sectionOffsets = new int[sections.length];
+        this.dictionary = ReferenceSnapshotCodec.readDictionary(buffer);
+
+        for (int i = 0; i < sections.length; i++) {
+            final int entry = ReferenceSnapshotCodec.HEADER_SIZE +
+                              i * ReferenceSnapshotCodec.SECTION_ENTRY_SIZE;
+
+            counts[i] = buffer.getInt(entry + 4);
+            sectionOffsets[i] = buffer.getInt(entry + 8);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks the checksum of the whole file of this snapshot.
+     *
+     * @throws RuntimeException if the file is damaged
+     */
+    public void verify() {
+        final int size = buffer.capacity();
+        final int checksum = buffer.getInt(ReferenceSnapshotCodec.CHECKSUM_OFFSET);
+
+        if (checksum != ReferenceSnapshotCodec.checksumOf(buffer, size)) {
+            throw newInvalidSnapshotException(file);
+        }
+    }
+
+    /**
+     * Returns the server's version of the data of this snapshot, or
+     * {@link #NO_VERSION} if it's unknown.
+     *
+     * @return the version of the data of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return Instant.ofEpochMilli(createdAt);
+    }
+
+    public int getProductCount() {
+        return counts[SnapshotSection.PRODUCTS.ordinal()];
+    }
+
+    public int getCustomerCount() {
+        return counts[SnapshotSection.CUSTOMERS.ordinal()];
+    }
+
+    public int getEmployeeCount() {
+        return counts[SnapshotSection.EMPLOYEES.ordinal()];
+    }
+
+    public int getShipperCount() {
+        return counts[SnapshotSection.SHIPPERS.ordinal()];
+    }
+
+    public int getSupplierCount() {
+        return counts[SnapshotSection.SUPPLIERS.ordinal()];
+    }
+
+    /**
+     * Returns the product with the given id, or {@code null} if this snapshot
+     * doesn't have it.
+     *
+     * @param id id of the product
+     *
+     * @return the product with the given id
+     */
+    public Product getProduct(int id) {
+        return get(SnapshotSection.PRODUCTS, id, RecordCodec::readProduct);
+    }
+
+    /**
+     * Returns the customer with the given id, or {@code null} if this
+     * snapshot doesn't have it.
+     *
+     * @param id id of the customer
+     *
+     * @return the customer with the given id
+     */
+    public Customer getCustomer(int id) {
+        return get(SnapshotSection.CUSTOMERS, id, RecordCodec::readCustomer);
+    }
+
+    /**
+     * Returns the employee with the given id, or {@code null} if this
+     * snapshot doesn't have it.
+     *
+     * @param id id of the employee
+     *
+     * @return the employee with the given id
+     */
+    public Employee getEmployee(int id) {
+        return get(SnapshotSection.EMPLOYEES, id, RecordCodec::readEmployee);
+    }
+
+    /**
+     * Returns the shipper with the given id, or {@code null} if this snapshot
+     * doesn't have it.
+     *
+     * @param id id of the shipper
+     *
+     * @return the shipper with the given id
+     */
+    public Shipper getShipper(int id) {
+        return get(SnapshotSection.SHIPPERS, id, RecordCodec::readShipper);
+    }
+
+    /**
+     * Returns the supplier with the given id, or {@code null} if this
+     * snapshot doesn't have it.
+     *
+     * @param id id of the supplier
+     *
+     * @return the supplier with the given id
+     */
+    public Supplier getSupplier(int id) {
+        return get(SnapshotSection.SUPPLIERS, id, RecordCodec::readSupplier);
+    }
+
+    /**
+     * Moves the given view to the product with the given id.
+     *
+     * @param id   id of the product
+     * @param view view to move
+     *
+     * @return {@code true} if and only if this snapshot has the product
+     */
+    public boolean loadProduct(int id, ProductView view) {
+        final int index = indexOf(SnapshotSection.PRODUCTS, id);
+
+        if (index < 0) {
+            return false;
+        }
+        view.reset(buffer, recordOffset(SnapshotSection.PRODUCTS, index), dictionary);
+        return true;
+    }
+
+    /**
+     * Moves the given view to the product at the given index, in id order.
+     *
+     * @param index index of the product, from zero until the product count
+     * @param view  view to move
+     *
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public void loadProductAt(int index, ProductView view) {
+        Objects.checkIndex(index, getProductCount());
+        view.reset(buffer, recordOffset(SnapshotSection.PRODUCTS, index), dictionary);
+    }
+
+    /**
+     * Moves the given view to the customer with the given id.
+     *
+     * @param id   id of the customer
+     * @param view view to move
+     *
+     * @return {@code true} if and only if this snapshot has the customer
+     */
+    public boolean loadCustomer(int id, CustomerView view) {
+        final int index = indexOf(SnapshotSection.CUSTOMERS, id);
+
+        if (index < 0) {
+            return false;
+        }
+        view.reset(buffer, recordOffset(SnapshotSection.CUSTOMERS, index), dictionary);
+        return true;
+    }
+
+    /**
+     * Moves the given view to the customer at the given index, in id order.
+     *
+     * @param index index of the customer, from zero until the customer count
+     * @param view  view to move
+     *
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public void loadCustomerAt(int index, CustomerView view) {
+        Objects.checkIndex(index, getCustomerCount());
+        view.reset(buffer, recordOffset(SnapshotSection.CUSTOMERS, index), dictionary);
+    }
+
+    /**
+     * Decodes all the products of this snapshot, sorted by id.
+     *
+     * @return an unmodifiable list with the products of this snapshot
+     */
+    public List<Product> getProducts() {
+        return getAll(SnapshotSection.PRODUCTS, RecordCodec::readProduct);
+    }
+
+    /**
+     * Decodes all the customers of this snapshot, sorted by id.
+     *
+     * @return an unmodifiable list with the customers of this snapshot
+     */
+    public List<Customer> getCustomers() {
+        return getAll(SnapshotSection.CUSTOMERS, RecordCodec::readCustomer);
+    }
+
+    /**
+     * Decodes all the employees of this snapshot, sorted by id.
+     *
+     * @return an unmodifiable list with the employees of this snapshot
+     */
+    public List<Employee> getEmployees() {
+        return getAll(SnapshotSection.EMPLOYEES, RecordCodec::readEmployee);
+    }
+
+    /**
+     * Decodes all the shippers of this snapshot, sorted by id.
+     *
+     * @return an unmodifiable list with the shippers of this snapshot
+     */
+    public List<Shipper> getShippers() {
+        return getAll(SnapshotSection.SHIPPERS, RecordCodec::readShipper);
+    }
+
+    /**
+     * Decodes all the suppliers of this snapshot, sorted by id.
+     *
+     * @return an unmodifiable list with the suppliers of this snapshot
+     */
+    public List<Supplier> getSuppliers() {
+        return getAll(SnapshotSection.SUPPLIERS, RecordCodec::readSupplier);
+    }
+
+    /**
+     * Decodes all the records of this snapshot.
+     *
+     * @return the data of this snapshot
+     */
+    public ReferenceData toReferenceData() {
+        return new ReferenceData(
+            version,
+            getProducts(),
+            getCustomers(),
+            getEmployees(),
+            getShippers(),
+            getSuppliers()
+        );
+    }
+
+    /**
+     * Returns new caches loading their records from this snapshot, so the
+     * orders read with them, like the ones replayed from the journal,
+     * resolve their customers, employees, shippers and products only when
+     * they are requested.
+     *
+     * @return new caches of the records of this snapshot
+     */
+    public RecordCaches newRecordCaches() {
+        return new RecordCaches()
+            .setCustomers(new RecordCache<>(this::getCustomer))
+            .setEmployees(new RecordCache<>(this::getEmployee))
+            .setShippers(new RecordCache<>(this::getShipper))
+            .setProducts(new RecordCache<>(this::getProduct));
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceSnapshot[" +
+               "file=" + file + ", " +
+               "version=" + version + ", " +
+               "createdAt=" + getCreatedAt() +
+               "]";
+    }
+
+    private <R> R get(SnapshotSection section, int id, RecordReader<R> reader) {
+        final int index = indexOf(section, id);
+
+        if (index < 0) {
+            return null;
+        }
+        final var in = newInput();
+
+        in.seek(recordOffset(section, index));
+        return reader.read(in);
+    }
+
+    private <R> List<R> getAll(SnapshotSection section, RecordReader<R> reader) {
+        final int count = counts[section.ordinal()];
+        final var records = new ArrayList<R>(count);
+        final var in = newInput();
+
+        for (int i = 0; i < count; i++) {
+            in.seek(recordOffset(section, i));
+            records.add(reader.read(in));
+        }
+        return Collections.unmodifiableList(records);
+    }
+
+    private int indexOf(SnapshotSection section, int id) {
+        final int idsOffset = sectionOffsets[section.ordinal()];
+        int low = 0;
+        int high = counts[section.ordinal()] - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midId = buffer.getInt(idsOffset + mid * Integer.BYTES);
+
+            if (midId < id) {
+                low = mid + 1;
+            }
+            else if (midId > id) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int recordOffset(SnapshotSection section, int index) {
+        final int i = section.ordinal();
+        final int offsetsOffset = sectionOffsets[i] + counts[i] * Integer.BYTES;
+        return buffer.getInt(offsetsOffset + index * Integer.BYTES);
+    }
+
+    // The input reads with absolute positions, so the buffer is shared
+    private RecordInput newInput() {
+        final var in = new RecordInput();
+
+        in.reset(buffer, 0);
+        in.setDictionary(dictionary);
+        return in;
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordCodec;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordInput;
+import io.github.tobiasbriones.ep.northwind.model.data.codec.RecordOutput;
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
+import io.github.tobiasbriones.ep.northwind.model.model.supplier.Supplier;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Encodes and decodes the {@link ReferenceSnapshot} files.
+ * <p>
+ * A file starts with a header holding the format version, the version of
+ * the data and a checksum of the whole file, followed by a table of
+ * sections, one per record type. A section holds the sorted ids of its
+ * records, the offsets of the records, and the records themselves, so a
+ * record is found by a binary search over the ids and decoded on its own,
+ * straight from the mapped file.
+ * <p>
+ * The records are encoded with the {@link RecordCodec}. Their dictionary
+ * strings refer to the dictionary stored at the end of the file, instead of
+ * being defined inline, and their embedded records are written in full
+ * instead of as shared references, so any record can be decoded first.
+ */
+final class ReferenceSnapshotCodec {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    // "NWRS"
+    static final int MAGIC = 0x4E575253;
+    static final int FORMAT_VERSION = 2;
+
+    // Magic, format version, data version, creation time, file length,
+    // section count, dictionary offset and checksum
+    static final int HEADER_SIZE = 44;
+    static final int DATA_VERSION_OFFSET = 8;
+    static final int CREATED_AT_OFFSET = 16;
+    static final int FILE_LENGTH_OFFSET = 24;
+    static final int SECTION_COUNT_OFFSET = 32;
+    static final int DICTIONARY_OFFSET_OFFSET = 36;
+    static final int CHECKSUM_OFFSET = 40;
+
+    // Section kind, record count and offset
+    static final int SECTION_ENTRY_SIZE = 12;
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * Returns the checksum of the given snapshot file content, which covers
+     * everything but the checksum field itself.
+     *
+     * @param buffer content of the snapshot file
+     * @param length length of the snapshot file
+     *
+     * @return the checksum of the snapshot file
+     */
+    static int checksumOf(ByteBuffer buffer, int length) {
+        final var checksum = new CRC32C();
+
+        checksum.update(buffer.duplicate().position(0).limit(CHECKSUM_OFFSET));
+        checksum.update(buffer.duplicate().position(HEADER_SIZE).limit(length));
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Reads the dictionary of the given snapshot file content.
+     *
+     * @param buffer content of the snapshot file
+     *
+     * @return the unmodifiable dictionary of the snapshot
+     */
+    static List<String> readDictionary(ByteBuffer buffer) {
+        final var in = new RecordInput();
+
+        in.reset(buffer, buffer.getInt(DICTIONARY_OFFSET_OFFSET));
+        final int size = in.readVarInt();
+        final var dictionary = new ArrayList<String>(size);
+
+        for (int i = 0; i < size; i++) {
+            dictionary.add(in.readString());
+        }
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    private static <R extends IdentifiableRecord> R[] sortedById(
+        List<R> records,
+        R[] array
+    ) {
+        final var sorted = records.toArray(array);
+
+        Arrays.sort(sorted, Comparator.comparingInt(IdentifiableRecord::getId));
+        for (int i = 0; i < sorted.length; i++) {
+            final int id = sorted[i].getId();
+
+            if (id < 0 || (i > 0 && id == sorted[i - 1].getId())) {
+                final var msg = """
+                                Invalid or duplicated snapshot record id: %d
+                                """.formatted(id);
+                throw new RuntimeException(msg);
+            }
+        }
+        return sorted;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final RecordOutput records;
+    private ByteBuffer out;
+
+    ReferenceSnapshotCodec() {
+        this.records = new RecordOutput();
+        this.out = ByteBuffer.allocate(INITIAL_CAPACITY);
+        records.setInlineDefinitions(false);
+        records.setSharedReferences(false);
+    }
+
+    /**
+     * Encodes the given data into a snapshot file content.
+     *
+     * @param data      data to encode
+     * @param createdAt creation time of the snapshot, in epoch milliseconds
+     *
+     * @return the snapshot file content, from position 0 until its limit
+     *
+     * @throws RuntimeException if a record doesn't have a valid id, or the
+     *                          snapshot would be larger than 2 GiB
+     */
+    ByteBuffer encode(ReferenceData data, long createdAt) {
+        final var sections = SnapshotSection.values();
+        final int tableSize = sections.length * SECTION_ENTRY_SIZE;
+
+        out.clear();
+        records.reset();
+        ensureCapacity(HEADER_SIZE + tableSize);
+        out.position(HEADER_SIZE + tableSize);
+
+        final var products = sortedById(data.getProducts(), new Product[0]);
+        final var customers = sortedById(data.getCustomers(), new Customer[0]);
+        final var employees = sortedById(data.getEmployees(), new Employee[0]);
+        final var shippers = sortedById(data.getShippers(), new Shipper[0]);
+        final var suppliers = sortedById(data.getSuppliers(), new Supplier[0]);
+
+        writeSection(SnapshotSection.PRODUCTS, products, RecordCodec::writeProduct);
+        writeSection(SnapshotSection.CUSTOMERS, customers, RecordCodec::writeCustomer);
+        writeSection(SnapshotSection.EMPLOYEES, employees, RecordCodec::writeEmployee);
+        writeSection(SnapshotSection.SHIPPERS, shippers, RecordCodec::writeShipper);
+        writeSection(SnapshotSection.SUPPLIERS, suppliers, RecordCodec::writeSupplier);
+
+        final int dictionaryOffset = out.position();
+
+        writeDictionary();
+        final int length = out.position();
+
+        out.putInt(0, MAGIC);
+        out.putInt(4, FORMAT_VERSION);
+        out.putLong(DATA_VERSION_OFFSET, data.getVersion());
+        out.putLong(CREATED_AT_OFFSET, createdAt);
+        out.putLong(FILE_LENGTH_OFFSET, length);
+        out.putInt(SECTION_COUNT_OFFSET, sections.length);
+        out.putInt(DICTIONARY_OFFSET_OFFSET, dictionaryOffset);
+        out.putInt(CHECKSUM_OFFSET, checksumOf(out, length));
+        return out.duplicate().position(0).limit(length);
+    }
+
+    private <R extends IdentifiableRecord> void writeSection(
+        SnapshotSection section,
+        R[] sectionRecords,
+        BiConsumer<RecordOutput, R> writer
+    ) {
+        final int count = sectionRecords.length;
+        final int start = out.position();
+        final int offsetsStart = start + count * Integer.BYTES;
+        final int recordsStart = offsetsStart + count * Integer.BYTES;
+        final int tableEntry = HEADER_SIZE + section.ordinal() * SECTION_ENTRY_SIZE;
+
+        // The dictionary is kept across the sections
+        records.clearBytes();
+        ensureCapacity(2 * count * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            out.putInt(start + i * Integer.BYTES, sectionRecords[i].getId());
+            out.putInt(offsetsStart + i * Integer.BYTES, recordsStart + records.size());
+            writer.accept(records, sectionRecords[i]);
+        }
+        out.position(recordsStart);
+        put(records.toByteBuffer());
+        out.putInt(tableEntry, section.ordinal());
+        out.putInt(tableEntry + 4, count);
+        out.putInt(tableEntry + 8, start);
+    }
+
+    private void writeDictionary() {
+        final var dictionary = records.getDictionary();
+
+        records.clearBytes();
+        records.writeVarInt(dictionary.size());
+        for (final var value : dictionary) {
+            records.writeString(value);
+        }
+        put(records.toByteBuffer());
+    }
+
+    private void put(ByteBuffer bytes) {
+        ensureCapacity(bytes.remaining());
+        out.put(bytes);
+    }
+
+    private void ensureCapacity(int bytes) {
+        final long required = (long) out.position() + bytes;
+
+        if (required <= out.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE - 8) {
+            final var msg = "The snapshot is too large";
+            throw new RuntimeException(msg);
+        }
+        final long grown = Math.max(required, (long) out.capacity() * 2L);
+        final int capacity = (int) Math.min(grown, Integer.MAX_VALUE - 8);
+        final var newOut = ByteBuffer.allocate(capacity);
+
+        out.flip();
+        newOut.put(out);
+        out = newOut;
+    }
+
+}
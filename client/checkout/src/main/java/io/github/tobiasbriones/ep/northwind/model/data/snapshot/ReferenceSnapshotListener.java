@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+/**
+ * Defines a listener of the snapshots loaded by a
+ * {@link ReferenceSnapshotLoader}.
+ */
+public interface ReferenceSnapshotListener {
+
+    /**
+     * Called when a newer snapshot replaced the current one.
+     *
+     * @param snapshot new current snapshot
+     */
+    void onSnapshotChanged(ReferenceSnapshot snapshot);
+
+}
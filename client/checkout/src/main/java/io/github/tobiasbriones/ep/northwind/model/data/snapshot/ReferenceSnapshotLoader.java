@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Defines the loader of the reference data of the checkout app.
+ * <p>
+ * At startup, {@link #loadLocal()} maps the latest stored snapshot, so the
+ * cashier can work within milliseconds regardless of the API response time.
+ * Then {@link #refresh()} fetches the current data in the background, saves
+ * it as a new snapshot and makes it the current one. The readers should get
+ * the current snapshot with {@link #getCurrent()} on each use, or listen to
+ * the changes, instead of holding to an old one.
+ */
+public final class ReferenceSnapshotLoader {
+
+    private final ReferenceSnapshotStore store;
+    private final ReferenceDataSource source;
+    private final Executor executor;
+    private final List<ReferenceSnapshotListener> listeners;
+    private final AtomicReference<CompletableFuture<ReferenceSnapshot>> refreshing;
+    private volatile ReferenceSnapshot current;
+
+    /**
+     * Creates a new ReferenceSnapshotLoader.
+     *
+     * @param store    local store of the snapshots
+     * @param source   source of the current reference data
+     * @param executor executor to write the new snapshots on
+     */
+    public ReferenceSnapshotLoader(
+        ReferenceSnapshotStore store,
+        ReferenceDataSource source,
+        Executor executor
+    ) {
+        this.store = store;
+        this.source = source;
+        this.executor = executor;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.refreshing = new AtomicReference<>(null);
+        this.current = null;
+    }
+
+    /**
+     * Returns the current snapshot, or {@code null} if no snapshot was
+     * loaded yet.
+     *
+     * @return the current snapshot
+     */
+    public ReferenceSnapshot getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns the version of the current snapshot, or
+     * {@link ReferenceSnapshot#NO_VERSION} if there's none.
+     *
+     * @return the version of the current snapshot
+     */
+    public long getVersion() {
+        final var snapshot = current;
+        return snapshot == null ? ReferenceSnapshot.NO_VERSION : snapshot.getVersion();
+    }
+
+    public void addListener(ReferenceSnapshotListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ReferenceSnapshotListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Maps the latest stored snapshot, if any, without accessing the network,
+     * and makes it the current one unless a snapshot was already loaded.
+     *
+     * @return the current snapshot, or {@code null} if there's none
+     */
+    public ReferenceSnapshot loadLocal() {
+        final var snapshot = store.openLatest();
+
+        if (snapshot != null) {
+            synchronized (this) {
+                if (current == null) {
+                    setCurrent(snapshot);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Fetches the current reference data in the background and saves it as
+     * the current snapshot. If the data is up to date, the current snapshot
+     * is kept. If a refresh is already running, its result is returned
+     * instead of starting another one.
+     *
+     * @return a future completing with the current snapshot after the
+     * refresh
+     */
+    public CompletableFuture<ReferenceSnapshot> refresh() {
+        final var result = new CompletableFuture<ReferenceSnapshot>();
+
+        if (!refreshing.compareAndSet(null, result)) {
+            final var running = refreshing.get();
+
+            if (running != null) {
+                return running;
+            }
+            return refresh();
+        }
+        final CompletableFuture<ReferenceData> fetch;
+
+        try {
+            fetch = source.fetch(getVersion());
+        }
+        catch (RuntimeException e) {
+            // Lets the next call start another refresh
+            refreshing.set(null);
+            result.completeExceptionally(e);
+            return result;
+        }
+        fetch.thenApplyAsync(this::save, executor)
+             .whenComplete((snapshot, error) -> {
+                 refreshing.set(null);
+                 if (error != null) {
+                     result.completeExceptionally(error);
+                 }
+                 else {
+                     result.complete(snapshot);
+                 }
+             });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceSnapshotLoader[" +
+               "store=" + store + ", " +
+               "current=" + current +
+               "]";
+    }
+
+    private ReferenceSnapshot save(ReferenceData data) {
+        if (data == null) {
+            return current;
+        }
+        final var snapshot = store.save(data);
+
+        synchronized (this) {
+            setCurrent(snapshot);
+        }
+        return snapshot;
+    }
+
+    private void setCurrent(ReferenceSnapshot snapshot) {
+        current = snapshot;
+        for (final var listener : listeners) {
+            listener.onSnapshotChanged(snapshot);
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Defines the local store of the reference data snapshots of the checkout
+ * app.
+ * <p>
+ * Each saved snapshot goes to a new file with a higher generation number in
+ * its name, instead of replacing the current file, since the current file
+ * may still be mapped and read by the app. A snapshot is written to a
+ * temporary file and moved into place once it's durable, so the latest
+ * generation file is always complete. Its checksum is verified once after
+ * the move, so opening it later only checks its header. The generation
+ * before the latest is kept as a fallback for a damaged latest file, the
+ * older ones are deleted when possible.
+ */
+public final class ReferenceSnapshotStore {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final String SNAPSHOT_PREFIX = "reference-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final int GENERATION_DIGITS = 20;
+    private static final long NO_GENERATION = 0L;
+
+    private static boolean isSnapshot(Path path) {
+        final var name = path.getFileName().toString();
+        final int digits = name.length() -
+                           SNAPSHOT_PREFIX.length() -
+                           SNAPSHOT_SUFFIX.length();
+
+        return name.startsWith(SNAPSHOT_PREFIX) &&
+               name.endsWith(SNAPSHOT_SUFFIX) &&
+               digits == GENERATION_DIGITS &&
+               name.chars()
+                   .skip(SNAPSHOT_PREFIX.length())
+                   .limit(digits)
+                   .allMatch(Character::isDigit);
+    }
+
+    private static long generationOf(Path path) {
+        final var name = path.getFileName().toString();
+        final int end = name.length() - SNAPSHOT_SUFFIX.length();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), end));
+    }
+
+    private static void deleteQuietly(Path path) {
+        // A file still mapped can't be deleted on some platforms, it's
+        // deleted by a later save instead
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ignore) {
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Path directory;
+
+    /**
+     * Creates a new ReferenceSnapshotStore.
+     *
+     * @param directory directory where the snapshot files are stored, it's
+     *                  created when the first snapshot is saved
+     */
+    public ReferenceSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Opens the latest valid snapshot of this store without accessing the
+     * network. A snapshot with a damaged header is skipped in favor of the
+     * previous one.
+     *
+     * @return the latest valid snapshot, or {@code null} if there's none
+     */
+    public ReferenceSnapshot openLatest() {
+        final List<Path> files;
+
+        try {
+            files = listSnapshots();
+        }
+        catch (IOException e) {
+            return null;
+        }
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return ReferenceSnapshot.open(files.get(i));
+            }
+            catch (RuntimeException ignore) {
+                // A damaged snapshot is just a cache miss
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves the given data as the latest snapshot of this store, and deletes
+     * the snapshots older than the previous latest when possible.
+     *
+     * @param data data to save
+     *
+     * @return the saved snapshot
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     * @throws RuntimeException     if the data has a record without a valid
+     *                              id, or the saved file is damaged
+     */
+    public synchronized ReferenceSnapshot save(ReferenceData data) {
+        final var content = new ReferenceSnapshotCodec().encode(
+            data,
+            System.currentTimeMillis()
+        );
+
+        try {
+            Files.createDirectories(directory);
+            final var files = listSnapshots();
+            final long generation = files.isEmpty()
+                                    ? NO_GENERATION + 1L
+                                    : generationOf(files.get(files.size() - 1)) + 1L;
+            final var file = snapshotPath(generation);
+            final var tmpFile = file.resolveSibling(file.getFileName() + TMP_FILE_SUFFIX);
+
+            try (var channel = FileChannel.open(
+                tmpFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(
+                tmpFile,
+                file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            final var snapshot = ReferenceSnapshot.open(file);
+
+            try {
+                snapshot.verify();
+            }
+            catch (RuntimeException e) {
+                deleteQuietly(file);
+                throw e;
+            }
+            for (int i = 0; i < files.size() - 1; i++) {
+                deleteQuietly(files.get(i));
+            }
+            return snapshot;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceSnapshotStore[" +
+               "directory=" + directory +
+               "]";
+    }
+
+    private Path snapshotPath(long generation) {
+        final var name = "%s%020d%s".formatted(
+            SNAPSHOT_PREFIX,
+            generation,
+            SNAPSHOT_SUFFIX
+        );
+        return directory.resolve(name);
+    }
+
+    /**
+     * Returns the snapshot files of this store sorted by generation.
+     */
+    private List<Path> listSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files
+                .filter(ReferenceSnapshotStore::isSnapshot)
+                .sorted(Comparator.comparingLong(ReferenceSnapshotStore::generationOf))
+                .collect(Collectors.toList());
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
+
+/**
+ * Defines the sections of a {@link ReferenceSnapshot} file, one per record
+ * type, in file order.
+ */
+enum SnapshotSection {
+    PRODUCTS,
+    CUSTOMERS,
+    EMPLOYEES,
+    SHIPPERS,
+    SUPPLIERS
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+/**
+ * Provides the local binary snapshot of the Northwind's reference records,
+ * like the products and the customers, so the checkout app is usable right
+ * after it starts, before the API answers.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.data.snapshot;
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Defines a table of {@link IdentifiableRecord} records keyed by their id.
+ * <p>
+ * The records are stored in an {@link IntKeyTable}, so a lookup doesn't box
+ * the key. Records with the {@link IdentifiableRecord#NEW_RECORD_DEF_ID} id
+ * can't be stored since they are not distinguishable by id, but records with
+ * a temporary id can. The table is not thread-safe, use {@link #copy()} to
+ * publish immutable snapshots to other threads.
+ *
+ * @param <R> type of the records of the table
+ */
+public final class IdRecordTable<R extends IdentifiableRecord> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static void validateKey(int id) {
+        if (id == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            final var msg = """
+                            Records without id can't be stored by id: %d
+                            """.formatted(id);
+            throw new RuntimeException(msg);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final IntKeyTable<R> table;
+
+    /**
+     * Creates an empty IdRecordTable.
+     */
+    public IdRecordTable() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty IdRecordTable that can hold the given number of
+     * records without resizing.
+     *
+     * @param expectedSize number of records expected to be stored
+     */
+    public IdRecordTable(int expectedSize) {
+        this.table = new IntKeyTable<>(expectedSize);
+    }
+
+    private IdRecordTable(IntKeyTable<R> table) {
+        this.table = table;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    /**
+     * Returns the record with the given id, or {@code null} if it's not in
+     * this table.
+     *
+     * @param id id of the record
+     *
+     * @return the record with the given id, or {@code null} if it's not in
+     * this table
+     */
+    public R get(int id) {
+        return table.get(id);
+    }
+
+    public boolean contains(int id) {
+        return table.contains(id);
+    }
+
+    /**
+     * Stores the given record replacing the record with the same id, if any.
+     *
+     * @param record record to store
+     *
+     * @return the replaced record, or {@code null} if there was no record with
+     * the same id
+     *
+     * @throws RuntimeException if the record has no id
+     */
+    public R put(R record) {
+        final int id = record.getId();
+
+        validateKey(id);
+        return table.put(id, record);
+    }
+
+    /**
+     * Stores all the given records. The table is resized once up front, so
+     * this is the preferred way to load many records at once.
+     *
+     * @param records records to store
+     *
+     * @throws RuntimeException if a record has no id
+     */
+    public void putAll(Collection<? extends R> records) {
+        table.ensureCapacity(table.size() + records.size());
+        for (final R record : records) {
+            put(record);
+        }
+    }
+
+    /**
+     * Removes the record with the given id.
+     *
+     * @param id id of the record to remove
+     *
+     * @return the removed record, or {@code null} if it was not in this table
+     */
+    public R remove(int id) {
+        return table.remove(id);
+    }
+
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Makes room for the given number of records without resizing.
+     *
+     * @param expectedSize number of records expected to be stored
+     */
+    public void ensureCapacity(int expectedSize) {
+        table.ensureCapacity(expectedSize);
+    }
+
+    /**
+     * Performs the given action for each record of this table, in no
+     * particular order.
+     *
+     * @param action action to perform for each record
+     */
+    public void forEach(Consumer<? super R> action) {
+        table.forEach(action);
+    }
+
+    /**
+     * Returns a new table with the same records.
+     *
+     * @return a new table with the same records
+     */
+    public IdRecordTable<R> copy() {
+        return new IdRecordTable<>(table.copy());
+    }
+
+    @Override
+    public String toString() {
+        return "IdRecordTable[" +
+               "table=" + table + ", " +
+               "]";
+    }
+
+}
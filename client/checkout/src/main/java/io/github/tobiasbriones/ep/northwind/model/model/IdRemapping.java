@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+/**
+ * Defines the mapping of temporary ids to the ids given by the system, like
+ * the server answer to an upload of new records.
+ * <p>
+ * Since the temporary ids of a terminal are unique among all the record
+ * types, a single mapping holds the ids of all the records of an upload, or
+ * of many uploads. The mapping is not thread-safe, it should be filled before
+ * it's shared.
+ *
+ * @see TemporaryIdAllocator
+ */
+public final class IdRemapping {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines a consumer of the mapped ids.
+     */
+    @FunctionalInterface
+    public interface MappingConsumer {
+        void accept(int temporaryId, int systemId);
+    }
+
+    private static final class Entry {
+
+        private final int temporaryId;
+        private final int systemId;
+
+        Entry(int temporaryId, int systemId) {
+            this.temporaryId = temporaryId;
+            this.systemId = systemId;
+        }
+
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final IntKeyTable<Entry> entries;
+
+    public IdRemapping() {
+        this.entries = new IntKeyTable<>();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Maps the given temporary id to the given system id.
+     *
+     * @param temporaryId temporary id of the record
+     * @param systemId    id given by the system to the record
+     *
+     * @throws RuntimeException if the temporary id is not a temporary id, or
+     *                          the system id is not a non-negative integer
+     */
+    public void put(int temporaryId, int systemId) {
+        if (!IdentifiableRecord.isTemporaryId(temporaryId) || systemId < 0) {
+            final var msg = """
+                            Invalid id mapping: %d to %d
+                            """.formatted(temporaryId, systemId);
+            throw new RuntimeException(msg);
+        }
+        entries.put(temporaryId, new Entry(temporaryId, systemId));
+    }
+
+    /**
+     * Adds the mappings of the given remapping to this one, replacing the
+     * mappings of the same temporary ids.
+     *
+     * @param remapping mappings to add
+     */
+    public void putAll(IdRemapping remapping) {
+        entries.ensureCapacity(entries.size() + remapping.size());
+        remapping.forEach(this::put);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns {@code true} if and only if the given id is a mapped temporary
+     * id.
+     *
+     * @param id id to check
+     *
+     * @return {@code true} if and only if the given id is mapped
+     */
+    public boolean contains(int id) {
+        return IdentifiableRecord.isTemporaryId(id) && entries.contains(id);
+    }
+
+    /**
+     * Returns the system id of the given id if it's a mapped temporary id,
+     * otherwise returns the given id.
+     *
+     * @param id id to map
+     *
+     * @return the system id of the given id, or the same id if it's not
+     * mapped
+     */
+    public int map(int id) {
+        if (!IdentifiableRecord.isTemporaryId(id)) {
+            return id;
+        }
+        final var entry = entries.get(id);
+        return entry == null ? id : entry.systemId;
+    }
+
+    /**
+     * Returns {@code true} if and only if the given record has a mapped
+     * temporary id.
+     *
+     * @param record record to check, may be {@code null}
+     *
+     * @return {@code true} if and only if the record id is mapped
+     */
+    public boolean isMapped(IdentifiableRecord record) {
+        return record != null && contains(record.getId());
+    }
+
+    /**
+     * Passes each temporary id of this mapping along with its system id to
+     * the given consumer, in no particular order.
+     *
+     * @param consumer consumer of the mapped ids
+     */
+    public void forEach(MappingConsumer consumer) {
+        entries.forEach(entry -> consumer.accept(entry.temporaryId, entry.systemId));
+    }
+
+    @Override
+    public String toString() {
+        return "IdRemapping[" +
+               "size=" + entries.size() +
+               "]";
+    }
+
+}
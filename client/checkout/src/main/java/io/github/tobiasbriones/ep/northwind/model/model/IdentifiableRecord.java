@@ -14,6 +14,27 @@ package io.github.tobiasbriones.ep.northwind.model.model;
 
 /**
  * Defines a base class for the system records having a non-negative integer id.
+ * <p>
+ * New records that have to be told apart before the system gives them an id,
+ * like to reference them from other new records, can take a temporary id
+ * from a {@link TemporaryIdAllocator} instead of
+ * {@link #NEW_RECORD_DEF_ID}. Temporary ids are negative, so they never clash
+ * with the ids given by the system, and are replaced with an
+ * {@link IdRemapping} once the system answers.
+ * <p>
+ * The records are equal when they are of the same class and have the same
+ * id, like the rows of a table, so comparing or hashing a record never walks
+ * the records it refers to and grouping large record collections is linear.
+ * Temporary ids are unique, so they compare the same way. The records with
+ * {@link #NEW_RECORD_DEF_ID} have no identity yet and compare by content.
+ * <p>
+ * The content of two records, like an edited copy of a cached record, is
+ * compared with {@link #contentEquals(IdentifiableRecord)}. It compares the
+ * fields of the records, and the records they refer to by id. The content
+ * hash is computed once per record, since the records are immutable.
+ * Subclasses define their content with
+ * {@link #hasEqualContent(IdentifiableRecord)} and
+ * {@link #computeContentHash()}.
  */
 public class IdentifiableRecord {
 
@@ -29,6 +50,15 @@ public class IdentifiableRecord {
      */
     public static final int NEW_RECORD_DEF_ID = -1;
 
+    /**
+     * Defines the lowest temporary id, temporary ids range from this value to
+     * {@code NEW_RECORD_DEF_ID - 1}.
+     */
+    public static final int MIN_TEMPORARY_ID = NEW_RECORD_DEF_ID - (1 << 30);
+
+    // Taken by the content hashes computed as 0, which means not computed
+    private static final int ZERO_CONTENT_HASH = 0x9E3779B9;
+
     /**
      * Returns {@code true} if and only if the given id is valid.
      *
@@ -37,7 +67,32 @@ public class IdentifiableRecord {
      * @return {@code true} if and only if the given id is valid
      */
     public static final boolean isValidId(int id) {
-        return id >= 0 || id == NEW_RECORD_DEF_ID;
+        return id >= NEW_RECORD_DEF_ID || isTemporaryId(id);
+    }
+
+    /**
+     * Returns {@code true} if and only if the given id is a temporary id
+     * given by a {@link TemporaryIdAllocator}.
+     *
+     * @param id id to check
+     *
+     * @return {@code true} if and only if the given id is a temporary id
+     */
+    public static final boolean isTemporaryId(int id) {
+        return id < NEW_RECORD_DEF_ID && id >= MIN_TEMPORARY_ID;
+    }
+
+    /**
+     * Returns {@code true} if and only if the given id is the id of a record
+     * not registered in the system yet, that is, it's
+     * {@link #NEW_RECORD_DEF_ID} or a temporary id.
+     *
+     * @param id id to check
+     *
+     * @return {@code true} if and only if the given id is of a new record
+     */
+    public static final boolean isNewRecordId(int id) {
+        return id < 0;
     }
 
     //                                                                        //
@@ -48,18 +103,21 @@ public class IdentifiableRecord {
 
     private final int id;
 
+    // Cached by contentHashCode, 0 until computed
+    private int contentHash;
+
     /**
      * Creates an IdentifiableRecord with the specified id.
      *
-     * @param id record's id. It must be a non-negative integer or
+     * @param id record's id. It must be a non-negative integer,
      *           {@link IdentifiableRecord#NEW_RECORD_DEF_ID} if this record
-     *           doesn't have an id or is new
+     *           doesn't have an id or is new, or a temporary id
      *
      * @throws RuntimeException if the id value is invalid
      */
     public IdentifiableRecord(int id) {
         if (!isValidId(id)) {
-            final var msg = "The id must be a non-negative integer";
+            final var msg = "The id must be a non-negative integer or a new record id";
             throw new RuntimeException(msg);
         }
         this.id = id;
@@ -69,7 +127,7 @@ public class IdentifiableRecord {
      * Returns this record's id. The id value is a non-negative integer. If this
      * record doesn't have an id because is new or is not registered in the
      * system or database then the id value is
-     * {@link IdentifiableRecord#NEW_RECORD_DEF_ID}.
+     * {@link IdentifiableRecord#NEW_RECORD_DEF_ID} or a temporary id.
      *
      * @return this record's id
      */
@@ -77,6 +135,91 @@ public class IdentifiableRecord {
         return id;
     }
 
+    /**
+     * Returns {@code true} if and only if the given record is of the same
+     * class and has the same id as this record. The records with
+     * {@link #NEW_RECORD_DEF_ID} are equal if and only if their content is
+     * equal.
+     *
+     * @param obj object to compare
+     *
+     * @return {@code true} if and only if the given record is equal to this
+     * record
+     */
+    @Override
+    public final boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final var record = (IdentifiableRecord) obj;
+
+        if (id == NEW_RECORD_DEF_ID) {
+            return record.id == NEW_RECORD_DEF_ID && hasEqualContent(record);
+        }
+        return id == record.id;
+    }
+
+    /**
+     * Returns the hash of the id of this record, or the content hash if this
+     * record has {@link #NEW_RECORD_DEF_ID}.
+     *
+     * @return the hash code of this record
+     */
+    @Override
+    public final int hashCode() {
+        return id == NEW_RECORD_DEF_ID ? contentHashCode() : Integer.hashCode(id);
+    }
+
+    /**
+     * Returns {@code true} if and only if the given record is of the same
+     * class and has the same id and fields as this record. The records
+     * referred by the fields are compared with {@link #equals(Object)}.
+     *
+     * @param other record to compare
+     *
+     * @return {@code true} if and only if the given record has the same
+     * content as this record
+     */
+    public final boolean contentEquals(IdentifiableRecord other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass() || id != other.id) {
+            return false;
+        }
+        final int hash = contentHash;
+        final int otherHash = other.contentHash;
+
+        // Both hashes are cached, so they can tell the records apart for free
+        if (hash != 0 && otherHash != 0 && hash != otherHash) {
+            return false;
+        }
+        return hasEqualContent(other);
+    }
+
+    /**
+     * Returns the hash of the id and fields of this record, consistent with
+     * {@link #contentEquals(IdentifiableRecord)}. It's computed on the first
+     * call only.
+     *
+     * @return the content hash code of this record
+     */
+    public final int contentHashCode() {
+        int hash = contentHash;
+
+        if (hash == 0) {
+            hash = 31 * Integer.hashCode(id) + computeContentHash();
+            if (hash == 0) {
+                hash = ZERO_CONTENT_HASH;
+            }
+            contentHash = hash;
+        }
+        return hash;
+    }
+
     @Override
     public String toString() {
         return "IdentifiableRecord[" +
@@ -84,4 +227,27 @@ public class IdentifiableRecord {
                "]";
     }
 
+    /**
+     * Returns {@code true} if and only if the fields of the given record are
+     * equal to the fields of this record. The id is already compared.
+     *
+     * @param other record of the same class as this record
+     *
+     * @return {@code true} if and only if the fields of the given record are
+     * equal to the fields of this record
+     */
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        return true;
+    }
+
+    /**
+     * Returns the hash of the fields of this record, consistent with
+     * {@link #hasEqualContent(IdentifiableRecord)}. The id is already hashed.
+     *
+     * @return the hash of the fields of this record
+     */
+    protected int computeContentHash() {
+        return 0;
+    }
+
 }
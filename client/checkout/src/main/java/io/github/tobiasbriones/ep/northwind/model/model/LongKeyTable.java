@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Defines a table of values keyed by a primitive {@code long}, like the
+ * postings of a search index keyed by the packed characters of a gram.
+ * <p>
+ * It's the {@code long} counterpart of {@link IntKeyTable}, the keys are
+ * kept in a primitive {@code long} array with open addressing and linear
+ * probing, so a lookup doesn't box the key, and removed entries are
+ * back-shifted instead of leaving tombstones.
+ * <p>
+ * Any key but {@link #EMPTY_KEY} can be stored, and the values can't be
+ * {@code null}. The table is not thread-safe.
+ *
+ * @param <V> type of the values of the table
+ */
+public final class LongKeyTable<V> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the key marking the empty slots, which can't be stored.
+     */
+    public static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // 2^64 / golden ratio, spreads the close keys over the table
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Returns the table capacity for holding the given number of values
+     * with a load factor of at most 1/2.
+     *
+     * @param expectedSize number of values to hold
+     *
+     * @return the table capacity for holding the given number of values
+     */
+    private static int capacityFor(int expectedSize) {
+        if (expectedSize >= MAX_CAPACITY / 2) {
+            return MAX_CAPACITY;
+        }
+        final int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 1));
+        final int fitted = capacity < expectedSize * 2 ? capacity << 1 : capacity;
+        return Math.max(fitted, MIN_CAPACITY);
+    }
+
+    private static void validateKey(long key) {
+        if (key == EMPTY_KEY) {
+            final var msg = "The empty key can't be stored: " + key;
+            throw new RuntimeException(msg);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    /**
+     * Creates an empty LongKeyTable.
+     */
+    public LongKeyTable() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty LongKeyTable that can hold the given number of values
+     * without resizing.
+     *
+     * @param expectedSize number of values expected to be stored
+     */
+    public LongKeyTable(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value of the given key, or {@code null} if it's not in this
+     * table.
+     *
+     * @param key key of the value
+     *
+     * @return the value of the given key, or {@code null} if it's not in this
+     * table
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Stores the given value replacing the value of the same key, if any.
+     *
+     * @param key   key of the value
+     * @param value non-null value to store
+     *
+     * @return the replaced value, or {@code null} if there was no value with
+     * the same key
+     *
+     * @throws RuntimeException     if the key is {@link #EMPTY_KEY}
+     * @throws NullPointerException if the value is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        validateKey(key);
+        Objects.requireNonNull(value);
+        int index = slot(key);
+
+        while (keys[index] != EMPTY_KEY) {
+            if (keys[index] == key) {
+                final V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > (mask + 1) >> 1 && mask + 1 < MAX_CAPACITY) {
+            resize((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value of the given key.
+     *
+     * @param key key of the value to remove
+     *
+     * @return the removed value, or {@code null} if it was not in this table
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+
+        if (index < 0) {
+            return null;
+        }
+        final V removed = (V) values[index];
+
+        // Back-shifts the following entries of the cluster that would become
+        // unreachable from their home slot
+        int next = (index + 1) & mask;
+
+        while (keys[next] != EMPTY_KEY) {
+            final int home = slot(keys[next]);
+
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                values[index] = values[next];
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[index] = EMPTY_KEY;
+        values[index] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "LongKeyTable[" +
+               "size=" + size + ", " +
+               "capacity=" + (mask + 1) +
+               "]";
+    }
+
+    private int slot(long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private int indexOf(long key) {
+        if (key == EMPTY_KEY) {
+            return -1;
+        }
+        final long[] k = keys;
+        int index = slot(key);
+        long current;
+
+        while ((current = k[index]) != EMPTY_KEY) {
+            if (current == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(mask);
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+
+            if (key != EMPTY_KEY) {
+                int index = slot(key);
+
+                while (keys[index] != EMPTY_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+}
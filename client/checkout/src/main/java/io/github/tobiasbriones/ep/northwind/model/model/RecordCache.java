@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Defines a cache of records keyed by their id, shared by the
+ * {@link RecordRef} references that resolve through it.
+ * <p>
+ * The records are loaded on demand with the {@link Loader} of the cache,
+ * like one reading the reference snapshot, and kept until they are
+ * invalidated. Loading the orders of a history with lazy references to their
+ * customers only loads the customers that are displayed, and each of them
+ * once.
+ * <p>
+ * The references read one by one go to the loader for each missing record.
+ * When many references are going to be read, like the rows of a page, they
+ * should be resolved first with {@link #resolveAll(Iterable)}, which asks the
+ * loader for all the missing records at once. The cache is thread-safe, and
+ * the loader is called without holding its lock.
+ *
+ * @param <R> type of the records of the cache
+ */
+public final class RecordCache<R extends IdentifiableRecord> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the source of the records of a cache.
+     *
+     * @param <R> type of the records
+     */
+    @FunctionalInterface
+    public interface Loader<R> {
+
+        /**
+         * Loads the record with the given id.
+         *
+         * @param id id of the record
+         *
+         * @return the record with the given id, or {@code null} if it doesn't
+         * exist
+         */
+        R load(int id);
+
+        /**
+         * Loads the records with the given ids. Sources that can load many
+         * records in a single request should override this method, the
+         * default one loads them one by one.
+         *
+         * @param ids distinct ids of the records
+         *
+         * @return the records that exist, in any order
+         */
+        default List<R> loadAll(int[] ids) {
+            final var records = new ArrayList<R>(ids.length);
+
+            for (final int id : ids) {
+                final R record = load(id);
+
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+            return records;
+        }
+
+    }
+
+    private static void validateId(int id) {
+        if (IdentifiableRecord.isNewRecordId(id)) {
+            final var msg = """
+                            Records without a system id can't be loaded: %d
+                            """.formatted(id);
+            throw new RuntimeException(msg);
+        }
+    }
+
+    private static int[] distinctOf(int[] sorted, int count) {
+        int size = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Loader<? extends R> loader;
+
+    // Guarded by this
+    private final IdRecordTable<R> records;
+
+    /**
+     * Creates an empty RecordCache.
+     *
+     * @param loader source of the records
+     */
+    public RecordCache(Loader<? extends R> loader) {
+        this.loader = loader;
+        this.records = new IdRecordTable<>();
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Returns a lazy reference to the record with the given id, resolved
+     * already if the record is in this cache.
+     *
+     * @param id id of the record
+     *
+     * @return a reference to the record with the given id
+     *
+     * @throws RuntimeException if the id is not a system id
+     */
+    public RecordRef<R> ref(int id) {
+        validateId(id);
+        return new RecordRef<>(id, this, getIfPresent(id));
+    }
+
+    /**
+     * Returns the record with the given id, loading it if it's not in this
+     * cache.
+     *
+     * @param id id of the record
+     *
+     * @return the record with the given id, or {@code null} if it doesn't
+     * exist
+     */
+    public R get(int id) {
+        final R cached = getIfPresent(id);
+
+        if (cached != null) {
+            return cached;
+        }
+        final R record = loader.load(id);
+        return record == null ? null : store(record);
+    }
+
+    /**
+     * Returns the record with the given id if it's in this cache, without
+     * loading it.
+     *
+     * @param id id of the record
+     *
+     * @return the record with the given id, or {@code null} if it's not in
+     * this cache
+     */
+    public synchronized R getIfPresent(int id) {
+        return records.get(id);
+    }
+
+    /**
+     * Stores the given record, replacing the cached record with the same id.
+     * The references resolved already keep their record.
+     *
+     * @param record record to store
+     *
+     * @throws RuntimeException if the record has no system id
+     */
+    public synchronized void put(R record) {
+        validateId(record.getId());
+        records.put(record);
+    }
+
+    /**
+     * Removes the record with the given id, so it's loaded again the next
+     * time it's requested.
+     *
+     * @param id id of the record
+     */
+    public synchronized void invalidate(int id) {
+        records.remove(id);
+    }
+
+    public synchronized void clear() {
+        records.clear();
+    }
+
+    /**
+     * Resolves the given references, loading all the records missing from
+     * this cache with a single call to {@link Loader#loadAll(int[])}.
+     *
+     * @param refs references to resolve, the {@code null} ones are skipped
+     *
+     * @return the number of records loaded
+     */
+    public int resolveAll(Iterable<? extends RecordRef<R>> refs) {
+        final var missing = new ArrayList<RecordRef<R>>();
+        int[] ids = new int[16];
+        int count = 0;
+
+        synchronized (this) {
+            for (final RecordRef<R> ref : refs) {
+                if (ref == null || ref.isResolved()) {
+                    continue;
+                }
+                final R cached = records.get(ref.getId());
+
+                if (cached != null) {
+                    ref.resolve(cached);
+                    continue;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = ref.getId();
+                missing.add(ref);
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(ids, 0, count);
+        final int[] distinct = distinctOf(ids, count);
+        final List<? extends R> loaded = loader.loadAll(distinct);
+
+        synchronized (this) {
+            for (final R record : loaded) {
+                if (records.get(record.getId()) == null) {
+                    records.put(record);
+                }
+            }
+            for (final RecordRef<R> ref : missing) {
+                final R record = records.get(ref.getId());
+
+                if (record != null) {
+                    ref.resolve(record);
+                }
+            }
+        }
+        return loaded.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RecordCache[" +
+               "size=" + size() +
+               "]";
+    }
+
+    // Keeps the record stored by another thread meanwhile, so all the
+    // references share a single instance
+    private synchronized R store(R record) {
+        final R current = records.get(record.getId());
+
+        if (current != null) {
+            return current;
+        }
+        records.put(record);
+        return record;
+    }
+
+}
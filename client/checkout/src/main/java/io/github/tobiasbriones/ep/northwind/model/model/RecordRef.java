@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.Objects;
+
+/**
+ * Defines a reference from a record to another record, like from an order to
+ * its customer, that can be resolved lazily.
+ * <p>
+ * A lazy reference, created with {@link RecordCache#ref(int)}, carries only
+ * the id of the record and resolves it through its cache on the first call
+ * to {@link #get()}, so a record can be loaded without the records it refers
+ * to. Many references are resolved at once with
+ * {@link RecordCache#resolveAll(Iterable)}. A reference created with
+ * {@link #of(IdentifiableRecord)} is resolved already, and one created with
+ * {@link #ofId(int)} keeps only the id, like a reference decoded without the
+ * source of its records.
+ * <p>
+ * Once resolved, a reference keeps its record, like the records keep the
+ * values they were built with. The references are equal when they refer to
+ * the same id, so comparing them doesn't resolve them, see
+ * {@link IdentifiableRecord#equals(Object)}. The class of the records is
+ * compared only if both references are resolved, since a lazy reference
+ * doesn't know it, so the references of different record types should not
+ * be mixed in a collection. A reference is thread-safe.
+ *
+ * @param <R> type of the record
+ */
+public final class RecordRef<R extends IdentifiableRecord> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Returns a resolved reference to the given record.
+     *
+     * @param record record to refer to
+     * @param <R>    type of the record
+     *
+     * @return a resolved reference to the given record, or {@code null} if the
+     * record is {@code null}
+     */
+    public static <R extends IdentifiableRecord> RecordRef<R> of(R record) {
+        if (record == null) {
+            return null;
+        }
+        return new RecordRef<>(record.getId(), null, record);
+    }
+
+    /**
+     * Returns a reference to the record with the given id that has no cache,
+     * so it's never resolved and {@link #get()} returns {@code null}. It
+     * keeps the id of the record, so it can be written again or resolved by
+     * id elsewhere.
+     *
+     * @param id  id of the record
+     * @param <R> type of the record
+     *
+     * @return an unresolved reference to the record with the given id
+     *
+     * @throws RuntimeException if the id is not a system id
+     */
+    public static <R extends IdentifiableRecord> RecordRef<R> ofId(int id) {
+        if (IdentifiableRecord.isNewRecordId(id)) {
+            final var msg = """
+                            References without a record need a system id: %d
+                            """.formatted(id);
+            throw new RuntimeException(msg);
+        }
+        return new RecordRef<>(id, null, null);
+    }
+
+    /**
+     * Returns the record of the given reference, resolving it if needed.
+     *
+     * @param ref reference to resolve
+     * @param <R> type of the record
+     *
+     * @return the record of the given reference, or {@code null} if the
+     * reference is {@code null} or its record doesn't exist
+     */
+    public static <R extends IdentifiableRecord> R get(RecordRef<R> ref) {
+        return ref == null ? null : ref.get();
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int id;
+    private final RecordCache<R> cache;
+    private volatile R record;
+
+    RecordRef(int id, RecordCache<R> cache, R record) {
+        this.id = id;
+        this.cache = cache;
+        this.record = record;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns {@code true} if and only if the record of this reference is
+     * loaded already, so {@link #get()} won't go to the cache.
+     *
+     * @return {@code true} if and only if this reference is resolved
+     */
+    public boolean isResolved() {
+        return record != null;
+    }
+
+    /**
+     * Returns the record of this reference if it's resolved already, without
+     * going to the cache.
+     *
+     * @return the record of this reference, or {@code null} if it's not
+     * resolved
+     */
+    public R getIfResolved() {
+        return record;
+    }
+
+    /**
+     * Returns the record of this reference, resolving it through the cache
+     * on the first call.
+     * <p>
+     * If the record doesn't exist, like when it was deleted, {@code null} is
+     * returned and the next call tries to resolve it again.
+     *
+     * @return the record of this reference, or {@code null} if it doesn't
+     * exist
+     */
+    public R get() {
+        R value = record;
+
+        if (value == null && cache != null) {
+            value = cache.get(id);
+            record = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        if (id == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            return Objects.hashCode(record);
+        }
+        return Integer.hashCode(id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final RecordRef<?> ref = (RecordRef<?>) obj;
+        final var value = record;
+        final var otherValue = ref.record;
+
+        // New records are never lazy, so they are compared as records
+        if (id == IdentifiableRecord.NEW_RECORD_DEF_ID) {
+            return Objects.equals(value, otherValue);
+        }
+        if (id != ref.getId()) {
+            return false;
+        }
+        return value == null ||
+               otherValue == null ||
+               value.getClass() == otherValue.getClass();
+    }
+
+    @Override
+    public String toString() {
+        return "RecordRef[" +
+               "id=" + id + ", " +
+               "resolved=" + isResolved() +
+               "]";
+    }
+
+    void resolve(R value) {
+        if (record == null) {
+            record = value;
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Defines a registry of status lookup records, like the order statuses,
+ * that keeps one canonical instance per id.
+ * <p>
+ * The decoders and the builders intern the statuses they are given in the
+ * registry of their type, so all the records refer to the same few status
+ * instances, which compare by identity. The statuses have small ids, so the
+ * canonical instances are stored in an array indexed by id, and
+ * {@link #get(int)} is a single array read. The ids out of the array range
+ * fall back to a map.
+ * <p>
+ * The first status interned with an id becomes its canonical instance. A
+ * status with the same id but another name, like one renamed in the
+ * database while the application runs, is not canonical and is returned
+ * as given. The registry doesn't remove statuses, and it's thread-safe.
+ *
+ * @param <S> type of the status
+ */
+public final class StatusRegistry<S extends IdentifiableRecord> {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the constructor of the statuses of a registry.
+     *
+     * @param <S> type of the status
+     */
+    @FunctionalInterface
+    public interface Factory<S> {
+        S newStatus(int id, String name);
+    }
+
+    /**
+     * Defines the ids stored in the array of a registry, from {@code 0} up to
+     * this value exclusive.
+     */
+    public static final int MAX_INDEXED_ID = 256;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static boolean isIndexed(int id) {
+        return id >= 0 && id < MAX_INDEXED_ID;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final Factory<S> factory;
+    private final Function<? super S, String> nameOf;
+    private final ConcurrentHashMap<Integer, S> unindexed;
+    private volatile Object[] indexed;
+
+    // Guarded by this
+    private int size;
+
+    /**
+     * Creates a new StatusRegistry.
+     *
+     * @param factory constructor of the statuses
+     * @param nameOf  accessor of the status name
+     */
+    public StatusRegistry(Factory<S> factory, Function<? super S, String> nameOf) {
+        this.factory = factory;
+        this.nameOf = nameOf;
+        this.unindexed = new ConcurrentHashMap<>();
+        this.indexed = new Object[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the canonical status of the given id.
+     *
+     * @param id id of the status
+     *
+     * @return the canonical status of the given id, or {@code null} if no
+     * status with that id has been interned
+     */
+    @SuppressWarnings("unchecked")
+    public S get(int id) {
+        if (isIndexed(id)) {
+            final var array = indexed;
+            return id < array.length ? (S) array[id] : null;
+        }
+        return unindexed.get(id);
+    }
+
+    /**
+     * Returns the canonical instance of the given status, making it the
+     * canonical one if its id is not registered yet.
+     *
+     * @param status status to intern
+     *
+     * @return the canonical instance of the given status, the status itself
+     * if its name differs from the canonical one, or {@code null} if the
+     * status is {@code null}
+     */
+    public S intern(S status) {
+        if (status == null) {
+            return null;
+        }
+        final var canonical = get(status.getId());
+
+        if (canonical != null) {
+            return canonicalOr(canonical, status, nameOf.apply(status));
+        }
+        return add(status);
+    }
+
+    /**
+     * Returns the canonical status of the given id and name, creating it if
+     * the id is not registered yet. No status is created when the canonical
+     * one matches.
+     *
+     * @param id   id of the status
+     * @param name name of the status
+     *
+     * @return the canonical status of the given id and name, or a new status
+     * if the name differs from the canonical one
+     */
+    public S intern(int id, String name) {
+        final var canonical = get(id);
+
+        if (canonical != null && Objects.equals(nameOf.apply(canonical), name)) {
+            return canonical;
+        }
+        final var status = factory.newStatus(id, name);
+        return canonical == null ? add(status) : status;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusRegistry[" +
+               "size=" + size() +
+               "]";
+    }
+
+    private S canonicalOr(S canonical, S status, String name) {
+        return Objects.equals(nameOf.apply(canonical), name) ? canonical : status;
+    }
+
+    private synchronized S add(S status) {
+        final int id = status.getId();
+        final var current = get(id);
+
+        if (current != null) {
+            return canonicalOr(current, status, nameOf.apply(status));
+        }
+        if (isIndexed(id)) {
+            var array = indexed;
+
+            if (id >= array.length) {
+                array = Arrays.copyOf(array, Math.min(
+                    Math.max(id + 1, array.length * 2),
+                    MAX_INDEXED_ID
+                ));
+            }
+            array[id] = status;
+            indexed = array;
+        }
+        else {
+            unindexed.put(id, status);
+        }
+        size++;
+        return status;
+    }
+
+}
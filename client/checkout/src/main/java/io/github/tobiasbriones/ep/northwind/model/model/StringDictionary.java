@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Defines a dictionary of repetitive strings, like cities or categories,
+ * that stores each distinct value once and assigns it a small {@code int}
+ * code.
+ * <p>
+ * The builders intern the values of their low-cardinality fields in the
+ * shared dictionaries of this class, so the cached records share the same
+ * {@code String} instances instead of holding a copy per record, and the
+ * codes can be used to group records without hashing the strings again.
+ * <p>
+ * The codes are assigned in order of arrival starting at {@code 0} and are
+ * never reused, since the dictionary doesn't remove values. It's meant for
+ * fields with a bounded number of distinct values only. The dictionary is
+ * thread-safe.
+ */
+public final class StringDictionary {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the code of the {@code null} value.
+     */
+    public static final int NO_CODE = -1;
+
+    /**
+     * Dictionary of cities, shared by the record addresses and the order
+     * shipping addresses.
+     */
+    public static final StringDictionary CITIES = new StringDictionary();
+
+    /**
+     * Dictionary of states or provinces, shared by the record addresses and
+     * the order shipping addresses.
+     */
+    public static final StringDictionary STATES_PROVINCES = new StringDictionary();
+
+    /**
+     * Dictionary of countries or regions, shared by the record addresses and
+     * the order shipping addresses.
+     */
+    public static final StringDictionary COUNTRIES_REGIONS = new StringDictionary();
+
+    /**
+     * Dictionary of product categories.
+     */
+    public static final StringDictionary PRODUCT_CATEGORIES = new StringDictionary();
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final class Entry {
+        private final String value;
+        private final int code;
+
+        Entry(String value, int code) {
+            this.value = value;
+            this.code = code;
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private volatile String[] values;
+
+    public StringDictionary() {
+        entries = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+        values = new String[INITIAL_CAPACITY];
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the canonical instance of the given value, adding it to this
+     * dictionary if it's not there yet.
+     *
+     * @param value value to intern
+     *
+     * @return the canonical instance of the given value, or {@code null} if
+     * the value is {@code null}
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        return entryOf(value).value;
+    }
+
+    /**
+     * Returns the code of the given value, adding it to this dictionary if
+     * it's not there yet.
+     *
+     * @param value value to encode
+     *
+     * @return the code of the given value, or {@link #NO_CODE} if the value
+     * is {@code null}
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        return entryOf(value).code;
+    }
+
+    /**
+     * Returns the code of the given value without adding it to this
+     * dictionary.
+     *
+     * @param value value to look up
+     *
+     * @return the code of the given value, or {@link #NO_CODE} if the value
+     * is {@code null} or is not in this dictionary
+     */
+    public int codeOf(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        final var entry = entries.get(value);
+        return entry == null ? NO_CODE : entry.code;
+    }
+
+    /**
+     * Returns the value of the given code.
+     *
+     * @param code code of the value
+     *
+     * @return the value of the given code, or {@code null} if the code is
+     * {@link #NO_CODE}
+     *
+     * @throws RuntimeException if the code is not in this dictionary
+     */
+    public String decode(int code) {
+        if (code == NO_CODE) {
+            return null;
+        }
+        final var array = values;
+
+        if (code < 0 || code >= array.length || array[code] == null) {
+            final var msg = "Unknown dictionary code: " + code;
+            throw new RuntimeException(msg);
+        }
+        return array[code];
+    }
+
+    @Override
+    public String toString() {
+        return "StringDictionary[" +
+               "size=" + size() + ", " +
+               "capacity=" + values.length +
+               "]";
+    }
+
+    private Entry entryOf(String value) {
+        final var entry = entries.get(value);
+        return entry != null ? entry : add(value);
+    }
+
+    private synchronized Entry add(String value) {
+        final var current = entries.get(value);
+
+        if (current != null) {
+            return current;
+        }
+        // The entries are added only here, so their count is the next code
+        final int code = entries.size();
+        var array = values;
+
+        if (code == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[code] = value;
+        values = array;
+
+        // Published after the value so a visible code can always be decoded
+        final var entry = new Entry(value, code);
+        entries.put(value, entry);
+        return entry;
+    }
+
+}
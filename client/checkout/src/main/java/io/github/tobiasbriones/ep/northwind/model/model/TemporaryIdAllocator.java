@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Defines an allocator of the temporary ids of a terminal.
+ * <p>
+ * The temporary id space is split among the terminals of the store, so the
+ * new records of different terminals never share an id and the server can
+ * tell them apart in a batch. A terminal takes its ids from a single
+ * counter, shared by all the record types, without locking.
+ * <p>
+ * The ids are handed out in the order {@code -2 - (terminal * 2^20 + n)} for
+ * {@code n = 0, 1, ...}. The next sequence number should be stored along
+ * with the records using the temporary ids, like in the order journal, and
+ * given back when the terminal restarts so an id is not reused before it's
+ * remapped, see {@link #advanceTo(int)}. The ids of the records that were
+ * stored after it are skipped with {@link #advancePast(int)}.
+ *
+ * @see IdRemapping
+ */
+public final class TemporaryIdAllocator {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final int SEQUENCE_BITS = 20;
+
+    /**
+     * Defines the number of terminals that can allocate temporary ids.
+     */
+    public static final int MAX_TERMINALS = 1 << 10;
+
+    /**
+     * Defines the number of temporary ids each terminal can allocate.
+     */
+    public static final int MAX_SEQUENCE = 1 << SEQUENCE_BITS;
+
+    private static final int FIRST_ID = IdentifiableRecord.NEW_RECORD_DEF_ID - 1;
+
+    /**
+     * Returns the number of the terminal that allocated the given temporary
+     * id.
+     *
+     * @param temporaryId temporary id
+     *
+     * @return the number of the terminal that allocated the temporary id
+     *
+     * @throws RuntimeException if the id is not a temporary id
+     */
+    public static int terminalOf(int temporaryId) {
+        validateTemporaryId(temporaryId);
+        return (FIRST_ID - temporaryId) >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * Returns the sequence number of the given temporary id within its
+     * terminal space.
+     *
+     * @param temporaryId temporary id
+     *
+     * @return the sequence number of the temporary id
+     *
+     * @throws RuntimeException if the id is not a temporary id
+     */
+    public static int sequenceOf(int temporaryId) {
+        validateTemporaryId(temporaryId);
+        return (FIRST_ID - temporaryId) & (MAX_SEQUENCE - 1);
+    }
+
+    private static void validateTemporaryId(int id) {
+        if (!IdentifiableRecord.isTemporaryId(id)) {
+            final var msg = """
+                            Not a temporary id: %d
+                            """.formatted(id);
+            throw new RuntimeException(msg);
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int terminal;
+    private final AtomicInteger nextSequence;
+
+    /**
+     * Creates a new allocator for the given terminal starting at the first
+     * id of its space.
+     *
+     * @param terminal number of the terminal, from 0 until
+     *                 {@link #MAX_TERMINALS}
+     *
+     * @throws RuntimeException if the terminal number is out of range
+     */
+    public TemporaryIdAllocator(int terminal) {
+        this(terminal, 0);
+    }
+
+    /**
+     * Creates a new allocator for the given terminal resuming at the given
+     * sequence number.
+     *
+     * @param terminal     number of the terminal, from 0 until
+     *                     {@link #MAX_TERMINALS}
+     * @param nextSequence sequence number of the next id to allocate, as
+     *                     returned by {@link #getNextSequence()}
+     *
+     * @throws RuntimeException if a value is out of range
+     */
+    public TemporaryIdAllocator(int terminal, int nextSequence) {
+        if (terminal < 0 || terminal >= MAX_TERMINALS) {
+            final var msg = """
+                            Invalid terminal number: %d
+                            """.formatted(terminal);
+            throw new RuntimeException(msg);
+        }
+        if (nextSequence < 0 || nextSequence > MAX_SEQUENCE) {
+            final var msg = """
+                            Invalid next sequence: %d
+                            """.formatted(nextSequence);
+            throw new RuntimeException(msg);
+        }
+        this.terminal = terminal;
+        this.nextSequence = new AtomicInteger(nextSequence);
+    }
+
+    public int getTerminal() {
+        return terminal;
+    }
+
+    /**
+     * Returns the sequence number of the next id to allocate.
+     *
+     * @return the sequence number of the next id to allocate
+     */
+    public int getNextSequence() {
+        return Math.min(nextSequence.get(), MAX_SEQUENCE);
+    }
+
+    /**
+     * Returns a new temporary id of this terminal. It's safe to call from
+     * any thread.
+     *
+     * @return a new temporary id
+     *
+     * @throws RuntimeException if the terminal ran out of temporary ids
+     */
+    public int nextId() {
+        final int sequence = nextSequence.getAndIncrement();
+
+        if (sequence >= MAX_SEQUENCE) {
+            // Keeps the counter from wrapping around on further calls
+            nextSequence.set(MAX_SEQUENCE);
+            final var msg = """
+                            Terminal %d ran out of temporary ids
+                            """.formatted(terminal);
+            throw new RuntimeException(msg);
+        }
+        return FIRST_ID - ((terminal << SEQUENCE_BITS) | sequence);
+    }
+
+    /**
+     * Moves the next sequence number forward to the given one if it's behind,
+     * like when the terminal restarts with the stored sequence number.
+     *
+     * @param sequence sequence number of the next id to allocate at least, as
+     *                 returned by {@link #getNextSequence()}
+     *
+     * @throws RuntimeException if the sequence number is out of range
+     */
+    public void advanceTo(int sequence) {
+        if (sequence < 0 || sequence > MAX_SEQUENCE) {
+            final var msg = """
+                            Invalid next sequence: %d
+                            """.formatted(sequence);
+            throw new RuntimeException(msg);
+        }
+        nextSequence.accumulateAndGet(sequence, Math::max);
+    }
+
+    /**
+     * Moves the next sequence number past the given temporary id if it was
+     * allocated by this terminal, like for the ids of the records restored
+     * when the terminal restarts, so it's not allocated again. The ids of
+     * other terminals are ignored.
+     *
+     * @param temporaryId temporary id in use
+     *
+     * @throws RuntimeException if the id is not a temporary id
+     */
+    public void advancePast(int temporaryId) {
+        if (terminalOf(temporaryId) != terminal) {
+            return;
+        }
+        advanceTo(sequenceOf(temporaryId) + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "TemporaryIdAllocator[" +
+               "terminal=" + terminal + ", " +
+               "nextSequence=" + getNextSequence() +
+               "]";
+    }
+
+}
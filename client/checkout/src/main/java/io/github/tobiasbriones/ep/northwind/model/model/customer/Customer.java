@@ -151,10 +151,14 @@ public final class Customer extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Customer customer = (Customer) other;
+        return isEqualsTo(customer);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             company,
             lastName,
             firstName,
@@ -175,18 +179,6 @@ public final class Customer extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final Customer customer = (Customer) obj;
-        return isEqualsTo(customer);
-    }
-
     @Override
     public String toString() {
         return "Customer[" +
@@ -238,8 +230,7 @@ public final class Customer extends IdentifiableRecord {
 
     private boolean isEqualsTo(Customer customer) {
         // Create several methods for reducing the cyclomatic complexity
-        return getId() == customer.getId() &&
-               checkEqualsPart1(customer) &&
+        return checkEqualsPart1(customer) &&
                checkEqualsPart2(customer) &&
                checkEqualsPart3(customer);
     }
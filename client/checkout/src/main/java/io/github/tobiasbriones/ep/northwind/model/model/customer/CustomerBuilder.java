@@ -16,12 +16,55 @@ package io.github.tobiasbriones.ep.northwind.model.model.customer;
 // model ...
 
 import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
 
 /**
  * Defines a CustomerBuilder pattern for the {@link Customer} model.
  */
 public final class CustomerBuilder extends AbstractBuilder<Customer> {
 
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Returns a new builder with the given id and the other values of the
+     * given customer.
+     *
+     * @param id       id of the new builder
+     * @param customer customer to copy
+     *
+     * @return a new builder with the values of the given customer
+     */
+    public static CustomerBuilder copyOf(int id, Customer customer) {
+        return new CustomerBuilder(id)
+            .setCompany(customer.getCompany())
+            .setLastName(customer.getLastName())
+            .setFirstName(customer.getFirstName())
+            .setEmail(customer.getEmail())
+            .setJobTitle(customer.getJobTitle())
+            .setBusinessPhone(customer.getBusinessPhone())
+            .setHomePhone(customer.getHomePhone())
+            .setMobilePhone(customer.getMobilePhone())
+            .setFaxNumber(customer.getFaxNumber())
+            .setAddress(customer.getAddress())
+            .setCity(customer.getCity())
+            .setStateProvince(customer.getStateProvince())
+            .setZipPostalCode(customer.getZipPostalCode())
+            .setCountryRegion(customer.getCountryRegion())
+            .setWebPage(customer.getWebPage())
+            .setNotes(customer.getNotes())
+            .setAttachments(customer.getAttachments());
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
     private String company;
     private String lastName;
     private String firstName;
@@ -160,7 +203,7 @@ public final class CustomerBuilder extends AbstractBuilder<Customer> {
     }
 
     public CustomerBuilder setCity(String value) {
-        city = value;
+        city = StringDictionary.CITIES.intern(value);
         return this;
     }
 
@@ -169,7 +212,7 @@ public final class CustomerBuilder extends AbstractBuilder<Customer> {
     }
 
     public CustomerBuilder setStateProvince(String value) {
-        stateProvince = value;
+        stateProvince = StringDictionary.STATES_PROVINCES.intern(value);
         return this;
     }
 
@@ -187,7 +230,7 @@ public final class CustomerBuilder extends AbstractBuilder<Customer> {
     }
 
     public CustomerBuilder setCountryRegion(String value) {
-        countryRegion = value;
+        countryRegion = StringDictionary.COUNTRIES_REGIONS.intern(value);
         return this;
     }
 
@@ -151,10 +151,14 @@ public final class Employee extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Employee employee = (Employee) other;
+        return isEqualsTo(employee);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             company,
             lastName,
             firstName,
@@ -175,18 +179,6 @@ public final class Employee extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final Employee employee = (Employee) obj;
-        return isEqualsTo(employee);
-    }
-
     @Override
     public String toString() {
         return "Customer[" +
@@ -238,8 +230,7 @@ public final class Employee extends IdentifiableRecord {
 
     private boolean isEqualsTo(Employee employee) {
         // Create several methods for reducing the cyclomatic complexity
-        return getId() == employee.getId() &&
-               checkEqualsPart1(employee) &&
+        return checkEqualsPart1(employee) &&
                checkEqualsPart2(employee) &&
                checkEqualsPart3(employee);
     }
@@ -16,6 +16,7 @@ package io.github.tobiasbriones.ep.northwind.model.model.employee;
 // model ...
 
 import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
 
 /**
  * Defines an EmployeeBuilder pattern for the {@link Employee} model.
@@ -160,7 +161,7 @@ public final class EmployeeBuilder extends AbstractBuilder<Employee> {
     }
 
     public EmployeeBuilder setCity(String value) {
-        city = value;
+        city = StringDictionary.CITIES.intern(value);
         return this;
     }
 
@@ -169,7 +170,7 @@ public final class EmployeeBuilder extends AbstractBuilder<Employee> {
     }
 
     public EmployeeBuilder setStateProvince(String value) {
-        stateProvince = value;
+        stateProvince = StringDictionary.STATES_PROVINCES.intern(value);
         return this;
     }
 
@@ -187,7 +188,7 @@ public final class EmployeeBuilder extends AbstractBuilder<Employee> {
     }
 
     public EmployeeBuilder setCountryRegion(String value) {
-        countryRegion = value;
+        countryRegion = StringDictionary.COUNTRIES_REGIONS.intern(value);
         return this;
     }
 
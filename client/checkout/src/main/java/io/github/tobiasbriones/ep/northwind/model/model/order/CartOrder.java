@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdRemapping;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
+import io.github.tobiasbriones.ep.northwind.model.model.customer.CustomerBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Defines an order along with its details, as placed by an
+ * {@link OrderCart}.
+ */
+public final class CartOrder {
+
+    private final Order order;
+    private final List<OrderDetail> details;
+
+    public CartOrder(Order order, List<OrderDetail> details) {
+        this.order = order;
+        this.details = details;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the unmodifiable list of the order details, in the order the
+     * lines were added to the cart.
+     *
+     * @return the order details
+     */
+    public List<OrderDetail> getDetails() {
+        return details;
+    }
+
+    /**
+     * Returns this order with the temporary ids replaced by the ids of the
+     * given remapping. The order, its customer, its details, and the
+     * purchase orders of the details are remapped, and the details are
+     * linked to the remapped order. Returns this same order if none of its
+     * ids is mapped.
+     *
+     * @param remapping ids given by the system to the temporary ids
+     *
+     * @return this order with the temporary ids remapped
+     */
+    public CartOrder remapIds(IdRemapping remapping) {
+        if (!hasMappedIds(remapping)) {
+            return this;
+        }
+        final var builder = OrderBuilder.copyOf(remapping.map(order.getId()), order);
+
+        if (isCustomerMapped(remapping)) {
+            builder.setCustomerRef(remapCustomer(remapping));
+        }
+        final var remappedOrder = builder.build();
+        final var remappedDetails = new ArrayList<OrderDetail>(details.size());
+
+        for (final var detail : details) {
+            final int id = remapping.map(detail.getId());
+            final int purchaseOrderId = remapping.map(detail.getPurchaseOrderId());
+            final var remappedDetail = OrderDetailBuilder
+                .copyOf(id, detail)
+                .setOrder(remappedOrder)
+                .setPurchaseOrderId(purchaseOrderId)
+                .build();
+
+            remappedDetails.add(remappedDetail);
+        }
+        return new CartOrder(
+            remappedOrder,
+            Collections.unmodifiableList(remappedDetails)
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "CartOrder[" +
+               "order=" + order + ", " +
+               "details=" + details +
+               "]";
+    }
+
+    private boolean hasMappedIds(IdRemapping remapping) {
+        if (remapping.isMapped(order) || isCustomerMapped(remapping)) {
+            return true;
+        }
+        for (final var detail : details) {
+            if (remapping.isMapped(detail) ||
+                remapping.contains(detail.getPurchaseOrderId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCustomerMapped(IdRemapping remapping) {
+        final var ref = order.getCustomerRef();
+        return ref != null && remapping.contains(ref.getId());
+    }
+
+    // Doesn't resolve the reference, a lazy one is rebuilt from the new id
+    private RecordRef<Customer> remapCustomer(IdRemapping remapping) {
+        final var ref = order.getCustomerRef();
+        final int customerId = remapping.map(ref.getId());
+        final var customer = ref.getIfResolved();
+
+        if (customer == null) {
+            return RecordRef.ofId(customerId);
+        }
+        return RecordRef.of(CustomerBuilder.copyOf(customerId, customer).build());
+    }
+
+}
@@ -13,20 +13,26 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
 import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
 import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
 import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 /**
  * Defines an Order for the Northwind's database model.
+ * <p>
+ * The employee, customer and shipper are held by {@link RecordRef}
+ * references, so an order can be loaded with their ids only and they are
+ * resolved when first requested.
  */
 public final class Order extends IdentifiableRecord {
 
-    private final Employee employee;
-    private final Customer customer;
-    private final Shipper shipper;
+    private final RecordRef<Employee> employee;
+    private final RecordRef<Customer> customer;
+    private final RecordRef<Shipper> shipper;
     private final OrderTaxStatus orderTaxStatus;
     private final OrderStatus orderStatus;
     private final LocalDateTime orderDate;
@@ -46,9 +52,9 @@ public final class Order extends IdentifiableRecord {
 
     Order(
         int id,
-        Employee employee,
-        Customer customer,
-        Shipper shipper,
+        RecordRef<Employee> employee,
+        RecordRef<Customer> customer,
+        RecordRef<Shipper> shipper,
         OrderTaxStatus orderTaxStatus,
         OrderStatus orderStatus,
         LocalDateTime orderDate,
@@ -89,14 +95,26 @@ public final class Order extends IdentifiableRecord {
     }
 
     public Employee getEmployee() {
+        return RecordRef.get(employee);
+    }
+
+    public RecordRef<Employee> getEmployeeRef() {
         return employee;
     }
 
     public Customer getCustomer() {
+        return RecordRef.get(customer);
+    }
+
+    public RecordRef<Customer> getCustomerRef() {
         return customer;
     }
 
     public Shipper getShipper() {
+        return RecordRef.get(shipper);
+    }
+
+    public RecordRef<Shipper> getShipperRef() {
         return shipper;
     }
 
@@ -164,6 +182,37 @@ public final class Order extends IdentifiableRecord {
         return taxRate;
     }
 
+    @Override
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Order order = (Order) other;
+        return isEqualsTo(order);
+    }
+
+    @Override
+    protected int computeContentHash() {
+        return Objects.hash(
+            employee,
+            customer,
+            shipper,
+            orderTaxStatus,
+            orderStatus,
+            orderDate,
+            shippedDate,
+            shipName,
+            shipAddress,
+            shipCity,
+            shipProvince,
+            shipZipPostalCode,
+            shipCountryRegion,
+            shippingFee,
+            taxes,
+            paymentType,
+            paidDate,
+            notes,
+            taxRate
+        );
+    }
+
     @Override
     public String toString() {
         return "Order[" +
@@ -189,4 +238,39 @@ public final class Order extends IdentifiableRecord {
                "] " + super.toString();
     }
 
+    private boolean checkEqualsPart1(Order order) {
+        return Double.compare(order.getShippingFee(), shippingFee) == 0 &&
+               Double.compare(order.getTaxes(), taxes) == 0 &&
+               Double.compare(order.getTaxRate(), taxRate) == 0 &&
+               Objects.equals(employee, order.getEmployeeRef()) &&
+               Objects.equals(customer, order.getCustomerRef()) &&
+               Objects.equals(shipper, order.getShipperRef()) &&
+               Objects.equals(orderTaxStatus, order.getOrderTaxStatus()) &&
+               Objects.equals(orderStatus, order.getOrderStatus());
+    }
+
+    private boolean checkEqualsPart2(Order order) {
+        return Objects.equals(orderDate, order.getOrderDate()) &&
+               Objects.equals(shippedDate, order.getShippedDate()) &&
+               Objects.equals(paymentType, order.getPaymentType()) &&
+               Objects.equals(paidDate, order.getPaidDate()) &&
+               Objects.equals(notes, order.getNotes());
+    }
+
+    private boolean checkEqualsPart3(Order order) {
+        return Objects.equals(shipName, order.getShipName()) &&
+               Objects.equals(shipAddress, order.getShipAddress()) &&
+               Objects.equals(shipCity, order.getShipCity()) &&
+               Objects.equals(shipProvince, order.getShipProvince()) &&
+               Objects.equals(shipZipPostalCode, order.getShipZipPostalCode()) &&
+               Objects.equals(shipCountryRegion, order.getShipCountryRegion());
+    }
+
+    private boolean isEqualsTo(Order order) {
+        // Create several methods for reducing the cyclomatic complexity
+        return checkEqualsPart1(order) &&
+               checkEqualsPart2(order) &&
+               checkEqualsPart3(order);
+    }
+
 }
@@ -13,6 +13,8 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
 import io.github.tobiasbriones.ep.northwind.model.model.customer.Customer;
 import io.github.tobiasbriones.ep.northwind.model.model.employee.Employee;
 import io.github.tobiasbriones.ep.northwind.model.model.shipper.Shipper;
@@ -24,9 +26,64 @@ import java.time.LocalDateTime;
  */
 public final class OrderBuilder extends AbstractBuilder<Order> {
 
-    private Employee employee;
-    private Customer customer;
-    private Shipper shipper;
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Returns a new builder with the values of the given order.
+     *
+     * @param order order to copy
+     *
+     * @return a new builder with the values of the given order
+     */
+    public static OrderBuilder copyOf(Order order) {
+        return copyOf(order.getId(), order);
+    }
+
+    /**
+     * Returns a new builder with the given id and the other values of the
+     * given order.
+     *
+     * @param id    id of the new builder
+     * @param order order to copy
+     *
+     * @return a new builder with the values of the given order
+     */
+    public static OrderBuilder copyOf(int id, Order order) {
+        return new OrderBuilder(id)
+            .setEmployeeRef(order.getEmployeeRef())
+            .setCustomerRef(order.getCustomerRef())
+            .setShipperRef(order.getShipperRef())
+            .setOrderTaxStatus(order.getOrderTaxStatus())
+            .setOrderStatus(order.getOrderStatus())
+            .setOrderDate(order.getOrderDate())
+            .setShippedDate(order.getShippedDate())
+            .setShipName(order.getShipName())
+            .setShipAddress(order.getShipAddress())
+            .setShipCity(order.getShipCity())
+            .setShipProvince(order.getShipProvince())
+            .setShipZipPostalCode(order.getShipZipPostalCode())
+            .setShipCountryRegion(order.getShipCountryRegion())
+            .setShippingFee(order.getShippingFee())
+            .setTaxes(order.getTaxes())
+            .setPaymentType(order.getPaymentType())
+            .setPaidDate(order.getPaidDate())
+            .setNotes(order.getNotes())
+            .setTaxRate(order.getTaxRate());
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private RecordRef<Employee> employee;
+    private RecordRef<Customer> customer;
+    private RecordRef<Shipper> shipper;
     private OrderTaxStatus orderTaxStatus;
     private OrderStatus orderStatus;
     private LocalDateTime orderDate;
@@ -76,28 +133,55 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     //                                                                        //
 
     public Employee getEmployee() {
-        return employee;
+        return RecordRef.get(employee);
     }
 
     public OrderBuilder setEmployee(Employee value) {
+        employee = RecordRef.of(value);
+        return this;
+    }
+
+    public RecordRef<Employee> getEmployeeRef() {
+        return employee;
+    }
+
+    public OrderBuilder setEmployeeRef(RecordRef<Employee> value) {
         employee = value;
         return this;
     }
 
     public Customer getCustomer() {
-        return customer;
+        return RecordRef.get(customer);
     }
 
     public OrderBuilder setCustomer(Customer value) {
+        customer = RecordRef.of(value);
+        return this;
+    }
+
+    public RecordRef<Customer> getCustomerRef() {
+        return customer;
+    }
+
+    public OrderBuilder setCustomerRef(RecordRef<Customer> value) {
         customer = value;
         return this;
     }
 
     public Shipper getShipper() {
-        return shipper;
+        return RecordRef.get(shipper);
     }
 
     public OrderBuilder setShipper(Shipper value) {
+        shipper = RecordRef.of(value);
+        return this;
+    }
+
+    public RecordRef<Shipper> getShipperRef() {
+        return shipper;
+    }
+
+    public OrderBuilder setShipperRef(RecordRef<Shipper> value) {
         shipper = value;
         return this;
     }
@@ -107,7 +191,7 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     }
 
     public OrderBuilder setOrderTaxStatus(OrderTaxStatus value) {
-        orderTaxStatus = value;
+        orderTaxStatus = OrderTaxStatus.REGISTRY.intern(value);
         return this;
     }
 
@@ -116,7 +200,7 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     }
 
     public OrderBuilder setOrderStatus(OrderStatus value) {
-        orderStatus = value;
+        orderStatus = OrderStatus.REGISTRY.intern(value);
         return this;
     }
 
@@ -161,7 +245,7 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     }
 
     public OrderBuilder setShipCity(String value) {
-        shipCity = value;
+        shipCity = StringDictionary.CITIES.intern(value);
         return this;
     }
 
@@ -170,7 +254,7 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     }
 
     public OrderBuilder setShipProvince(String value) {
-        shipProvince = value;
+        shipProvince = StringDictionary.STATES_PROVINCES.intern(value);
         return this;
     }
 
@@ -188,7 +272,7 @@ public final class OrderBuilder extends AbstractBuilder<Order> {
     }
 
     public OrderBuilder setShipCountryRegion(String value) {
-        shipCountryRegion = value;
+        shipCountryRegion = StringDictionary.COUNTRIES_REGIONS.intern(value);
         return this;
     }
 
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Defines a mutable cart of order lines that keeps its totals up to date as
+ * the lines are added, changed or voided. Each change only recomputes the
+ * line that changed, so editing a line is O(1) regardless of the number of
+ * lines of the order.
+ * <p>
+ * The totals follow the same rules as {@link OrderTotals}, in minor units.
+ * The order header, like the tax status, tax rate or shipping fee, is edited
+ * through {@link #getOrderBuilder()} and is taken into account when the
+ * totals are read.
+ * <p>
+ * Lines are identified by the index returned when they are added, which
+ * doesn't change when other lines are voided. This class is not
+ * thread-safe.
+ */
+public final class OrderCart {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final OrderBuilder orderBuilder;
+    private final RoundingMode roundingMode;
+    private final List<OrderDetailBuilder> lines;
+    private long[] lineAmounts;
+    private long[] lineDiscounts;
+    private int activeLineCount;
+    private long subtotal;
+    private long discount;
+
+    /**
+     * Creates an OrderCart for the given order, rounding with the
+     * {@link RoundingMode#HALF_EVEN} mode.
+     *
+     * @param orderBuilder builder of the order header
+     */
+    public OrderCart(OrderBuilder orderBuilder) {
+        this(orderBuilder, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Creates an OrderCart for the given order, rounding with the given mode.
+     *
+     * @param orderBuilder builder of the order header
+     * @param roundingMode rounding mode to apply
+     *
+     * @throws RuntimeException if the rounding mode is
+     *                          {@link RoundingMode#UNNECESSARY}
+     */
+    public OrderCart(OrderBuilder orderBuilder, RoundingMode roundingMode) {
+        if (roundingMode == RoundingMode.UNNECESSARY) {
+            final var msg = "The totals have to be rounded";
+            throw new RuntimeException(msg);
+        }
+        this.orderBuilder = orderBuilder;
+        this.roundingMode = roundingMode;
+        this.lines = new ArrayList<>(INITIAL_CAPACITY);
+        this.lineAmounts = new long[INITIAL_CAPACITY];
+        this.lineDiscounts = new long[INITIAL_CAPACITY];
+        this.activeLineCount = 0;
+        this.subtotal = 0L;
+        this.discount = 0L;
+    }
+
+    public OrderBuilder getOrderBuilder() {
+        return orderBuilder;
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    /**
+     * Returns the number of lines that are not voided.
+     *
+     * @return the number of lines that are not voided
+     */
+    public int size() {
+        return activeLineCount;
+    }
+
+    public boolean isEmpty() {
+        return activeLineCount == 0;
+    }
+
+    /**
+     * Returns the number of line indices used so far, including the voided
+     * lines.
+     *
+     * @return the number of line indices used so far
+     */
+    public int getLineIndexCount() {
+        return lines.size();
+    }
+
+    /**
+     * Returns {@code true} if and only if the given line was voided.
+     *
+     * @param line index of the line
+     *
+     * @return {@code true} if and only if the given line was voided
+     */
+    public boolean isVoided(int line) {
+        return lines.get(line) == null;
+    }
+
+    public double getQuantity(int line) {
+        return requireLine(line).getQuantity();
+    }
+
+    public double getUnitPrice(int line) {
+        return requireLine(line).getUnitPrice();
+    }
+
+    public double getDiscount(int line) {
+        return requireLine(line).getDiscount();
+    }
+
+    public Product getProduct(int line) {
+        return requireLine(line).getProduct();
+    }
+
+    /**
+     * Returns the amount of the given line before its discount, in minor
+     * units.
+     *
+     * @param line index of the line
+     *
+     * @return the amount of the given line in minor units
+     */
+    public long getLineAmount(int line) {
+        requireLine(line);
+        return lineAmounts[line];
+    }
+
+    /**
+     * Returns the discount of the given line, in minor units.
+     *
+     * @param line index of the line
+     *
+     * @return the discount of the given line in minor units
+     */
+    public long getLineDiscount(int line) {
+        requireLine(line);
+        return lineDiscounts[line];
+    }
+
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    public long getDiscount() {
+        return discount;
+    }
+
+    public long getNetSubtotal() {
+        return subtotal - discount;
+    }
+
+    /**
+     * Returns the tax of the cart with the current order header, in minor
+     * units.
+     *
+     * @return the tax in minor units
+     */
+    public long getTax() {
+        return OrderTotals.taxOf(
+            getNetSubtotal(),
+            orderBuilder.getOrderTaxStatus(),
+            orderBuilder.getTaxRate(),
+            orderBuilder.getTaxes(),
+            roundingMode
+        );
+    }
+
+    public long getShippingFee() {
+        return OrderTotals.toMinorUnits(orderBuilder.getShippingFee());
+    }
+
+    public long getGrandTotal() {
+        return getNetSubtotal() + getTax() + getShippingFee();
+    }
+
+    /**
+     * Adds a new line with the given values.
+     *
+     * @param product   product of the line
+     * @param quantity  quantity of the line
+     * @param unitPrice unit price of the line
+     * @param discount  discount ratio of the line, like {@code 0.15} for 15%
+     *
+     * @return the index of the new line
+     */
+    public int addLine(
+        Product product,
+        double quantity,
+        double unitPrice,
+        double discount
+    ) {
+        final var line = new OrderDetailBuilder(IdentifiableRecord.NEW_RECORD_DEF_ID)
+            .setProduct(product)
+            .setQuantity(quantity)
+            .setUnitPrice(unitPrice)
+            .setDiscount(discount);
+        return addLine(line);
+    }
+
+    /**
+     * Adds the given line. The cart takes ownership of the builder, it must
+     * not be changed afterwards other than with
+     * {@link #updateLine(int, Consumer)}.
+     *
+     * @param line builder of the line to add
+     *
+     * @return the index of the new line
+     */
+    public int addLine(OrderDetailBuilder line) {
+        final int index = lines.size();
+
+        if (index == lineAmounts.length) {
+            lineAmounts = Arrays.copyOf(lineAmounts, index * 2);
+            lineDiscounts = Arrays.copyOf(lineDiscounts, index * 2);
+        }
+        lines.add(line);
+        lineAmounts[index] = 0L;
+        lineDiscounts[index] = 0L;
+        activeLineCount++;
+        recompute(index, line);
+        return index;
+    }
+
+    public void setQuantity(int line, double value) {
+        updateLine(line, builder -> builder.setQuantity(value));
+    }
+
+    public void setUnitPrice(int line, double value) {
+        updateLine(line, builder -> builder.setUnitPrice(value));
+    }
+
+    public void setDiscount(int line, double value) {
+        updateLine(line, builder -> builder.setDiscount(value));
+    }
+
+    /**
+     * Applies the given update to the builder of the given line and
+     * recomputes the totals of that line.
+     *
+     * @param line   index of the line
+     * @param update update to apply to the line builder
+     *
+     * @throws RuntimeException if the line was voided
+     */
+    public void updateLine(int line, Consumer<? super OrderDetailBuilder> update) {
+        final var builder = requireLine(line);
+
+        try {
+            update.accept(builder);
+        }
+        finally {
+            recompute(line, builder);
+        }
+    }
+
+    /**
+     * Voids the given line, removing it from the totals. The indices of the
+     * other lines don't change.
+     *
+     * @param line index of the line
+     *
+     * @throws RuntimeException if the line was already voided
+     */
+    public void voidLine(int line) {
+        requireLine(line);
+        subtotal -= lineAmounts[line];
+        discount -= lineDiscounts[line];
+        lineAmounts[line] = 0L;
+        lineDiscounts[line] = 0L;
+        lines.set(line, null);
+        activeLineCount--;
+    }
+
+    /**
+     * Builds the order and its details from the lines that are not voided.
+     * <p>
+     * The taxes of the order are set to the tax of this cart, so the order
+     * records the charged amount. They are set on a copy, so the order
+     * builder of this cart keeps the taxes the tax is computed from, and
+     * building again gives the same order.
+     *
+     * @return the order and its details
+     */
+    public CartOrder build() {
+        final var order = OrderBuilder
+            .copyOf(orderBuilder.build())
+            .setTaxes(OrderTotals.toAmount(getTax()))
+            .build();
+        final var details = new ArrayList<OrderDetail>(activeLineCount);
+
+        for (final var line : lines) {
+            if (line != null) {
+                details.add(line.setOrder(order).build());
+            }
+        }
+        return new CartOrder(order, Collections.unmodifiableList(details));
+    }
+
+    @Override
+    public String toString() {
+        return "OrderCart[" +
+               "size=" + activeLineCount + ", " +
+               "subtotal=" + subtotal + ", " +
+               "discount=" + discount + ", " +
+               "grandTotal=" + getGrandTotal() +
+               "]";
+    }
+
+    private OrderDetailBuilder requireLine(int line) {
+        final var builder = lines.get(line);
+
+        if (builder == null) {
+            final var msg = "The line " + line + " was voided";
+            throw new RuntimeException(msg);
+        }
+        return builder;
+    }
+
+    private void recompute(int line, OrderDetailBuilder builder) {
+        final long amount = OrderTotals.lineAmountOf(
+            builder.getQuantity(),
+            builder.getUnitPrice(),
+            roundingMode
+        );
+        final long lineDiscount = OrderTotals.lineDiscountOf(
+            amount,
+            builder.getDiscount(),
+            roundingMode
+        );
+
+        subtotal += amount - lineAmounts[line];
+        discount += lineDiscount - lineDiscounts[line];
+        lineAmounts[line] = amount;
+        lineDiscounts[line] = lineDiscount;
+    }
+
+}
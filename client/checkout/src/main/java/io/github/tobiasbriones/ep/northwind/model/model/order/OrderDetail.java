@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
 import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
 
 import java.time.LocalDate;
@@ -20,11 +21,15 @@ import java.util.Objects;
 
 /**
  * Defines an OrderDetail for the Northwind's database model.
+ * <p>
+ * The order and product are held by {@link RecordRef} references, so a
+ * detail can be loaded with their ids only and they are resolved when first
+ * requested.
  */
 public final class OrderDetail extends IdentifiableRecord {
 
-    private final Order order;
-    private final Product product;
+    private final RecordRef<Order> order;
+    private final RecordRef<Product> product;
     private final OrderDetailStatus status;
     private final double quantity;
     private final double unitPrice;
@@ -35,8 +40,8 @@ public final class OrderDetail extends IdentifiableRecord {
 
     OrderDetail(
         int id,
-        Order order,
-        Product product,
+        RecordRef<Order> order,
+        RecordRef<Product> product,
         OrderDetailStatus status,
         double quantity,
         double unitPrice,
@@ -58,10 +63,18 @@ public final class OrderDetail extends IdentifiableRecord {
     }
 
     public Order getOrder() {
+        return RecordRef.get(order);
+    }
+
+    public RecordRef<Order> getOrderRef() {
         return order;
     }
 
     public Product getProduct() {
+        return RecordRef.get(product);
+    }
+
+    public RecordRef<Product> getProductRef() {
         return product;
     }
 
@@ -94,10 +107,14 @@ public final class OrderDetail extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final OrderDetail orderDetail = (OrderDetail) other;
+        return isEqualsTo(orderDetail);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             order,
             product,
             status,
@@ -110,18 +127,6 @@ public final class OrderDetail extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final OrderDetail orderDetail = (OrderDetail) obj;
-        return isEqualsTo(orderDetail);
-    }
-
     @Override
     public String toString() {
         return "OrderDetail[" +
@@ -138,14 +143,13 @@ public final class OrderDetail extends IdentifiableRecord {
     }
 
     private boolean isEqualsTo(OrderDetail other) {
-        return getId() == other.getId() &&
-               Double.compare(other.getQuantity(), quantity) == 0 &&
+        return Double.compare(other.getQuantity(), quantity) == 0 &&
                Double.compare(other.getUnitPrice(), unitPrice) == 0 &&
                Double.compare(other.getDiscount(), discount) == 0 &&
                purchaseOrderId == other.getPurchaseOrderId() &&
                inventoryId == other.getInventoryId() &&
-               Objects.equals(order, other.getOrder()) &&
-               Objects.equals(product, other.getProduct()) &&
+               Objects.equals(order, other.getOrderRef()) &&
+               Objects.equals(product, other.getProductRef()) &&
                Objects.equals(status, other.getStatus()) &&
                Objects.equals(dateAllocated, other.getDateAllocated());
     }
@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.RecordRef;
 import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
 
 import java.time.LocalDate;
@@ -22,8 +23,53 @@ import java.time.LocalDate;
  */
 public final class OrderDetailBuilder extends AbstractBuilder<OrderDetail> {
 
-    private Order order;
-    private Product product;
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Returns a new builder with the values of the given order detail.
+     *
+     * @param detail order detail to copy
+     *
+     * @return a new builder with the values of the given order detail
+     */
+    public static OrderDetailBuilder copyOf(OrderDetail detail) {
+        return copyOf(detail.getId(), detail);
+    }
+
+    /**
+     * Returns a new builder with the given id and the other values of the
+     * given order detail.
+     *
+     * @param id     id of the new builder
+     * @param detail order detail to copy
+     *
+     * @return a new builder with the values of the given order detail
+     */
+    public static OrderDetailBuilder copyOf(int id, OrderDetail detail) {
+        return new OrderDetailBuilder(id)
+            .setOrderRef(detail.getOrderRef())
+            .setProductRef(detail.getProductRef())
+            .setStatus(detail.getStatus())
+            .setQuantity(detail.getQuantity())
+            .setUnitPrice(detail.getUnitPrice())
+            .setDiscount(detail.getDiscount())
+            .setDateAllocated(detail.getDateAllocated())
+            .setPurchaseOrderId(detail.getPurchaseOrderId())
+            .setInventoryId(detail.getInventoryId());
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private RecordRef<Order> order;
+    private RecordRef<Product> product;
     private OrderDetailStatus status;
     private double quantity;
     private double unitPrice;
@@ -46,19 +92,37 @@ public final class OrderDetailBuilder extends AbstractBuilder<OrderDetail> {
     }
 
     public Order getOrder() {
-        return order;
+        return RecordRef.get(order);
     }
 
     public OrderDetailBuilder setOrder(Order value) {
+        order = RecordRef.of(value);
+        return this;
+    }
+
+    public RecordRef<Order> getOrderRef() {
+        return order;
+    }
+
+    public OrderDetailBuilder setOrderRef(RecordRef<Order> value) {
         order = value;
         return this;
     }
 
     public Product getProduct() {
-        return product;
+        return RecordRef.get(product);
     }
 
     public OrderDetailBuilder setProduct(Product value) {
+        product = RecordRef.of(value);
+        return this;
+    }
+
+    public RecordRef<Product> getProductRef() {
+        return product;
+    }
+
+    public OrderDetailBuilder setProductRef(RecordRef<Product> value) {
         product = value;
         return this;
     }
@@ -68,7 +132,7 @@ public final class OrderDetailBuilder extends AbstractBuilder<OrderDetail> {
     }
 
     public OrderDetailBuilder setStatus(OrderDetailStatus value) {
-        status = value;
+        status = OrderDetailStatus.REGISTRY.intern(value);
         return this;
     }
 
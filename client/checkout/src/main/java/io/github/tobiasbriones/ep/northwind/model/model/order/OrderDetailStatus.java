@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.StatusRegistry;
 
 import java.util.Objects;
 
@@ -21,6 +22,38 @@ import java.util.Objects;
  */
 public final class OrderDetailStatus extends IdentifiableRecord {
 
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Registry of the canonical OrderDetailStatus instances.
+     */
+    public static final StatusRegistry<OrderDetailStatus> REGISTRY = new StatusRegistry<>(
+        OrderDetailStatus::new,
+        OrderDetailStatus::getName
+    );
+
+    /**
+     * Returns the canonical OrderDetailStatus of the given id and name.
+     *
+     * @param id   id of the status
+     * @param name name of the status
+     *
+     * @return the canonical OrderDetailStatus of the given id and name
+     */
+    public static OrderDetailStatus of(int id, String name) {
+        return REGISTRY.intern(id, name);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
     private final String name;
 
     public OrderDetailStatus(int id, String name) {
@@ -33,22 +66,14 @@ public final class OrderDetailStatus extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
-        return Objects.hash(getId(), name);
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final OrderDetailStatus orderDetailStatus = (OrderDetailStatus) other;
+        return Objects.equals(name, orderDetailStatus.getName());
     }
 
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final OrderDetailStatus orderDetailStatus = (OrderDetailStatus) obj;
-        return getId() == orderDetailStatus.getId() &&
-               Objects.equals(name, orderDetailStatus.getName());
+    protected int computeContentHash() {
+        return Objects.hashCode(name);
     }
 
     @Override
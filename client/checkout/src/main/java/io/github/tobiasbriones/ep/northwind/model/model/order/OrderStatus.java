@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.StatusRegistry;
 
 import java.util.Objects;
 
@@ -21,6 +22,38 @@ import java.util.Objects;
  */
 public final class OrderStatus extends IdentifiableRecord {
 
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Registry of the canonical OrderStatus instances.
+     */
+    public static final StatusRegistry<OrderStatus> REGISTRY = new StatusRegistry<>(
+        OrderStatus::new,
+        OrderStatus::getName
+    );
+
+    /**
+     * Returns the canonical OrderStatus of the given id and name.
+     *
+     * @param id   id of the status
+     * @param name name of the status
+     *
+     * @return the canonical OrderStatus of the given id and name
+     */
+    public static OrderStatus of(int id, String name) {
+        return REGISTRY.intern(id, name);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
     private final String name;
 
     public OrderStatus(int id, String name) {
@@ -33,22 +66,14 @@ public final class OrderStatus extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
-        return Objects.hash(getId(), name);
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final OrderStatus orderStatus = (OrderStatus) other;
+        return Objects.equals(name, orderStatus.getName());
     }
 
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final OrderStatus orderStatus = (OrderStatus) obj;
-        return getId() == orderStatus.getId() &&
-               Objects.equals(name, orderStatus.getName());
+    protected int computeContentHash() {
+        return Objects.hashCode(name);
     }
 
     @Override
@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.StatusRegistry;
 
 import java.util.Objects;
 
@@ -21,6 +22,48 @@ import java.util.Objects;
  */
 public final class OrderTaxStatus extends IdentifiableRecord {
 
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the id of the Northwind's "Tax Exempt" tax status.
+     */
+    public static final int TAX_EXEMPT_ID = 0;
+
+    /**
+     * Defines the id of the Northwind's "Taxable" tax status.
+     */
+    public static final int TAXABLE_ID = 1;
+
+    /**
+     * Registry of the canonical OrderTaxStatus instances.
+     */
+    public static final StatusRegistry<OrderTaxStatus> REGISTRY = new StatusRegistry<>(
+        OrderTaxStatus::new,
+        OrderTaxStatus::getName
+    );
+
+    /**
+     * Returns the canonical OrderTaxStatus of the given id and name.
+     *
+     * @param id   id of the status
+     * @param name name of the status
+     *
+     * @return the canonical OrderTaxStatus of the given id and name
+     */
+    public static OrderTaxStatus of(int id, String name) {
+        return REGISTRY.intern(id, name);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
     private final String name;
 
     public OrderTaxStatus(int id, String name) {
@@ -32,24 +75,27 @@ public final class OrderTaxStatus extends IdentifiableRecord {
         return name;
     }
 
-    @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
-        return Objects.hash(getId(), name);
+    /**
+     * Returns {@code true} if and only if the orders with this tax status
+     * are not charged taxes.
+     *
+     * @return {@code true} if and only if this is the tax exempt status
+     */
+    public boolean isTaxExempt() {
+        return getId() == TAX_EXEMPT_ID;
     }
 
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final OrderTaxStatus orderTaxStatus = (OrderTaxStatus) obj;
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final OrderTaxStatus orderTaxStatus = (OrderTaxStatus) other;
         return Objects.equals(name, orderTaxStatus.getName());
     }
 
+    @Override
+    protected int computeContentHash() {
+        return Objects.hashCode(name);
+    }
+
     @Override
     public String toString() {
         return "OrderTaxStatus[" +
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order;
+
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Defines a reusable accumulator that computes the totals of an order in
+ * fixed-point minor units (cents), so the totals are cent-exact and don't
+ * accumulate the {@code double} representation errors.
+ * <p>
+ * The rounding rules are:
+ * <ul>
+ *     <li>
+ *         The quantities are read with {@link #QUANTITY_SCALE} precision,
+ *         the prices and fees are read in cents and the discounts and tax
+ *         rates with {@link #RATE_SCALE} precision.
+ *     </li>
+ *     <li>
+ *         Each line amount, {@code quantity * unitPrice}, and each line
+ *         discount, {@code lineAmount * discount}, are rounded to cents
+ *         independently, as they are printed on the receipt.
+ *     </li>
+ *     <li>
+ *         The tax is computed once over the net subtotal, {@code subtotal -
+ *         discount}, and rounded to cents. The shipping fee is not taxed.
+ *     </li>
+ * </ul>
+ * All the roundings use the rounding mode given to the constructor.
+ * <p>
+ * Adding lines doesn't allocate, so a single instance can be reset and
+ * reused for every order of a scan. This class is not thread-safe.
+ */
+public final class OrderTotals {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the number of minor units (cents) of a monetary unit.
+     */
+    public static final long MINOR_UNITS = 100L;
+
+    /**
+     * Defines the scale of the fixed-point quantities, four decimals.
+     */
+    public static final long QUANTITY_SCALE = 10_000L;
+
+    /**
+     * Defines the scale of the fixed-point discounts and tax rates, six
+     * decimals.
+     */
+    public static final long RATE_SCALE = 1_000_000L;
+
+    /**
+     * Returns the given amount in minor units, rounded to the nearest one.
+     *
+     * @param amount amount to convert
+     *
+     * @return the given amount in minor units
+     */
+    public static long toMinorUnits(double amount) {
+        return toFixed(amount, MINOR_UNITS);
+    }
+
+    /**
+     * Returns the given minor units as an amount, to display it.
+     *
+     * @param minorUnits minor units to convert
+     *
+     * @return the given minor units as an amount
+     */
+    public static double toAmount(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS;
+    }
+
+    /**
+     * Returns the amount of a line, {@code quantity * unitPrice}, in minor
+     * units.
+     */
+    static long lineAmountOf(double quantity, double unitPrice, RoundingMode mode) {
+        final long fixedQuantity = toFixed(quantity, QUANTITY_SCALE);
+        final long fixedPrice = toFixed(unitPrice, MINOR_UNITS);
+
+        return divide(
+            Math.multiplyExact(fixedQuantity, fixedPrice),
+            QUANTITY_SCALE,
+            mode
+        );
+    }
+
+    /**
+     * Returns the discount of a line with the given amount, in minor units.
+     */
+    static long lineDiscountOf(long lineAmount, double discount, RoundingMode mode) {
+        final long fixedDiscount = toFixed(discount, RATE_SCALE);
+
+        return divide(
+            Math.multiplyExact(lineAmount, fixedDiscount),
+            RATE_SCALE,
+            mode
+        );
+    }
+
+    /**
+     * Returns the tax of an order with the given net subtotal, in minor units.
+     * See {@link #applyOrder(Order)} for the tax rules.
+     */
+    static long taxOf(
+        long netSubtotal,
+        OrderTaxStatus taxStatus,
+        double taxRate,
+        double taxes,
+        RoundingMode mode
+    ) {
+        final long fixedTaxRate = toFixed(taxRate, RATE_SCALE);
+
+        if (taxStatus != null && taxStatus.isTaxExempt()) {
+            return 0L;
+        }
+        if (fixedTaxRate != 0L) {
+            return divide(
+                Math.multiplyExact(netSubtotal, fixedTaxRate),
+                RATE_SCALE,
+                mode
+            );
+        }
+        return toMinorUnits(taxes);
+    }
+
+    private static long toFixed(double value, long scale) {
+        final double scaled = value * scale;
+
+        if (Double.isNaN(scaled) || Math.abs(scaled) >= Long.MAX_VALUE) {
+            final var msg = "Value out of fixed-point range: " + value;
+            throw new ArithmeticException(msg);
+        }
+        // Rounding the scaled value recovers the decimal written by the user,
+        // like 19.99 stored as 19.989999...
+        return Math.round(scaled);
+    }
+
+    /**
+     * Returns {@code dividend / divisor} rounded with the given mode. The
+     * divisor must be positive.
+     */
+    private static long divide(long dividend, long divisor, RoundingMode mode) {
+        final long quotient = dividend / divisor;
+        final long remainder = dividend % divisor;
+
+        if (remainder == 0) {
+            return quotient;
+        }
+        final int signum = dividend < 0 ? -1 : 1;
+        final long twiceRemainder = 2 * Math.abs(remainder);
+        final boolean awayFromZero = switch (mode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> signum > 0;
+            case FLOOR -> signum < 0;
+            case HALF_UP -> twiceRemainder >= divisor;
+            case HALF_DOWN -> twiceRemainder > divisor;
+            case HALF_EVEN -> twiceRemainder > divisor ||
+                              (twiceRemainder == divisor && (quotient & 1L) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+
+        return awayFromZero ? quotient + signum : quotient;
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final RoundingMode roundingMode;
+    private int lineCount;
+    private long subtotal;
+    private long discount;
+    private long tax;
+    private long shippingFee;
+
+    /**
+     * Creates an OrderTotals rounding with the {@link RoundingMode#HALF_EVEN}
+     * mode.
+     */
+    public OrderTotals() {
+        this(RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Creates an OrderTotals rounding with the given mode.
+     *
+     * @param roundingMode rounding mode to apply
+     *
+     * @throws RuntimeException if the rounding mode is
+     *                          {@link RoundingMode#UNNECESSARY}
+     */
+    public OrderTotals(RoundingMode roundingMode) {
+        if (roundingMode == RoundingMode.UNNECESSARY) {
+            final var msg = "The totals have to be rounded";
+            throw new RuntimeException(msg);
+        }
+        this.roundingMode = roundingMode;
+        reset();
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the sum of the line amounts before discounts, in minor units.
+     *
+     * @return the subtotal in minor units
+     */
+    public long getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * Returns the sum of the line discounts, in minor units.
+     *
+     * @return the discount in minor units
+     */
+    public long getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Returns the subtotal minus the discount, in minor units.
+     *
+     * @return the net subtotal in minor units
+     */
+    public long getNetSubtotal() {
+        return subtotal - discount;
+    }
+
+    /**
+     * Returns the tax applied by the last {@link #applyOrder(Order)} call, in
+     * minor units.
+     *
+     * @return the tax in minor units
+     */
+    public long getTax() {
+        return tax;
+    }
+
+    /**
+     * Returns the shipping fee applied by the last
+     * {@link #applyOrder(Order)} call, in minor units.
+     *
+     * @return the shipping fee in minor units
+     */
+    public long getShippingFee() {
+        return shippingFee;
+    }
+
+    /**
+     * Returns the net subtotal plus the tax and the shipping fee, in minor
+     * units.
+     *
+     * @return the grand total in minor units
+     */
+    public long getGrandTotal() {
+        return getNetSubtotal() + tax + shippingFee;
+    }
+
+    /**
+     * Clears the totals to start a new order.
+     *
+     * @return this object
+     */
+    public OrderTotals reset() {
+        lineCount = 0;
+        subtotal = 0L;
+        discount = 0L;
+        tax = 0L;
+        shippingFee = 0L;
+        return this;
+    }
+
+    /**
+     * Adds the given order line to the totals.
+     *
+     * @param detail order line to add
+     *
+     * @return this object
+     */
+    public OrderTotals addLine(OrderDetail detail) {
+        return addLine(
+            detail.getQuantity(),
+            detail.getUnitPrice(),
+            detail.getDiscount()
+        );
+    }
+
+    /**
+     * Adds a line with the given values to the totals.
+     *
+     * @param quantity  quantity of the line
+     * @param unitPrice unit price of the line
+     * @param discount  discount ratio of the line, like {@code 0.15} for 15%
+     *
+     * @return this object
+     *
+     * @throws ArithmeticException if the line amount overflows
+     */
+    public OrderTotals addLine(double quantity, double unitPrice, double discount) {
+        final long lineAmount = lineAmountOf(quantity, unitPrice, roundingMode);
+        final long lineDiscount = lineDiscountOf(lineAmount, discount, roundingMode);
+
+        subtotal = Math.addExact(subtotal, lineAmount);
+        this.discount = Math.addExact(this.discount, lineDiscount);
+        lineCount++;
+        return this;
+    }
+
+    /**
+     * Adds the given order lines to the totals.
+     *
+     * @param details order lines to add
+     *
+     * @return this object
+     */
+    public OrderTotals addLines(List<OrderDetail> details) {
+        // Indexed to not allocate an iterator per order
+        final int size = details.size();
+
+        for (int i = 0; i < size; i++) {
+            addLine(details.get(i));
+        }
+        return this;
+    }
+
+    /**
+     * Applies the tax and shipping fee of the given order to the lines added
+     * so far. It can be called again after adding more lines.
+     * <p>
+     * Orders with the tax exempt status are not taxed. Otherwise, if the
+     * order has a tax rate, the tax is the net subtotal by that rate,
+     * else the fixed taxes amount of the order is taken. Orders without a
+     * tax status are taxable.
+     *
+     * @param order order to apply
+     *
+     * @return this object
+     */
+    public OrderTotals applyOrder(Order order) {
+        tax = taxOf(
+            getNetSubtotal(),
+            order.getOrderTaxStatus(),
+            order.getTaxRate(),
+            order.getTaxes(),
+            roundingMode
+        );
+        shippingFee = toMinorUnits(order.getShippingFee());
+        return this;
+    }
+
+    /**
+     * Resets this object and computes the totals of the given order with the
+     * given lines.
+     *
+     * @param order   order to compute
+     * @param details lines of the order
+     *
+     * @return this object
+     */
+    public OrderTotals compute(Order order, List<OrderDetail> details) {
+        return reset().addLines(details).applyOrder(order);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTotals[" +
+               "lineCount=" + lineCount + ", " +
+               "subtotal=" + subtotal + ", " +
+               "discount=" + discount + ", " +
+               "tax=" + tax + ", " +
+               "shippingFee=" + shippingFee + ", " +
+               "grandTotal=" + getGrandTotal() +
+               "]";
+    }
+
+}
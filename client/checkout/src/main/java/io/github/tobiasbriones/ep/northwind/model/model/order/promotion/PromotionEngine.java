@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order.promotion;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IntKeyTable;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
+import io.github.tobiasbriones.ep.northwind.model.model.order.OrderDetail;
+import io.github.tobiasbriones.ep.northwind.model.model.product.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Defines an immutable engine that finds the best {@link PromotionRule} for
+ * an order line.
+ * <p>
+ * The rules are compiled into buckets indexed by product id and by product
+ * category code, plus a bucket of the rules for any product, so a line is
+ * only checked against the rules that can apply to its product. The rules of
+ * each bucket are sorted by discount in descending order and their
+ * conditions are stored in primitive arrays, so the first match of a bucket
+ * is its best one and the lookup doesn't allocate.
+ * <p>
+ * When many rules match a line, the one with the highest discount wins, and
+ * the one with the lowest id wins a tie.
+ */
+public final class PromotionEngine {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    private static final PromotionEngine EMPTY = compile(List.of());
+
+    private static final Comparator<PromotionRule> BEST_FIRST =
+        Comparator.comparingDouble(PromotionRule::getDiscount)
+                  .reversed()
+                  .thenComparingInt(PromotionRule::getId);
+
+    /**
+     * Returns an engine without rules.
+     *
+     * @return an engine without rules
+     */
+    public static PromotionEngine empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the given rules into a new engine.
+     *
+     * @param rules active rules
+     *
+     * @return a new engine with the given rules
+     */
+    public static PromotionEngine compile(Collection<PromotionRule> rules) {
+        final var byProduct = new IntKeyTable<RuleList>();
+        final var byCategory = new ArrayList<RuleList>();
+        final var anyProduct = new RuleList(PromotionRule.ANY_ID);
+
+        for (final var rule : rules) {
+            final int productId = rule.getProductId();
+            final int categoryCode = StringDictionary.PRODUCT_CATEGORIES.encode(
+                rule.getCategory()
+            );
+
+            if (productId != PromotionRule.ANY_ID) {
+                var list = byProduct.get(productId);
+
+                if (list == null) {
+                    list = new RuleList(productId);
+                    byProduct.put(productId, list);
+                }
+                list.rules.add(rule);
+            }
+            else if (categoryCode != StringDictionary.NO_CODE) {
+                while (byCategory.size() <= categoryCode) {
+                    byCategory.add(null);
+                }
+                if (byCategory.get(categoryCode) == null) {
+                    byCategory.set(categoryCode, new RuleList(categoryCode));
+                }
+                byCategory.get(categoryCode).rules.add(rule);
+            }
+            else {
+                anyProduct.rules.add(rule);
+            }
+        }
+        final var productBuckets = new IntKeyTable<Bucket>(byProduct.size());
+        final var categoryBuckets = new Bucket[byCategory.size()];
+
+        byProduct.forEach(list -> productBuckets.put(list.key, list.compile()));
+        for (int code = 0; code < categoryBuckets.length; code++) {
+            final var list = byCategory.get(code);
+            categoryBuckets[code] = list == null ? null : list.compile();
+        }
+        return new PromotionEngine(
+            productBuckets,
+            categoryBuckets,
+            anyProduct.compile(),
+            rules.size()
+        );
+    }
+
+    private static long epochDayOf(LocalDate date, long defaultValue) {
+        return date == null ? defaultValue : date.toEpochDay();
+    }
+
+    /**
+     * Collects the rules of a bucket while compiling.
+     */
+    private static final class RuleList {
+        private final int key;
+        private final List<PromotionRule> rules;
+
+        RuleList(int key) {
+            this.key = key;
+            this.rules = new ArrayList<>();
+        }
+
+        Bucket compile() {
+            final var sorted = rules.toArray(new PromotionRule[0]);
+
+            Arrays.sort(sorted, BEST_FIRST);
+            return new Bucket(sorted);
+        }
+    }
+
+    /**
+     * Defines the compiled rules of a product, category, or any product,
+     * sorted from the best discount. The conditions are laid out in parallel
+     * arrays.
+     */
+    private static final class Bucket {
+        private final PromotionRule[] rules;
+        private final int[] categoryCodes;
+        private final int[] customerIds;
+        private final double[] minQuantities;
+        private final long[] startDays;
+        private final long[] endDays;
+        private final double[] discounts;
+        private final int[] ruleIds;
+
+        Bucket(PromotionRule[] rules) {
+            final int size = rules.length;
+
+            this.rules = rules;
+            this.categoryCodes = new int[size];
+            this.customerIds = new int[size];
+            this.minQuantities = new double[size];
+            this.startDays = new long[size];
+            this.endDays = new long[size];
+            this.discounts = new double[size];
+            this.ruleIds = new int[size];
+            for (int i = 0; i < size; i++) {
+                final var rule = rules[i];
+
+                categoryCodes[i] = StringDictionary.PRODUCT_CATEGORIES.encode(
+                    rule.getCategory()
+                );
+                customerIds[i] = rule.getCustomerId();
+                minQuantities[i] = rule.getMinQuantity();
+                startDays[i] = epochDayOf(rule.getStartDate(), Long.MIN_VALUE);
+                endDays[i] = epochDayOf(rule.getEndDate(), Long.MAX_VALUE);
+                discounts[i] = rule.getDiscount();
+                ruleIds[i] = rule.getId();
+            }
+        }
+
+        /**
+         * Returns the best rule of this bucket matching the given line, if
+         * it's better than the given best rule so far.
+         */
+        PromotionRule find(
+            int categoryCode,
+            int customerId,
+            double quantity,
+            boolean hasDate,
+            long epochDay,
+            PromotionRule best
+        ) {
+            for (int i = 0; i < rules.length; i++) {
+                if (best != null && !isBetter(i, best)) {
+                    return best;
+                }
+                if (matches(i, categoryCode, customerId, quantity, hasDate, epochDay)) {
+                    return rules[i];
+                }
+            }
+            return best;
+        }
+
+        private boolean isBetter(int i, PromotionRule rule) {
+            final int comparison = Double.compare(discounts[i], rule.getDiscount());
+            return comparison > 0 || (comparison == 0 && ruleIds[i] < rule.getId());
+        }
+
+        private boolean matches(
+            int i,
+            int categoryCode,
+            int customerId,
+            double quantity,
+            boolean hasDate,
+            long epochDay
+        ) {
+            if (categoryCodes[i] != StringDictionary.NO_CODE &&
+                categoryCodes[i] != categoryCode) {
+                return false;
+            }
+            if (customerIds[i] != PromotionRule.ANY_ID && customerIds[i] != customerId) {
+                return false;
+            }
+            if (quantity < minQuantities[i]) {
+                return false;
+            }
+            if (!hasDate) {
+                // A line without date only gets the rules without window
+                return startDays[i] == Long.MIN_VALUE && endDays[i] == Long.MAX_VALUE;
+            }
+            return startDays[i] <= epochDay && epochDay <= endDays[i];
+        }
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final IntKeyTable<Bucket> productBuckets;
+    private final Bucket[] categoryBuckets;
+    private final Bucket anyProductBucket;
+    private final int size;
+
+    private PromotionEngine(
+        IntKeyTable<Bucket> productBuckets,
+        Bucket[] categoryBuckets,
+        Bucket anyProductBucket,
+        int size
+    ) {
+        this.productBuckets = productBuckets;
+        this.categoryBuckets = categoryBuckets;
+        this.anyProductBucket = anyProductBucket;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of rules of this engine.
+     *
+     * @return the number of rules of this engine
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the best rule for the given order line. The customer and date
+     * are taken from the order of the line, if any. The product is not
+     * loaded to find the rule, so the category of a product whose reference
+     * is not resolved is unknown, and only the rules of its id and the rules
+     * for any product apply.
+     *
+     * @param detail order line
+     *
+     * @return the best rule for the given line, or {@code null} if no rule
+     * applies
+     */
+    public PromotionRule findRule(OrderDetail detail) {
+        final var order = detail.getOrder();
+        final var customer = order == null ? null : order.getCustomerRef();
+        final var orderDate = order == null ? null : order.getOrderDate();
+        final var productRef = detail.getProductRef();
+        final var product = productRef == null ? null : productRef.getIfResolved();
+        int categoryCode = StringDictionary.NO_CODE;
+
+        if (product != null) {
+            final var category = product.getCategory();
+            categoryCode = StringDictionary.PRODUCT_CATEGORIES.codeOf(category);
+        }
+
+        return findRule(
+            productRef == null ? PromotionRule.ANY_ID : productRef.getId(),
+            categoryCode,
+            customer == null ? PromotionRule.ANY_ID : customer.getId(),
+            detail.getQuantity(),
+            orderDate == null ? null : orderDate.toLocalDate()
+        );
+    }
+
+    /**
+     * Returns the best rule for a line with the given values.
+     *
+     * @param product    product of the line
+     * @param customerId id of the customer, or {@link PromotionRule#ANY_ID} if
+     *                   it's unknown
+     * @param quantity   quantity of the line
+     * @param date       date of the order, or {@code null} if it's unknown
+     *
+     * @return the best rule for the given line, or {@code null} if no rule
+     * applies
+     */
+    public PromotionRule findRule(
+        Product product,
+        int customerId,
+        double quantity,
+        LocalDate date
+    ) {
+        if (product == null) {
+            return findRule(
+                PromotionRule.ANY_ID,
+                StringDictionary.NO_CODE,
+                customerId,
+                quantity,
+                date
+            );
+        }
+        return findRule(
+            product.getId(),
+            StringDictionary.PRODUCT_CATEGORIES.codeOf(product.getCategory()),
+            customerId,
+            quantity,
+            date
+        );
+    }
+
+    /**
+     * Returns the best rule for a line with the given values.
+     *
+     * @param productId    id of the product, or {@link PromotionRule#ANY_ID}
+     *                     if it's unknown
+     * @param categoryCode {@link StringDictionary#PRODUCT_CATEGORIES} code of
+     *                     the product category, or
+     *                     {@link StringDictionary#NO_CODE} if it's unknown
+     * @param customerId   id of the customer, or {@link PromotionRule#ANY_ID}
+     *                     if it's unknown
+     * @param quantity     quantity of the line
+     * @param date         date of the order, or {@code null} if it's unknown
+     *
+     * @return the best rule for the given line, or {@code null} if no rule
+     * applies
+     */
+    public PromotionRule findRule(
+        int productId,
+        int categoryCode,
+        int customerId,
+        double quantity,
+        LocalDate date
+    ) {
+        final boolean hasDate = date != null;
+        final long epochDay = hasDate ? date.toEpochDay() : 0L;
+        PromotionRule best = null;
+
+        if (productId != PromotionRule.ANY_ID) {
+            final var bucket = productBuckets.get(productId);
+
+            if (bucket != null) {
+                best = bucket.find(
+                    categoryCode,
+                    customerId,
+                    quantity,
+                    hasDate,
+                    epochDay,
+                    best
+                );
+            }
+        }
+        if (categoryCode >= 0 && categoryCode < categoryBuckets.length) {
+            final var bucket = categoryBuckets[categoryCode];
+
+            if (bucket != null) {
+                best = bucket.find(
+                    categoryCode,
+                    customerId,
+                    quantity,
+                    hasDate,
+                    epochDay,
+                    best
+                );
+            }
+        }
+        return anyProductBucket.find(
+            categoryCode,
+            customerId,
+            quantity,
+            hasDate,
+            epochDay,
+            best
+        );
+    }
+
+    /**
+     * Returns the discount ratio of the best rule for the given order line.
+     *
+     * @param detail order line
+     *
+     * @return the discount ratio for the given line, or {@code 0} if no rule
+     * applies
+     */
+    public double discountOf(OrderDetail detail) {
+        final var rule = findRule(detail);
+        return rule == null ? 0.0d : rule.getDiscount();
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionEngine[" +
+               "size=" + size +
+               "]";
+    }
+
+}
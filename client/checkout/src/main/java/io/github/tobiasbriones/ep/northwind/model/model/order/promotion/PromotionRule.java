@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order.promotion;
+
+import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+
+import java.time.LocalDate;
+
+/**
+ * Defines a PromotionRule that discounts the order lines matching all of its
+ * conditions: the product or product category, the customer, the minimum
+ * quantity of the line (quantity breaks), and the date window of the order.
+ * <p>
+ * A condition with the {@link #ANY_ID}, {@code null} category, or
+ * {@code null} date bound value matches every line.
+ */
+public final class PromotionRule extends IdentifiableRecord {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the product or customer id that matches any product or
+     * customer.
+     */
+    public static final int ANY_ID = -1;
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int productId;
+    private final String category;
+    private final int customerId;
+    private final double minQuantity;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final double discount;
+
+    PromotionRule(
+        int id,
+        int productId,
+        String category,
+        int customerId,
+        double minQuantity,
+        LocalDate startDate,
+        LocalDate endDate,
+        double discount
+    ) {
+        super(id);
+        this.productId = productId;
+        this.category = category;
+        this.customerId = customerId;
+        this.minQuantity = minQuantity;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.discount = discount;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public double getMinQuantity() {
+        return minQuantity;
+    }
+
+    /**
+     * Returns the first day the rule applies, inclusive, or {@code null} if
+     * it has no start.
+     *
+     * @return the first day the rule applies
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Returns the last day the rule applies, inclusive, or {@code null} if it
+     * has no end.
+     *
+     * @return the last day the rule applies
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Returns the discount ratio of the rule, like {@code 0.15} for 15%.
+     *
+     * @return the discount ratio of the rule
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionRule[" +
+               "productId=" + productId + ", " +
+               "category=" + category + ", " +
+               "customerId=" + customerId + ", " +
+               "minQuantity=" + minQuantity + ", " +
+               "startDate=" + startDate + ", " +
+               "endDate=" + endDate + ", " +
+               "discount=" + discount + ", " +
+               "] " + super.toString();
+    }
+
+}
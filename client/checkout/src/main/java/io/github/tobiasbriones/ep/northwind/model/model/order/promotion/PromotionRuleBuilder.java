@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.order.promotion;
+
+import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
+
+import java.time.LocalDate;
+
+/**
+ * Defines a PromotionRuleBuilder for the {@link PromotionRule} model.
+ */
+public final class PromotionRuleBuilder extends AbstractBuilder<PromotionRule> {
+
+    private int productId;
+    private String category;
+    private int customerId;
+    private double minQuantity;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double discount;
+
+    public PromotionRuleBuilder(int id) {
+        super(id);
+        this.productId = PromotionRule.ANY_ID;
+        this.category = null;
+        this.customerId = PromotionRule.ANY_ID;
+        this.minQuantity = 0.0d;
+        this.startDate = null;
+        this.endDate = null;
+        this.discount = 0.0d;
+    }
+
+    //                                                                        //
+    //                      ACCESSOR AND MUTATOR METHODS                      //
+    //                                                                        //
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public PromotionRuleBuilder setProductId(int value) {
+        productId = value;
+        return this;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public PromotionRuleBuilder setCategory(String value) {
+        category = StringDictionary.PRODUCT_CATEGORIES.intern(value);
+        return this;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public PromotionRuleBuilder setCustomerId(int value) {
+        customerId = value;
+        return this;
+    }
+
+    public double getMinQuantity() {
+        return minQuantity;
+    }
+
+    public PromotionRuleBuilder setMinQuantity(double value) {
+        minQuantity = value;
+        return this;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public PromotionRuleBuilder setStartDate(LocalDate value) {
+        startDate = value;
+        return this;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public PromotionRuleBuilder setEndDate(LocalDate value) {
+        endDate = value;
+        return this;
+    }
+
+    public double getDiscount() {
+        return discount;
+    }
+
+    public PromotionRuleBuilder setDiscount(double value) {
+        discount = value;
+        return this;
+    }
+    //                  END OF ACCESSOR AND MUTATOR METHODS                   //
+
+    @Override
+    public String toString() {
+        return "PromotionRuleBuilder[" +
+               "productId=" + productId + ", " +
+               "category=" + category + ", " +
+               "customerId=" + customerId + ", " +
+               "minQuantity=" + minQuantity + ", " +
+               "startDate=" + startDate + ", " +
+               "endDate=" + endDate + ", " +
+               "discount=" + discount + ", " +
+               "] " + super.toString();
+    }
+
+    @Override
+    public PromotionRule build() {
+        return new PromotionRule(
+            getId(),
+            productId,
+            category,
+            customerId,
+            minQuantity,
+            startDate,
+            endDate,
+            discount
+        );
+    }
+
+}
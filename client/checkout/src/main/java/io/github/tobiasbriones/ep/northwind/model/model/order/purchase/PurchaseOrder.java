@@ -137,10 +137,14 @@ public final class PurchaseOrder extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final PurchaseOrder purchaseOrder = (PurchaseOrder) other;
+        return isEqualsTo(purchaseOrder);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             supplier,
             createdBy,
             status,
@@ -159,18 +163,6 @@ public final class PurchaseOrder extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final PurchaseOrder purchaseOrder = (PurchaseOrder) obj;
-        return isEqualsTo(purchaseOrder);
-    }
-
     @Override
     public String toString() {
         return "PurchaseOrder[" +
@@ -214,8 +206,7 @@ public final class PurchaseOrder extends IdentifiableRecord {
     }
 
     private boolean isEqualsTo(PurchaseOrder purchaseOrder) {
-        return getId() == purchaseOrder.getId() &&
-               checkEqualsPart1(purchaseOrder) &&
+        return checkEqualsPart1(purchaseOrder) &&
                checkEqualsPart2(purchaseOrder);
     }
 
@@ -85,7 +85,7 @@ public final class PurchaseOrderBuilder extends AbstractBuilder<PurchaseOrder> {
     }
 
     public PurchaseOrderBuilder setStatus(PurchaseOrderStatus value) {
-        status = value;
+        status = PurchaseOrderStatus.REGISTRY.intern(value);
         return this;
     }
 
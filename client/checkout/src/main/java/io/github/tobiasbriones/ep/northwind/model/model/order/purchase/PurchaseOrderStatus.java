@@ -13,11 +13,42 @@
 package io.github.tobiasbriones.ep.northwind.model.model.order.purchase;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
+import io.github.tobiasbriones.ep.northwind.model.model.StatusRegistry;
 
 import java.util.Objects;
 
 public final class PurchaseOrderStatus extends IdentifiableRecord {
 
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Registry of the canonical PurchaseOrderStatus instances.
+     */
+    public static final StatusRegistry<PurchaseOrderStatus> REGISTRY =
+        new StatusRegistry<>(PurchaseOrderStatus::new, PurchaseOrderStatus::getStatus);
+
+    /**
+     * Returns the canonical PurchaseOrderStatus of the given id and status.
+     *
+     * @param id   id of the status
+     * @param status status of the status
+     *
+     * @return the canonical PurchaseOrderStatus of the given id and status
+     */
+    public static PurchaseOrderStatus of(int id, String status) {
+        return REGISTRY.intern(id, status);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
     private final String status;
 
     public PurchaseOrderStatus(int id, String status) {
@@ -30,22 +61,14 @@ public final class PurchaseOrderStatus extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
-        return Objects.hash(getId(), status);
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final PurchaseOrderStatus purchaseOrderStatus = (PurchaseOrderStatus) other;
+        return Objects.equals(status, purchaseOrderStatus.status);
     }
 
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final PurchaseOrderStatus purchaseOrderStatus = (PurchaseOrderStatus) obj;
-        return getId() == purchaseOrderStatus.getId() &&
-               Objects.equals(status, purchaseOrderStatus.status);
+    protected int computeContentHash() {
+        return Objects.hashCode(status);
     }
 
     @Override
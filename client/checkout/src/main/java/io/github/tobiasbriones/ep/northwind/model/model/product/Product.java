@@ -14,6 +14,8 @@ package io.github.tobiasbriones.ep.northwind.model.model.product;
 
 import io.github.tobiasbriones.ep.northwind.model.model.IdentifiableRecord;
 
+import java.util.Objects;
+
 public final class Product extends IdentifiableRecord {
 
     private final String code;
@@ -114,6 +116,31 @@ public final class Product extends IdentifiableRecord {
         return supplierIds;
     }
 
+    @Override
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Product product = (Product) other;
+        return isEqualsTo(product);
+    }
+
+    @Override
+    protected int computeContentHash() {
+        return Objects.hash(
+            code,
+            name,
+            description,
+            standardCost,
+            listPrice,
+            reorderLevel,
+            targetLevel,
+            quantityPerUnit,
+            discontinued,
+            minimumReorderQuantity,
+            category,
+            attachments,
+            supplierIds
+        );
+    }
+
     @Override
     public String toString() {
         return "Product[" +
@@ -133,4 +160,28 @@ public final class Product extends IdentifiableRecord {
                "] " + super.toString();
     }
 
+    private boolean checkEqualsPart1(Product product) {
+        return Double.compare(product.getStandardCost(), standardCost) == 0 &&
+               Double.compare(product.getListPrice(), listPrice) == 0 &&
+               reorderLevel == product.getReorderLevel() &&
+               targetLevel == product.getTargetLevel() &&
+               discontinued == product.isDiscontinued() &&
+               minimumReorderQuantity == product.getMinimumReorderQuantity();
+    }
+
+    private boolean checkEqualsPart2(Product product) {
+        return Objects.equals(code, product.getCode()) &&
+               Objects.equals(name, product.getName()) &&
+               Objects.equals(description, product.getDescription()) &&
+               Objects.equals(quantityPerUnit, product.getQuantityPerUnit()) &&
+               Objects.equals(category, product.getCategory()) &&
+               Objects.equals(attachments, product.getAttachments()) &&
+               Objects.equals(supplierIds, product.getSupplierIds());
+    }
+
+    private boolean isEqualsTo(Product product) {
+        return checkEqualsPart1(product) &&
+               checkEqualsPart2(product);
+    }
+
 }
@@ -13,6 +13,7 @@
 package io.github.tobiasbriones.ep.northwind.model.model.product;
 
 import io.github.tobiasbriones.ep.northwind.model.model.AbstractBuilder;
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
 
 public final class ProductBuilder extends AbstractBuilder<Product> {
 
@@ -146,7 +147,7 @@ public final class ProductBuilder extends AbstractBuilder<Product> {
     }
 
     public ProductBuilder setCategory(String value) {
-        category = value;
+        category = StringDictionary.PRODUCT_CATEGORIES.intern(value);
         return this;
     }
 
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020 Tobias Briones. All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ *
+ * This file is part of Example Project: Apps for the MySQL Northwind DB.
+ *
+ * This source code is licensed under the MIT License found in the
+ * LICENSE file in the root directory of this source tree or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package io.github.tobiasbriones.ep.northwind.model.model.product;
+
+import io.github.tobiasbriones.ep.northwind.model.model.StringDictionary;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Defines an immutable columnar table of products. Each numeric field of
+ * {@link Product} is stored in its own primitive array, so a scan over a
+ * million products for margin or reorder checks reads a few contiguous
+ * arrays instead of a million scattered objects. The {@link Product}
+ * instances are materialized on demand with {@link #get(int)}.
+ * <p>
+ * The rows are sorted by the product id. The categories are stored as
+ * their {@link StringDictionary#PRODUCT_CATEGORIES} codes so the products
+ * can be grouped by category without comparing strings.
+ */
+public final class ProductTable {
+
+    //                                                                        //
+    //                                                                        //
+    //                                 CLASS                                  //
+    //                                                                        //
+    //                                                                        //
+
+    /**
+     * Defines the row returned for the ids that are not in the table.
+     */
+    public static final int NO_ROW = -1;
+
+    /**
+     * Returns a new table with the given products.
+     *
+     * @param products products of the table
+     *
+     * @return a new table with the given products
+     */
+    public static ProductTable of(Collection<Product> products) {
+        final var sorted = products.toArray(new Product[0]);
+
+        Arrays.sort(sorted, Comparator.comparingInt(Product::getId));
+        return new ProductTable(sorted);
+    }
+
+    //                                                                        //
+    //                                                                        //
+    //                                INSTANCE                                //
+    //                                                                        //
+    //                                                                        //
+
+    private final int[] ids;
+    private final double[] standardCosts;
+    private final double[] listPrices;
+    private final int[] reorderLevels;
+    private final int[] targetLevels;
+    private final int[] minimumReorderQuantities;
+    private final boolean[] discontinued;
+    private final String[] codes;
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] quantitiesPerUnit;
+    private final int[] categoryCodes;
+    private final String[] attachments;
+    private final String[] supplierIds;
+
+    private ProductTable(Product[] products) {
+        final int size = products.length;
+
+        ids = new int[size];
+        standardCosts = new double[size];
+        listPrices = new double[size];
+        reorderLevels = new int[size];
+        targetLevels = new int[size];
+        minimumReorderQuantities = new int[size];
+        discontinued = new boolean[size];
+        codes = new String[size];
+        names = new String[size];
+        descriptions = new String[size];
+        quantitiesPerUnit = new String[size];
+        categoryCodes = new int[size];
+        attachments = new String[size];
+        supplierIds = new String[size];
+        for (int row = 0; row < size; row++) {
+            final var product = products[row];
+
+            ids[row] = product.getId();
+            standardCosts[row] = product.getStandardCost();
+            listPrices[row] = product.getListPrice();
+            reorderLevels[row] = product.getReorderLevel();
+            targetLevels[row] = product.getTargetLevel();
+            minimumReorderQuantities[row] = product.getMinimumReorderQuantity();
+            discontinued[row] = product.isDiscontinued();
+            codes[row] = product.getCode();
+            names[row] = product.getName();
+            descriptions[row] = product.getDescription();
+            quantitiesPerUnit[row] = product.getQuantityPerUnit();
+            categoryCodes[row] = StringDictionary.PRODUCT_CATEGORIES.encode(
+                product.getCategory()
+            );
+            attachments[row] = product.getAttachments();
+            supplierIds[row] = product.getSupplierIds();
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the row of the product with the given id, or {@link #NO_ROW} if
+     * it's not in this table.
+     *
+     * @param id id of the product
+     *
+     * @return the row of the product with the given id
+     */
+    public int rowOf(int id) {
+        final int row = Arrays.binarySearch(ids, id);
+        return row < 0 ? NO_ROW : row;
+    }
+
+    /**
+     * Materializes the product of the given row.
+     *
+     * @param row row of the product
+     *
+     * @return the product of the given row
+     */
+    public Product get(int row) {
+        return new Product(
+            ids[row],
+            codes[row],
+            names[row],
+            descriptions[row],
+            standardCosts[row],
+            listPrices[row],
+            reorderLevels[row],
+            targetLevels[row],
+            quantitiesPerUnit[row],
+            discontinued[row],
+            minimumReorderQuantities[row],
+            StringDictionary.PRODUCT_CATEGORIES.decode(categoryCodes[row]),
+            attachments[row],
+            supplierIds[row]
+        );
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public String getCode(int row) {
+        return codes[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getCategory(int row) {
+        return StringDictionary.PRODUCT_CATEGORIES.decode(categoryCodes[row]);
+    }
+
+    /**
+     * Returns the {@link StringDictionary#PRODUCT_CATEGORIES} code of the
+     * category of the product of the given row.
+     *
+     * @param row row of the product
+     *
+     * @return the category code of the product of the given row
+     */
+    public int getCategoryCode(int row) {
+        return categoryCodes[row];
+    }
+
+    public double getStandardCost(int row) {
+        return standardCosts[row];
+    }
+
+    public double getListPrice(int row) {
+        return listPrices[row];
+    }
+
+    public int getReorderLevel(int row) {
+        return reorderLevels[row];
+    }
+
+    public int getTargetLevel(int row) {
+        return targetLevels[row];
+    }
+
+    public int getMinimumReorderQuantity(int row) {
+        return minimumReorderQuantities[row];
+    }
+
+    public boolean isDiscontinued(int row) {
+        return discontinued[row];
+    }
+
+    /**
+     * Returns the rows of the active products whose margin over the list
+     * price, {@code (listPrice - standardCost) / listPrice}, is below the
+     * given ratio. A product without list price has no margin.
+     *
+     * @param minMargin min margin ratio, like {@code 0.2} for 20%
+     *
+     * @return the rows of the products below the given margin, in ascending
+     * order
+     */
+    public int[] findRowsWithMarginBelow(double minMargin) {
+        final int[] rows = new int[ids.length];
+        int count = 0;
+
+        for (int row = 0; row < ids.length; row++) {
+            final double price = listPrices[row];
+
+            // Compared without dividing to skip the zero price special case
+            if (!discontinued[row] && price - standardCosts[row] < minMargin * price) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns the rows of the active products whose stock is at or below
+     * their reorder level.
+     *
+     * @param stockOfId function returning the stock of the product with the
+     *                  given id
+     *
+     * @return the rows of the products to reorder, in ascending order
+     */
+    public int[] findRowsToReorder(IntUnaryOperator stockOfId) {
+        final int[] rows = new int[ids.length];
+        int count = 0;
+
+        for (int row = 0; row < ids.length; row++) {
+            if (!discontinued[row] &&
+                stockOfId.applyAsInt(ids[row]) <= reorderLevels[row]) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Returns the quantity to reorder for the product of the given row to
+     * reach its target level, at least its minimum reorder quantity.
+     *
+     * @param row   row of the product
+     * @param stock current stock of the product
+     *
+     * @return the quantity to reorder, or {@code 0} if the stock already
+     * reaches the target level
+     */
+    public int getReorderQuantity(int row, int stock) {
+        final int missing = targetLevels[row] - stock;
+
+        if (missing <= 0) {
+            return 0;
+        }
+        return Math.max(missing, minimumReorderQuantities[row]);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductTable[" +
+               "size=" + ids.length +
+               "]";
+    }
+
+}
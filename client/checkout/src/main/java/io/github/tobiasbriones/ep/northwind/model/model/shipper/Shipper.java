@@ -151,10 +151,14 @@ public final class Shipper extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Shipper shipper = (Shipper) other;
+        return isEqualsTo(shipper);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             company,
             lastName,
             firstName,
@@ -175,18 +179,6 @@ public final class Shipper extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final Shipper shipper = (Shipper) obj;
-        return isEqualsTo(shipper);
-    }
-
     @Override
     public String toString() {
         return "Customer[" +
@@ -238,8 +230,7 @@ public final class Shipper extends IdentifiableRecord {
 
     private boolean isEqualsTo(Shipper shipper) {
         // Create several methods for reducing the cyclomatic complexity
-        return getId() == shipper.getId() &&
-               checkEqualsPart1(shipper) &&
+        return checkEqualsPart1(shipper) &&
                checkEqualsPart2(shipper) &&
                checkEqualsPart3(shipper);
     }
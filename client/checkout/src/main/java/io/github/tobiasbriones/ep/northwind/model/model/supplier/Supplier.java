@@ -151,10 +151,14 @@ public final class Supplier extends IdentifiableRecord {
     }
 
     @Override
-    public int hashCode() {
-        //noinspection ObjectInstantiationInEqualsHashCode
+    protected boolean hasEqualContent(IdentifiableRecord other) {
+        final Supplier supplier = (Supplier) other;
+        return isEqualsTo(supplier);
+    }
+
+    @Override
+    protected int computeContentHash() {
         return Objects.hash(
-            getId(),
             company,
             lastName,
             firstName,
@@ -175,18 +179,6 @@ public final class Supplier extends IdentifiableRecord {
         );
     }
 
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        final Supplier supplier = (Supplier) obj;
-        return isEqualsTo(supplier);
-    }
-
     @Override
     public String toString() {
         return "Customer[" +
@@ -238,8 +230,7 @@ public final class Supplier extends IdentifiableRecord {
 
     private boolean isEqualsTo(Supplier supplier) {
         // Create several methods for reducing the cyclomatic complexity
-        return getId() == supplier.getId() &&
-               checkEqualsPart1(supplier) &&
+        return checkEqualsPart1(supplier) &&
                checkEqualsPart2(supplier) &&
                checkEqualsPart3(supplier);
     }
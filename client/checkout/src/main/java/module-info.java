@@ -1,5 +1,6 @@
 module io.github.tobiasbriones.ep.northwind {
     requires javafx.controls;
+    requires java.net.http;
     requires jdk.internal.vm.compiler;
     exports io.github.tobiasbriones.ep.northwind;
 }